@@ -8,8 +8,13 @@ import org.slf4j.LoggerFactory;
 import org.slf4j.event.Level;
 
 import java.lang.invoke.MethodHandles;
+import java.time.Duration;
 import java.time.temporal.TemporalUnit;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 import java.util.function.Predicate;
 
@@ -59,6 +64,29 @@ public class APIMethodPoller {
         return this;
     }
 
+    /**
+     * Enables exponential backoff of the repetition interval for the api calling
+     *
+     * @param multiplier         interval multiplier, should be at least 1
+     * @param maxPollingInterval the upper bound of the repetition interval
+     * @return APIMethodPoller object
+     */
+    public APIMethodPoller withBackoff(double multiplier, Duration maxPollingInterval) {
+        this.actionPoller.withBackoff(multiplier, maxPollingInterval);
+        return this;
+    }
+
+    /**
+     * Randomizes the repetition interval for the api calling by the given factor
+     *
+     * @param jitter randomization factor from 0 to 1
+     * @return APIMethodPoller object
+     */
+    public APIMethodPoller withJitter(double jitter) {
+        this.actionPoller.withJitter(jitter);
+        return this;
+    }
+
     /**
      * Sets the logging strategy
      *
@@ -111,6 +139,29 @@ public class APIMethodPoller {
      * @return response if condition successful, otherwise null
      */
     public Optional<Response> execute() {
+        ConditionalLoggingOutputStream outputStream = prepare();
+        return complete(actionPoller.execute(), outputStream);
+    }
+
+    /**
+     * Starts an api calling repetition with a condition without blocking the current thread. The api calls are made in
+     * the dedicated threads, so slow endpoints don't hold the shared poller threads. Cancel the future to stop the repetition
+     *
+     * @return future of the response if condition successful, otherwise of the empty optional
+     */
+    public CompletableFuture<Optional<Response>> executeAsync() {
+        ConditionalLoggingOutputStream outputStream = prepare();
+        CompletableFuture<Optional<Response>> polling = actionPoller.executeAsync(CallExecutor.INSTANCE);
+        CompletableFuture<Optional<Response>> result = polling.thenApply(maybeResponse -> complete(maybeResponse, outputStream));
+        result.whenComplete((maybeResponse, e) -> {
+            if (result.isCancelled()) {
+                polling.cancel(true);
+            }
+        });
+        return result;
+    }
+
+    private ConditionalLoggingOutputStream prepare() {
         if (logStrategy == null) {
             logStrategy = LogStrategy.ALL;
         }
@@ -119,14 +170,16 @@ public class APIMethodPoller {
 
         outputStream.setLogCondition(logCondition);
 
-        Optional<Response> maybeResponse = actionPoller.task(() -> {
+        actionPoller.task(() -> {
                     method.request.noFilters();
                     outputStream.setBytesOfStreamInvalid();
                     return method.callAPI(outputStream);
                 })
-                .peek(outputStream::conditionLogging)
-                .execute();
+                .peek(outputStream::conditionLogging);
+        return outputStream;
+    }
 
+    private Optional<Response> complete(Optional<Response> maybeResponse, ConditionalLoggingOutputStream outputStream) {
         if (LogStrategy.LAST_ONLY.equals(logStrategy) && maybeResponse.isEmpty()) {
             outputStream.flush();
         }
@@ -155,4 +208,21 @@ public class APIMethodPoller {
         }
         return result;
     }
+
+    /**
+     * Threads of the asynchronous api calls, created on demand and released when idle
+     */
+    private static final class CallExecutor {
+
+        private static final ExecutorService INSTANCE = create();
+
+        private static ExecutorService create() {
+            AtomicInteger threadNumber = new AtomicInteger();
+            return Executors.newCachedThreadPool(runnable -> {
+                Thread thread = new Thread(runnable, "api-poller-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
 }
@@ -60,6 +60,7 @@ import com.qaprosoft.carina.core.foundation.utils.R;
 import io.restassured.RestAssured;
 import io.restassured.config.RestAssuredConfig;
 import io.restassured.config.SSLConfig;
+import io.restassured.filter.Filter;
 import io.restassured.filter.log.LogDetail;
 import io.restassured.filter.log.RequestLoggingFilter;
 import io.restassured.filter.log.ResponseLoggingFilter;
@@ -79,12 +80,20 @@ public abstract class AbstractApiMethod extends HttpClient {
     private boolean logRequest = Configuration.getBoolean(Parameter.LOG_ALL_JSON);
     private boolean logResponse = Configuration.getBoolean(Parameter.LOG_ALL_JSON);
     private boolean ignoreSSL = Configuration.getBoolean(Parameter.IGNORE_SSL);
+    private final RequestSpecPrototype prototype;
 
     public AbstractApiMethod() {
         init(getClass());
         bodyContent = new StringBuilder();
-        request = given();
-        initContentTypeFromAnnotation();
+        if (ContextResolverChain.resolvePrototypeRequestSpec(getClass())) {
+            prototype = RequestSpecPrototype.of(getClass());
+            request = given().spec(prototype.getSpecification());
+            contentTypeEnum = prototype.getContentTypeEnum();
+        } else {
+            prototype = null;
+            request = given();
+            initContentTypeFromAnnotation();
+        }
         replaceUrlPlaceholders();
     }
 
@@ -100,7 +109,11 @@ public abstract class AbstractApiMethod extends HttpClient {
         String contentType = ContextResolverChain.resolveContentType(this.getClass())
                 .orElse(ContentTypeEnum.JSON.getMainStringValue());
         this.request.contentType(contentType);
-        this.contentTypeEnum = Arrays.stream(ContentTypeEnum.values())
+        this.contentTypeEnum = resolveContentTypeEnum(contentType);
+    }
+
+    static ContentTypeEnum resolveContentTypeEnum(String contentType) {
+        return Arrays.stream(ContentTypeEnum.values())
                 .filter(type -> ArrayUtils.contains(type.getStringValues(), contentType))
                 .findFirst()
                 .orElse(ContentTypeEnum.NA);
@@ -217,46 +230,76 @@ public abstract class AbstractApiMethod extends HttpClient {
 
     private void initLogging(PrintStream ps) {
         if (logRequest) {
-            Set<String> headers = ContextResolverChain.resolveHiddenRequestHeadersInLogs(this.getClass())
-                    .orElse(Collections.emptySet());
-            RequestLoggingFilter fHeaders = new RequestLoggingFilter(LogDetail.HEADERS, true, ps, true, headers);
-
-            RequestLoggingFilter fCookies = new RequestLoggingFilter(LogDetail.COOKIES, ps);
-            RequestLoggingFilter fParams = new RequestLoggingFilter(LogDetail.PARAMS, ps);
-            RequestLoggingFilter fMethod = new RequestLoggingFilter(LogDetail.METHOD, ps);
-            RequestLoggingFilter fUri = new RequestLoggingFilter(LogDetail.URI, ps);
-
-            RequestLoggingFilter fBody = ContextResolverChain.resolveHiddenRequestBodyPartsInLogs(this.getClass())
-                    .<RequestLoggingFilter>map(paths -> new CarinaRequestBodyLoggingFilter(true, ps, paths, contentTypeEnum))
-                    .orElseGet(() -> new RequestLoggingFilter(LogDetail.BODY, ps));
-            request.filters(fMethod, fUri, fParams, fCookies, fHeaders, fBody);
+            request.filters(createRequestLoggingFilters(this.getClass(), ps, contentTypeEnum));
         }
 
         if (logResponse) {
-            ResponseLoggingFilter fStatus = new ResponseLoggingFilter(LogDetail.STATUS, ps);
-            ResponseLoggingFilter fHeaders = new ResponseLoggingFilter(LogDetail.HEADERS, ps);
-            ResponseLoggingFilter fCookies = new ResponseLoggingFilter(LogDetail.COOKIES, ps);
-
-            ResponseLoggingFilter fBody = ContextResolverChain.resolveHiddenResponseBodyPartsInLogs(this.getClass())
-                    .<ResponseLoggingFilter>map(paths -> new CarinaResponseBodyLoggingFilter(true, ps, Matchers.any(Integer.class), paths, contentTypeEnum))
-                    .orElseGet(() -> new ResponseLoggingFilter(LogDetail.BODY, ps));
-            request.filters(fBody, fCookies, fHeaders, fStatus);
+            request.filters(createResponseLoggingFilters(this.getClass(), ps, contentTypeEnum));
         }
     }
 
+    private void initLogging(RequestSpecPrototype prototype) {
+        if (logRequest) {
+            request.filters(prototype.getRequestLoggingFilters());
+        }
+
+        if (logResponse) {
+            request.filters(prototype.getResponseLoggingFilters());
+        }
+    }
+
+    static List<Filter> createRequestLoggingFilters(Class<?> clazz, PrintStream ps, ContentTypeEnum contentTypeEnum) {
+        Set<String> headers = ContextResolverChain.resolveHiddenRequestHeadersInLogs(clazz)
+                .orElse(Collections.emptySet());
+        RequestLoggingFilter fHeaders = new RequestLoggingFilter(LogDetail.HEADERS, true, ps, true, headers);
+
+        RequestLoggingFilter fCookies = new RequestLoggingFilter(LogDetail.COOKIES, ps);
+        RequestLoggingFilter fParams = new RequestLoggingFilter(LogDetail.PARAMS, ps);
+        RequestLoggingFilter fMethod = new RequestLoggingFilter(LogDetail.METHOD, ps);
+        RequestLoggingFilter fUri = new RequestLoggingFilter(LogDetail.URI, ps);
+
+        RequestLoggingFilter fBody = ContextResolverChain.resolveHiddenRequestBodyPartsInLogs(clazz)
+                .<RequestLoggingFilter>map(paths -> new CarinaRequestBodyLoggingFilter(true, ps, paths, contentTypeEnum))
+                .orElseGet(() -> new RequestLoggingFilter(LogDetail.BODY, ps));
+        return List.of(fMethod, fUri, fParams, fCookies, fHeaders, fBody);
+    }
+
+    static List<Filter> createResponseLoggingFilters(Class<?> clazz, PrintStream ps, ContentTypeEnum contentTypeEnum) {
+        ResponseLoggingFilter fStatus = new ResponseLoggingFilter(LogDetail.STATUS, ps);
+        ResponseLoggingFilter fHeaders = new ResponseLoggingFilter(LogDetail.HEADERS, ps);
+        ResponseLoggingFilter fCookies = new ResponseLoggingFilter(LogDetail.COOKIES, ps);
+
+        ResponseLoggingFilter fBody = ContextResolverChain.resolveHiddenResponseBodyPartsInLogs(clazz)
+                .<ResponseLoggingFilter>map(paths -> new CarinaResponseBodyLoggingFilter(true, ps, Matchers.any(Integer.class), paths, contentTypeEnum))
+                .orElseGet(() -> new ResponseLoggingFilter(LogDetail.BODY, ps));
+        return List.of(fBody, fCookies, fHeaders, fStatus);
+    }
+
     public Response callAPI() {
-        return callAPI(new LoggingOutputStream(LOGGER, Level.INFO));
+        if (logRequest || logResponse) {
+            return callAPI(new LoggingOutputStream(LOGGER, Level.INFO));
+        }
+        // logging filters are not needed, so there is no need in the stream either
+        return callAPI(null);
     }
 
     Response callAPI(LoggingOutputStream outputStream) {
         if (ignoreSSL) {
-            ignoreSSLCerts();
+            if (prototype != null) {
+                request = request.config(prototype.getIgnoreSSLConfig());
+            } else {
+                ignoreSSLCerts();
+            }
         }
 
         if (bodyContent.length() != 0) {
             request.body(bodyContent.toString());
         }
 
+        if (prototype != null) {
+            return callAPI(prototype, outputStream);
+        }
+
         PrintStream ps = null;
         if (logRequest || logResponse) {
             ps = new PrintStream(outputStream);
@@ -273,6 +316,25 @@ public abstract class AbstractApiMethod extends HttpClient {
         return rs;
     }
 
+    private Response callAPI(RequestSpecPrototype prototype, LoggingOutputStream outputStream) {
+        boolean logging = logRequest || logResponse;
+        if (logging) {
+            prototype.bind(outputStream);
+            initLogging(prototype);
+        }
+
+        Response rs;
+        try {
+            rs = HttpClient.send(request, methodPath, methodType);
+        } finally {
+            if (logging) {
+                prototype.unbind();
+                outputStream.close();
+            }
+        }
+        return rs;
+    }
+
     public void expectInResponse(Matcher<?> matcher) {
         request.expect().body(matcher);
     }
@@ -315,6 +377,10 @@ public abstract class AbstractApiMethod extends HttpClient {
     }
 
     public void ignoreSSLCerts() {
+        request = request.config(createIgnoreSSLConfig());
+    }
+
+    static RestAssuredConfig createIgnoreSSLConfig() {
         SSLContext sslContext = null;
         try {
             sslContext = SSLContext.getInstance("TLS");
@@ -334,8 +400,7 @@ public abstract class AbstractApiMethod extends HttpClient {
         sslConfig = sslConfig.x509HostnameVerifier(new NullHostnameVerifier());
 
         RestAssuredConfig cfg = new RestAssuredConfig();
-        cfg = cfg.sslConfig(sslConfig);
-        request = request.config(cfg);
+        return cfg.sslConfig(sslConfig);
     }
 
     public void setSSLContext(SSLContext sslContext) {
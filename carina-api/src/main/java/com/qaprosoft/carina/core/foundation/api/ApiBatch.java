@@ -0,0 +1,195 @@
+/*******************************************************************************
+ * Copyright 2020-2022 Zebrunner Inc (https://www.zebrunner.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.core.foundation.api;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.time.temporal.TemporalUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.restassured.response.Response;
+
+/**
+ * Executes a batch of api methods concurrently and collects their responses in the order of the methods.
+ * Calls run on virtual threads when the runtime supports them, otherwise on a fixed thread pool.
+ * Every call is logged through its own logging stream, so request/response logs of different calls are not mixed.
+ * Methods should be completely prepared before the batch execution: properties overridden for the current test only
+ * are not visible in the batch threads.
+ *
+ * <pre>
+ * ApiBatchResult result = ApiBatch.of(methods)
+ *         .parallelism(10)
+ *         .execute();
+ * </pre>
+ */
+public class ApiBatch {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+    private final List<AbstractApiMethod> methods;
+    private int parallelism;
+    private Duration timeout;
+
+    private ApiBatch(List<? extends AbstractApiMethod> methods) {
+        this.methods = new ArrayList<>(methods);
+        this.parallelism = Math.max(1, methods.size());
+        this.timeout = Duration.ofMinutes(10);
+    }
+
+    public static ApiBatch of(List<? extends AbstractApiMethod> methods) {
+        if (methods == null || methods.isEmpty()) {
+            throw new IllegalArgumentException("Unable to create batch without api methods.");
+        }
+        return new ApiBatch(methods);
+    }
+
+    public static ApiBatch of(AbstractApiMethod... methods) {
+        return of(methods == null ? List.of() : Arrays.asList(methods));
+    }
+
+    /**
+     * Sets the maximum number of api calls executed at the same time
+     *
+     * @param parallelism maximum number of concurrent calls, all calls are started at once by default
+     * @return ApiBatch object
+     */
+    public ApiBatch parallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism should be positive");
+        }
+        this.parallelism = parallelism;
+        return this;
+    }
+
+    /**
+     * Sets the timeout for the whole batch, calls that are not completed in time are cancelled
+     *
+     * @param timeout  timeout
+     * @param timeUnit time unit
+     * @return ApiBatch object
+     */
+    public ApiBatch stopAfter(long timeout, TemporalUnit timeUnit) {
+        this.timeout = Duration.of(timeout, timeUnit);
+        if (this.timeout.isNegative() || this.timeout.isZero()) {
+            throw new IllegalArgumentException("Timeout should be positive");
+        }
+        return this;
+    }
+
+    /**
+     * Calls all api methods of the batch and waits for their completion
+     *
+     * @return ApiBatchResult with responses in the order of the methods and per call latencies
+     */
+    public ApiBatchResult execute() {
+        int size = methods.size();
+        Response[] responses = new Response[size];
+        Throwable[] errors = new Throwable[size];
+        long[] latencies = new long[size];
+
+        Semaphore permits = new Semaphore(parallelism);
+        ExecutorService executor = createExecutor(Math.min(parallelism, size));
+        long batchStart = System.nanoTime();
+        List<Future<?>> futures = new ArrayList<>(size);
+        try {
+            for (int i = 0; i < size; i++) {
+                int index = i;
+                futures.add(executor.submit(() -> {
+                    permits.acquireUninterruptibly();
+                    long start = System.nanoTime();
+                    try {
+                        responses[index] = methods.get(index).callAPI();
+                    } catch (Throwable e) {
+                        errors[index] = e;
+                    } finally {
+                        latencies[index] = System.nanoTime() - start;
+                        permits.release();
+                    }
+                }));
+            }
+            awaitAll(futures, errors, batchStart);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // calls cancelled by timeout may still be finishing, so the result gets its own copies
+        ApiBatchResult result = new ApiBatchResult(new ArrayList<>(Arrays.asList(responses)), new ArrayList<>(Arrays.asList(errors)),
+                latencies.clone(), System.nanoTime() - batchStart);
+        LOGGER.info("Api batch completed: {}", result);
+        return result;
+    }
+
+    private void awaitAll(List<Future<?>> futures, Throwable[] errors, long batchStart) {
+        long deadline = batchStart + timeout.toNanos();
+        for (int i = 0; i < futures.size(); i++) {
+            Future<?> future = futures.get(i);
+            try {
+                future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                futures.forEach(f -> f.cancel(true));
+                throw new RuntimeException("Api batch execution was interrupted", e);
+            } catch (ExecutionException | CancellationException e) {
+                errors[i] = e;
+            } catch (TimeoutException e) {
+                future.cancel(true);
+                errors[i] = new RuntimeException("Api call was not completed in " + timeout, e);
+            }
+        }
+    }
+
+    /**
+     * Uses virtual threads on runtimes that provide them, api calls are blocking io so carrier threads are not wasted.
+     * Falls back to a fixed pool of daemon platform threads.
+     */
+    private static ExecutorService createExecutor(int poolSize) {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException | UnsupportedOperationException e) {
+            LOGGER.debug("Virtual threads are not available, fixed thread pool will be used for api batch.");
+        }
+        return Executors.newFixedThreadPool(poolSize, new BatchThreadFactory());
+    }
+
+    private static class BatchThreadFactory implements ThreadFactory {
+
+        private static final AtomicInteger BATCH_THREAD_NUMBER = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "api-batch-" + BATCH_THREAD_NUMBER.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
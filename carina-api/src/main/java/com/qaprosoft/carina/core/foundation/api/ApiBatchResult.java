@@ -0,0 +1,114 @@
+/*******************************************************************************
+ * Copyright 2020-2022 Zebrunner Inc (https://www.zebrunner.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.core.foundation.api;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.IntStream;
+
+import io.restassured.response.Response;
+
+/**
+ * Result of the {@link ApiBatch} execution. Responses, errors and latencies are stored in the order of the batch methods.
+ */
+public class ApiBatchResult {
+
+    private final List<Response> responses;
+    private final List<Throwable> errors;
+    private final long[] latencies;
+    private final long[] sortedLatencies;
+    private final long totalTime;
+
+    ApiBatchResult(List<Response> responses, List<Throwable> errors, long[] latencies, long totalTime) {
+        this.responses = Collections.unmodifiableList(responses);
+        this.errors = Collections.unmodifiableList(errors);
+        this.latencies = latencies;
+        // failed, cancelled and timed out calls have no valid latency, so they are not in the statistics
+        this.sortedLatencies = IntStream.range(0, latencies.length)
+                .filter(i -> errors.get(i) == null)
+                .mapToLong(i -> latencies[i])
+                .sorted()
+                .toArray();
+        this.totalTime = totalTime;
+    }
+
+    /**
+     * @return responses in the order of the batch methods, null for the failed calls
+     */
+    public List<Response> getResponses() {
+        return responses;
+    }
+
+    public Response getResponse(int index) {
+        return responses.get(index);
+    }
+
+    /**
+     * @return errors in the order of the batch methods, null for the successful calls
+     */
+    public List<Throwable> getErrors() {
+        return errors;
+    }
+
+    public boolean isSuccessful() {
+        return errors.stream().allMatch(Objects::isNull);
+    }
+
+    public long getFailedCount() {
+        return errors.stream().filter(Objects::nonNull).count();
+    }
+
+    public Duration getLatency(int index) {
+        return Duration.ofNanos(latencies[index]);
+    }
+
+    /**
+     * Calculates latency percentile of the successful batch calls using nearest-rank method
+     *
+     * @param percentile value from 0 to 100, for example 99 for p99
+     * @return latency of the given percentile, zero if there are no successful calls
+     */
+    public Duration getLatencyPercentile(double percentile) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("Percentile should be in range [0, 100]");
+        }
+        if (sortedLatencies.length == 0) {
+            return Duration.ZERO;
+        }
+        int rank = (int) Math.ceil(percentile / 100 * sortedLatencies.length);
+        return Duration.ofNanos(sortedLatencies[Math.max(0, rank - 1)]);
+    }
+
+    /**
+     * @return max latency of the successful batch calls, zero if there are no successful calls
+     */
+    public Duration getMaxLatency() {
+        return sortedLatencies.length == 0 ? Duration.ZERO : Duration.ofNanos(sortedLatencies[sortedLatencies.length - 1]);
+    }
+
+    public Duration getTotalTime() {
+        return Duration.ofNanos(totalTime);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("calls: %d, failed: %d, total: %d ms, p50: %d ms, p90: %d ms, p99: %d ms, max: %d ms",
+                responses.size(), getFailedCount(), getTotalTime().toMillis(), getLatencyPercentile(50).toMillis(),
+                getLatencyPercentile(90).toMillis(), getLatencyPercentile(99).toMillis(), getMaxLatency().toMillis());
+    }
+}
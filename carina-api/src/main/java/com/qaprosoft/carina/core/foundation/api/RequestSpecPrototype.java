@@ -0,0 +1,138 @@
+/*******************************************************************************
+ * Copyright 2020-2022 Zebrunner Inc (https://www.zebrunner.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.core.foundation.api;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.List;
+
+import com.qaprosoft.carina.core.foundation.api.http.ContentTypeEnum;
+import com.qaprosoft.carina.core.foundation.api.resolver.ContextResolverChain;
+
+import io.restassured.builder.RequestSpecBuilder;
+import io.restassured.config.RestAssuredConfig;
+import io.restassured.filter.Filter;
+import io.restassured.specification.RequestSpecification;
+
+/**
+ * Per api method class template used in prototype mode (see
+ * {@link com.qaprosoft.carina.core.foundation.api.annotation.PrototypeRequestSpec}). Everything that does not depend on
+ * the particular method instance is built once and shared: request specification with content type, ssl config and
+ * logging filters. Logging filters write into one print stream that is routed to the output stream of the current call.
+ */
+final class RequestSpecPrototype {
+
+    private static final ClassValue<RequestSpecPrototype> PROTOTYPES = new ClassValue<>() {
+        @Override
+        protected RequestSpecPrototype computeValue(Class<?> type) {
+            return new RequestSpecPrototype(type);
+        }
+    };
+
+    private final Class<?> clazz;
+    private final ContentTypeEnum contentTypeEnum;
+    private final RequestSpecification specification;
+    private final CallOutputStream callOutputStream = new CallOutputStream();
+    private final PrintStream printStream = new PrintStream(callOutputStream);
+    private volatile RestAssuredConfig ignoreSSLConfig;
+    private volatile List<Filter> requestLoggingFilters;
+    private volatile List<Filter> responseLoggingFilters;
+
+    private RequestSpecPrototype(Class<?> clazz) {
+        this.clazz = clazz;
+        String contentType = ContextResolverChain.resolveContentType(clazz)
+                .orElse(ContentTypeEnum.JSON.getMainStringValue());
+        this.contentTypeEnum = AbstractApiMethod.resolveContentTypeEnum(contentType);
+        this.specification = new RequestSpecBuilder()
+                .setContentType(contentType)
+                .build();
+    }
+
+    static RequestSpecPrototype of(Class<?> clazz) {
+        return PROTOTYPES.get(clazz);
+    }
+
+    ContentTypeEnum getContentTypeEnum() {
+        return contentTypeEnum;
+    }
+
+    /**
+     * @return specification to be merged into a new request by {@link RequestSpecification#spec(RequestSpecification)}
+     */
+    RequestSpecification getSpecification() {
+        return specification;
+    }
+
+    RestAssuredConfig getIgnoreSSLConfig() {
+        if (ignoreSSLConfig == null) {
+            ignoreSSLConfig = AbstractApiMethod.createIgnoreSSLConfig();
+        }
+        return ignoreSSLConfig;
+    }
+
+    List<Filter> getRequestLoggingFilters() {
+        if (requestLoggingFilters == null) {
+            requestLoggingFilters = AbstractApiMethod.createRequestLoggingFilters(clazz, printStream, contentTypeEnum);
+        }
+        return requestLoggingFilters;
+    }
+
+    List<Filter> getResponseLoggingFilters() {
+        if (responseLoggingFilters == null) {
+            responseLoggingFilters = AbstractApiMethod.createResponseLoggingFilters(clazz, printStream, contentTypeEnum);
+        }
+        return responseLoggingFilters;
+    }
+
+    /**
+     * Routes output of shared logging filters to the given stream until {@link #unbind()} is called in the same thread
+     *
+     * @param outputStream OutputStream of the current call
+     */
+    void bind(OutputStream outputStream) {
+        callOutputStream.target.set(outputStream);
+    }
+
+    void unbind() {
+        printStream.flush();
+        callOutputStream.target.remove();
+    }
+
+    /**
+     * Rest assured executes filters in the thread that sends the request, so the target stream is kept per thread
+     */
+    private static final class CallOutputStream extends OutputStream {
+
+        private final ThreadLocal<OutputStream> target = new ThreadLocal<>();
+
+        @Override
+        public void write(int b) throws IOException {
+            OutputStream out = target.get();
+            if (out != null) {
+                out.write(b);
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            OutputStream out = target.get();
+            if (out != null) {
+                out.write(b, off, len);
+            }
+        }
+    }
+}
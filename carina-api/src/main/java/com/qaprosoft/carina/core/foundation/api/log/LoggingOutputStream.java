@@ -17,6 +17,7 @@ package com.qaprosoft.carina.core.foundation.api.log;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.charset.Charset;
 
 import org.slf4j.Logger;
 import org.slf4j.event.Level;
@@ -28,6 +29,16 @@ public class LoggingOutputStream extends OutputStream {
      */
     private static final int DEFAULT_BUFFER_LENGTH = 2048;
 
+    /**
+     * Buffers that grew bigger than this are not kept after flush.
+     */
+    private static final int MAX_RETAINED_BUFFER_LENGTH = 1024 * 1024;
+
+    /**
+     * Default maximum number of bytes in one log event.
+     */
+    public static final int DEFAULT_MAX_EVENT_LENGTH = 256 * 1024;
+
     /**
      * Indicates stream state.
      */
@@ -44,9 +55,9 @@ public class LoggingOutputStream extends OutputStream {
     private int count;
 
     /**
-     * Remembers the size of the buffer.
+     * Maximum number of bytes in one log event, bigger content is split into several events by lines.
      */
-    private int curBufLength;
+    private final int maxEventLength;
 
     /**
      * The logger to write to.
@@ -69,13 +80,32 @@ public class LoggingOutputStream extends OutputStream {
      *             in case if one of arguments is null.
      */
     public LoggingOutputStream(final Logger log, final Level level) throws IllegalArgumentException {
+        this(log, level, DEFAULT_MAX_EVENT_LENGTH);
+    }
+
+    /**
+     * Creates the Logging instance to flush to the given logger.
+     *
+     * @param log
+     *            the Logger to write to
+     * @param level
+     *            the log level
+     * @param maxEventLength
+     *            maximum number of bytes in one log event
+     * @throws IllegalArgumentException
+     *             in case if one of arguments is null or max event length is not positive.
+     */
+    public LoggingOutputStream(final Logger log, final Level level, final int maxEventLength) throws IllegalArgumentException {
         if (log == null || level == null) {
             throw new IllegalArgumentException("Logger or log level must be not null");
         }
+        if (maxEventLength <= 0) {
+            throw new IllegalArgumentException("Max event length must be positive");
+        }
         this.log = log;
         this.level = level;
-        curBufLength = DEFAULT_BUFFER_LENGTH;
-        buf = new byte[curBufLength];
+        this.maxEventLength = maxEventLength;
+        buf = new byte[DEFAULT_BUFFER_LENGTH];
         count = 0;
     }
 
@@ -89,38 +119,112 @@ public class LoggingOutputStream extends OutputStream {
      */
     @Override
     public void write(final int b) throws IOException {
-        if (hasBeenClosed) {
-            throw new IOException("The stream has been closed.");
-        }
+        ensureOpen();
         // don't log nulls
         if (b == 0) {
             return;
         }
-        // would this be writing past the buffer?
-        if (count == curBufLength) {
-            // grow the buffer
-            final int newBufLength = curBufLength + DEFAULT_BUFFER_LENGTH;
+        ensureCapacity(count + 1);
+        buf[count] = (byte) b;
+        count++;
+    }
+
+    /**
+     * Writes len bytes from the specified byte array starting at offset off to this output stream.
+     *
+     * @param b
+     *            the data
+     * @param off
+     *            the start offset in the data
+     * @param len
+     *            the number of bytes to write
+     * @throws IOException
+     *             if an I/O error occurs.
+     */
+    @Override
+    public void write(final byte[] b, final int off, final int len) throws IOException {
+        ensureOpen();
+        if (off < 0 || len < 0 || len > b.length - off) {
+            throw new IndexOutOfBoundsException();
+        }
+        ensureCapacity(count + len);
+        int end = off + len;
+        int start = off;
+        // don't log nulls, copy the parts between them
+        for (int i = off; i < end; i++) {
+            if (b[i] == 0) {
+                System.arraycopy(b, start, buf, count, i - start);
+                count += i - start;
+                start = i + 1;
+            }
+        }
+        System.arraycopy(b, start, buf, count, end - start);
+        count += end - start;
+    }
+
+    private void ensureOpen() throws IOException {
+        if (hasBeenClosed) {
+            throw new IOException("The stream has been closed.");
+        }
+    }
+
+    private void ensureCapacity(final int minCapacity) {
+        if (minCapacity > buf.length) {
+            // grow the buffer geometrically, so big content is not copied over and over again
+            int newBufLength = Math.max(buf.length * 2, minCapacity);
+            if (newBufLength < 0) {
+                newBufLength = Integer.MAX_VALUE - 8;
+            }
             final byte[] newBuf = new byte[newBufLength];
-            System.arraycopy(buf, 0, newBuf, 0, curBufLength);
+            System.arraycopy(buf, 0, newBuf, 0, count);
             buf = newBuf;
-            curBufLength = newBufLength;
         }
-
-        buf[count] = (byte) b;
-        count++;
     }
 
     /**
      * Flushes this output stream and forces any buffered output bytes to be written out.
+     * Content longer than max event length is written as several log events split by lines.
      */
     @Override
     public void flush() {
         if (count == 0) {
             return;
         }
-        final byte[] bytes = new byte[count];
-        System.arraycopy(buf, 0, bytes, 0, count);
-        String str = new String(bytes);
+        int start = 0;
+        while (start < count) {
+            int end = findEventEnd(start);
+            log(new String(buf, start, end - start, Charset.defaultCharset()));
+            start = end;
+        }
+        count = 0;
+        if (buf.length > MAX_RETAINED_BUFFER_LENGTH) {
+            buf = new byte[DEFAULT_BUFFER_LENGTH];
+        }
+    }
+
+    /**
+     * @return exclusive end of the log event that starts at the given position: the last line break that fits into
+     *         max event length, or the max event length itself if there is no line break
+     */
+    private int findEventEnd(final int start) {
+        if (count - start <= maxEventLength) {
+            return count;
+        }
+        int limit = start + maxEventLength;
+        for (int i = limit - 1; i > start; i--) {
+            if (buf[i] == '\n') {
+                return i + 1;
+            }
+        }
+        // no line break, don't split multibyte characters
+        int end = limit;
+        while (end > start + 1 && (buf[end] & 0xC0) == 0x80) {
+            end--;
+        }
+        return end;
+    }
+
+    private void log(final String str) {
         switch (level) {
         case ERROR:
             log.error(str);
@@ -141,7 +245,6 @@ public class LoggingOutputStream extends OutputStream {
             log.info(str);
             break;
         }
-        count = 0;
     }
 
     /**
@@ -5,6 +5,7 @@ import com.qaprosoft.carina.core.foundation.api.annotation.Endpoint;
 import com.qaprosoft.carina.core.foundation.api.annotation.HideRequestBodyPartsInLogs;
 import com.qaprosoft.carina.core.foundation.api.annotation.HideRequestHeadersInLogs;
 import com.qaprosoft.carina.core.foundation.api.annotation.HideResponseBodyPartsInLogs;
+import com.qaprosoft.carina.core.foundation.api.annotation.PrototypeRequestSpec;
 import com.qaprosoft.carina.core.foundation.api.annotation.RequestTemplatePath;
 import com.qaprosoft.carina.core.foundation.api.annotation.ResponseTemplatePath;
 import com.qaprosoft.carina.core.foundation.api.annotation.SuccessfulHttpStatus;
@@ -63,6 +64,12 @@ class AnnotationContextResolver implements ContextResolver {
                 .map(SuccessfulHttpStatus::status);
     }
 
+    @Override
+    public Optional<Boolean> resolvePrototypeRequestSpec(Class<?> clazz) {
+        return findAnnotationValue(clazz, PrototypeRequestSpec.class)
+                .map(prototype -> true);
+    }
+
     private <A extends Annotation> Optional<A> findAnnotationValue(Class<?> inClass, Class<A> annCLazz) {
         return findParentClass(inClass, c -> c.isAnnotationPresent(annCLazz))
                 .map(c -> c.getAnnotation(annCLazz));
@@ -0,0 +1,105 @@
+package com.qaprosoft.carina.core.foundation.api.resolver;
+
+import com.qaprosoft.carina.core.foundation.api.http.HttpMethodType;
+import com.qaprosoft.carina.core.foundation.api.http.HttpResponseStatusType;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Immutable snapshot of everything the {@link ContextResolver}s can tell about an api method class.
+ * Resolved once per class, so annotation and properties lookups are not repeated for every new method object.
+ */
+final class ApiMethodMetadata {
+
+    private final String url;
+    private final HttpMethodType methodType;
+    private final String contentType;
+    private final Set<String> hiddenRequestBodyParts;
+    private final Set<String> hiddenResponseBodyParts;
+    private final Set<String> hiddenRequestHeaders;
+    private final String requestTemplatePath;
+    private final String responseTemplatePath;
+    private final HttpResponseStatusType successfulHttpStatus;
+    private final boolean prototypeRequestSpec;
+
+    private ApiMethodMetadata(Class<?> clazz, List<ContextResolver> resolvers) {
+        Optional<RequestStartLine> startLine = resolve(resolvers, resolver -> resolver.resolveUrl(clazz));
+        this.url = startLine.map(RequestStartLine::getUrl).orElse(null);
+        this.methodType = startLine.map(RequestStartLine::getMethodType).orElse(null);
+        this.contentType = resolve(resolvers, resolver -> resolver.resolveContentType(clazz)).orElse(null);
+        this.hiddenRequestBodyParts = resolve(resolvers, resolver -> resolver.resolveHiddenRequestBodyPartsInLogs(clazz))
+                .map(ApiMethodMetadata::toSet)
+                .orElse(null);
+        this.hiddenResponseBodyParts = resolve(resolvers, resolver -> resolver.resolveHiddenResponseBodyPartsInLogs(clazz))
+                .map(ApiMethodMetadata::toSet)
+                .orElse(null);
+        this.hiddenRequestHeaders = resolve(resolvers, resolver -> resolver.resolveHiddenRequestHeadersInLogs(clazz))
+                .map(ApiMethodMetadata::toSet)
+                .orElse(null);
+        this.requestTemplatePath = resolve(resolvers, resolver -> resolver.resolveRequestTemplatePath(clazz)).orElse(null);
+        this.responseTemplatePath = resolve(resolvers, resolver -> resolver.resolveResponseTemplatePath(clazz)).orElse(null);
+        this.successfulHttpStatus = resolve(resolvers, resolver -> resolver.resolveSuccessfulHttpStatus(clazz)).orElse(null);
+        this.prototypeRequestSpec = resolve(resolvers, resolver -> resolver.resolvePrototypeRequestSpec(clazz)).orElse(false);
+    }
+
+    static ApiMethodMetadata resolve(Class<?> clazz, List<ContextResolver> resolvers) {
+        return new ApiMethodMetadata(clazz, resolvers);
+    }
+
+    private static <T> Optional<T> resolve(List<ContextResolver> resolvers, Function<ContextResolver, Optional<T>> methodCaller) {
+        return resolvers.stream()
+                .map(methodCaller)
+                .filter(Optional::isPresent)
+                .findFirst()
+                .orElse(Optional.empty());
+    }
+
+    private static Set<String> toSet(String[] values) {
+        return Set.copyOf(Arrays.asList(values));
+    }
+
+    /**
+     * RequestStartLine is mutable, so every caller gets its own copy
+     */
+    Optional<RequestStartLine> getStartLine() {
+        return methodType == null
+                ? Optional.empty()
+                : Optional.of(new RequestStartLine(url, methodType));
+    }
+
+    Optional<String> getContentType() {
+        return Optional.ofNullable(contentType);
+    }
+
+    Optional<Set<String>> getHiddenRequestBodyParts() {
+        return Optional.ofNullable(hiddenRequestBodyParts);
+    }
+
+    Optional<Set<String>> getHiddenResponseBodyParts() {
+        return Optional.ofNullable(hiddenResponseBodyParts);
+    }
+
+    Optional<Set<String>> getHiddenRequestHeaders() {
+        return Optional.ofNullable(hiddenRequestHeaders);
+    }
+
+    Optional<String> getRequestTemplatePath() {
+        return Optional.ofNullable(requestTemplatePath);
+    }
+
+    Optional<String> getResponseTemplatePath() {
+        return Optional.ofNullable(responseTemplatePath);
+    }
+
+    Optional<HttpResponseStatusType> getSuccessfulHttpStatus() {
+        return Optional.ofNullable(successfulHttpStatus);
+    }
+
+    boolean isPrototypeRequestSpec() {
+        return prototypeRequestSpec;
+    }
+}
@@ -24,6 +24,8 @@ interface ContextResolver {
 
     Optional<HttpResponseStatusType> resolveSuccessfulHttpStatus(Class<?> clazz);
 
+    Optional<Boolean> resolvePrototypeRequestSpec(Class<?> clazz);
+
     default Optional<Class<?>> findParentClass(Class<?> clazz, Predicate<Class<?>> condition) {
         return findParentClass(clazz, AbstractApiMethod.class, condition);
     }
@@ -5,7 +5,6 @@ import com.qaprosoft.carina.core.foundation.api.http.HttpResponseStatusType;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
-import java.util.function.Function;
 
 public class ContextResolverChain {
 
@@ -14,46 +13,49 @@ public class ContextResolverChain {
             new PropertiesContextResolver()
     );
 
+    /**
+     * Metadata is resolved once per api method class and shared by all its instances
+     */
+    private static final ClassValue<ApiMethodMetadata> METADATA = new ClassValue<>() {
+        @Override
+        protected ApiMethodMetadata computeValue(Class<?> type) {
+            return ApiMethodMetadata.resolve(type, CONTEXT_RESOLVERS);
+        }
+    };
+
     public static Optional<RequestStartLine> resolveUrl(Class<?> clazz) {
-        return getResolverValue(resolver -> resolver.resolveUrl(clazz));
+        return METADATA.get(clazz).getStartLine();
     }
 
     public static Optional<String> resolveContentType(Class<?> clazz) {
-        return getResolverValue(resolver -> resolver.resolveContentType(clazz));
+        return METADATA.get(clazz).getContentType();
     }
 
     public static Optional<Set<String>> resolveHiddenRequestBodyPartsInLogs(Class<?> clazz) {
-        return getResolverValue(resolver -> resolver.resolveHiddenRequestBodyPartsInLogs(clazz))
-                .map(Set::of);
+        return METADATA.get(clazz).getHiddenRequestBodyParts();
     }
 
     public static Optional<Set<String>> resolveHiddenResponseBodyPartsInLogs(Class<?> clazz) {
-        return getResolverValue(resolver -> resolver.resolveHiddenResponseBodyPartsInLogs(clazz))
-                .map(Set::of);
+        return METADATA.get(clazz).getHiddenResponseBodyParts();
     }
 
     public static Optional<Set<String>> resolveHiddenRequestHeadersInLogs(Class<?> clazz) {
-        return getResolverValue(resolver -> resolver.resolveHiddenRequestHeadersInLogs(clazz))
-                .map(Set::of);
+        return METADATA.get(clazz).getHiddenRequestHeaders();
     }
 
     public static Optional<String> resolveRequestTemplatePath(Class<?> clazz) {
-        return getResolverValue(resolver -> resolver.resolveRequestTemplatePath(clazz));
+        return METADATA.get(clazz).getRequestTemplatePath();
     }
 
     public static Optional<String> resolveResponseTemplatePath(Class<?> clazz) {
-        return getResolverValue(resolver -> resolver.resolveResponseTemplatePath(clazz));
+        return METADATA.get(clazz).getResponseTemplatePath();
     }
 
     public static Optional<HttpResponseStatusType> resolveSuccessfulHttpStatus(Class<?> clazz) {
-        return getResolverValue(resolver -> resolver.resolveSuccessfulHttpStatus(clazz));
+        return METADATA.get(clazz).getSuccessfulHttpStatus();
     }
 
-    private static <T> Optional<T> getResolverValue(Function<ContextResolver, Optional<T>> methodCaller) {
-        return CONTEXT_RESOLVERS.stream()
-                .map(methodCaller)
-                .filter(Optional::isPresent)
-                .findFirst()
-                .orElse(Optional.empty());
+    public static boolean resolvePrototypeRequestSpec(Class<?> clazz) {
+        return METADATA.get(clazz).isPrototypeRequestSpec();
     }
 }
@@ -62,4 +62,9 @@ class PropertiesContextResolver implements ContextResolver {
     public Optional<HttpResponseStatusType> resolveSuccessfulHttpStatus(Class<?> clazz) {
         return Optional.empty();
     }
+
+    @Override
+    public Optional<Boolean> resolvePrototypeRequestSpec(Class<?> clazz) {
+        return Optional.empty();
+    }
 }
@@ -0,0 +1,98 @@
+/*******************************************************************************
+ * Copyright 2020-2022 Zebrunner Inc (https://www.zebrunner.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.core.foundation.api;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.temporal.ChronoUnit;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.qaprosoft.mock.apimethod.PrototypeMethod;
+import com.sun.net.httpserver.HttpServer;
+
+import io.restassured.response.Response;
+
+public class APIMethodPollerTest {
+
+    private final AtomicInteger calls = new AtomicInteger();
+    private HttpServer server;
+    private String baseUrl;
+
+    @BeforeClass
+    public void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/prototype", exchange -> {
+            byte[] body = ("<id>" + calls.incrementAndGet() + "</id>").getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(body);
+            }
+        });
+        server.start();
+        baseUrl = "http://localhost:" + server.getAddress().getPort();
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    public void testExecuteAsyncInCallThreads() {
+        AtomicReference<String> threadName = new AtomicReference<>();
+        Optional<Response> response = new PrototypeMethod(baseUrl).callAPIWithRetry()
+                .withLogStrategy(APIMethodPoller.LogStrategy.NONE)
+                .peek(rs -> threadName.set(Thread.currentThread().getName()))
+                .until(rs -> rs.getStatusCode() == 200)
+                .pollEvery(10, ChronoUnit.MILLIS)
+                .stopAfter(10, ChronoUnit.SECONDS)
+                .executeAsync()
+                .join();
+
+        Assert.assertTrue(response.isPresent());
+        Assert.assertTrue(threadName.get().startsWith("api-poller-"), "Api is called in the thread " + threadName.get());
+    }
+
+    @Test
+    public void testExecuteAsyncCancellation() throws InterruptedException {
+        CompletableFuture<Optional<Response>> future = new PrototypeMethod(baseUrl).callAPIWithRetry()
+                .withLogStrategy(APIMethodPoller.LogStrategy.NONE)
+                .until(rs -> false)
+                .pollEvery(20, ChronoUnit.MILLIS)
+                .stopAfter(10, ChronoUnit.SECONDS)
+                .executeAsync();
+
+        TimeUnit.MILLISECONDS.sleep(200);
+        Assert.assertTrue(calls.get() > 0, "Api is not called");
+        future.cancel(true);
+        int callsBeforeCancel = calls.get();
+        TimeUnit.MILLISECONDS.sleep(300);
+
+        Assert.assertTrue(future.isCancelled());
+        Assert.assertTrue(calls.get() <= callsBeforeCancel + 1, "Api is called after cancellation");
+    }
+}
@@ -0,0 +1,127 @@
+/*******************************************************************************
+ * Copyright 2020-2022 Zebrunner Inc (https://www.zebrunner.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.core.foundation.api;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.qaprosoft.mock.apimethod.PrototypeMethod;
+import com.sun.net.httpserver.HttpServer;
+
+public class ApiBatchTest {
+
+    private final AtomicInteger counter = new AtomicInteger();
+    private HttpServer server;
+    private String baseUrl;
+
+    @BeforeClass
+    public void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setExecutor(Executors.newFixedThreadPool(4));
+        server.createContext("/prototype", exchange -> {
+            byte[] body = ("<id>" + counter.incrementAndGet() + "</id>").getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(body);
+            }
+        });
+        // every item endpoint returns its own path, earlier items are answered later
+        server.createContext("/item", exchange -> {
+            String path = exchange.getRequestURI().getPath();
+            int item = Integer.parseInt(path.replaceAll("/item(\\d+)/.*", "$1"));
+            try {
+                Thread.sleep((20 - item) * 5L);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            byte[] body = path.getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(body);
+            }
+        });
+        server.start();
+        baseUrl = "http://localhost:" + server.getAddress().getPort();
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    public void testBatchResponsesAreCollectedInOrder() {
+        List<PrototypeMethod> methods = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            methods.add(new PrototypeMethod(baseUrl + "/item" + i));
+        }
+
+        ApiBatchResult result = ApiBatch.of(methods)
+                .parallelism(4)
+                .stopAfter(1, ChronoUnit.MINUTES)
+                .execute();
+
+        Assert.assertTrue(result.isSuccessful(), "All batch calls should be successful: " + result.getErrors());
+        Assert.assertEquals(result.getResponses().size(), methods.size());
+        for (int i = 0; i < methods.size(); i++) {
+            Assert.assertEquals(result.getResponse(i).getStatusCode(), 200);
+            Assert.assertEquals(result.getResponse(i).asString(), "/item" + i + "/prototype", "Response is not in the order of methods");
+        }
+        Assert.assertTrue(result.getLatencyPercentile(50).compareTo(result.getMaxLatency()) <= 0,
+                "Median latency can't be greater than max latency");
+    }
+
+    @Test
+    public void testBatchCollectsFailedCalls() {
+        PrototypeMethod failed = new PrototypeMethod("http://localhost:1");
+        ApiBatchResult result = ApiBatch.of(new PrototypeMethod(baseUrl), failed).execute();
+
+        Assert.assertFalse(result.isSuccessful());
+        Assert.assertEquals(result.getFailedCount(), 1);
+        Assert.assertNotNull(result.getResponse(0), "Successful call response should be collected");
+        Assert.assertNull(result.getResponse(1), "Failed call should not have response");
+        Assert.assertNotNull(result.getErrors().get(1), "Failed call error should be collected");
+        Assert.assertEquals(result.getMaxLatency(), result.getLatency(0), "Failed call should not be in latency statistics");
+        Assert.assertEquals(result.getLatencyPercentile(100), result.getLatency(0));
+    }
+
+    @Test
+    public void testBatchWithoutSuccessfulCalls() {
+        ApiBatchResult result = ApiBatch.of(new PrototypeMethod("http://localhost:1")).execute();
+
+        Assert.assertEquals(result.getFailedCount(), 1);
+        Assert.assertEquals(result.getMaxLatency(), Duration.ZERO);
+        Assert.assertEquals(result.getLatencyPercentile(50), Duration.ZERO);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testEmptyBatch() {
+        ApiBatch.of(List.of());
+    }
+}
@@ -0,0 +1,130 @@
+/*******************************************************************************
+ * Copyright 2020-2022 Zebrunner Inc (https://www.zebrunner.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.core.foundation.api;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.invoke.MethodHandles;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.event.Level;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.qaprosoft.carina.core.foundation.api.http.ContentTypeEnum;
+import com.qaprosoft.carina.core.foundation.api.log.LoggingOutputStream;
+import com.qaprosoft.mock.apimethod.PrototypeMethod;
+import com.sun.net.httpserver.HttpServer;
+
+import io.restassured.internal.RequestSpecificationImpl;
+import io.restassured.response.Response;
+
+public class RequestSpecPrototypeTest {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+    private HttpServer server;
+    private String baseUrl;
+
+    @BeforeClass
+    public void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/prototype", exchange -> {
+            byte[] body = "<user><id>1</id></user>".getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/xml");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(body);
+            }
+        });
+        server.start();
+        baseUrl = "http://localhost:" + server.getAddress().getPort();
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    public void testPrototypeIsSharedByInstances() {
+        PrototypeMethod first = new PrototypeMethod(baseUrl);
+        PrototypeMethod second = new PrototypeMethod(baseUrl);
+
+        Assert.assertNotSame(first.getRequest(), second.getRequest(), "Each method instance should have own request");
+        Assert.assertEquals(((RequestSpecificationImpl) first.getRequest()).getContentType(), "application/xml",
+                "Content type from prototype not as expected");
+        Assert.assertEquals(first.contentTypeEnum, ContentTypeEnum.XML);
+        Assert.assertSame(RequestSpecPrototype.of(PrototypeMethod.class).getRequestLoggingFilters(),
+                RequestSpecPrototype.of(PrototypeMethod.class).getRequestLoggingFilters(), "Logging filters should be built once");
+    }
+
+    @Test
+    public void testPrototypeCallIsLoggedToOwnStream() {
+        for (int i = 0; i < 2; i++) {
+            PrototypeMethod method = new PrototypeMethod(baseUrl);
+            method.setHeaders("Authorization=secret");
+            CapturingOutputStream outputStream = new CapturingOutputStream();
+
+            Response response = ((AbstractApiMethodV2) method).callAPI(outputStream);
+
+            Assert.assertEquals(response.getStatusCode(), 200);
+            String log = outputStream.getCaptured();
+            Assert.assertTrue(log.contains("/prototype"), "Request uri was not logged: " + log);
+            Assert.assertTrue(log.contains("<id>1</id>"), "Response body was not logged: " + log);
+            Assert.assertFalse(log.contains("secret"), "Hidden header was logged: " + log);
+        }
+    }
+
+    @Test
+    public void testPrototypeCallWithoutLogging() {
+        PrototypeMethod method = new PrototypeMethod(baseUrl);
+        method.setLogRequest(false);
+        method.setLogResponse(false);
+        Assert.assertEquals(method.callAPI().getStatusCode(), 200);
+    }
+
+    private static class CapturingOutputStream extends LoggingOutputStream {
+
+        private final ByteArrayOutputStream captured = new ByteArrayOutputStream();
+
+        CapturingOutputStream() {
+            super(LOGGER, Level.INFO);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            super.write(b);
+            captured.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            super.write(b, off, len);
+            captured.write(b, off, len);
+        }
+
+        String getCaptured() {
+            return captured.toString(StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -16,7 +16,12 @@
 package com.qaprosoft.carina.core.foundation.api.log;
 
 import java.io.IOException;
+import java.io.PrintStream;
 import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -55,4 +60,53 @@ public class LoggingOutputStreamTest {
             Assert.assertEquals(e.getMessage(), "The stream has been closed.");
         }
     }
+
+    @Test
+    public void testBulkWrite() throws IOException {
+        List<String> events = new ArrayList<>();
+        LoggingOutputStream loggingOutputStream = new LoggingOutputStream(createCapturingLogger(events), Level.INFO);
+        byte[] bytes = "Hello\0 World!".getBytes(StandardCharsets.UTF_8);
+        loggingOutputStream.write(bytes, 0, bytes.length);
+        loggingOutputStream.write(bytes, 6, 7);
+        loggingOutputStream.close();
+
+        Assert.assertEquals(events, List.of("Hello World! World!"), "Bulk written content not as expected");
+    }
+
+    @Test
+    public void testBigContentGrowsBuffer() throws IOException {
+        List<String> events = new ArrayList<>();
+        LoggingOutputStream loggingOutputStream = new LoggingOutputStream(createCapturingLogger(events), Level.INFO);
+        StringBuilder expected = new StringBuilder();
+        try (PrintStream ps = new PrintStream(loggingOutputStream)) {
+            for (int i = 0; i < 10000; i++) {
+                ps.print("line " + i + System.lineSeparator());
+                expected.append("line ").append(i).append(System.lineSeparator());
+            }
+        }
+        Assert.assertEquals(events.size(), 1, "Content less than max event length should be logged as one event");
+        Assert.assertEquals(events.get(0), expected.toString());
+    }
+
+    @Test
+    public void testHugeContentIsSplitByLines() throws IOException {
+        List<String> events = new ArrayList<>();
+        LoggingOutputStream loggingOutputStream = new LoggingOutputStream(createCapturingLogger(events), Level.INFO, 20);
+        byte[] bytes = "first line\nsecond line\nthird line without break at all".getBytes(StandardCharsets.UTF_8);
+        loggingOutputStream.write(bytes, 0, bytes.length);
+        loggingOutputStream.close();
+
+        Assert.assertEquals(events, List.of("first line\n", "second line\n", "third line without b", "reak at all"),
+                "Content was not split by lines as expected");
+    }
+
+    private static Logger createCapturingLogger(List<String> events) {
+        return (Logger) Proxy.newProxyInstance(LoggingOutputStreamTest.class.getClassLoader(), new Class[] { Logger.class },
+                (proxy, method, args) -> {
+                    if ("info".equals(method.getName()) && args != null && args.length == 1) {
+                        events.add((String) args[0]);
+                    }
+                    return method.getReturnType().equals(boolean.class) ? false : null;
+                });
+    }
 }
@@ -0,0 +1,57 @@
+package com.qaprosoft.carina.core.foundation.api.resolver;
+
+import com.qaprosoft.carina.core.foundation.api.annotation.ApiMethodWAnnotation;
+import com.qaprosoft.carina.core.foundation.api.annotation.HideRequestHeadersInLogs;
+import com.qaprosoft.carina.core.foundation.api.http.HttpMethodType;
+import com.qaprosoft.carina.core.foundation.api.http.HttpResponseStatusType;
+import com.qaprosoft.mock.apimethod.NoContentTypeMethod;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.Set;
+
+public class ContextResolverChainTest {
+
+    @HideRequestHeadersInLogs(headers = { "Authorization", "Authorization", "Cookie" })
+    private static class HiddenHeadersMethod extends ApiMethodWAnnotation {
+    }
+
+    @Test
+    public void testAnnotationMetadata() {
+        RequestStartLine startLine = ContextResolverChain.resolveUrl(ApiMethodWAnnotation.class).orElseThrow();
+        Assert.assertEquals(startLine.getUrl(), "http://test.api.com", "Url from annotation not as expected");
+        Assert.assertEquals(startLine.getMethodType(), HttpMethodType.POST, "Method type from annotation not as expected");
+        Assert.assertEquals(ContextResolverChain.resolveContentType(ApiMethodWAnnotation.class).orElseThrow(), "application/xml");
+        Assert.assertEquals(ContextResolverChain.resolveRequestTemplatePath(ApiMethodWAnnotation.class).orElseThrow(), "/testdata/api/rq.json");
+        Assert.assertEquals(ContextResolverChain.resolveSuccessfulHttpStatus(ApiMethodWAnnotation.class).orElseThrow(),
+                HttpResponseStatusType.OK_200);
+        Assert.assertTrue(ContextResolverChain.resolveHiddenRequestHeadersInLogs(ApiMethodWAnnotation.class).isEmpty());
+    }
+
+    @Test
+    public void testPropertiesMetadata() {
+        RequestStartLine startLine = ContextResolverChain.resolveUrl(NoContentTypeMethod.class).orElseThrow();
+        Assert.assertEquals(startLine.getUrl(), "${base_url}/mock1", "Url from properties not as expected");
+        Assert.assertEquals(startLine.getMethodType(), HttpMethodType.GET, "Method type from properties not as expected");
+        Assert.assertTrue(ContextResolverChain.resolveContentType(NoContentTypeMethod.class).isEmpty());
+    }
+
+    @Test
+    public void testInheritedMetadata() {
+        Assert.assertEquals(ContextResolverChain.resolveUrl(HiddenHeadersMethod.class).orElseThrow().getUrl(), "http://test.api.com");
+        Assert.assertEquals(ContextResolverChain.resolveHiddenRequestHeadersInLogs(HiddenHeadersMethod.class).orElseThrow(),
+                Set.of("Authorization", "Cookie"));
+    }
+
+    @Test
+    public void testMetadataIsResolvedOnce() {
+        Assert.assertSame(ContextResolverChain.resolveHiddenRequestHeadersInLogs(HiddenHeadersMethod.class).orElseThrow(),
+                ContextResolverChain.resolveHiddenRequestHeadersInLogs(HiddenHeadersMethod.class).orElseThrow(),
+                "Metadata should be shared between calls");
+
+        RequestStartLine first = ContextResolverChain.resolveUrl(ApiMethodWAnnotation.class).orElseThrow();
+        first.setUrl("http://changed.api.com");
+        Assert.assertEquals(ContextResolverChain.resolveUrl(ApiMethodWAnnotation.class).orElseThrow().getUrl(), "http://test.api.com",
+                "Cached start line should not be affected by caller changes");
+    }
+}
@@ -0,0 +1,34 @@
+/*******************************************************************************
+ * Copyright 2020-2022 Zebrunner Inc (https://www.zebrunner.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.mock.apimethod;
+
+import com.qaprosoft.carina.core.foundation.api.AbstractApiMethodV2;
+import com.qaprosoft.carina.core.foundation.api.annotation.ContentType;
+import com.qaprosoft.carina.core.foundation.api.annotation.Endpoint;
+import com.qaprosoft.carina.core.foundation.api.annotation.HideRequestHeadersInLogs;
+import com.qaprosoft.carina.core.foundation.api.annotation.PrototypeRequestSpec;
+import com.qaprosoft.carina.core.foundation.api.http.HttpMethodType;
+
+@PrototypeRequestSpec
+@ContentType(type = "application/xml")
+@HideRequestHeadersInLogs(headers = "Authorization")
+@Endpoint(url = "${base_url}/prototype", methodType = HttpMethodType.GET)
+public class PrototypeMethod extends AbstractApiMethodV2 {
+
+    public PrototypeMethod(String baseUrl) {
+        replaceUrlPlaceholder("base_url", baseUrl);
+    }
+}
@@ -16,13 +16,9 @@
 package com.qaprosoft.appcenter;
 
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.lang.invoke.MethodHandles;
 import java.net.URL;
-import java.nio.channels.Channels;
-import java.nio.channels.ClosedByInterruptException;
-import java.nio.channels.ReadableByteChannel;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
@@ -47,6 +43,9 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.qaprosoft.appcenter.http.resttemplate.RestTemplateBuilder;
 import com.qaprosoft.carina.core.foundation.utils.Configuration;
 import com.qaprosoft.carina.core.foundation.utils.Configuration.Parameter;
+import com.qaprosoft.carina.core.foundation.utils.FileManager;
+import com.qaprosoft.carina.core.foundation.utils.cache.ArtifactCache;
+import com.qaprosoft.carina.core.foundation.utils.download.RangedDownloader;
 
 /**
  * Created by boyle on 8/16/17.
@@ -59,6 +58,8 @@ public class AppCenterManager {
     private String ownerName;
     private String versionLong;
     private String versionShort;
+    private String releaseId;
+    private String fingerprint;
 
     private static final String HOST_URL = "api.appcenter.ms";
     private static final String API_APPS = "/v0.1/apps";
@@ -103,6 +104,20 @@ public class AppCenterManager {
 
         //TODO: wrap below code into the public download method
         String fileName = folder + "/" + createFileName(appName, buildType, platformName);
+
+        ArtifactCache cache = ArtifactCache.getDefault();
+        if (cache != null) {
+            try {
+                // release id is unique for the uploaded build, fingerprint is its checksum
+                cache.copy(String.format("appcenter://%s/%s#%s", ownerName, releaseId, fingerprint), new File(fileName),
+                        target -> transfer(target.getAbsolutePath(), new URL(buildToDownload)));
+                LOGGER.debug(String.format("AppCenter Build (%s) was retrieved", fileName));
+            } catch (Exception ex) {
+                LOGGER.error("Error Thrown When Attempting to Transfer AppCenter Build!", ex);
+            }
+            return new File(fileName);
+        }
+
         File fileToLocate = null;
 
         try {
@@ -124,13 +139,7 @@ public class AppCenterManager {
         if (fileToLocate == null) {
             try {
                 LOGGER.debug("Beginning Transfer of AppCenter Build");
-                URL downloadLink = new URL(buildToDownload);
-                int retryCount = 0;
-                boolean retry = true;
-                while (retry && retryCount <= 5) {
-                    retry = downloadBuild(fileName, downloadLink);
-                    retryCount = retryCount + 1;
-                }
+                transfer(fileName, new URL(buildToDownload));
                 LOGGER.debug(String.format("AppCenter Build (%s) was retrieved", fileName));
             } catch (Exception ex) {
                 LOGGER.error("Error Thrown When Attempting to Transfer AppCenter Build!", ex);
@@ -146,24 +155,20 @@ public class AppCenterManager {
      *
      * @param fileName will be the name of the downloaded file.
      * @param downloadLink will be the URL to retrieve the build from.
-     * @return brings back a true/false on whether or not the build was successfully downloaded.
-     * @throws IOException throws a non Interruption Exception up.
+     * @throws IOException when the build can't be downloaded or its checksum is different.
      */
-    private boolean downloadBuild(String fileName, URL downloadLink) throws IOException {
-        try (ReadableByteChannel readableByteChannel = Channels.newChannel(downloadLink.openStream());
-                FileOutputStream fos = new FileOutputStream(fileName)) {
-            if (Thread.currentThread().isInterrupted()) {
-                LOGGER.debug(String.format("Current Thread (%s) is interrupted, clearing interruption.", Thread.currentThread().getId()));
-                Thread.interrupted();
-            }
-            fos.getChannel().transferFrom(readableByteChannel, 0, Long.MAX_VALUE);
-            LOGGER.info("Successfully Transferred...");
-            return false;
-        } catch (ClosedByInterruptException ie1) {
-            LOGGER.info("Retrying....");
-            LOGGER.error("Getting Error!", ie1);
-            return true;
+    private void transfer(String fileName, URL downloadLink) throws IOException {
+        if (Thread.currentThread().isInterrupted()) {
+            LOGGER.debug(String.format("Current Thread (%s) is interrupted, clearing interruption.", Thread.currentThread().getId()));
+            Thread.interrupted();
+        }
+        RangedDownloader downloader = RangedDownloader.builder();
+        if (fingerprint != null && !fingerprint.isEmpty()) {
+            // fingerprint of the release is MD5 of the build
+            downloader.checksum(FileManager.Checksum.MD5, fingerprint);
         }
+        downloader.download(downloadLink, new File(fileName));
+        LOGGER.info("Successfully Transferred...");
     }
 
     /**
@@ -249,6 +254,8 @@ public class AppCenterManager {
                         LOGGER.info(
                                 String.format(
                                         "Fetching Build ID (%s) Version: %s (%s)", latestBuildNumber, versionShort, versionLong));
+                        releaseId = currentApp + "/" + latestBuildNumber;
+                        fingerprint = appBuild.path("fingerprint").asText("");
                         String buildUrl = appBuild.get("download_url").asText();
                         LOGGER.info("Download URL For Build: " + buildUrl);
 
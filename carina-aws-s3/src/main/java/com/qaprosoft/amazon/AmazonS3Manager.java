@@ -16,8 +16,10 @@
 package com.qaprosoft.amazon;
 
 import java.io.File;
+import java.io.IOException;
 import java.lang.invoke.MethodHandles;
 import java.net.URL;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -40,11 +42,11 @@ import com.amazonaws.services.s3.model.ObjectMetadata;
 import com.amazonaws.services.s3.model.PutObjectRequest;
 import com.amazonaws.services.s3.model.S3Object;
 import com.amazonaws.services.s3.model.S3ObjectSummary;
-import com.amazonaws.services.s3.transfer.Download;
-import com.amazonaws.services.s3.transfer.TransferManagerBuilder;
 import com.qaprosoft.carina.core.foundation.utils.Configuration;
 import com.qaprosoft.carina.core.foundation.utils.Configuration.Parameter;
-import com.qaprosoft.carina.core.foundation.utils.common.CommonUtils;
+import com.qaprosoft.carina.core.foundation.utils.FileManager;
+import com.qaprosoft.carina.core.foundation.utils.cache.ArtifactCache;
+import com.qaprosoft.carina.core.foundation.utils.download.RangedDownloader;
 import com.zebrunner.carina.crypto.Algorithm;
 import com.zebrunner.carina.crypto.CryptoTool;
 import com.zebrunner.carina.crypto.CryptoToolBuilder;
@@ -361,14 +363,30 @@ public class AmazonS3Manager {
     }
 
     /**
-     * Method to download file from s3 to local file system
+     * Method to download file from s3 to local file system. The object is downloaded by ranges in parallel and verified
+     * by the MD5 checksum when it is available.
      * 
      * @param bucketName AWS S3 bucket name
      * @param key (example: android/apkFolder/ApkName.apk)
      * @param file (local file name)
      */
     public void download(final String bucketName, final String key, final File file) {
-        download(bucketName, key, file, 10);
+        LOGGER.info("App will be downloaded from s3.");
+        LOGGER.info("[Bucket name: {}] [Key: {}] [File: {}]", bucketName, key, file.getAbsolutePath());
+
+        ObjectMetadata metadata = s3client.getObjectMetadata(bucketName, key);
+        ArtifactCache cache = ArtifactCache.getDefault();
+        try {
+            if (cache == null) {
+                transfer(bucketName, key, metadata, file);
+            } else {
+                // ETag is changed together with the object content
+                cache.copy(String.format("s3://%s/%s#%s", bucketName, key, metadata.getETag()), file,
+                        target -> transfer(bucketName, key, metadata, target));
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("File wasn't downloaded from s3. See log: ".concat(e.getMessage()), e);
+        }
     }
 
     /**
@@ -377,29 +395,24 @@ public class AmazonS3Manager {
      * @param bucketName AWS S3 bucket name
      * @param key (example: android/apkFolder/ApkName.apk)
      * @param file (local file name)
-     * @param pollingInterval (polling interval in sec for S3 download status determination)
+     * @param pollingInterval not used, download progress is logged by the downloader
+     * @deprecated use {@link #download(String, String, File)}
      */
+    @Deprecated
     public void download(final String bucketName, final String key, final File file, long pollingInterval) {
-        LOGGER.info("App will be downloaded from s3.");
-        LOGGER.info("[Bucket name: {}] [Key: {}] [File: {}]", bucketName, key, file.getAbsolutePath());
+        download(bucketName, key, file);
+    }
 
-        Download appDownload = TransferManagerBuilder.standard()
-                .withS3Client(s3client)
-                .build()
-                .download(bucketName, key, file);
-        try {
-            LOGGER.info("Transfer: {}", appDownload.getDescription());
-            LOGGER.info("\t State: {}", appDownload.getState());
-            LOGGER.info("\t Progress: ");
-            // You can poll your transfer's status to check its progress
-            while (!appDownload.isDone()) {
-                LOGGER.info("\t\t transferred: {}%", (int) (appDownload.getProgress().getPercentTransferred() + 0.5));
-                CommonUtils.pause(pollingInterval);
-            }
-            LOGGER.info("\t State: {}", appDownload.getState());
-        } catch (AmazonClientException e) {
-            throw new RuntimeException("File wasn't downloaded from s3. See log: ".concat(e.getMessage()));
+    private void transfer(final String bucketName, final String key, final ObjectMetadata metadata, final File file) throws IOException {
+        RangedDownloader downloader = RangedDownloader.builder();
+        String eTag = metadata.getETag();
+        // ETag of the object uploaded by a single part without KMS encryption is MD5 of its content
+        if (eTag != null && eTag.matches("[0-9a-fA-F]{32}") && metadata.getSSEAwsKmsKeyId() == null
+                && metadata.getSSECustomerAlgorithm() == null) {
+            downloader.checksum(FileManager.Checksum.MD5, eTag);
         }
+        // presigned url is used for ranged requests
+        downloader.download(generatePreSignUrl(bucketName, key, TimeUnit.HOURS.toMillis(1)), file);
     }
 
     /**
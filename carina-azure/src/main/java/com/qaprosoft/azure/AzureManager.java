@@ -21,8 +21,13 @@ import com.azure.storage.blob.BlobServiceClient;
 import com.azure.storage.blob.BlobServiceClientBuilder;
 import com.azure.storage.blob.models.BlobProperties;
 import com.azure.storage.blob.models.BlobStorageException;
+import com.azure.storage.blob.sas.BlobSasPermission;
+import com.azure.storage.blob.sas.BlobServiceSasSignatureValues;
 import com.azure.storage.common.StorageSharedKeyCredential;
 import com.qaprosoft.carina.core.foundation.utils.Configuration;
+import com.qaprosoft.carina.core.foundation.utils.FileManager;
+import com.qaprosoft.carina.core.foundation.utils.cache.ArtifactCache;
+import com.qaprosoft.carina.core.foundation.utils.download.RangedDownloader;
 import com.zebrunner.carina.crypto.Algorithm;
 import com.zebrunner.carina.crypto.CryptoTool;
 import com.zebrunner.carina.crypto.CryptoToolBuilder;
@@ -31,7 +36,12 @@ import org.slf4j.LoggerFactory;
 import org.testng.SkipException;
 
 import java.io.File;
+import java.io.IOException;
 import java.lang.invoke.MethodHandles;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.time.OffsetDateTime;
+import java.util.Base64;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -218,7 +228,15 @@ public class AzureManager {
             BlobClient blobClient = blobContainerClient.getBlobClient(remoteFile);
 
             LOGGER.info("Downloading: " + blobContainerClient.getBlobContainerUrl() + " To: " + localFilePath);
-            blobClient.downloadToFile(localFilePath.getAbsolutePath());
+            BlobProperties properties = blobClient.getProperties();
+            ArtifactCache cache = ArtifactCache.getDefault();
+            if (cache == null) {
+                transfer(blobClient, properties, localFilePath);
+            } else {
+                // ETag is changed together with the blob content
+                cache.copy(String.format("azure://%s/%s#%s", blobContainerClient.getBlobContainerUrl(), remoteFile, properties.getETag()),
+                        localFilePath, target -> transfer(blobClient, properties, target));
+            }
             LOGGER.info("Download completed");
 
         } catch (BlobStorageException bse) {
@@ -229,7 +247,29 @@ public class AzureManager {
                     + "HTTP Status Code: " + bse.getStatusCode() + "\n"
                     + "Azure Error Code: " + bse.getErrorCode() + "\n"
                     + "Service Message:  " + bse.getServiceMessage());
+        } catch (IOException e) {
+            LOGGER.error("Unable to download '" + remoteFile + "' to " + localFilePath, e);
+        }
+    }
+
+    private void transfer(BlobClient blobClient, BlobProperties properties, File file) throws IOException {
+        URL url;
+        try {
+            // read-only SAS url is used for ranged requests
+            String sas = blobClient.generateSas(new BlobServiceSasSignatureValues(OffsetDateTime.now().plusHours(1),
+                    new BlobSasPermission().setReadPermission(true)));
+            url = new URL(blobClient.getBlobUrl() + "?" + sas);
+        } catch (RuntimeException | MalformedURLException e) {
+            LOGGER.debug("Unable to generate SAS url, blob will be downloaded by the client", e);
+            blobClient.downloadToFile(file.getAbsolutePath(), true);
+            return;
+        }
+
+        RangedDownloader downloader = RangedDownloader.builder();
+        if (properties.getContentMd5() != null) {
+            downloader.checksum(FileManager.Checksum.MD5, Base64.getEncoder().encodeToString(properties.getContentMd5()));
         }
+        downloader.download(url, file);
     }
 
     /**
@@ -16,6 +16,7 @@
 package com.qaprosoft.carina.core.foundation;
 
 import java.lang.annotation.Annotation;
+import java.util.Iterator;
 
 import org.testng.ITestContext;
 import org.testng.ITestNGMethod;
@@ -81,6 +82,17 @@ public interface IAbstractTest extends ICustomTypePageFactory, ITestCases {
         return objects;
     }
 
+    /**
+     * Reads the data source lazily while tests are executed, so big data sources are not loaded into memory at once.
+     * The data provider is not parallel: TestNG reads the whole iterator of a parallel data provider before running the
+     * tests.
+     */
+    @DataProvider(name = "StreamingDataProvider")
+    default Iterator<Object[]> createDataStream(final ITestNGMethod testMethod, ITestContext context) {
+        Annotation[] annotations = testMethod.getConstructorOrMethod().getMethod().getDeclaredAnnotations();
+        return DataProviderFactory.getDataProviderIterator(annotations, context, testMethod);
+    }
+
     /**
      * Pause for specified timeout.
      *
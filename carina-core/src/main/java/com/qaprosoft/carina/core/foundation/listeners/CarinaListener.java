@@ -18,6 +18,7 @@ package com.qaprosoft.carina.core.foundation.listeners;
 import java.io.File;
 import java.lang.invoke.MethodHandles;
 import java.lang.reflect.Method;
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
@@ -77,9 +78,11 @@ import com.qaprosoft.carina.core.foundation.utils.FileManager;
 import com.qaprosoft.carina.core.foundation.utils.Messager;
 import com.qaprosoft.carina.core.foundation.utils.R;
 import com.qaprosoft.carina.core.foundation.utils.ZebrunnerNameResolver;
+import com.qaprosoft.carina.core.foundation.utils.mobile.notifications.android.NotificationWatcher;
 import com.qaprosoft.carina.core.foundation.utils.ownership.Ownership;
 import com.qaprosoft.carina.core.foundation.utils.ownership.SuiteOwnerResolver;
 import com.qaprosoft.carina.core.foundation.utils.resources.L10N;
+import com.qaprosoft.carina.core.foundation.utils.startup.StartupOrchestrator;
 import com.qaprosoft.carina.core.foundation.utils.tag.PriorityManager;
 import com.qaprosoft.carina.core.foundation.utils.tag.TagManager;
 import com.qaprosoft.carina.core.foundation.webdriver.CarinaDriver;
@@ -114,7 +117,14 @@ public class CarinaListener extends AbstractTestListener implements ISuiteListen
 
     protected static boolean automaticDriversCleanup = true;
     
-    protected boolean isRunLabelsRegistered = false;
+    protected volatile boolean isRunLabelsRegistered = false;
+
+    private static final String APP_STEP = "app";
+    private static final String APP_REFERENCE_STEP = "app-reference";
+    private static final String PROXY_STEP = "proxy";
+    private static final String L10N_STEP = "l10n";
+    private static final String RUN_LABELS_STEP = "run-labels";
+    private StartupOrchestrator startup;
     
     
     private static final Pattern S3_BUCKET_PATTERN = Pattern.compile("s3:\\/\\/([a-zA-Z-0-9][^\\/]*)\\/(.*)");
@@ -139,12 +149,6 @@ public class CarinaListener extends AbstractTestListener implements ISuiteListen
         LOGGER.info(Configuration.asString());
         // Configuration.validateConfiguration();
 
-        try {
-            L10N.load();
-        } catch (Exception e) {
-            LOGGER.error("L10N bundle is not initialized successfully!", e);
-        }
-
         // declare global capabilities in configuration if custom_capabilities is declared
         String customCapabilities = Configuration.get(Parameter.CUSTOM_CAPABILITIES);
         if (!customCapabilities.isEmpty()) {
@@ -184,30 +188,54 @@ public class CarinaListener extends AbstractTestListener implements ISuiteListen
             logger.setLevel(Level.getLevel(Configuration.get(Parameter.CORE_LOG_LEVEL)));
         }
 
-        updateAppPath();
-        
         setThreadCount(suite);
 
         if (Configuration.getPlatform().equalsIgnoreCase(SpecialKeywords.API)) {
             CurrentTestRun.setPlatform(SpecialKeywords.API);
         }
 
+        CurrentTestRun.setLocale(Configuration.get(Parameter.LOCALE));
+
+        getStartup(suite).await();
+
+        LOGGER.info("CARINA_CORE_VERSION: " + getCarinaVersion());
+    }
+
+    /**
+     * App resolving, proxies start, L10N bundles loading and run labels registration don't depend on each other, so
+     * they are run concurrently once for all the suites. Only the optional L10N step is limited by startup_timeout, the
+     * required steps, e.g. app download, take as long as they need.
+     */
+    private synchronized StartupOrchestrator getStartup(ISuite suite) {
+        if (startup == null) {
+            startup = new StartupOrchestrator(Duration.ofSeconds(Configuration.getInt(Parameter.STARTUP_TIMEOUT)))
+                    .addStep(APP_STEP, CarinaListener::updateAppPath)
+                    .addStep(APP_REFERENCE_STEP, CarinaListener::registerApp, APP_STEP)
+                    // proxies from browserup_pool_size are started at once instead of one by one by tests
+                    .addStep(PROXY_STEP, ProxyPool::prewarmProxies)
+                    .addOptionalStep(L10N_STEP, L10N::load)
+                    .addStep(RUN_LABELS_STEP, () -> registerRunLabels(suite));
+        }
+        return startup;
+    }
+
+    private static void registerApp() {
         String mobileApp = Configuration.getMobileApp();
         if (!mobileApp.isEmpty()) {
             // [VD] do not move into the static block as Zebrunner reporting need registered test run!
             Artifact.attachReferenceToTestRun("app", mobileApp);
         }
 
-        CurrentTestRun.setLocale(Configuration.get(Parameter.LOCALE));
-
         // register app_version/build as artifact if available...
         Configuration.setBuild(Configuration.get(Parameter.APP_VERSION));
-        
+    }
+
+    private void registerRunLabels(ISuite suite) {
         String sha1 = Configuration.get(Parameter.GIT_HASH);
         if (!sha1.isEmpty()) {
             Label.attachToTestRun("sha1", sha1);
         }
-        
+
         /*
          * To support multi-suite declaration as below we have to init test run labels at once only!
          * <suite-files>
@@ -215,13 +243,11 @@ public class CarinaListener extends AbstractTestListener implements ISuiteListen
          *  <suite-file path="suite2.xml"/>
          * </suite-files>
          */
-        
+
         if (!this.isRunLabelsRegistered) {
             attachTestRunLabels(suite);
             this.isRunLabelsRegistered = true;
         }
-
-        LOGGER.info("CARINA_CORE_VERSION: " + getCarinaVersion());
     }
 
 	@Override
@@ -400,6 +426,12 @@ public class CarinaListener extends AbstractTestListener implements ISuiteListen
 
             ReportContext.getTempDir().delete();
 
+            L10N.reportMissingKeys();
+
+            LOGGER.debug("Screenshots writing: " + ReportContext.getArtifactMetrics());
+
+            NotificationWatcher.closeAll();
+
             // EmailReportItemCollector.getTestResults());
 
             LOGGER.debug("Generating email report...");
@@ -20,10 +20,13 @@ import java.lang.invoke.MethodHandles;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 
 import org.apache.commons.lang3.ArrayUtils;
 import org.slf4j.Logger;
@@ -84,18 +87,26 @@ public class DataProviderFactory {
 
                 if (object instanceof com.qaprosoft.carina.core.foundation.dataprovider.core.impl.BaseDataProvider) {
                     BaseDataProvider activeProvider = (BaseDataProvider) object;
-                    provider = ArrayUtils.addAll(provider, activeProvider.getDataProvider(annotation, context, m));
+                    Object[][] rows = activeProvider.getDataProvider(annotation, context, m);
+                    if (activeProvider.getGroupByIndex() != null) {
+                        rows = activeProvider.getGroupByIndex().group(rows);
+                    }
+                    provider = ArrayUtils.addAll(provider, rows);
                     testNameArgsMap.putAll(activeProvider.getTestNameArgsMap());
                     testMethodOwnerArgsMap.putAll(activeProvider.getTestMethodOwnerArgsMap());
                     testRailsArgsMap.putAll(activeProvider.getTestRailsArgsMap());
                     doNotRunTests.addAll(activeProvider.getDoNotRunRowsIDs());
                 }
 
+            } catch (GroupByException e) {
+                // wrong groupColumn would silently drop all the rows of the data source
+                throw e;
             } catch (Exception e) {
                 LOGGER.error("DataProvider failure", e);
             }
         }
 
+        // custom data providers may still register grouping globally
         if (!GroupByMapper.getInstanceInt().isEmpty() || !GroupByMapper.getInstanceStrings().isEmpty()) {
             provider = getGroupedList(provider);
         }
@@ -105,8 +116,72 @@ public class DataProviderFactory {
         // clear group by settings
         GroupByMapper.getInstanceInt().clear();
         GroupByMapper.getInstanceStrings().clear();
+        GroupByMapper.setIsHashMapped(false);
+
+        return DataProviderShard.current().select(provider);
+    }
+
+    /**
+     * Streaming alternative of {@link #getDataProvider(Annotation[], ITestContext, ITestNGMethod)}: data sources are
+     * opened one by one when the previous one is exhausted, and test names are registered as rows are read.
+     * Grouping is done by the data providers themselves, sharding is applied on the fly.
+     */
+    public static Iterator<Object[]> getDataProviderIterator(Annotation[] annotations, ITestContext context, ITestNGMethod m) {
+        Map<String, String> testNameArgsMap = Collections.synchronizedMap(new HashMap<>());
+        context.setAttribute(SpecialKeywords.TEST_NAME_ARGS_MAP, testNameArgsMap);
+
+        Iterator<Annotation> annotationIterator = Arrays.asList(annotations).iterator();
+        return DataProviderShard.current().select(new Iterator<Object[]>() {
+
+            private BaseDataProvider activeProvider;
+            private Iterator<Object[]> rows = Collections.emptyIterator();
+
+            @Override
+            public synchronized boolean hasNext() {
+                while (!rows.hasNext()) {
+                    if (!annotationIterator.hasNext()) {
+                        return false;
+                    }
+                    Annotation annotation = annotationIterator.next();
+                    activeProvider = createDataProvider(annotation);
+                    if (activeProvider != null) {
+                        rows = activeProvider.getDataProviderIterator(annotation, context, m);
+                    }
+                }
+                return true;
+            }
 
-        return provider;
+            @Override
+            public synchronized Object[] next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                Object[] row = rows.next();
+                String hashCode = String.valueOf(Arrays.hashCode(row));
+                String testName = activeProvider.getTestNameArgsMap().get(hashCode);
+                if (testName != null) {
+                    testNameArgsMap.put(hashCode, testName);
+                }
+                return row;
+            }
+        });
+    }
+
+    private static BaseDataProvider createDataProvider(Annotation annotation) {
+        try {
+            for (Method method : annotation.annotationType().getDeclaredMethods()) {
+                if (method.getName().equalsIgnoreCase("classname")) {
+                    Object object = Class.forName((String) method.invoke(annotation)).getConstructor().newInstance();
+                    if (object instanceof BaseDataProvider) {
+                        return (BaseDataProvider) object;
+                    }
+                    break;
+                }
+            }
+        } catch (Exception e) {
+            LOGGER.error("DataProvider failure", e);
+        }
+        return null;
     }
 
     private static Object[][] getGroupedList(Object[][] provider) {
@@ -0,0 +1,133 @@
+/*******************************************************************************
+ * Copyright 2020-2022 Zebrunner Inc (https://www.zebrunner.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.core.foundation.dataprovider.core;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import com.qaprosoft.carina.core.foundation.utils.Configuration;
+import com.qaprosoft.carina.core.foundation.utils.Configuration.Parameter;
+
+/**
+ * Splits data provider rows between several machines or JVMs running the same suite. Row with index i belongs to the
+ * shard i % count, so every row is executed exactly once across all the shards as long as they read the same data.
+ * Grouped rows are split as whole groups.
+ */
+public final class DataProviderShard {
+
+    private static final DataProviderShard ALL = new DataProviderShard(0, 1);
+
+    private final int index;
+    private final int count;
+
+    private DataProviderShard(int index, int count) {
+        this.index = index;
+        this.count = count;
+    }
+
+    /**
+     * @param index zero-based shard index
+     * @param count total number of shards
+     * @return DataProviderShard object
+     */
+    public static DataProviderShard of(int index, int count) {
+        if (count < 1) {
+            throw new IllegalArgumentException("Shard count should be positive, but was " + count);
+        }
+        if (index < 0 || index >= count) {
+            throw new IllegalArgumentException(String.format("Shard index should be in range [0, %d), but was %d", count, index));
+        }
+        return new DataProviderShard(index, count);
+    }
+
+    /**
+     * @return shard configured by data_provider_shard_index and data_provider_shard_count, all rows if not configured
+     */
+    public static DataProviderShard current() {
+        String count = Configuration.get(Parameter.DATA_PROVIDER_SHARD_COUNT).trim();
+        if (count.isEmpty()) {
+            return ALL;
+        }
+        String index = Configuration.get(Parameter.DATA_PROVIDER_SHARD_INDEX).trim();
+        return of(index.isEmpty() ? 0 : Integer.parseInt(index), Integer.parseInt(count));
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public boolean isAll() {
+        return count == 1;
+    }
+
+    public boolean contains(long rowIndex) {
+        return rowIndex % count == index;
+    }
+
+    public Object[][] select(Object[][] rows) {
+        if (isAll()) {
+            return rows;
+        }
+        List<Object[]> selected = new ArrayList<>(rows.length / count + 1);
+        for (int i = index; i < rows.length; i += count) {
+            selected.add(rows[i]);
+        }
+        return selected.toArray(new Object[0][]);
+    }
+
+    public Iterator<Object[]> select(Iterator<Object[]> rows) {
+        if (isAll()) {
+            return rows;
+        }
+        return new Iterator<Object[]>() {
+
+            private long rowIndex;
+            private Object[] next;
+
+            @Override
+            public synchronized boolean hasNext() {
+                while (next == null && rows.hasNext()) {
+                    Object[] row = rows.next();
+                    if (contains(rowIndex++)) {
+                        next = row;
+                    }
+                }
+                return next != null;
+            }
+
+            @Override
+            public synchronized Object[] next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                Object[] row = next;
+                next = null;
+                return row;
+            }
+        };
+    }
+
+    @Override
+    public String toString() {
+        return index + "/" + count;
+    }
+}
@@ -0,0 +1,102 @@
+/*******************************************************************************
+ * Copyright 2020-2022 Zebrunner Inc (https://www.zebrunner.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.core.foundation.dataprovider.core.groupping;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import com.qaprosoft.carina.core.foundation.dataprovider.core.groupping.exceptions.GroupByException;
+
+/**
+ * Groups data provider rows by the groupColumn value. Rows are put into a hash index in one pass, groups are ordered
+ * by the value and rows inside a group keep the data source order. Every data provider has its own instance.
+ */
+public final class GroupByIndex {
+
+    private final Function<Object[], Object> keyExtractor;
+    private final boolean hashMapped;
+
+    private GroupByIndex(Function<Object[], Object> keyExtractor, boolean hashMapped) {
+        this.keyExtractor = keyExtractor;
+        this.hashMapped = hashMapped;
+    }
+
+    /**
+     * Groups rows where the first argument is HashMap with all the columns
+     *
+     * @param column group column
+     * @return GroupByIndex object
+     */
+    public static GroupByIndex byColumn(String column) {
+        return new GroupByIndex(row -> ((Map<?, ?>) row[0]).get(column), true);
+    }
+
+    /**
+     * Groups rows by the argument on the given position
+     *
+     * @param index index of the group column among the arguments
+     * @return GroupByIndex object
+     */
+    public static GroupByIndex byArgument(int index) {
+        if (index < 0) {
+            throw new GroupByException("Incorrect groupColumn annotation parameter!");
+        }
+        return new GroupByIndex(row -> row[index], false);
+    }
+
+    /**
+     * Every group becomes a single row. For HashMap rows the first argument is the list of HashMaps and the rest are
+     * taken from the first row of the group, otherwise the first argument is the list of rows.
+     *
+     * @param rows data provider rows
+     * @return grouped rows
+     */
+    public Object[][] group(Object[][] rows) {
+        Map<Object, List<Object[]>> index = new HashMap<>();
+        for (Object[] row : rows) {
+            index.computeIfAbsent(keyExtractor.apply(row), key -> new ArrayList<>()).add(row);
+        }
+
+        List<Object> keys = new ArrayList<>(index.keySet());
+        keys.sort(Comparator.nullsFirst(Comparator.comparing(key -> String.valueOf(key))));
+
+        Object[][] grouped = new Object[keys.size()][];
+        for (int i = 0; i < grouped.length; i++) {
+            grouped[i] = toRow(index.get(keys.get(i)));
+        }
+        return grouped;
+    }
+
+    private Object[] toRow(List<Object[]> group) {
+        Object[] first = group.get(0);
+        Object[] row = new Object[first.length];
+        if (hashMapped) {
+            List<Object> hashMaps = new ArrayList<>(group.size());
+            for (Object[] objects : group) {
+                hashMaps.add(objects[0]);
+            }
+            row[0] = hashMaps;
+            System.arraycopy(first, 1, row, 1, first.length - 1);
+        } else {
+            row[0] = group;
+        }
+        return row;
+    }
+}
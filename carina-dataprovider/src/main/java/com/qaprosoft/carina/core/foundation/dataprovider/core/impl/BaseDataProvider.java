@@ -16,14 +16,21 @@
 package com.qaprosoft.carina.core.foundation.dataprovider.core.impl;
 
 import java.lang.annotation.Annotation;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.RandomAccess;
+import java.util.function.Function;
+import java.util.stream.IntStream;
 
 import org.testng.ITestContext;
 import org.testng.ITestNGMethod;
 
+import com.qaprosoft.carina.core.foundation.dataprovider.core.groupping.GroupByIndex;
 import com.qaprosoft.carina.core.foundation.dataprovider.parser.DSBean;
 import com.qaprosoft.carina.core.foundation.utils.ParameterGenerator;
 
@@ -33,6 +40,9 @@ import com.qaprosoft.carina.core.foundation.utils.ParameterGenerator;
 
 public abstract class BaseDataProvider {
 
+    // small tables are converted faster in the current thread
+    private static final int PARALLEL_PARAMETERIZATION_THRESHOLD = 500;
+
     protected Map<String, String> testNameArgsMap = Collections.synchronizedMap(new HashMap<>());
 
     protected Map<String, String> testMethodOwnerArgsMap = Collections.synchronizedMap(new HashMap<>());
@@ -44,8 +54,42 @@ public abstract class BaseDataProvider {
 
     protected List<String> doNotRunTestNames;
 
+    protected GroupByIndex groupByIndex;
+
     public abstract Object[][] getDataProvider(Annotation annotation, ITestContext context, ITestNGMethod testMethod);
 
+    /**
+     * Provides the same rows as {@link #getDataProvider(Annotation, ITestContext, ITestNGMethod)} but lets the data
+     * source be read lazily. Test name, owner and TestRail maps are filled for the rows that have already been returned.
+     * Data providers that can't stream read the whole data source up front and group the rows by groupColumn if any.
+     */
+    public Iterator<Object[]> getDataProviderIterator(Annotation annotation, ITestContext context, ITestNGMethod testMethod) {
+        Object[][] rows = getDataProvider(annotation, context, testMethod);
+        if (groupByIndex != null) {
+            rows = groupByIndex.group(rows);
+        }
+        return Arrays.asList(rows).iterator();
+    }
+
+    /**
+     * Converts data source rows into test method arguments. Big data sources are converted in parallel, the order of
+     * the rows is kept.
+     *
+     * @param rows data source rows
+     * @param converter converts a single row, should be thread-safe
+     * @return test method arguments
+     */
+    protected static <T> Object[][] parameterize(List<T> rows, Function<T, Object[]> converter) {
+        List<T> list = rows instanceof RandomAccess ? rows : new ArrayList<>(rows);
+        Object[][] args = new Object[list.size()][];
+        IntStream indexes = IntStream.range(0, list.size());
+        if (list.size() >= PARALLEL_PARAMETERIZATION_THRESHOLD) {
+            indexes = indexes.parallel();
+        }
+        indexes.forEach(i -> args[i] = converter.apply(list.get(i)));
+        return args;
+    }
+
     protected static Object getStaticParam(String name, ITestContext context, DSBean dsBean) {
         return ParameterGenerator.process(dsBean
                 .getTestParams().get(name));
@@ -67,4 +111,18 @@ public abstract class BaseDataProvider {
         return doNotRunTestNames;
     }
 
+    /**
+     * @return grouping of the rows by groupColumn or null if rows are not grouped
+     */
+    public GroupByIndex getGroupByIndex() {
+        return groupByIndex;
+    }
+
+    protected static GroupByIndex createGroupByIndex(String groupColumn, List<String> argsList) {
+        if (groupColumn.isEmpty()) {
+            return null;
+        }
+        return argsList.isEmpty() ? GroupByIndex.byColumn(groupColumn) : GroupByIndex.byArgument(argsList.indexOf(groupColumn));
+    }
+
 }
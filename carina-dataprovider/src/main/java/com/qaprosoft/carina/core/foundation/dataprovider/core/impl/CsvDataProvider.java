@@ -25,6 +25,8 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -32,8 +34,9 @@ import org.testng.ITestContext;
 import org.testng.ITestNGMethod;
 
 import com.qaprosoft.carina.core.foundation.dataprovider.annotations.CsvDataSourceParameters;
-import com.qaprosoft.carina.core.foundation.dataprovider.core.groupping.GroupByMapper;
+import com.qaprosoft.carina.core.foundation.dataprovider.core.groupping.exceptions.GroupByException;
 import com.qaprosoft.carina.core.foundation.dataprovider.parser.DSBean;
+import com.qaprosoft.carina.core.foundation.dataprovider.parser.DataSourceCache;
 import com.qaprosoft.carina.core.foundation.utils.ParameterGenerator;
 
 import au.com.bytecode.opencsv.CSVReader;
@@ -53,22 +56,76 @@ public class CsvDataProvider extends BaseDataProvider {
     private String testMethodOwnerColumn;
     private String bugColumn;
 
-    @SuppressWarnings("unchecked")
+    private DSBean dsBean;
+    private List<String> headers;
+
     @Override
     public Object[][] getDataProvider(Annotation annotation, ITestContext context, ITestNGMethod testMethod) {
         CsvDataSourceParameters parameters = (CsvDataSourceParameters) annotation;
-        doNotRunTestNames = Arrays.asList(parameters.doNotRunTestNames());
+        init(parameters, context);
+
+        groupByIndex = createGroupByIndex(parameters.groupColumn(), argsList);
+        List<String[]> list = new ArrayList<String[]>();
+
+        try {
+            // parsed file is reused by next runs if data source cache is enabled
+            list = DataSourceCache.readCsv(dsBean.getDsFile(), parameters.separator(), parameters.quote());
+        } catch (IOException e) {
+            LOGGER.error("Unable to read data from CSV DataProvider", e);
+        }
+
+        if (list.size() == 0) {
+            throw new RuntimeException("Unable to retrieve data from CSV DataProvider! Verify separator and quote settings.");
+        }
+        initHeaders(list.remove(0));
+
+        // exclude those lines which don't satisfy executeColumn/executeValue filter
+        list.removeIf(line -> !isExecutable(line));
+
+        return parameterize(list, line -> toArgs(line, context));
+    }
+
+    /**
+     * Reads the data source line by line while TestNG consumes the rows, so only the current row (or the current group
+     * if groupColumn is specified) is kept in memory. Rows are filtered by executeColumn/executeValue on the fly.
+     * As the file is not read up front, grouping by groupColumn expects the rows of a group to go one after another.
+     */
+    @Override
+    public Iterator<Object[]> getDataProviderIterator(Annotation annotation, ITestContext context, ITestNGMethod testMethod) {
+        CsvDataSourceParameters parameters = (CsvDataSourceParameters) annotation;
+        init(parameters, context);
+
+        CSVReader reader;
+        String[] header;
+        try {
+            reader = openReader(parameters);
+            header = reader.readNext();
+        } catch (IOException e) {
+            throw new RuntimeException("Unable to read data from CSV DataProvider", e);
+        }
+
+        if (header == null) {
+            closeQuietly(reader);
+            throw new RuntimeException("Unable to retrieve data from CSV DataProvider! Verify separator and quote settings.");
+        }
+        try {
+            initHeaders(header);
+        } catch (RuntimeException e) {
+            closeQuietly(reader);
+            throw e;
+        }
+
+        return new CsvRowIterator(reader, context, parameters.groupColumn());
+    }
 
-        DSBean dsBean = new DSBean(parameters, context.getCurrentXmlTest().getAllParameters());
+    private void init(CsvDataSourceParameters parameters, ITestContext context) {
+        doNotRunTestNames = Arrays.asList(parameters.doNotRunTestNames());
 
-        char separator, quote;
+        dsBean = new DSBean(parameters, context.getCurrentXmlTest().getAllParameters());
 
         executeColumn = dsBean.getExecuteColumn();
         executeValue = dsBean.getExecuteValue();
 
-        separator = parameters.separator();
-        quote = parameters.quote();
-
         testRailColumn = parameters.testRailColumn();
 
         if (!parameters.qTestColumn().isEmpty() && testRailColumn.isEmpty())
@@ -78,118 +135,101 @@ public class CsvDataProvider extends BaseDataProvider {
         testMethodOwnerColumn = parameters.testMethodOwnerColumn();
         bugColumn = parameters.bugColumn();
 
-        List<String> argsList = dsBean.getArgs();
-        List<String> staticArgsList = dsBean.getStaticArgs();
-
-        String groupByParameter = parameters.groupColumn();
-        if (!groupByParameter.isEmpty()) {
-            GroupByMapper.getInstanceInt().add(argsList.indexOf(groupByParameter));
-            GroupByMapper.getInstanceStrings().add(groupByParameter);
-        }
-
-        if (parameters.dsArgs().isEmpty()) {
-            GroupByMapper.setIsHashMapped(true);
-        }
-        CSVReader reader;
-        List<String[]> list = new ArrayList<String[]>();
-
-        try {
-            String csvFile = ClassLoader.getSystemResource(dsBean.getDsFile()).getFile();
-            reader = new CSVReader(new FileReader(csvFile), separator, quote);
-            list = reader.readAll();
-        } catch (IOException e) {
-            LOGGER.error("Unable to read data from CSV DataProvider", e);
-        }
+        argsList = dsBean.getArgs();
+        staticArgsList = dsBean.getStaticArgs();
+    }
 
-        if (list.size() == 0) {
-            throw new RuntimeException("Unable to retrieve data from CSV DataProvider! Verify separator and quote settings.");
-        }
-        List<String> headers = Arrays.asList((String[]) list.get(0));
+    private CSVReader openReader(CsvDataSourceParameters parameters) throws IOException {
+        String csvFile = ClassLoader.getSystemResource(dsBean.getDsFile()).getFile();
+        return new CSVReader(new FileReader(csvFile), parameters.separator(), parameters.quote());
+    }
 
+    private void initHeaders(String[] header) {
+        headers = Arrays.asList(header);
         // handle empty argsList inside initMapper
         mapper = initMapper(argsList, headers);
-        list.remove(0);
-
-        // exclude those lines which don't satisfy executeColumn/executeValue filter
-        Iterator<String[]> iter = list.iterator();
-        while (iter.hasNext()) {
-            int index = mapper.get(executeColumn);
+    }
 
-            String[] line = iter.next();
-            if (!line[index].equalsIgnoreCase(executeValue)) {
-                iter.remove();
-            }
-        }
+    private boolean isExecutable(String[] line) {
+        return line[mapper.get(executeColumn)].equalsIgnoreCase(executeValue);
+    }
 
-        int listSize = list.size();
+    /**
+     * Converts the data source line into the test method arguments and registers test name, owner and TestRail cases
+     * of the row. Every cell is processed by {@link ParameterGenerator} only once.
+     */
+    private Object[] toArgs(String[] strings, ITestContext context) {
+        Object[] args;
+        Map<String, String> csvRow;
 
-        int width = 0;
+        int i = 0;
         if (argsList.size() == 0) {
             // first element is dynamic HashMap<String, String>
-            width = staticArgsList.size() + 1;
+            args = new Object[staticArgsList.size() + 1];
+
+            // read all csv data into the single HashMap<String, String> object
+            HashMap<String, String> dynamicAttrs = new HashMap<String, String>();
+            for (String header : headers) {
+                dynamicAttrs.put(header, process(strings[mapper.get(header)]));
+            }
+            args[i++] = dynamicAttrs;
+            csvRow = dynamicAttrs;
         } else {
-            width = argsList.size() + staticArgsList.size();
+            args = new Object[argsList.size() + staticArgsList.size()];
+            for (String arg : argsList) {
+                args[i++] = process(strings[mapper.get(arg)]);
+            }
+            csvRow = toRowMap(strings);
         }
 
-        Object[][] args = new Object[listSize][width];
-        int rowIndex = 0;
-        for (String[] strings : list) {
-            String testName = context.getName();
-
-            int i = 0;
-            if (argsList.size() == 0) {
-                // read all csv data into the single HashMap<String, String> object
-                HashMap<String, String> dynamicAttrs = new HashMap<String, String>();
-
-                for (String header : headers) {
-                    int index = mapper.get(header);
-                    if (ParameterGenerator.process(strings[index]) != null) {
-                        dynamicAttrs.put(header, ParameterGenerator.process(strings[index]).toString());
-                    } else {
-                        dynamicAttrs.put(header, null);
-                    }
-
-                    args[rowIndex][0] = dynamicAttrs;
-                }
+        for (int j = 0; j < staticArgsList.size(); j++) {
+            args[i + j] = getStaticParam(staticArgsList.get(j), context, dsBean);
+        }
 
-                i++;
-            } else {
-                for (String arg : argsList) {
-                    int index = mapper.get(arg);
-                    if (ParameterGenerator.process(strings[index]) != null) {
-                        args[rowIndex][i] = ParameterGenerator.process(strings[index]).toString();
-                    } else {
-                        args[rowIndex][i] = null;
-                    }
-                    i++;
-                }
-            }
+        // update testName adding UID values from DataSource arguments if any
+        String testName = dsBean.setDataSorceUUID(context.getName(), strings, mapper); // provide whole line from data provider for UUID generation
 
-            for (int j = 0; j < staticArgsList.size(); j++) {
-                args[rowIndex][i + j] = getStaticParam(staticArgsList.get(j), context, dsBean);
-            }
+        String hashCode = String.valueOf(Arrays.hashCode(args));
+        testNameArgsMap.put(hashCode, testName);
+        if (!testMethodColumn.isEmpty()) {
+            // override testName value from csv datasource to special hashMap
+            addValueToSpecialMap(testNameArgsMap, testMethodColumn, hashCode, csvRow);
+        }
 
-            // update testName adding UID values from DataSource arguments if any
-            testName = dsBean.setDataSorceUUID(testName, strings, mapper); // provide whole line from data provider for UUID generation
+        // add testMethoOwner from csv datasource to special hashMap
+        addValueToSpecialMap(testMethodOwnerArgsMap, testMethodOwnerColumn, hashCode, csvRow);
 
-            HashMap<String, String> csvRow = (HashMap<String, String>) args[rowIndex][0];
-            
-            testNameArgsMap.put(String.valueOf(Arrays.hashCode(args[rowIndex])), testName);
-            if (!testMethodColumn.isEmpty()) {
-                // override testName value from xls datasource to special hashMap
-                addValueToSpecialMap(testNameArgsMap, testMethodColumn, String.valueOf(Arrays.hashCode(args[rowIndex])), csvRow);
-            }
+        // add testrails cases from csv datasource to special hashMap
+        addValueToSpecialMap(testRailsArgsMap, testRailColumn, hashCode, csvRow);
 
-            // add testMethoOwner from xls datasource to special hashMap
-            addValueToSpecialMap(testMethodOwnerArgsMap, testMethodOwnerColumn, String.valueOf(Arrays.hashCode(args[rowIndex])), csvRow);
+        return args;
+    }
 
-            // add testrails cases from xls datasource to special hashMap
-            addValueToSpecialMap(testRailsArgsMap, testRailColumn, String.valueOf(Arrays.hashCode(args[rowIndex])), csvRow);
+    private static String process(String value) {
+        Object processed = ParameterGenerator.process(value);
+        return processed != null ? processed.toString() : null;
+    }
 
-            rowIndex++;
+    /*
+     * special columns are not always among dsArgs, so they are read from the raw line
+     */
+    private Map<String, String> toRowMap(String[] strings) {
+        Map<String, String> row = new HashMap<String, String>();
+        for (String column : Arrays.asList(testMethodColumn, testMethodOwnerColumn, testRailColumn)) {
+            Integer index = mapper.get(column);
+            if (index != null && index >= 0) {
+                row.put(column, process(strings[index]));
+            }
         }
+        return row;
+    }
 
-        return args;
+    private static void closeQuietly(CSVReader reader) {
+        try {
+            reader.close();
+        } catch (IOException e) {
+            LOGGER.debug("Unable to close CSV DataProvider reader", e);
+        }
     }
 
     /*
@@ -248,4 +288,107 @@ public class CsvDataProvider extends BaseDataProvider {
         }
     }
 
+    private final class CsvRowIterator implements Iterator<Object[]> {
+
+        private final CSVReader reader;
+        private final ITestContext context;
+        private final String groupColumn;
+        private final int groupIndex;
+
+        private boolean exhausted;
+        private Object[] next;
+        // first row of the next group read ahead while collecting the current one
+        private Object[] lookahead;
+
+        private CsvRowIterator(CSVReader reader, ITestContext context, String groupColumn) {
+            this.reader = reader;
+            this.context = context;
+            this.groupColumn = groupColumn;
+            this.groupIndex = argsList.indexOf(groupColumn);
+            if (!groupColumn.isEmpty() && argsList.size() != 0 && groupIndex == -1) {
+                closeQuietly(reader);
+                throw new GroupByException("Incorrect groupColumn annotation parameter!");
+            }
+        }
+
+        @Override
+        public synchronized boolean hasNext() {
+            if (next == null) {
+                next = groupColumn.isEmpty() ? readRow() : readGroup();
+            }
+            return next != null;
+        }
+
+        @Override
+        public synchronized Object[] next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Object[] row = next;
+            next = null;
+            return row;
+        }
+
+        private Object[] readRow() {
+            while (!exhausted) {
+                String[] line;
+                try {
+                    line = reader.readNext();
+                } catch (IOException e) {
+                    closeQuietly(reader);
+                    exhausted = true;
+                    throw new RuntimeException("Unable to read data from CSV DataProvider", e);
+                }
+
+                if (line == null) {
+                    closeQuietly(reader);
+                    exhausted = true;
+                } else if (isExecutable(line)) {
+                    return toArgs(line, context);
+                }
+            }
+            return null;
+        }
+
+        @SuppressWarnings("unchecked")
+        private Object[] readGroup() {
+            Object[] first = lookahead != null ? lookahead : readRow();
+            lookahead = null;
+            if (first == null) {
+                return null;
+            }
+
+            List<Object[]> group = new ArrayList<Object[]>();
+            group.add(first);
+            Object key = groupKey(first);
+            Object[] row;
+            while ((row = readRow()) != null) {
+                if (!Objects.equals(key, groupKey(row))) {
+                    lookahead = row;
+                    break;
+                }
+                group.add(row);
+            }
+
+            // the same layout as GroupByImpl produces
+            Object[] grouped = new Object[first.length];
+            if (argsList.size() == 0) {
+                List<HashMap<String, String>> hashMaps = new ArrayList<HashMap<String, String>>();
+                for (Object[] objects : group) {
+                    hashMaps.add((HashMap<String, String>) objects[0]);
+                }
+                grouped[0] = hashMaps;
+                System.arraycopy(first, 1, grouped, 1, first.length - 1);
+            } else {
+                grouped[0] = group;
+            }
+            return grouped;
+        }
+
+        @SuppressWarnings("unchecked")
+        private Object groupKey(Object[] row) {
+            return argsList.size() == 0 ? ((Map<String, String>) row[0]).get(groupColumn) : row[groupIndex];
+        }
+    }
+
 }
\ No newline at end of file
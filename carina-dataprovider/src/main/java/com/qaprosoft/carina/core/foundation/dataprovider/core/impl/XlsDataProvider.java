@@ -23,7 +23,6 @@ import org.testng.ITestContext;
 import org.testng.ITestNGMethod;
 
 import com.qaprosoft.carina.core.foundation.dataprovider.annotations.XlsDataSourceParameters;
-import com.qaprosoft.carina.core.foundation.dataprovider.core.groupping.GroupByMapper;
 import com.qaprosoft.carina.core.foundation.dataprovider.parser.DSBean;
 import com.qaprosoft.carina.core.foundation.dataprovider.parser.XLSParser;
 import com.qaprosoft.carina.core.foundation.dataprovider.parser.XLSTable;
@@ -48,48 +47,19 @@ public class XlsDataProvider extends BaseDataProvider {
         argsList = dsBean.getArgs();
         staticArgsList = dsBean.getStaticArgs();
 
-        if (parameters.dsArgs().isEmpty()) {
-            GroupByMapper.setIsHashMapped(true);
-        }
-
-        String groupByParameter = parameters.groupColumn();
-        if (!groupByParameter.isEmpty()) {
-            GroupByMapper.getInstanceInt().add(argsList.indexOf(groupByParameter));
-            GroupByMapper.getInstanceStrings().add(groupByParameter);
-        }
-
-        String testRailColumn = "";
-        if (!parameters.testRailColumn().isEmpty())
-            testRailColumn = parameters.testRailColumn();
-
-        if (!parameters.qTestColumn().isEmpty() && testRailColumn.isEmpty())
-            testRailColumn = parameters.qTestColumn();
-
-        String testMethodColumn = "";
-        if (!parameters.testMethodColumn().isEmpty())
-            testMethodColumn = parameters.testMethodColumn();
+        groupByIndex = createGroupByIndex(parameters.groupColumn(), argsList);
 
-        String testMethodOwnerColumn = "";
-        if (!parameters.testMethodOwnerColumn().isEmpty())
-            testMethodOwnerColumn = parameters.testMethodOwnerColumn();
+        String testRailColumn = !parameters.testRailColumn().isEmpty() || parameters.qTestColumn().isEmpty()
+                ? parameters.testRailColumn()
+                : parameters.qTestColumn();
+        String testMethodColumn = parameters.testMethodColumn();
+        String testMethodOwnerColumn = parameters.testMethodOwnerColumn();
 
-        String bugColumn = "";
-        if (!parameters.bugColumn().isEmpty())
-            bugColumn = parameters.bugColumn();
-
-        int width = 0;
-        if (argsList.size() == 0) {
-            width = staticArgsList.size() + 1;
-        } else {
-            width = argsList.size() + staticArgsList.size();
-        }
-        Object[][] args = new Object[dsData.getDataRows().size()][width];
-
-        int rowIndex = 0;
-        for (Map<String, String> xlsRow : dsData.getDataRows()) {
-            String testName = context.getName();
+        return parameterize(dsData.getDataRows(), xlsRow -> {
+            Object[] args;
 
             if (argsList.size() == 0) {
+                args = new Object[staticArgsList.size() + 1];
                 // process each column in xlsRow data obligatory replacing special keywords like UUID etc
                 for (Map.Entry<String, String> entry : xlsRow.entrySet()) {
                     if (entry == null)
@@ -99,7 +69,7 @@ public class XlsDataProvider extends BaseDataProvider {
                     if (value == null)
                         continue;
 
-                    Object param = ParameterGenerator.process(entry.getValue().toString());
+                    Object param = ParameterGenerator.process(value);
                     if (param == null)
                         continue;
 
@@ -108,40 +78,40 @@ public class XlsDataProvider extends BaseDataProvider {
                         entry.setValue(newValue);
                     }
                 }
-                args[rowIndex][0] = xlsRow;
+                args[0] = xlsRow;
                 for (int i = 0; i < staticArgsList.size(); i++) {
-                    args[rowIndex][i + 1] = getStaticParam(staticArgsList.get(i), context, dsBean);
+                    args[i + 1] = getStaticParam(staticArgsList.get(i), context, dsBean);
                 }
             } else {
+                args = new Object[argsList.size() + staticArgsList.size()];
                 int i;
                 for (i = 0; i < argsList.size(); i++) {
-                    args[rowIndex][i] = ParameterGenerator.process(xlsRow
+                    args[i] = ParameterGenerator.process(xlsRow
                             .get(argsList.get(i)));
                 }
                 // populate the rest of items by static parameters from testParams
                 for (int j = 0; j < staticArgsList.size(); j++) {
-                    args[rowIndex][i + j] = getStaticParam(staticArgsList.get(j), context, dsBean);
+                    args[i + j] = getStaticParam(staticArgsList.get(j), context, dsBean);
                 }
             }
             // update testName adding UID values from DataSource arguments if any
-            testName = dsBean.setDataSorceUUID(testName, xlsRow);
+            String testName = dsBean.setDataSorceUUID(context.getName(), xlsRow);
 
-            testNameArgsMap.put(String.valueOf(Arrays.hashCode(args[rowIndex])), testName);
+            String hashCode = String.valueOf(Arrays.hashCode(args));
+            testNameArgsMap.put(hashCode, testName);
             if (!testMethodColumn.isEmpty()) {
                 // override testName value from xls datasource to special hashMap
-                addValueToSpecialMap(testNameArgsMap, testMethodColumn, String.valueOf(Arrays.hashCode(args[rowIndex])), xlsRow);
+                addValueToSpecialMap(testNameArgsMap, testMethodColumn, hashCode, xlsRow);
             }
 
             // add testMethoOwner from xls datasource to special hashMap
-            addValueToSpecialMap(testMethodOwnerArgsMap, testMethodOwnerColumn, String.valueOf(Arrays.hashCode(args[rowIndex])), xlsRow);
+            addValueToSpecialMap(testMethodOwnerArgsMap, testMethodOwnerColumn, hashCode, xlsRow);
 
             // add testrails cases from xls datasource to special hashMap
-            addValueToSpecialMap(testRailsArgsMap, testRailColumn, String.valueOf(Arrays.hashCode(args[rowIndex])), xlsRow);
-
-            rowIndex++;
-        }
+            addValueToSpecialMap(testRailsArgsMap, testRailColumn, hashCode, xlsRow);
 
-        return args;
+            return args;
+        });
     }
 
     private void addValueToSpecialMap(Map<String, String> map, String column, String hashCode, Map<String, String> xlsRow) {
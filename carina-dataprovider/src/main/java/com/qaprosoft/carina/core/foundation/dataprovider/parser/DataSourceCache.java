@@ -0,0 +1,294 @@
+/*******************************************************************************
+ * Copyright 2020-2022 Zebrunner Inc (https://www.zebrunner.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.core.foundation.dataprovider.parser;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.invoke.MethodHandles;
+import java.math.BigInteger;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.qaprosoft.carina.core.foundation.utils.Configuration;
+import com.qaprosoft.carina.core.foundation.utils.Configuration.Parameter;
+
+import au.com.bytecode.opencsv.CSVReader;
+
+/**
+ * On-disk cache of parsed data sources. Every parsed sheet or csv file is stored as a binary table in the
+ * data_source_cache_dir folder under the name of the hash of the file path, so next runs and forked JVMs read the
+ * table instead of parsing the file again. The table is reused while the size and modification time of the file are
+ * the same, the file content is hashed only when they differ, so a touched but unchanged file is not parsed again.
+ */
+public final class DataSourceCache {
+    private static final Logger LOGGER = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+    // "CDST"
+    private static final int MAGIC = 0x43445354;
+    private static final int VERSION = 3;
+    private static final int DIGEST_LENGTH = 32;
+
+    private DataSourceCache() {
+    }
+
+    /**
+     * Reads all lines of the csv data source including the header line
+     *
+     * @param csvPath path to the csv file in the classpath
+     * @param separator csv separator
+     * @param quote csv quote
+     * @return list of the lines
+     * @throws IOException if the file can't be read
+     */
+    public static List<String[]> readCsv(String csvPath, char separator, char quote) throws IOException {
+        URL resource = ClassLoader.getSystemResource(csvPath);
+        if (getCacheDir() == null) {
+            return readAll(resource, separator, quote);
+        }
+
+        try {
+            XLSSheetData data = load(resource, "csv" + separator + quote, () -> {
+                List<String[]> lines = readAll(resource, separator, quote);
+                if (lines.isEmpty()) {
+                    return null;
+                }
+                XLSSheetData.Builder builder = new XLSSheetData.Builder();
+                builder.setHeaders(lines.get(0));
+                lines.subList(1, lines.size()).forEach(builder::addRow);
+                return builder.build();
+            });
+            return data == null ? new ArrayList<>() : data.toRows();
+        } catch (IOException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException(e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<String[]> readAll(URL resource, char separator, char quote) throws IOException {
+        CSVReader reader = new CSVReader(new FileReader(resource.getFile()), separator, quote);
+        try {
+            return reader.readAll();
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * Returns the table from the disk cache or parses the data source and stores the result. Null result of the parser
+     * is not cached.
+     *
+     * @param resource data source
+     * @param variant what is read from the data source, e.g. sheet name or csv settings
+     * @param parser parses the data source
+     */
+    static XLSSheetData load(URL resource, String variant, Callable<XLSSheetData> parser) throws Exception {
+        Path dir = getCacheDir();
+        if (dir == null) {
+            return parser.call();
+        }
+
+        Path file = dir.resolve(key(resource, variant) + ".bin");
+        long[] stat = stat(resource);
+        byte[] digest = null;
+        if (Files.isRegularFile(file)) {
+            try {
+                Entry entry = read(file);
+                if (entry.size == stat[0] && entry.modified == stat[1] && stat[1] != -1) {
+                    return entry.data;
+                }
+                digest = digest(resource);
+                if (Arrays.equals(entry.digest, digest)) {
+                    // only the modification time is changed, e.g. after a checkout
+                    write(file, new Entry(stat[0], stat[1], digest, entry.data));
+                    return entry.data;
+                }
+            } catch (Exception e) {
+                LOGGER.debug("Unable to read cached data source '{}', it will be parsed again", file, e);
+            }
+        }
+
+        XLSSheetData data = parser.call();
+        if (data != null) {
+            try {
+                write(file, new Entry(stat[0], stat[1], digest == null ? digest(resource) : digest, data));
+            } catch (IOException e) {
+                LOGGER.debug("Unable to cache data source '{}'", resource, e);
+            }
+        }
+        return data;
+    }
+
+    static Path getCacheDir() {
+        String dir = Configuration.get(Parameter.DATA_SOURCE_CACHE_DIR);
+        return dir.isEmpty() ? null : Paths.get(dir);
+    }
+
+    private static String key(URL resource, String variant) throws Exception {
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        digest.update((VERSION + ":" + variant + ":" + resource.toExternalForm()).getBytes(StandardCharsets.UTF_8));
+        return String.format("%064x", new BigInteger(1, digest.digest()));
+    }
+
+    /**
+     * @return size and modification time of the file, -1 when the data source is not a file, e.g. an entry of a jar
+     */
+    private static long[] stat(URL resource) {
+        if ("file".equals(resource.getProtocol())) {
+            try {
+                Path path = Paths.get(resource.toURI());
+                return new long[] { Files.size(path), Files.getLastModifiedTime(path).toMillis() };
+            } catch (Exception e) {
+                LOGGER.debug("Unable to get attributes of data source '{}'", resource, e);
+            }
+        }
+        return new long[] { -1, -1 };
+    }
+
+    private static byte[] digest(URL resource) throws Exception {
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        byte[] buffer = new byte[64 * 1024];
+        try (InputStream is = resource.openStream()) {
+            int read;
+            while ((read = is.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        return digest.digest();
+    }
+
+    static Entry read(Path file) throws IOException {
+        // the whole table is copied to the heap anyway, so the file is read at once without mapping
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file));
+
+        if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+            throw new IOException("Unsupported data source cache file: " + file);
+        }
+        long size = buffer.getLong();
+        long modified = buffer.getLong();
+        byte[] digest = new byte[DIGEST_LENGTH];
+        buffer.get(digest);
+
+        String[] headers = new String[buffer.getInt()];
+        for (int i = 0; i < headers.length; i++) {
+            headers[i] = readString(buffer);
+        }
+        String[] values = new String[buffer.getInt()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = readString(buffer);
+        }
+        int rowCount = buffer.getInt();
+        int[][] columns = new int[buffer.getInt()][rowCount];
+        for (int[] column : columns) {
+            buffer.asIntBuffer().get(column);
+            buffer.position(buffer.position() + rowCount * Integer.BYTES);
+        }
+        return new Entry(size, modified, digest,
+                new XLSSheetData(Collections.unmodifiableList(Arrays.asList(headers)), values, columns, rowCount));
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Writes the table to the temporary file and renames it, so parallel JVMs never read a partially written table
+     */
+    static void write(Path file, Entry entry) throws IOException {
+        XLSSheetData data = entry.data;
+        Files.createDirectories(file.getParent());
+        Path tmp = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+        try {
+            try (DataOutputStream os = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                os.writeInt(MAGIC);
+                os.writeInt(VERSION);
+                os.writeLong(entry.size);
+                os.writeLong(entry.modified);
+                os.write(entry.digest);
+                os.writeInt(data.getHeaders().size());
+                for (String header : data.getHeaders()) {
+                    writeString(os, header);
+                }
+                os.writeInt(data.getValues().length);
+                for (String value : data.getValues()) {
+                    writeString(os, value);
+                }
+                os.writeInt(data.getRowCount());
+                os.writeInt(data.getColumnCount());
+                for (int i = 0; i < data.getColumnCount(); i++) {
+                    for (int index : data.getColumn(i)) {
+                        os.writeInt(index);
+                    }
+                }
+            }
+            try {
+                Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    private static void writeString(DataOutputStream os, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        os.writeInt(bytes.length);
+        os.write(bytes);
+    }
+
+    /**
+     * Cached table with the attributes of the data source it was parsed from
+     */
+    static final class Entry {
+        private final long size;
+        private final long modified;
+        private final byte[] digest;
+        private final XLSSheetData data;
+
+        Entry(long size, long modified, byte[] digest, XLSSheetData data) {
+            this.size = size;
+            this.modified = modified;
+            this.digest = digest;
+            this.data = data;
+        }
+
+        XLSSheetData getData() {
+            return data;
+        }
+    }
+}
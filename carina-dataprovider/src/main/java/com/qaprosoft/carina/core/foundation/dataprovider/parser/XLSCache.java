@@ -16,21 +16,22 @@
 package com.qaprosoft.carina.core.foundation.dataprovider.parser;
 
 import java.io.InputStream;
-import java.util.HashMap;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.poi.ss.usermodel.Workbook;
 import org.apache.poi.ss.usermodel.WorkbookFactory;
 
 public class XLSCache {
-    private static Map<String, Workbook> xlsCache = new HashMap<String, Workbook>();
+    // concurrent suites load different workbooks in parallel, the same workbook is loaded once
+    private static Map<String, Workbook> xlsCache = new ConcurrentHashMap<String, Workbook>();
 
-    public static synchronized Workbook getWorkbook(String xlsPath) {
-        if (!xlsCache.keySet().contains(xlsPath)) {
+    public static Workbook getWorkbook(String xlsPath) {
+        return xlsCache.computeIfAbsent(xlsPath, path -> {
             Workbook wb;
             try {
-                InputStream is = ClassLoader.getSystemResourceAsStream(xlsPath);
+                InputStream is = ClassLoader.getSystemResourceAsStream(path);
                 try {
                     wb = WorkbookFactory.create(is);
                 } finally {
@@ -41,14 +42,13 @@ public class XLSCache {
                     // }
                 }
             } catch (Exception e) {
-                throw new RuntimeException("Can't read xls: " + xlsPath);
+                throw new RuntimeException("Can't read xls: " + path);
             }
-            xlsCache.put(xlsPath, wb);
-        }
-        return xlsCache.get(xlsPath);
+            return wb;
+        });
     }
 
-    public static synchronized String getWorkbookPath(Workbook book) {
+    public static String getWorkbookPath(Workbook book) {
         for (Entry<String, Workbook> entry : xlsCache.entrySet()) {
             if (entry.getValue() == book)
                 return entry.getKey();
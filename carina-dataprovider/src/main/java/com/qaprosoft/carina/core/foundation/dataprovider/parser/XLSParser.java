@@ -21,6 +21,8 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.WeakHashMap;
 
 import org.apache.poi.ss.usermodel.Cell;
 import org.apache.poi.ss.usermodel.CellType;
@@ -40,12 +42,9 @@ import com.qaprosoft.carina.core.foundation.exception.InvalidArgsException;
 
 public class XLSParser extends AbstractXLSParser {
     private static final Logger LOGGER = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
-    private static DataFormatter df;
-    private static FormulaEvaluator evaluator;
-
-    static {
-        df = new DataFormatter();
-    }
+    // neither formatter nor evaluator is thread-safe, so every thread has its own ones
+    private static final ThreadLocal<DataFormatter> FORMATTER = ThreadLocal.withInitial(DataFormatter::new);
+    private static final ThreadLocal<Map<Workbook, FormulaEvaluator>> EVALUATORS = ThreadLocal.withInitial(WeakHashMap::new);
 
     public static String parseValue(String locatorKey, String xlsPath, Locale locale) {
         String value;
@@ -96,6 +95,18 @@ public class XLSParser extends AbstractXLSParser {
     public static String parseValue(String xls, String sheetName, String key) {
         String value = null;
 
+        XLSSheetData data = XLSSheetCache.getSheet(xls, sheetName);
+        if (data != null) {
+            for (int i = 0; i < data.getRowCount(); i++) {
+                if (key.equals(data.getValue(0, i))) {
+                    String cellValue = data.getColumnCount() > 1 ? data.getValue(1, i) : null;
+                    // missing cell is read as empty value like in the workbook model
+                    return cellValue == null ? "" : cellValue;
+                }
+            }
+            throw new InvalidArgsException(String.format("No key: '%s' on sheet '%s' in excel file: '%s'!", key, sheetName, xls));
+        }
+
         Workbook wb = XLSCache.getWorkbook(xls);
 
         Sheet sheet = wb.getSheet(sheetName);
@@ -126,8 +137,13 @@ public class XLSParser extends AbstractXLSParser {
     public static XLSTable parseSpreadSheet(String xls, String sheetName, String executeColumn, String executeValue) {
         XLSTable dataTable = prepareDataTable(executeColumn, executeValue);
 
+        // plain .xlsx sheets are streamed once and then shared by all data providers
+        XLSSheetData data = XLSSheetCache.getSheet(xls, sheetName);
+        if (data != null) {
+            return data.toTable(dataTable);
+        }
+
         Workbook wb = XLSCache.getWorkbook(xls);
-        evaluator = wb.getCreationHelper().createFormulaEvaluator();
 
         Sheet sheet = wb.getSheet(sheetName);
         if (sheet == null) {
@@ -152,6 +168,7 @@ public class XLSParser extends AbstractXLSParser {
         if (cell == null)
             return "";
 
+        DataFormatter df = FORMATTER.get();
         switch (cell.getCellType()) {
         case STRING:
             return df.formatCellValue(cell).trim();
@@ -160,7 +177,8 @@ public class XLSParser extends AbstractXLSParser {
         case BOOLEAN:
             return df.formatCellValue(cell).trim();
         case FORMULA:
-            return (cell.getCellFormula().contains("[") && cell.getCellFormula().contains("]")) ? null : df.formatCellValue(cell, evaluator).trim();
+            return (cell.getCellFormula().contains("[") && cell.getCellFormula().contains("]")) ? null
+                    : df.formatCellValue(cell, getEvaluator(cell.getSheet().getWorkbook())).trim();
         case BLANK:
             return "";
         default:
@@ -168,6 +186,10 @@ public class XLSParser extends AbstractXLSParser {
         }
     }
 
+    private static FormulaEvaluator getEvaluator(Workbook wb) {
+        return EVALUATORS.get().computeIfAbsent(wb, book -> book.getCreationHelper().createFormulaEvaluator());
+    }
+
     public static XLSChildTable parseCellLinks(Cell cell, Workbook wb, Sheet sheet) {
         if (cell == null)
             return null;
@@ -0,0 +1,110 @@
+/*******************************************************************************
+ * Copyright 2020-2022 Zebrunner Inc (https://www.zebrunner.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.core.foundation.dataprovider.parser;
+
+import java.io.File;
+import java.lang.invoke.MethodHandles;
+import java.net.URL;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.qaprosoft.carina.core.foundation.exception.InvalidArgsException;
+
+/**
+ * Parsed sheets shared by all data providers. Entries are keyed by file and sheet and remember the file modification
+ * time, so a changed data source is parsed again and the outdated entry is replaced. Every sheet is parsed only once
+ * even if parallel suites request it at the same time, while other sheets are loaded without waiting.
+ */
+final class XLSSheetCache {
+    private static final Logger LOGGER = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+    private static final Map<String, Entry> CACHE = new ConcurrentHashMap<>();
+
+    private XLSSheetCache() {
+    }
+
+    /**
+     * @return parsed sheet or null if the sheet should be read by the workbook model
+     */
+    static XLSSheetData getSheet(String xlsPath, String sheetName) {
+        if (!XLSXStreamingParser.isSupported(xlsPath)) {
+            return null;
+        }
+        URL resource = ClassLoader.getSystemResource(xlsPath);
+        if (resource == null) {
+            return null;
+        }
+
+        long lastModified = getLastModified(resource);
+        Entry entry = CACHE.compute(xlsPath + "#" + sheetName,
+                (key, current) -> current != null && current.lastModified == lastModified ? current : new Entry(lastModified));
+        return entry.get(resource, xlsPath, sheetName);
+    }
+
+    private static long getLastModified(URL resource) {
+        if ("file".equals(resource.getProtocol())) {
+            try {
+                return new File(resource.toURI()).lastModified();
+            } catch (Exception e) {
+                LOGGER.debug("Unable to get modification time of '{}'", resource, e);
+            }
+        }
+        // resources inside jars are not changed during the run
+        return 0;
+    }
+
+    private static final class Entry {
+
+        private final long lastModified;
+        private volatile boolean loaded;
+        private XLSSheetData data;
+
+        private Entry(long lastModified) {
+            this.lastModified = lastModified;
+        }
+
+        private XLSSheetData get(URL resource, String xlsPath, String sheetName) {
+            if (!loaded) {
+                synchronized (this) {
+                    if (!loaded) {
+                        data = load(resource, xlsPath, sheetName);
+                        loaded = true;
+                    }
+                }
+            }
+            return data;
+        }
+
+        private static XLSSheetData load(URL resource, String xlsPath, String sheetName) {
+            try {
+                XLSSheetData sheet = DataSourceCache.load(resource, "xlsx" + sheetName,
+                        () -> XLSXStreamingParser.parse(resource, xlsPath, sheetName));
+                if (sheet == null) {
+                    LOGGER.debug("Sheet '{}' in '{}' will be read by the workbook model", sheetName, xlsPath);
+                }
+                return sheet;
+            } catch (InvalidArgsException e) {
+                throw e;
+            } catch (Exception e) {
+                LOGGER.debug("Unable to stream sheet '{}' in '{}', it will be read by the workbook model", sheetName, xlsPath, e);
+                return null;
+            }
+        }
+    }
+}
@@ -0,0 +1,152 @@
+/*******************************************************************************
+ * Copyright 2020-2022 Zebrunner Inc (https://www.zebrunner.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.core.foundation.dataprovider.parser;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable parsed sheet stored by columns. Every distinct cell value is kept once and columns refer to it by index,
+ * so big data sources with a lot of repeated values (flags, statuses, locales) take much less memory than POI workbooks
+ * and can be written to disk as plain int arrays by {@link DataSourceCache}.
+ */
+final class XLSSheetData {
+
+    static final int NULL_VALUE = -1;
+
+    private final List<String> headers;
+    // distinct cell values
+    private final String[] values;
+    // [column][row] indexes of the values, the header row is not included
+    private final int[][] columns;
+    private final int rowCount;
+
+    XLSSheetData(List<String> headers, String[] values, int[][] columns, int rowCount) {
+        this.headers = headers;
+        this.values = values;
+        this.columns = columns;
+        this.rowCount = rowCount;
+    }
+
+    List<String> getHeaders() {
+        return headers;
+    }
+
+    int getColumnCount() {
+        return columns.length;
+    }
+
+    int getRowCount() {
+        return rowCount;
+    }
+
+    String getValue(int column, int row) {
+        int index = columns[column][row];
+        return index == NULL_VALUE ? null : values[index];
+    }
+
+    String[] getValues() {
+        return values;
+    }
+
+    int[] getColumn(int column) {
+        return columns[column];
+    }
+
+    /**
+     * Fills the table with the fresh copy of the data, so callers are free to modify the rows
+     */
+    XLSTable toTable(XLSTable table) {
+        table.setHeaders(headers);
+        String[] row = new String[columns.length];
+        for (int i = 0; i < rowCount; i++) {
+            for (int j = 0; j < columns.length; j++) {
+                row[j] = getValue(j, i);
+            }
+            table.addDataRow(Arrays.asList(row));
+        }
+        return table;
+    }
+
+    /**
+     * @return rows of the sheet with the headers as the first row
+     */
+    List<String[]> toRows() {
+        List<String[]> rows = new ArrayList<>(rowCount + 1);
+        rows.add(headers.toArray(new String[0]));
+        for (int i = 0; i < rowCount; i++) {
+            String[] row = new String[columns.length];
+            for (int j = 0; j < columns.length; j++) {
+                row[j] = getValue(j, i);
+            }
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    /**
+     * Collects the rows of the sheet one by one
+     */
+    static final class Builder {
+
+        private final Map<String, Integer> pool = new HashMap<>();
+        private final List<String> values = new ArrayList<>();
+        private final List<int[]> rows = new ArrayList<>();
+        private List<String> headers = Collections.emptyList();
+
+        void setHeaders(String[] headers) {
+            this.headers = Collections.unmodifiableList(Arrays.asList(headers));
+        }
+
+        List<String> getHeaders() {
+            return headers;
+        }
+
+        /**
+         * @param row values of the row, missing trailing values are read as null, values beyond the headers are kept
+         */
+        void addRow(String[] row) {
+            int[] indexes = new int[Math.max(headers.size(), row.length)];
+            for (int i = 0; i < indexes.length; i++) {
+                String value = i < row.length ? row[i] : null;
+                indexes[i] = value == null ? NULL_VALUE : pool.computeIfAbsent(value, v -> {
+                    values.add(v);
+                    return values.size() - 1;
+                });
+            }
+            rows.add(indexes);
+        }
+
+        XLSSheetData build() {
+            int width = headers.size();
+            for (int[] row : rows) {
+                width = Math.max(width, row.length);
+            }
+            int[][] columns = new int[width][rows.size()];
+            for (int i = 0; i < rows.size(); i++) {
+                int[] row = rows.get(i);
+                for (int j = 0; j < columns.length; j++) {
+                    columns[j][i] = j < row.length ? row[j] : NULL_VALUE;
+                }
+            }
+            return new XLSSheetData(headers, values.toArray(new String[0]), columns, rows.size());
+        }
+    }
+}
@@ -33,7 +33,7 @@ import org.slf4j.LoggerFactory;
 
 public class XLSTable {
     private static final Logger LOGGER = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
-    private final static String FK_PREFIX = "FK_LINK_";
+    static final String FK_PREFIX = "FK_LINK_";
 
     private List<String> headers;
     private List<Map<String, String>> dataRows;
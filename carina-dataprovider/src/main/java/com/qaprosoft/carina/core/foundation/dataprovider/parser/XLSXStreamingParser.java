@@ -0,0 +1,160 @@
+/*******************************************************************************
+ * Copyright 2020-2022 Zebrunner Inc (https://www.zebrunner.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.core.foundation.dataprovider.parser;
+
+import java.io.File;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.poi.ooxml.util.SAXHelper;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler.SheetContentsHandler;
+import org.apache.poi.xssf.usermodel.XSSFComment;
+import org.xml.sax.InputSource;
+import org.xml.sax.XMLReader;
+
+import com.qaprosoft.carina.core.foundation.exception.InvalidArgsException;
+
+/**
+ * Reads .xlsx sheets with SAX events instead of loading the whole workbook into memory. Formula cells are taken from
+ * the results cached in the file, so no formula evaluator is shared between threads.
+ */
+final class XLSXStreamingParser {
+
+    private XLSXStreamingParser() {
+    }
+
+    static boolean isSupported(String xlsPath) {
+        String path = xlsPath.toLowerCase();
+        return path.endsWith(".xlsx") || path.endsWith(".xlsm");
+    }
+
+    /**
+     * @return parsed sheet or null if the sheet can't be read without the workbook, e.g. it has FK_LINK_ columns
+     *         or no header row
+     */
+    static XLSSheetData parse(URL resource, String xlsPath, String sheetName) throws Exception {
+        try (OPCPackage pkg = open(resource)) {
+            XSSFReader reader = new XSSFReader(pkg);
+            ReadOnlySharedStringsTable strings = new ReadOnlySharedStringsTable(pkg);
+
+            XSSFReader.SheetIterator sheets = (XSSFReader.SheetIterator) reader.getSheetsData();
+            while (sheets.hasNext()) {
+                try (InputStream sheet = sheets.next()) {
+                    // the same as Workbook.getSheet
+                    if (!sheets.getSheetName().equalsIgnoreCase(sheetName)) {
+                        continue;
+                    }
+
+                    SheetHandler handler = new SheetHandler();
+                    XMLReader parser = SAXHelper.newXMLReader();
+                    parser.setContentHandler(new XSSFSheetXMLHandler(reader.getStylesTable(), strings, handler, new DataFormatter(), false));
+                    try {
+                        parser.parse(new InputSource(sheet));
+                    } catch (UnsupportedSheetException e) {
+                        return null;
+                    }
+                    return handler.builder.build();
+                }
+            }
+        }
+        throw new InvalidArgsException(String.format("No sheet: '%s' in excel file: '%s'!", sheetName, xlsPath));
+    }
+
+    private static OPCPackage open(URL resource) throws Exception {
+        if ("file".equals(resource.getProtocol())) {
+            return OPCPackage.open(new File(resource.toURI()), PackageAccess.READ);
+        }
+        try (InputStream is = resource.openStream()) {
+            return OPCPackage.open(is);
+        }
+    }
+
+    private static final class SheetHandler implements SheetContentsHandler {
+
+        private final XLSSheetData.Builder builder = new XLSSheetData.Builder();
+        private final List<String> headers = new ArrayList<>();
+        private boolean headersRead;
+        private String[] row;
+
+        @Override
+        public void startRow(int rowNum) {
+            if (!headersRead && rowNum != 0) {
+                throw new UnsupportedSheetException();
+            }
+            if (headersRead) {
+                row = new String[builder.getHeaders().size()];
+                Arrays.fill(row, "");
+            }
+        }
+
+        @Override
+        public void endRow(int rowNum) {
+            if (!headersRead) {
+                for (String header : headers) {
+                    if (header.startsWith(XLSTable.FK_PREFIX)) {
+                        throw new UnsupportedSheetException();
+                    }
+                }
+                builder.setHeaders(headers.toArray(new String[0]));
+                headersRead = true;
+            } else {
+                builder.addRow(row);
+            }
+        }
+
+        @Override
+        public void cell(String cellReference, String formattedValue, XSSFComment comment) {
+            int column = new CellReference(cellReference).getCol();
+            String value = formattedValue == null ? "" : formattedValue.trim();
+            if (!headersRead) {
+                while (headers.size() <= column) {
+                    headers.add("");
+                }
+                headers.set(column, value);
+            } else {
+                // cells beyond the headers are kept like in the workbook model
+                if (column >= row.length) {
+                    int width = row.length;
+                    row = Arrays.copyOf(row, column + 1);
+                    Arrays.fill(row, width, row.length, "");
+                }
+                row[column] = value;
+            }
+        }
+    }
+
+    /**
+     * Stops SAX parsing when the sheet needs the full workbook model
+     */
+    private static final class UnsupportedSheetException extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        private UnsupportedSheetException() {
+            super(null, null, false, false);
+        }
+    }
+}
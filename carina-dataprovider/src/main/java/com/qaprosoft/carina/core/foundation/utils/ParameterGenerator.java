@@ -16,6 +16,9 @@
 package com.qaprosoft.carina.core.foundation.utils;
 
 import java.lang.invoke.MethodHandles;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -32,89 +35,121 @@ public class ParameterGenerator {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
 
-    private static Pattern GENERATE_UUID_PATTERN = Pattern.compile(SpecialKeywords.GENERATE_UUID);
-    private static Pattern GENERATE_PATTERN = Pattern.compile(SpecialKeywords.GENERATE);
-    private static Pattern GENERATEAN_PATTERN = Pattern.compile(SpecialKeywords.GENERATEAN);
-    private static Pattern GENERATEN_PATTERN = Pattern.compile(SpecialKeywords.GENERATEN);
-    private static Pattern TESTDATA_PATTERN = Pattern.compile(SpecialKeywords.TESTDATA);
-    private static Pattern ENV_PATTERN = Pattern.compile(SpecialKeywords.ENV);
-    private static Pattern L10N_PATTERN = Pattern.compile(SpecialKeywords.L10N_PATTERN);
-    private static Pattern EXCEL_PATTERN = Pattern.compile(SpecialKeywords.EXCEL);
+    private static final Pattern GENERATE_UUID_PATTERN = Pattern.compile(SpecialKeywords.GENERATE_UUID);
+    private static final Pattern GENERATE_PATTERN = Pattern.compile(SpecialKeywords.GENERATE);
+    private static final Pattern GENERATEAN_PATTERN = Pattern.compile(SpecialKeywords.GENERATEAN);
+    private static final Pattern GENERATEN_PATTERN = Pattern.compile(SpecialKeywords.GENERATEN);
+    private static final Pattern TESTDATA_PATTERN = Pattern.compile(SpecialKeywords.TESTDATA);
+    private static final Pattern ENV_PATTERN = Pattern.compile(SpecialKeywords.ENV);
+    private static final Pattern L10N_PATTERN = Pattern.compile(SpecialKeywords.L10N_PATTERN);
+    private static final Pattern EXCEL_PATTERN = Pattern.compile(SpecialKeywords.EXCEL);
 
-    private static Matcher matcher;
+    // protects from unbounded growth when a data source has a lot of unique expressions
+    private static final int MAX_CACHED_EXPRESSIONS = 10_000;
 
-    private static String UUID;
+    /**
+     * Compiled expressions by parameter value. Expressions with env, testdata and excel values are resolved once per run,
+     * generators and L10N are evaluated on every call.
+     */
+    private static final Map<String, Supplier<Object>> EXPRESSIONS = new ConcurrentHashMap<>();
+
+    private static volatile String UUID;
 
     public static Object process(String param) {
-        try {
-            if (param == null || param.toLowerCase().equals("nil")) {
-                return null;
+        if (param == null || param.equalsIgnoreCase("nil")) {
+            return null;
+        }
+        if (param.indexOf('{') == -1) {
+            // there are no expressions in the parameter
+            return param;
+        }
+
+        Supplier<Object> expression = EXPRESSIONS.get(param);
+        if (expression == null) {
+            expression = compile(param);
+            if (EXPRESSIONS.size() < MAX_CACHED_EXPRESSIONS) {
+                Supplier<Object> cached = EXPRESSIONS.putIfAbsent(param, expression);
+                if (cached != null) {
+                    expression = cached;
+                }
             }
+        }
+        return expression.get();
+    }
 
-            matcher = GENERATE_UUID_PATTERN.matcher(param);
+    private static Supplier<Object> compile(String param) {
+        try {
+            Matcher matcher = GENERATE_UUID_PATTERN.matcher(param);
             if (matcher.find()) {
-                return StringUtils.replace(param, matcher.group(), UUID);
+                String token = matcher.group();
+                return () -> StringUtils.replace(param, token, UUID);
             }
+
             matcher = GENERATE_PATTERN.matcher(param);
             if (matcher.find()) {
-                int start = param.indexOf(":") + 1;
-                int end = param.indexOf("}");
-                int size = Integer.valueOf(param.substring(start, end));
-                return StringUtils.replace(param, matcher.group(), StringGenerator.generateWord(size));
+                String token = matcher.group();
+                int size = Integer.valueOf(getArgument(param));
+                return () -> StringUtils.replace(param, token, StringGenerator.generateWord(size));
             }
 
             matcher = GENERATEAN_PATTERN.matcher(param);
             if (matcher.find()) {
-                int start = param.indexOf(":") + 1;
-                int end = param.indexOf("}");
-                int size = Integer.valueOf(param.substring(start, end));
-                return StringUtils.replace(param, matcher.group(), StringGenerator.generateWordAN(size));
+                String token = matcher.group();
+                int size = Integer.valueOf(getArgument(param));
+                return () -> StringUtils.replace(param, token, StringGenerator.generateWordAN(size));
             }
 
             matcher = GENERATEN_PATTERN.matcher(param);
             if (matcher.find()) {
-                int start = param.indexOf(":") + 1;
-                int end = param.indexOf("}");
-                int size = Integer.valueOf(param.substring(start, end));
-                return StringUtils.replace(param, matcher.group(), StringGenerator.generateNumeric(size));
+                String token = matcher.group();
+                int size = Integer.valueOf(getArgument(param));
+                return () -> StringUtils.replace(param, token, StringGenerator.generateNumeric(size));
             }
 
             matcher = ENV_PATTERN.matcher(param);
             if (matcher.find()) {
-                int start = param.indexOf(":") + 1;
-                int end = param.indexOf("}");
-                String key = param.substring(start, end);
-                return StringUtils.replace(param, matcher.group(), Configuration.getEnvArg(key));
+                return constant(StringUtils.replace(param, matcher.group(), Configuration.getEnvArg(getArgument(param))));
             }
 
             matcher = TESTDATA_PATTERN.matcher(param);
             if (matcher.find()) {
-                int start = param.indexOf(":") + 1;
-                int end = param.indexOf("}");
-                String key = param.substring(start, end);
-                return StringUtils.replace(param, matcher.group(), R.TESTDATA.get(key));
+                return constant(StringUtils.replace(param, matcher.group(), R.TESTDATA.get(getArgument(param))));
             }
 
             matcher = EXCEL_PATTERN.matcher(param);
             if (matcher.find()) {
-                int start = param.indexOf(":") + 1;
-                int end = param.indexOf("}");
-                String key = param.substring(start, end);
-                return StringUtils.replace(param, matcher.group(), getValueFromXLS(key));
+                return constant(StringUtils.replace(param, matcher.group(), getValueFromXLS(getArgument(param))));
             }
 
-            matcher = L10N_PATTERN.matcher(param);
-            String initStrL10N = param;
+            if (L10N_PATTERN.matcher(param).find()) {
+                // locale can be changed during the run
+                return () -> processL10N(param);
+            }
+        } catch (Exception e) {
+            LOGGER.error(e.getMessage());
+        }
+        return constant(param);
+    }
+
+    private static Supplier<Object> constant(String value) {
+        return () -> value;
+    }
+
+    private static String getArgument(String param) {
+        int start = param.indexOf(":") + 1;
+        int end = param.indexOf("}");
+        return param.substring(start, end);
+    }
+
+    private static String processL10N(String param) {
+        try {
+            Matcher matcher = L10N_PATTERN.matcher(param);
             while (matcher.find()) {
                 int start = param.indexOf(SpecialKeywords.L10N + ":") + 5;
                 int end = param.indexOf("}");
                 String key = param.substring(start, end);
                 param = StringUtils.replace(param, matcher.group(), L10N.getText(key));
             }
-            // in case if L10N pattern was applied
-            if (!initStrL10N.equalsIgnoreCase(param)) {
-                return param;
-            }
         } catch (Exception e) {
             LOGGER.error(e.getMessage());
         }
@@ -0,0 +1,137 @@
+package com.qaprosoft.carina.core.foundation.dataprovider;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.testng.Assert;
+import org.testng.ITestContext;
+import org.testng.annotations.Test;
+import org.testng.xml.XmlSuite;
+import org.testng.xml.XmlTest;
+
+import com.qaprosoft.carina.core.foundation.commons.SpecialKeywords;
+import com.qaprosoft.carina.core.foundation.dataprovider.annotations.CsvDataSourceParameters;
+import com.qaprosoft.carina.core.foundation.dataprovider.core.DataProviderFactory;
+import com.qaprosoft.carina.core.foundation.dataprovider.core.impl.CsvDataProvider;
+
+public class CsvDataProviderTest {
+
+    @CsvDataSourceParameters(path = "csv_data/StreamTest.csv", dsUid = "TUID", dsArgs = "TUID,a,b", testMethodOwnerColumn = "owner")
+    public void argsMethod() {
+    }
+
+    @CsvDataSourceParameters(path = "csv_data/StreamTest.csv", dsUid = "TUID")
+    public void mapMethod() {
+    }
+
+    @CsvDataSourceParameters(path = "csv_data/StreamTest.csv", dsUid = "TUID", dsArgs = "group,a", groupColumn = "group")
+    public void groupMethod() {
+    }
+
+    @Test
+    public void testStreamingMatchesEagerRows() {
+        Object[][] eager = new CsvDataProvider().getDataProvider(annotation("argsMethod"), createContext(), null);
+        List<Object[]> streamed = toList(new CsvDataProvider().getDataProviderIterator(annotation("argsMethod"), createContext(), null));
+
+        Assert.assertEquals(streamed.size(), 4, "Rows with Execute=n should be filtered out");
+        Assert.assertEquals(streamed.toArray(new Object[0][]), eager);
+        Assert.assertEquals(streamed.get(0), new Object[] { "T1", "1", "2" });
+        Assert.assertEquals(streamed.get(3), new Object[] { "T5", "9", "10" });
+    }
+
+    @Test
+    public void testRowsAreReadLazily() {
+        CsvDataProvider provider = new CsvDataProvider();
+        Iterator<Object[]> rows = provider.getDataProviderIterator(annotation("argsMethod"), createContext(), null);
+        Assert.assertTrue(provider.getTestNameArgsMap().isEmpty(), "Nothing should be read before iteration");
+
+        Object[] first = rows.next();
+        String hashCode = String.valueOf(Arrays.hashCode(first));
+        Assert.assertEquals(provider.getTestNameArgsMap().size(), 1);
+        Assert.assertEquals(provider.getTestNameArgsMap().get(hashCode), "T1 - csv-test [TUID=T1]");
+        Assert.assertEquals(provider.getTestMethodOwnerArgsMap().get(hashCode), "owner1");
+
+        Object[] second = rows.next();
+        Assert.assertNull(provider.getTestMethodOwnerArgsMap().get(String.valueOf(Arrays.hashCode(second))),
+                "Empty owner should not be registered");
+        Assert.assertEquals(provider.getTestNameArgsMap().size(), 2);
+    }
+
+    @Test
+    public void testStreamingHashMapRows() {
+        List<Object[]> rows = toList(new CsvDataProvider().getDataProviderIterator(annotation("mapMethod"), createContext(), null));
+        Assert.assertEquals(rows.size(), 4);
+        @SuppressWarnings("unchecked")
+        Map<String, String> row = (Map<String, String>) rows.get(2)[0];
+        Assert.assertEquals(row.get("TUID"), "T4");
+        Assert.assertEquals(row.get("owner"), "owner4");
+    }
+
+    @Test
+    public void testStreamingGroupsConsecutiveRows() {
+        List<Object[]> groups = toList(new CsvDataProvider().getDataProviderIterator(annotation("groupMethod"), createContext(), null));
+        Assert.assertEquals(groups.size(), 3);
+
+        @SuppressWarnings("unchecked")
+        List<Object[]> first = (List<Object[]>) groups.get(0)[0];
+        Assert.assertEquals(first.size(), 2);
+        Assert.assertEquals(first.get(0), new Object[] { "g1", "1" });
+        Assert.assertEquals(first.get(1), new Object[] { "g1", "5" });
+    }
+
+    @Test
+    public void testFactoryRegistersTestNames() {
+        ITestContext context = createContext();
+        Annotation[] annotations = { annotation("argsMethod") };
+        Iterator<Object[]> rows = DataProviderFactory.getDataProviderIterator(annotations, context, null);
+
+        @SuppressWarnings("unchecked")
+        Map<String, String> testNames = (Map<String, String>) context.getAttribute(SpecialKeywords.TEST_NAME_ARGS_MAP);
+        Assert.assertTrue(testNames.isEmpty());
+
+        List<Object[]> list = toList(rows);
+        Assert.assertEquals(testNames.size(), list.size());
+        Assert.assertEquals(testNames.get(String.valueOf(Arrays.hashCode(list.get(2)))), "T4 - csv-test [TUID=T4]");
+    }
+
+    private static CsvDataSourceParameters annotation(String methodName) {
+        try {
+            return CsvDataProviderTest.class.getMethod(methodName).getAnnotation(CsvDataSourceParameters.class);
+        } catch (NoSuchMethodException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static List<Object[]> toList(Iterator<Object[]> iterator) {
+        List<Object[]> list = new ArrayList<>();
+        iterator.forEachRemaining(list::add);
+        return list;
+    }
+
+    private static ITestContext createContext() {
+        XmlTest xmlTest = new XmlTest(new XmlSuite());
+        Map<String, Object> attributes = new HashMap<>();
+        return (ITestContext) Proxy.newProxyInstance(CsvDataProviderTest.class.getClassLoader(), new Class<?>[] { ITestContext.class },
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                    case "getName":
+                        return "csv-test";
+                    case "getCurrentXmlTest":
+                        return xmlTest;
+                    case "setAttribute":
+                        attributes.put((String) args[0], args[1]);
+                        return null;
+                    case "getAttribute":
+                        return attributes.get(args[0]);
+                    default:
+                        throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+}
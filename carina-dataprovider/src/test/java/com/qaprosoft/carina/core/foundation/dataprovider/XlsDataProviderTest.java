@@ -0,0 +1,126 @@
+package com.qaprosoft.carina.core.foundation.dataprovider;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.testng.Assert;
+import org.testng.ITestContext;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import org.testng.xml.XmlSuite;
+import org.testng.xml.XmlTest;
+
+import com.qaprosoft.carina.core.foundation.dataprovider.annotations.XlsDataSourceParameters;
+import com.qaprosoft.carina.core.foundation.dataprovider.core.DataProviderFactory;
+import com.qaprosoft.carina.core.foundation.dataprovider.core.groupping.exceptions.GroupByException;
+import com.qaprosoft.carina.core.foundation.dataprovider.core.impl.XlsDataProvider;
+
+public class XlsDataProviderTest {
+
+    @XlsDataSourceParameters(path = "xlsx_data/GroupTest.xlsx", sheet = "Data", dsUid = "TUID", dsArgs = "group,a", groupColumn = "group")
+    public void groupMethod() {
+    }
+
+    @XlsDataSourceParameters(path = "xlsx_data/GroupTest.xlsx", sheet = "Data", dsUid = "TUID", groupColumn = "group")
+    public void groupMapMethod() {
+    }
+
+    @XlsDataSourceParameters(path = "xlsx_data/GroupTest.xlsx", sheet = "Data", dsUid = "TUID", dsArgs = "group,a", groupColumn = "unknown")
+    public void wrongGroupMethod() {
+    }
+
+    @BeforeClass
+    public void createWorkbook() throws Exception {
+        File file = new File(new File(ClassLoader.getSystemResource("xlsx_data").toURI()), "GroupTest.xlsx");
+        try (XSSFWorkbook wb = new XSSFWorkbook(); OutputStream os = new FileOutputStream(file)) {
+            Sheet data = wb.createSheet("Data");
+            addRow(data, 0, "TUID", "group", "a");
+            addRow(data, 1, "T1", "g2", "1");
+            addRow(data, 2, "T2", "g1", "2");
+            addRow(data, 3, "T3", "g2", "3");
+            wb.write(os);
+        }
+    }
+
+    @Test
+    public void testStreamingGroupsRows() {
+        List<Object[]> groups = toList(new XlsDataProvider().getDataProviderIterator(annotation("groupMethod"), createContext(), null));
+        Assert.assertEquals(groups.size(), 2);
+
+        @SuppressWarnings("unchecked")
+        List<Object[]> second = (List<Object[]>) groups.get(1)[0];
+        Assert.assertEquals(second.size(), 2);
+        Assert.assertEquals(second.get(0), new Object[] { "g2", "1" });
+        Assert.assertEquals(second.get(1), new Object[] { "g2", "3" });
+    }
+
+    @Test
+    public void testStreamingGroupsHashMapRows() {
+        Annotation[] annotations = { annotation("groupMapMethod") };
+        List<Object[]> groups = toList(DataProviderFactory.getDataProviderIterator(annotations, createContext(), null));
+        Assert.assertEquals(groups.size(), 2);
+
+        @SuppressWarnings("unchecked")
+        List<Map<String, String>> first = (List<Map<String, String>>) groups.get(0)[0];
+        Assert.assertEquals(first.size(), 1);
+        Assert.assertEquals(first.get(0).get("TUID"), "T2");
+    }
+
+    @Test(expectedExceptions = GroupByException.class)
+    public void testWrongGroupColumnIsThrown() {
+        DataProviderFactory.getDataProvider(new Annotation[] { annotation("wrongGroupMethod") }, createContext(), null);
+    }
+
+    private static void addRow(Sheet sheet, int index, String... values) {
+        Row row = sheet.createRow(index);
+        for (int i = 0; i < values.length; i++) {
+            row.createCell(i).setCellValue(values[i]);
+        }
+    }
+
+    private static XlsDataSourceParameters annotation(String methodName) {
+        try {
+            return XlsDataProviderTest.class.getMethod(methodName).getAnnotation(XlsDataSourceParameters.class);
+        } catch (NoSuchMethodException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static List<Object[]> toList(Iterator<Object[]> iterator) {
+        List<Object[]> list = new ArrayList<>();
+        iterator.forEachRemaining(list::add);
+        return list;
+    }
+
+    private static ITestContext createContext() {
+        XmlTest xmlTest = new XmlTest(new XmlSuite());
+        Map<String, Object> attributes = new HashMap<>();
+        return (ITestContext) Proxy.newProxyInstance(XlsDataProviderTest.class.getClassLoader(), new Class<?>[] { ITestContext.class },
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                    case "getName":
+                        return "xls-test";
+                    case "getCurrentXmlTest":
+                        return xmlTest;
+                    case "setAttribute":
+                        attributes.put((String) args[0], args[1]);
+                        return null;
+                    case "getAttribute":
+                        return attributes.get(args[0]);
+                    default:
+                        throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+}
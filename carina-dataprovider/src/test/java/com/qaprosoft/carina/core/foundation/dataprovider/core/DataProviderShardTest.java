@@ -0,0 +1,76 @@
+package com.qaprosoft.carina.core.foundation.dataprovider.core;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.qaprosoft.carina.core.foundation.utils.Configuration.Parameter;
+import com.qaprosoft.carina.core.foundation.utils.R;
+
+public class DataProviderShardTest {
+
+    @Test
+    public void testShardsDoNotOverlap() {
+        Object[][] rows = new Object[10][];
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = new Object[] { "row" + i };
+        }
+
+        Set<Object> selected = new HashSet<>();
+        int total = 0;
+        for (int i = 0; i < 3; i++) {
+            Object[][] shard = DataProviderShard.of(i, 3).select(rows);
+            total += shard.length;
+            for (Object[] row : shard) {
+                selected.add(row[0]);
+            }
+        }
+        Assert.assertEquals(total, rows.length, "Every row should go to a single shard");
+        Assert.assertEquals(selected.size(), rows.length);
+
+        Assert.assertEquals(DataProviderShard.of(1, 3).select(rows), new Object[][] { rows[1], rows[4], rows[7] });
+    }
+
+    @Test
+    public void testIteratorShard() {
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            rows.add(new Object[] { i });
+        }
+        List<Object[]> selected = new ArrayList<>();
+        DataProviderShard.of(0, 2).select(rows.iterator()).forEachRemaining(selected::add);
+        Assert.assertEquals(selected.size(), 3);
+        Assert.assertEquals(selected.get(2), new Object[] { 4 });
+    }
+
+    @Test
+    public void testCurrentShard() {
+        Assert.assertTrue(DataProviderShard.current().isAll(), "All rows should be selected by default");
+
+        R.CONFIG.put(Parameter.DATA_PROVIDER_SHARD_COUNT.getKey(), "4", true);
+        R.CONFIG.put(Parameter.DATA_PROVIDER_SHARD_INDEX.getKey(), "2", true);
+        try {
+            DataProviderShard shard = DataProviderShard.current();
+            Assert.assertEquals(shard.getIndex(), 2);
+            Assert.assertEquals(shard.getCount(), 4);
+        } finally {
+            R.CONFIG.put(Parameter.DATA_PROVIDER_SHARD_COUNT.getKey(), "", true);
+            R.CONFIG.put(Parameter.DATA_PROVIDER_SHARD_INDEX.getKey(), "", true);
+        }
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testInvalidShard() {
+        DataProviderShard.of(3, 3);
+    }
+
+    @Test
+    public void testArraysAreNotCopiedWithoutSharding() {
+        Object[][] rows = { { "a" } };
+        Assert.assertSame(DataProviderShard.of(0, 1).select(rows), rows);
+    }
+}
@@ -0,0 +1,65 @@
+package com.qaprosoft.carina.core.foundation.dataprovider.core.groupping;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.qaprosoft.carina.core.foundation.dataprovider.core.groupping.exceptions.GroupByException;
+
+public class GroupByIndexTest {
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testGroupByArgument() {
+        Object[][] rows = {
+                { "b", "1" },
+                { "a", "2" },
+                { "b", "3" },
+                { "a", "4" },
+                { "c", "5" }
+        };
+        Object[][] grouped = GroupByIndex.byArgument(0).group(rows);
+
+        Assert.assertEquals(grouped.length, 3);
+        List<Object[]> first = (List<Object[]>) grouped[0][0];
+        Assert.assertEquals(first.size(), 2);
+        Assert.assertSame(first.get(0), rows[1], "Groups should be sorted by value");
+        Assert.assertSame(first.get(1), rows[3], "Rows inside the group should keep the order");
+        Assert.assertEquals(((List<Object[]>) grouped[1][0]).get(1), rows[2]);
+        Assert.assertEquals(((List<Object[]>) grouped[2][0]).size(), 1);
+        Assert.assertNull(grouped[0][1]);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testGroupByColumn() {
+        Object[][] rows = {
+                { row("g2", "1"), "static1", "static2" },
+                { row("g1", "2"), "static1", "static2" },
+                { row("g2", "3"), "static1", "static2" }
+        };
+        Object[][] grouped = GroupByIndex.byColumn("group").group(rows);
+
+        Assert.assertEquals(grouped.length, 2);
+        List<Map<String, String>> second = (List<Map<String, String>>) grouped[1][0];
+        Assert.assertEquals(second.size(), 2);
+        Assert.assertEquals(second.get(1).get("value"), "3");
+        Assert.assertEquals(grouped[1][1], "static1");
+        Assert.assertEquals(grouped[1][2], "static2");
+    }
+
+    @Test(expectedExceptions = GroupByException.class)
+    public void testUnknownGroupColumn() {
+        GroupByIndex.byArgument(-1);
+    }
+
+    private static Map<String, String> row(String group, String value) {
+        Map<String, String> row = new HashMap<>();
+        row.put("group", group);
+        row.put("value", value);
+        return row;
+    }
+}
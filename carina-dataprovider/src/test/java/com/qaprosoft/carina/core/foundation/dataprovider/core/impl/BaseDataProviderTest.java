@@ -0,0 +1,41 @@
+package com.qaprosoft.carina.core.foundation.dataprovider.core.impl;
+
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class BaseDataProviderTest {
+
+    @Test
+    public void testParameterizationKeepsRowOrder() {
+        List<Integer> rows = IntStream.range(0, 5000).boxed().collect(Collectors.toCollection(LinkedList::new));
+        Set<String> threads = ConcurrentHashMap.newKeySet();
+
+        Object[][] args = BaseDataProvider.parameterize(rows, row -> {
+            threads.add(Thread.currentThread().getName());
+            return new Object[] { "row" + row };
+        });
+
+        Assert.assertEquals(args.length, rows.size());
+        for (int i = 0; i < args.length; i++) {
+            Assert.assertEquals(args[i], new Object[] { "row" + i });
+        }
+        if (Runtime.getRuntime().availableProcessors() > 1) {
+            Assert.assertTrue(threads.size() > 1, "Big table should be parameterized in parallel");
+        }
+    }
+
+    @Test
+    public void testSmallTableIsParameterizedInCurrentThread() {
+        String current = Thread.currentThread().getName();
+        Object[][] args = BaseDataProvider.parameterize(List.of("a", "b"), row -> new Object[] { Thread.currentThread().getName() });
+        Assert.assertEquals(args[0][0], current);
+        Assert.assertEquals(args[1][0], current);
+    }
+}
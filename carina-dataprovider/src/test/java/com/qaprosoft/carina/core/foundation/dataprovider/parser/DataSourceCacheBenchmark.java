@@ -0,0 +1,94 @@
+package com.qaprosoft.carina.core.foundation.dataprovider.parser;
+
+import java.io.OutputStream;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares parsing of the xlsx sheet with loading of the same sheet from the data source cache.
+ * Run the main method on the test classpath, e.g. from IDE after mvn test-compile.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class DataSourceCacheBenchmark {
+
+    private static final String SHEET = "Data";
+
+    @Param({ "1000", "20000" })
+    private int rows;
+
+    private Path dir;
+    private URL xlsx;
+    private Path table;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        dir = Files.createTempDirectory("data-source-benchmark");
+        Path file = dir.resolve("data.xlsx");
+        try (SXSSFWorkbook wb = new SXSSFWorkbook(); OutputStream os = Files.newOutputStream(file)) {
+            Sheet sheet = wb.createSheet(SHEET);
+            Row header = sheet.createRow(0);
+            for (int i = 0; i < 10; i++) {
+                header.createCell(i).setCellValue("column" + i);
+            }
+            for (int i = 1; i <= rows; i++) {
+                Row row = sheet.createRow(i);
+                row.createCell(0).setCellValue("TUID" + i);
+                row.createCell(1).setCellValue(i % 10 == 0 ? "n" : "y");
+                for (int j = 2; j < 10; j++) {
+                    row.createCell(j).setCellValue(j % 2 == 0 ? "value" + (i % 100) : String.valueOf(i * j));
+                }
+            }
+            wb.write(os);
+            wb.dispose();
+        }
+        xlsx = file.toUri().toURL();
+        table = dir.resolve("data.bin");
+        DataSourceCache.write(table, new DataSourceCache.Entry(-1, -1, new byte[32], XLSXStreamingParser.parse(xlsx, file.toString(), SHEET)));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        FileUtils.deleteDirectory(dir.toFile());
+    }
+
+    @Benchmark
+    public XLSSheetData coldParse() throws Exception {
+        return XLSXStreamingParser.parse(xlsx, xlsx.getFile(), SHEET);
+    }
+
+    @Benchmark
+    public XLSSheetData cachedLoad() throws Exception {
+        return DataSourceCache.read(table).getData();
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder().include(DataSourceCacheBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,136 @@
+package com.qaprosoft.carina.core.foundation.dataprovider.parser;
+
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.apache.commons.io.FileUtils;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.qaprosoft.carina.core.foundation.utils.Configuration.Parameter;
+import com.qaprosoft.carina.core.foundation.utils.R;
+
+public class DataSourceCacheTest {
+
+    private static final String CSV = "csv_data/StreamTest.csv";
+
+    private Path cacheDir;
+
+    @BeforeClass
+    public void enableCache() throws Exception {
+        cacheDir = Files.createTempDirectory("data-source-cache");
+        R.CONFIG.put(Parameter.DATA_SOURCE_CACHE_DIR.getKey(), cacheDir.toString());
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void disableCache() throws Exception {
+        R.CONFIG.put(Parameter.DATA_SOURCE_CACHE_DIR.getKey(), "");
+        FileUtils.deleteDirectory(cacheDir.toFile());
+    }
+
+    @Test
+    public void testTableRoundTrip() throws Exception {
+        XLSSheetData.Builder builder = new XLSSheetData.Builder();
+        builder.setHeaders(new String[] { "key", "value", "comment" });
+        builder.addRow(new String[] { "k1", "значение", null });
+        builder.addRow(new String[] { "k2", "", "k1" });
+        builder.addRow(new String[] { "k3" });
+        builder.addRow(new String[] { "k4", "", "", "extra" });
+        XLSSheetData data = builder.build();
+
+        Path file = cacheDir.resolve("roundtrip.bin");
+        DataSourceCache.write(file, new DataSourceCache.Entry(10, 20, new byte[32], data));
+        XLSSheetData loaded = DataSourceCache.read(file).getData();
+
+        Assert.assertEquals(loaded.getHeaders(), data.getHeaders());
+        Assert.assertEquals(loaded.getRowCount(), 4);
+        Assert.assertEquals(loaded.getColumnCount(), 4, "Values beyond the headers should be kept");
+        Assert.assertEquals(loaded.getValue(3, 3), "extra");
+        Assert.assertEquals(loaded.getValue(1, 0), "значение");
+        Assert.assertNull(loaded.getValue(2, 0));
+        Assert.assertEquals(loaded.getValue(1, 1), "");
+        Assert.assertEquals(loaded.getValue(2, 1), "k1");
+        Assert.assertNull(loaded.getValue(1, 2), "Missing trailing value should be read as null");
+        Assert.assertEquals(loaded.toRows().size(), 5);
+    }
+
+    @Test
+    public void testCsvIsCachedByContent() throws Exception {
+        List<String[]> first = DataSourceCache.readCsv(CSV, ',', '"');
+        List<Path> files = listCacheFiles();
+        Assert.assertEquals(files.size(), 1, "Parsed csv should be stored once");
+
+        List<String[]> second = DataSourceCache.readCsv(CSV, ',', '"');
+        Assert.assertEquals(listCacheFiles(), files);
+        Assert.assertEquals(second.toArray(), first.toArray());
+        Assert.assertEquals(first.get(0), new String[] { "TUID", "Execute", "group", "a", "b", "owner" });
+        Assert.assertEquals(first.get(2), new String[] { "T2", "n", "g1", "3", "4", "owner2" });
+
+        DataSourceCache.readCsv(CSV, ';', '"');
+        Assert.assertEquals(listCacheFiles().size(), 2, "Different csv settings should be cached separately");
+    }
+
+    @Test(dependsOnMethods = "testCsvIsCachedByContent")
+    public void testBrokenCacheFileIsIgnored() throws Exception {
+        for (Path file : listCacheFiles()) {
+            Files.write(file, new byte[] { 1, 2, 3 });
+        }
+        List<String[]> lines = DataSourceCache.readCsv(CSV, ',', '"');
+        Assert.assertEquals(lines.size(), 6);
+        Assert.assertEquals(lines.get(5)[0], "T5");
+    }
+
+    @Test
+    public void testChangedFileIsParsedAgain() throws Exception {
+        Path dir = Files.createTempDirectory("changed-source");
+        R.CONFIG.put(Parameter.DATA_SOURCE_CACHE_DIR.getKey(), dir.resolve("cache").toString());
+        try {
+            Path csv = dir.resolve("source.csv");
+            Files.write(csv, "key,value\nk1,v1\n".getBytes(StandardCharsets.UTF_8));
+            URL resource = csv.toUri().toURL();
+            AtomicInteger parsed = new AtomicInteger();
+            Callable<XLSSheetData> parser = () -> {
+                parsed.incrementAndGet();
+                XLSSheetData.Builder builder = new XLSSheetData.Builder();
+                builder.setHeaders(new String[] { "key", "value" });
+                Files.readAllLines(csv).forEach(line -> builder.addRow(line.split(",")));
+                return builder.build();
+            };
+
+            DataSourceCache.load(resource, "test", parser);
+            DataSourceCache.load(resource, "test", parser);
+            Assert.assertEquals(parsed.get(), 1, "Unchanged file should be read from the cache");
+
+            // same content with another modification time
+            Files.setLastModifiedTime(csv, FileTime.fromMillis(Files.getLastModifiedTime(csv).toMillis() - 60_000));
+            DataSourceCache.load(resource, "test", parser);
+            Assert.assertEquals(parsed.get(), 1, "Touched file should be read from the cache");
+
+            Files.write(csv, "key,value\nk1,v2\n".getBytes(StandardCharsets.UTF_8));
+            XLSSheetData data = DataSourceCache.load(resource, "test", parser);
+            Assert.assertEquals(parsed.get(), 2, "Changed file should be parsed again");
+            Assert.assertEquals(data.getValue(1, 1), "v2");
+        } finally {
+            R.CONFIG.put(Parameter.DATA_SOURCE_CACHE_DIR.getKey(), cacheDir.toString());
+            FileUtils.deleteDirectory(dir.toFile());
+        }
+    }
+
+    private List<Path> listCacheFiles() throws Exception {
+        try (Stream<Path> files = Files.list(cacheDir)) {
+            return files.filter(file -> !file.getFileName().toString().startsWith("roundtrip"))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.qaprosoft.carina.core.foundation.dataprovider.parser;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.testng.Assert;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+public class XLSSheetCacheTest {
+
+    private static final String XLS = "xlsx_data/StreamTest.xlsx";
+
+    private File file;
+
+    @BeforeClass
+    public void createWorkbook() throws Exception {
+        file = new File(new File(ClassLoader.getSystemResource("xlsx_data").toURI()), "StreamTest.xlsx");
+        writeWorkbook("1");
+    }
+
+    @Test
+    public void testSheetIsStreamed() {
+        XLSTable table = XLSParser.parseSpreadSheet(XLS, "Data", "Execute", "y");
+        Assert.assertEquals(table.getHeaders(), List.of("TUID", "Execute", "a", "b"));
+
+        List<Map<String, String>> rows = table.getDataRows();
+        Assert.assertEquals(rows.size(), 2, "Rows with Execute=n should be filtered out");
+        Assert.assertEquals(rows.get(0).get("TUID"), "T1");
+        Assert.assertEquals(rows.get(0).get("a"), "1");
+        Assert.assertEquals(rows.get(0).get("b"), "", "Missing cell should be read as empty value");
+        Assert.assertEquals(rows.get(1).get("TUID"), "T3");
+        Assert.assertEquals(rows.get(1).get("a"), "text");
+
+        rows.get(0).put("a", "changed");
+        Assert.assertEquals(XLSParser.parseSpreadSheet(XLS, "Data").getDataRows().get(0).get("a"), "1",
+                "Cached sheet should not be affected by caller changes");
+    }
+
+    @Test
+    public void testSheetIsParsedOnce() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<XLSSheetData>> futures = new ArrayList<>();
+            Callable<XLSSheetData> task = () -> XLSSheetCache.getSheet(XLS, "Keys");
+            for (int i = 0; i < 16; i++) {
+                futures.add(executor.submit(task));
+            }
+            XLSSheetData first = futures.get(0).get();
+            Assert.assertNotNull(first);
+            for (Future<XLSSheetData> future : futures) {
+                Assert.assertSame(future.get(), first, "All threads should share the same parsed sheet");
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test(dependsOnMethods = { "testSheetIsStreamed", "testSheetIsParsedOnce" })
+    public void testChangedFileIsParsedAgain() throws Exception {
+        XLSSheetData before = XLSSheetCache.getSheet(XLS, "Keys");
+        Assert.assertEquals(XLSParser.parseValue(XLS, "Keys", "key"), "1");
+
+        long lastModified = file.lastModified();
+        writeWorkbook("2");
+        Assert.assertTrue(file.setLastModified(lastModified + 2000));
+
+        Assert.assertNotSame(XLSSheetCache.getSheet(XLS, "Keys"), before);
+        Assert.assertEquals(XLSParser.parseValue(XLS, "Keys", "key"), "2");
+    }
+
+    @Test
+    public void testSheetIsReadLikeWorkbook() {
+        Assert.assertNotNull(XLSSheetCache.getSheet(XLS, "narrow"), "Sheet name should be case insensitive");
+        Assert.assertEquals(XLSParser.parseValue(XLS, "narrow", "name"), "value",
+                "Cell beyond the headers should be read");
+        Assert.assertEquals(XLSParser.parseValue(XLS, "narrow", "empty"), "");
+    }
+
+    @Test
+    public void testLinkedSheetIsNotStreamed() {
+        Assert.assertNull(XLSSheetCache.getSheet("xlsx_data/ParentTest.xlsx", "Sheet1"),
+                "Sheets with FK_LINK_ columns need the workbook model");
+    }
+
+    private void writeWorkbook(String keyValue) throws Exception {
+        try (XSSFWorkbook wb = new XSSFWorkbook(); OutputStream os = new FileOutputStream(file)) {
+            Sheet data = wb.createSheet("Data");
+            addRow(data, 0, "TUID", "Execute", "a", "b");
+            addRow(data, 1, "T1", "y", "1");
+            addRow(data, 2, "T2", "n", "2", "x");
+            // row 3 is missing
+            addRow(data, 4, "T3", "Y", " text ", "");
+            data.getRow(1).createCell(2).setCellValue(1);
+
+            Sheet keys = wb.createSheet("Keys");
+            addRow(keys, 0, "key", "value");
+            addRow(keys, 1, "key", keyValue);
+
+            Sheet narrow = wb.createSheet("Narrow");
+            addRow(narrow, 0, "key");
+            addRow(narrow, 1, "name", "value");
+            addRow(narrow, 2, "empty");
+            wb.write(os);
+        }
+    }
+
+    private static void addRow(Sheet sheet, int index, String... values) {
+        Row row = sheet.createRow(index);
+        for (int i = 0; i < values.length; i++) {
+            row.createCell(i).setCellValue(values[i]);
+        }
+    }
+}
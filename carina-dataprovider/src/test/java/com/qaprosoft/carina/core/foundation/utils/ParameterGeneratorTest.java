@@ -0,0 +1,67 @@
+package com.qaprosoft.carina.core.foundation.utils;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class ParameterGeneratorTest {
+
+    @Test
+    public void testPlainValues() {
+        Assert.assertNull(ParameterGenerator.process(null));
+        Assert.assertNull(ParameterGenerator.process("NIL"));
+        Assert.assertEquals(ParameterGenerator.process("plain value"), "plain value");
+        Assert.assertEquals(ParameterGenerator.process("{not an expression}"), "{not an expression}");
+    }
+
+    @Test
+    public void testGeneratorsAreEvaluatedOnEveryCall() {
+        Set<Object> values = IntStream.range(0, 20)
+                .mapToObj(i -> ParameterGenerator.process("user_{generatean:12}"))
+                .collect(Collectors.toSet());
+        Assert.assertTrue(values.size() > 1, "Compiled generator should produce new value on every call");
+        for (Object value : values) {
+            Assert.assertTrue(value.toString().matches("user_[a-zA-Z0-9]{12}"), "Unexpected generated value: " + value);
+        }
+
+        Assert.assertTrue(ParameterGenerator.process("{generaten:5}").toString().matches("\\d{5}"));
+        Assert.assertEquals(ParameterGenerator.process("{generate:7}").toString().length(), 7);
+    }
+
+    @Test
+    public void testUuidFollowsCurrentValue() {
+        String uuid = ParameterGenerator.getUUID();
+        try {
+            ParameterGenerator.setUUID("first");
+            Assert.assertEquals(ParameterGenerator.process("id-{generate_uuid}"), "id-first");
+            ParameterGenerator.setUUID("second");
+            Assert.assertEquals(ParameterGenerator.process("id-{generate_uuid}"), "id-second");
+        } finally {
+            ParameterGenerator.setUUID(uuid);
+        }
+    }
+
+    @Test
+    public void testInvalidExpressionIsReturnedAsIs() {
+        Assert.assertEquals(ParameterGenerator.process("{generate:}"), "{generate:}");
+    }
+
+    @Test
+    public void testConcurrentProcessing() {
+        List<Object> values = IntStream.range(0, 5000)
+                .parallel()
+                .mapToObj(i -> ParameterGenerator.process(i % 2 == 0 ? "{generaten:4}" : "value" + i))
+                .collect(Collectors.toList());
+        for (int i = 0; i < values.size(); i++) {
+            if (i % 2 == 0) {
+                Assert.assertTrue(values.get(i).toString().matches("\\d{4}"));
+            } else {
+                Assert.assertEquals(values.get(i), "value" + i);
+            }
+        }
+    }
+}
@@ -0,0 +1,382 @@
+/*******************************************************************************
+ * Copyright 2020-2022 Zebrunner Inc (https://www.zebrunner.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.browserupproxy;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.invoke.MethodHandles;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.littleshoot.proxy.HttpFilters;
+import org.littleshoot.proxy.HttpFiltersAdapter;
+import org.littleshoot.proxy.HttpFiltersSource;
+import org.littleshoot.proxy.HttpFiltersSourceAdapter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.browserup.bup.BrowserUpProxy;
+import com.browserup.bup.BrowserUpProxyServer;
+import com.browserup.bup.exception.UnsupportedCharsetException;
+import com.browserup.bup.filters.HttpsAwareFiltersAdapter;
+import com.browserup.bup.util.BrowserUpHttpUtil;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpMessage;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpObject;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.LastHttpContent;
+
+/**
+ * Records proxy traffic as HAR entries written one per line (NDJSON) as soon as every response is received, so
+ * nothing but in-flight messages is kept in heap. Bodies are truncated to the limit. The file can be switched to
+ * another one between tests with {@link #slice(File)} and converted to a standard HAR with {@link #toHar(File, File)}.
+ */
+public class HarStreamRecorder implements Closeable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final BrowserUpProxy proxy;
+    private final HttpFiltersSource filtersSource;
+    private final int bodyLimit;
+    private final AtomicLong entries = new AtomicLong();
+    private File file;
+    private Writer writer;
+    private volatile boolean closed;
+
+    private HarStreamRecorder(BrowserUpProxy proxy, File file, int bodyLimit) throws IOException {
+        this.proxy = proxy;
+        this.bodyLimit = bodyLimit;
+        this.file = file;
+        this.writer = open(file);
+        this.filtersSource = new HttpFiltersSourceAdapter() {
+            @Override
+            public HttpFilters filterRequest(HttpRequest originalRequest, ChannelHandlerContext ctx) {
+                if (closed || HttpMethod.CONNECT.equals(originalRequest.method())) {
+                    return new HttpFiltersAdapter(originalRequest, ctx);
+                }
+                return new EntryCapture(originalRequest, ctx);
+            }
+        };
+    }
+
+    /**
+     * Start recording of the proxy traffic
+     *
+     * @param proxy started proxy
+     * @param file NDJSON file, appended if it exists
+     * @param bodyLimit max number of request and response body bytes to record, 0 to skip bodies
+     * @return recorder
+     * @throws IOException if file can't be opened
+     */
+    public static HarStreamRecorder start(BrowserUpProxy proxy, File file, int bodyLimit) throws IOException {
+        HarStreamRecorder recorder = new HarStreamRecorder(proxy, file, bodyLimit);
+        proxy.addLastHttpFilterFactory(recorder.filtersSource);
+        LOGGER.debug("HAR entries of the proxy on port {} are written to {}", proxy.getPort(), file.getAbsolutePath());
+        return recorder;
+    }
+
+    private static Writer open(File file) throws IOException {
+        file.getParentFile().mkdirs();
+        return Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    /**
+     * Continue recording to another file, e.g. for the next test
+     *
+     * @param next new NDJSON file
+     * @return previous file, completely written
+     * @throws IOException if new file can't be opened
+     */
+    public synchronized File slice(File next) throws IOException {
+        Writer nextWriter = open(next);
+        File previous = file;
+        writer.close();
+        writer = nextWriter;
+        file = next;
+        return previous;
+    }
+
+    public synchronized File getFile() {
+        return file;
+    }
+
+    /**
+     * @return number of entries written to all the files
+     */
+    public long getEntryCount() {
+        return entries.get();
+    }
+
+    /**
+     * Stop recording, entries in flight are not written
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (proxy instanceof BrowserUpProxyServer) {
+            ((BrowserUpProxyServer) proxy).getFilterFactories().remove(filtersSource);
+        }
+        writer.close();
+    }
+
+    private synchronized void write(ObjectNode entry) {
+        if (closed) {
+            return;
+        }
+        try {
+            writer.write(MAPPER.writeValueAsString(entry));
+            writer.write('\n');
+            entries.incrementAndGet();
+        } catch (IOException e) {
+            LOGGER.warn("Unable to write HAR entry to {}: {}", file.getAbsolutePath(), e.getMessage());
+        }
+    }
+
+    /**
+     * Convert NDJSON entries to a HAR file without loading all of them into memory
+     *
+     * @param ndjson file written by the recorder
+     * @param har HAR file to create
+     * @throws IOException if files can't be read or written
+     */
+    public static void toHar(File ndjson, File har) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(ndjson.toPath(), StandardCharsets.UTF_8);
+                JsonGenerator generator = MAPPER.getFactory().createGenerator(har, JsonEncoding.UTF8)) {
+            generator.writeStartObject();
+            generator.writeObjectFieldStart("log");
+            generator.writeStringField("version", "1.2");
+            generator.writeObjectFieldStart("creator");
+            generator.writeStringField("name", "Carina");
+            generator.writeStringField("version", "1.0");
+            generator.writeEndObject();
+            generator.writeArrayFieldStart("pages");
+            generator.writeEndArray();
+            generator.writeArrayFieldStart("entries");
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isBlank()) {
+                    generator.writeRawValue(line);
+                }
+            }
+            generator.writeEndArray();
+            generator.writeEndObject();
+            generator.writeEndObject();
+        }
+    }
+
+    /**
+     * Collects one request/response pair, bodies are copied chunk by chunk up to the limit
+     */
+    private class EntryCapture extends HttpsAwareFiltersAdapter {
+        private final Instant started = Instant.now();
+        private final long startNanos = System.nanoTime();
+        private long sentNanos;
+        private long responseNanos;
+        private String url;
+        private HttpRequest request;
+        private HttpResponse response;
+        private final Body requestBody = new Body();
+        private final Body responseBody = new Body();
+
+        private EntryCapture(HttpRequest originalRequest, ChannelHandlerContext ctx) {
+            super(originalRequest, ctx);
+        }
+
+        @Override
+        public HttpResponse clientToProxyRequest(HttpObject httpObject) {
+            if (httpObject instanceof HttpRequest) {
+                request = (HttpRequest) httpObject;
+                url = getFullUrl(request);
+            }
+            if (httpObject instanceof HttpContent) {
+                requestBody.append(((HttpContent) httpObject).content());
+            }
+            return null;
+        }
+
+        @Override
+        public void proxyToServerRequestSent() {
+            sentNanos = System.nanoTime();
+        }
+
+        @Override
+        public HttpObject serverToProxyResponse(HttpObject httpObject) {
+            if (httpObject instanceof HttpResponse) {
+                response = (HttpResponse) httpObject;
+                responseNanos = System.nanoTime();
+            }
+            if (httpObject instanceof HttpContent) {
+                responseBody.append(((HttpContent) httpObject).content());
+            }
+            if (httpObject instanceof LastHttpContent) {
+                complete(null);
+            }
+            return httpObject;
+        }
+
+        @Override
+        public void serverToProxyResponseTimedOut() {
+            complete("Response timed out");
+        }
+
+        @Override
+        public void proxyToServerConnectionFailed() {
+            complete("Unable to connect to the server");
+        }
+
+        private void complete(String error) {
+            if (request == null) {
+                return;
+            }
+            long end = System.nanoTime();
+            long sent = sentNanos == 0 ? end : sentNanos;
+            long received = responseNanos == 0 ? end : responseNanos;
+
+            ObjectNode entry = MAPPER.createObjectNode();
+            entry.put("startedDateTime", started.toString());
+            entry.put("time", TimeUnit.NANOSECONDS.toMillis(end - startNanos));
+
+            ObjectNode rq = entry.putObject("request");
+            rq.put("method", request.method().name());
+            rq.put("url", url);
+            rq.put("httpVersion", request.protocolVersion().text());
+            rq.putArray("cookies");
+            putHeaders(rq, request.headers());
+            rq.putArray("queryString");
+            rq.put("headersSize", -1);
+            rq.put("bodySize", requestBody.size);
+            if (requestBody.size > 0) {
+                ObjectNode postData = rq.putObject("postData");
+                postData.put("mimeType", mimeType(request));
+                requestBody.put(postData, request);
+            }
+
+            ObjectNode rs = entry.putObject("response");
+            rs.put("status", response == null ? 0 : response.status().code());
+            rs.put("statusText", response == null ? "" : response.status().reasonPhrase());
+            rs.put("httpVersion", response == null ? "unknown" : response.protocolVersion().text());
+            rs.putArray("cookies");
+            putHeaders(rs, response == null ? null : response.headers());
+            ObjectNode content = rs.putObject("content");
+            content.put("size", responseBody.size);
+            content.put("mimeType", mimeType(response));
+            if (response != null) {
+                responseBody.put(content, response);
+            }
+            rs.put("redirectURL", response == null ? "" : response.headers().get(HttpHeaderNames.LOCATION, ""));
+            rs.put("headersSize", -1);
+            rs.put("bodySize", responseBody.size);
+            if (error != null) {
+                rs.put("_error", error);
+            }
+
+            entry.putObject("cache");
+            ObjectNode timings = entry.putObject("timings");
+            timings.put("send", TimeUnit.NANOSECONDS.toMillis(sent - startNanos));
+            timings.put("wait", TimeUnit.NANOSECONDS.toMillis(Math.max(0, received - sent)));
+            timings.put("receive", TimeUnit.NANOSECONDS.toMillis(end - received));
+            write(entry);
+            // the same filter instance is never completed twice
+            request = null;
+        }
+
+        private void putHeaders(ObjectNode node, HttpHeaders headers) {
+            ArrayNode array = node.putArray("headers");
+            if (headers != null) {
+                for (Map.Entry<String, String> header : headers) {
+                    array.addObject().put("name", header.getKey()).put("value", header.getValue());
+                }
+            }
+        }
+
+        private String mimeType(HttpMessage message) {
+            return message == null ? "" : message.headers().get(HttpHeaderNames.CONTENT_TYPE, "");
+        }
+    }
+
+    private class Body {
+        private ByteArrayOutputStream bytes;
+        private long size;
+
+        private void append(ByteBuf content) {
+            int readable = content.readableBytes();
+            size += readable;
+            if (bodyLimit <= 0 || readable == 0) {
+                return;
+            }
+            if (bytes == null) {
+                bytes = new ByteArrayOutputStream(Math.min(bodyLimit, Math.max(readable, 256)));
+            }
+            int length = Math.min(readable, bodyLimit - bytes.size());
+            if (length > 0) {
+                byte[] chunk = new byte[length];
+                content.getBytes(content.readerIndex(), chunk);
+                bytes.write(chunk, 0, length);
+            }
+        }
+
+        private void put(ObjectNode node, HttpMessage message) {
+            if (bytes == null) {
+                return;
+            }
+            String contentType = message.headers().get(HttpHeaderNames.CONTENT_TYPE);
+            if (BrowserUpHttpUtil.hasTextualContent(contentType) && !message.headers().contains(HttpHeaderNames.CONTENT_ENCODING)) {
+                Charset charset = StandardCharsets.UTF_8;
+                try {
+                    Charset declared = BrowserUpHttpUtil.readCharsetInContentTypeHeader(contentType);
+                    if (declared != null) {
+                        charset = declared;
+                    }
+                } catch (UnsupportedCharsetException | RuntimeException e) {
+                    // keep default charset
+                }
+                node.put("text", new String(bytes.toByteArray(), charset));
+            } else {
+                node.put("text", Base64.getEncoder().encodeToString(bytes.toByteArray()));
+                node.put("encoding", "base64");
+            }
+            if (size > bytes.size()) {
+                node.put("comment", "Truncated to " + bytes.size() + " bytes");
+            }
+        }
+    }
+}
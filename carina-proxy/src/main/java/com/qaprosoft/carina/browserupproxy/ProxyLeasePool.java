@@ -0,0 +1,275 @@
+/*******************************************************************************
+ * Copyright 2020-2022 Zebrunner Inc (https://www.zebrunner.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.browserupproxy;
+
+import java.lang.invoke.MethodHandles;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.apache.commons.lang3.reflect.FieldUtils;
+import org.littleshoot.proxy.HttpFiltersSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.browserup.bup.BrowserUpProxy;
+import com.browserup.bup.BrowserUpProxyServer;
+import com.browserup.bup.proxy.CaptureType;
+import com.browserup.bup.proxy.dns.AdvancedHostResolver;
+
+/**
+ * Set of BrowserUp proxies started in advance and leased to test threads. Leases are taken by compare-and-set of
+ * the owner thread id, so threads do not wait for each other, and proxies are reset instead of restarted when they are
+ * returned.
+ */
+final class ProxyLeasePool {
+    private static final Logger LOGGER = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+    private static final long FREE = -1;
+    private static final String AUTO_AUTHORIZATIONS_FIELD = "basicAuthCredentials";
+    private static final String CHAINED_PROXY_CREDENTIALS_FIELD = "chainedProxyCredentials";
+
+    private final List<Lease> leases;
+
+    private static final class Lease {
+        private final BrowserUpProxy proxy;
+        private final AtomicLong owner = new AtomicLong(FREE);
+        // state right after start, restored on every release
+        private final List<HttpFiltersSource> filters;
+        private final EnumSet<CaptureType> captureTypes;
+        private final long readBandwidthLimit;
+        private final long writeBandwidthLimit;
+        private final AdvancedHostResolver hostResolver;
+        private final Map<String, String> hostRemappings;
+        private final InetSocketAddress chainedProxy;
+        private final Map<String, String> autoAuthorizations;
+        private final String chainedProxyAuthorization;
+
+        private Lease(BrowserUpProxy proxy) {
+            this.proxy = proxy;
+            this.filters = proxy instanceof BrowserUpProxyServer
+                    ? new ArrayList<>(((BrowserUpProxyServer) proxy).getFilterFactories())
+                    : Collections.emptyList();
+            this.captureTypes = EnumSet.copyOf(proxy.getHarCaptureTypes());
+            this.readBandwidthLimit = proxy.getReadBandwidthLimit();
+            this.writeBandwidthLimit = proxy.getWriteBandwidthLimit();
+            this.hostResolver = proxy.getHostNameResolver();
+            this.hostRemappings = new HashMap<>(hostResolver.getHostRemappings());
+            this.chainedProxy = proxy.getChainedProxy();
+            Map<String, String> credentials = getAutoAuthorizations(proxy);
+            this.autoAuthorizations = credentials == null ? null : new HashMap<>(credentials);
+            this.chainedProxyAuthorization = getChainedProxyAuthorization(proxy);
+        }
+    }
+
+    private ProxyLeasePool(List<Lease> leases) {
+        this.leases = leases;
+    }
+
+    /**
+     * Start proxies in parallel
+     *
+     * @param ports   ports for the proxies, 0 means any free port
+     * @param factory creates not started proxy
+     * @return pool of the proxies that were started successfully
+     */
+    static ProxyLeasePool start(List<Integer> ports, Supplier<BrowserUpProxy> factory) {
+        long start = System.currentTimeMillis();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(ports.size(), Runtime.getRuntime().availableProcessors())));
+        try {
+            List<CompletableFuture<Lease>> futures = new ArrayList<>();
+            for (int port : ports) {
+                futures.add(CompletableFuture.supplyAsync(() -> {
+                    BrowserUpProxy proxy = factory.get();
+                    proxy.start(port);
+                    return new Lease(proxy);
+                }, executor).exceptionally(e -> {
+                    LOGGER.warn("Unable to start BrowserUp proxy on port {} for the pool: {}", port, e.getMessage());
+                    return null;
+                }));
+            }
+            List<Lease> leases = new ArrayList<>();
+            for (CompletableFuture<Lease> future : futures) {
+                Lease lease = future.join();
+                if (lease != null) {
+                    leases.add(lease);
+                }
+            }
+            LOGGER.info("Started {} BrowserUp proxies for the pool in {} ms", leases.size(), System.currentTimeMillis() - start);
+            return new ProxyLeasePool(Collections.unmodifiableList(leases));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * @param threadId lease owner
+     * @return any free proxy or null if all are leased
+     */
+    BrowserUpProxy lease(long threadId) {
+        for (Lease lease : leases) {
+            if (lease.owner.get() == FREE && lease.owner.compareAndSet(FREE, threadId)) {
+                return lease.proxy;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @param threadId lease owner
+     * @param port     proxy port
+     * @return free proxy listening on the port or null
+     */
+    BrowserUpProxy lease(long threadId, int port) {
+        for (Lease lease : leases) {
+            if (lease.proxy.getPort() == port && lease.owner.compareAndSet(FREE, threadId)) {
+                return lease.proxy;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @param threadId lease owner
+     * @return proxy leased by the thread or null
+     */
+    BrowserUpProxy getLeased(long threadId) {
+        for (Lease lease : leases) {
+            if (lease.owner.get() == threadId) {
+                return lease.proxy;
+            }
+        }
+        return null;
+    }
+
+    boolean contains(BrowserUpProxy proxy) {
+        return leases.stream().anyMatch(lease -> lease.proxy == proxy);
+    }
+
+    /**
+     * Reset proxy leased by the thread and make it available for others
+     *
+     * @param threadId lease owner
+     * @return false if the thread has no leased proxy
+     */
+    boolean release(long threadId) {
+        for (Lease lease : leases) {
+            if (lease.owner.get() == threadId) {
+                reset(lease);
+                lease.owner.set(FREE);
+                LOGGER.debug("BrowserUp proxy on port {} is returned to the pool", lease.proxy.getPort());
+                return true;
+            }
+        }
+        return false;
+    }
+
+    List<Integer> getPorts() {
+        List<Integer> ports = new ArrayList<>();
+        leases.forEach(lease -> ports.add(lease.proxy.getPort()));
+        return ports;
+    }
+
+    int size() {
+        return leases.size();
+    }
+
+    int available() {
+        return (int) leases.stream().filter(lease -> lease.owner.get() == FREE).count();
+    }
+
+    void stop() {
+        for (Lease lease : leases) {
+            try {
+                lease.proxy.stop();
+            } catch (IllegalStateException e) {
+                LOGGER.debug("Seems like proxy was already stopped: {}", e.getMessage());
+            }
+        }
+    }
+
+    private static void reset(Lease lease) {
+        BrowserUpProxy proxy = lease.proxy;
+        proxy.endHar();
+        proxy.setHarCaptureTypes(lease.captureTypes);
+        proxy.clearBlacklist();
+        proxy.disableWhitelist();
+        proxy.removeAllHeaders();
+        proxy.clearRewriteRules();
+        proxy.setLatency(0, TimeUnit.MILLISECONDS);
+        proxy.setReadBandwidthLimit(lease.readBandwidthLimit);
+        proxy.setWriteBandwidthLimit(lease.writeBandwidthLimit);
+        if (proxy.getHostNameResolver() != lease.hostResolver) {
+            proxy.setHostNameResolver(lease.hostResolver);
+        }
+        lease.hostResolver.clearHostRemappings();
+        lease.hostResolver.remapHosts(lease.hostRemappings);
+        // chained proxy can be changed only if the proxy was started with one
+        if (lease.chainedProxy != null && !lease.chainedProxy.equals(proxy.getChainedProxy())) {
+            proxy.setChainedProxy(lease.chainedProxy);
+        }
+        if (proxy instanceof BrowserUpProxyServer) {
+            ((BrowserUpProxyServer) proxy).getFilterFactories().retainAll(lease.filters);
+        }
+        resetAuthorizations(lease);
+    }
+
+    /**
+     * BrowserUp proxy has no api to list or clear auto authorizations, so they are restored through its fields
+     */
+    private static void resetAuthorizations(Lease lease) {
+        Map<String, String> credentials = getAutoAuthorizations(lease.proxy);
+        if (credentials == null || lease.autoAuthorizations == null) {
+            return;
+        }
+        credentials.keySet().retainAll(lease.autoAuthorizations.keySet());
+        credentials.putAll(lease.autoAuthorizations);
+        try {
+            FieldUtils.writeField(lease.proxy, CHAINED_PROXY_CREDENTIALS_FIELD, lease.chainedProxyAuthorization, true);
+        } catch (IllegalAccessException | IllegalArgumentException e) {
+            LOGGER.debug("Unable to reset chained proxy authorization: {}", e.getMessage());
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, String> getAutoAuthorizations(BrowserUpProxy proxy) {
+        try {
+            return (Map<String, String>) FieldUtils.readField(proxy, AUTO_AUTHORIZATIONS_FIELD, true);
+        } catch (IllegalAccessException | IllegalArgumentException | ClassCastException e) {
+            LOGGER.debug("Unable to get auto authorizations of the proxy: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private static String getChainedProxyAuthorization(BrowserUpProxy proxy) {
+        try {
+            return (String) FieldUtils.readField(proxy, CHAINED_PROXY_CREDENTIALS_FIELD, true);
+        } catch (IllegalAccessException | IllegalArgumentException | ClassCastException e) {
+            LOGGER.debug("Unable to get chained proxy authorization: {}", e.getMessage());
+            return null;
+        }
+    }
+}
@@ -15,25 +15,31 @@
  *******************************************************************************/
 package com.qaprosoft.carina.browserupproxy;
 
+import java.io.File;
+import java.io.IOException;
 import java.lang.invoke.MethodHandles;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.nio.file.Files;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
-import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.testng.Assert;
 
 import com.browserup.bup.BrowserUpProxy;
 import com.browserup.bup.BrowserUpProxyServer;
+import com.qaprosoft.carina.core.foundation.report.ReportContext;
+import com.qaprosoft.carina.core.foundation.retry.ActionPoller;
 import com.qaprosoft.carina.core.foundation.utils.Configuration;
 import com.qaprosoft.carina.core.foundation.utils.Configuration.Parameter;
 import com.qaprosoft.carina.core.foundation.utils.NetworkUtil;
 import com.qaprosoft.carina.core.foundation.utils.R;
-import com.qaprosoft.carina.core.foundation.utils.android.recorder.utils.AdbExecutor;
-import com.qaprosoft.carina.core.foundation.utils.common.CommonUtils;
 
 public final class ProxyPool {
     private static final Logger LOGGER = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
@@ -41,6 +47,12 @@ public final class ProxyPool {
     // map for storing of available ports range and their availability
     private static final ConcurrentHashMap<Integer, Boolean> PROXY_PORTS_FROM_RANGE = new ConcurrentHashMap<>();
     private static final ConcurrentHashMap<Long, BrowserUpProxy> PROXIES = new ConcurrentHashMap<>();
+    private static final String HAR_STREAM_FILE = "har.ndjson";
+    private static final String HAR_FILE = "proxy.har";
+    private static final ConcurrentHashMap<Long, HarStreamRecorder> HAR_RECORDERS = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<Long, TrafficRecorder> TRAFFIC_RECORDERS = new ConcurrentHashMap<>();
+    // proxies started in advance, null if browserup_pool_size is not set
+    private static volatile ProxyLeasePool leasePool;
 
 	static {
         initProxyPortsRange();
@@ -150,10 +162,16 @@ public final class ProxyPool {
 			return Configuration.getInt(Parameter.BROWSERUP_PORT);
 		else if (!Configuration.get(Parameter.BROWSERUP_PORTS_RANGE).isEmpty()) {
 			for (Map.Entry<Integer, Boolean> pair : PROXY_PORTS_FROM_RANGE.entrySet()) {
-				if (pair.getValue()) {
-					LOGGER.info("Making BrowserUp proxy port busy: {}", pair.getKey());
-					pair.setValue(false);
-					return pair.getKey();
+				int port = pair.getKey();
+				if (pair.getValue() && PROXY_PORTS_FROM_RANGE.replace(port, true, false)) {
+					if (!isPortAvailable(port)) {
+						// occupied by some other process, maybe it will be released later
+						LOGGER.debug("BrowserUp proxy port {} is used by another process", port);
+						PROXY_PORTS_FROM_RANGE.put(port, true);
+						continue;
+					}
+					LOGGER.info("Making BrowserUp proxy port busy: {}", port);
+					return port;
 				}
 			}
 			throw new RuntimeException("All ports from Parameter.BROWSERUP_PORTS_RANGE are currently busy. Please change execution thread count");
@@ -168,15 +186,121 @@ public final class ProxyPool {
      * @return BrowserUpProxy
      * 
      */
-    public static synchronized BrowserUpProxy startProxy() {
-        return startProxy(getProxyPortFromConfig());
+    public static BrowserUpProxy startProxy() {
+        if (!Configuration.getBoolean(Parameter.BROWSERUP_PROXY)) {
+            LOGGER.debug("Proxy is disabled.");
+            return null;
+        }
+        BrowserUpProxy proxy = leaseProxy(0);
+        if (proxy != null) {
+            return proxy;
+        }
+        synchronized (ProxyPool.class) {
+            return startNewProxy(getProxyPortFromConfig());
+        }
     }
-    
-    public static synchronized BrowserUpProxy startProxy(int proxyPort) {
+
+    public static BrowserUpProxy startProxy(int proxyPort) {
         if (!Configuration.getBoolean(Parameter.BROWSERUP_PROXY)) {
             LOGGER.debug("Proxy is disabled.");
             return null;
         }
+        BrowserUpProxy proxy = leaseProxy(proxyPort);
+        if (proxy != null) {
+            return proxy;
+        }
+        return startNewProxy(proxyPort);
+    }
+
+    /**
+     * Start proxies of the pool if browserup_pool_size is set, so tests lease already started proxies.
+     * Ports from browserup_ports_range are used if it is set, otherwise any free ports.
+     */
+    public static void prewarmProxies() {
+        getLeasePool();
+    }
+
+    private static ProxyLeasePool getLeasePool() {
+        ProxyLeasePool pool = leasePool;
+        if (pool != null || !Configuration.getBoolean(Parameter.BROWSERUP_PROXY)
+                || Configuration.get(Parameter.BROWSERUP_POOL_SIZE).isEmpty()) {
+            return pool;
+        }
+        int size = Configuration.getInt(Parameter.BROWSERUP_POOL_SIZE);
+        if (size <= 0) {
+            return null;
+        }
+        synchronized (ProxyPool.class) {
+            if (leasePool == null) {
+                List<Integer> ports = new ArrayList<>();
+                if (!Configuration.get(Parameter.BROWSERUP_PORTS_RANGE).isEmpty()) {
+                    try {
+                        for (int i = 0; i < size; i++) {
+                            ports.add(getProxyPortFromConfig());
+                        }
+                    } catch (RuntimeException e) {
+                        LOGGER.warn("Only {} free ports are found in browserup_ports_range for the proxy pool", ports.size());
+                    }
+                } else if (Configuration.get(Parameter.BROWSERUP_PORT).isEmpty() || Configuration.getInt(Parameter.BROWSERUP_PORT) == 0) {
+                    ports.addAll(Collections.nCopies(size, 0));
+                } else {
+                    LOGGER.warn("Proxy pool is not supported for the fixed browserup_port, use browserup_ports_range instead");
+                }
+                leasePool = ProxyLeasePool.start(ports, ProxyPool::createProxy);
+                // ports of the proxies failed to start are available for others
+                ports.stream()
+                        .filter(port -> !leasePool.getPorts().contains(port))
+                        .forEach(port -> PROXY_PORTS_FROM_RANGE.replace(port, false, true));
+            }
+            return leasePool;
+        }
+    }
+
+    /**
+     * Lease proxy from the pool for the current thread
+     *
+     * @param proxyPort required port, 0 for any
+     * @return leased proxy or null if pool is disabled or there is no free proxy on the port
+     */
+    private static BrowserUpProxy leaseProxy(int proxyPort) {
+        ProxyLeasePool pool = getLeasePool();
+        if (pool == null) {
+            return null;
+        }
+        long threadId = Thread.currentThread().getId();
+        BrowserUpProxy proxy = PROXIES.get(threadId);
+        if (proxy != null && !pool.contains(proxy)) {
+            // custom or not pooled proxy is already used by the thread
+            return null;
+        }
+        proxy = pool.getLeased(threadId);
+        if (proxy == null) {
+            proxy = proxyPort == 0 ? pool.lease(threadId) : pool.lease(threadId, proxyPort);
+        }
+        if (proxy != null && (proxyPort == 0 || proxy.getPort() == proxyPort)) {
+            LOGGER.info("BrowserUp proxy on port {} is leased from the pool", proxy.getPort());
+            PROXIES.put(threadId, proxy);
+            PROXY_PORTS_BY_THREAD.put(threadId, proxy.getPort());
+            return proxy;
+        }
+        if (proxy != null) {
+            // leased proxy does not correspond to the required port
+            releaseProxy(threadId);
+        }
+        return null;
+    }
+
+    private static boolean releaseProxy(long threadId) {
+        ProxyLeasePool pool = leasePool;
+        if (pool == null || !pool.release(threadId)) {
+            return false;
+        }
+        PROXIES.remove(threadId);
+        PROXY_PORTS_BY_THREAD.remove(threadId);
+        return true;
+    }
+
+    private static synchronized BrowserUpProxy startNewProxy(int proxyPort) {
         // integrate browserUp proxy if required here
         BrowserUpProxy proxy = null;
         long threadId = Thread.currentThread().getId();
@@ -196,8 +320,7 @@ public final class ProxyPool {
         
         if (!proxy.isStarted()) {
             LOGGER.info("Starting BrowserUp proxy...");
-        	// TODO: [VD] confirmed with MB that restart was added just in case. Maybe comment/remove?
-            killProcessByPort(proxyPort);
+            waitForPortRelease(proxyPort);
             proxy.start(proxyPort);
         } else {
             LOGGER.info("BrowserUp proxy is already started on port {}", proxy.getPort());
@@ -235,6 +358,14 @@ public final class ProxyPool {
         for (Long threadId : Collections.list(PROXIES.keys())) {
             stopProxyByThread(threadId);
         }
+        synchronized (ProxyPool.class) {
+            if (leasePool != null) {
+                LOGGER.debug("Stopping BrowserUp proxy pool...");
+                leasePool.stop();
+                leasePool.getPorts().forEach(port -> PROXY_PORTS_FROM_RANGE.replace(port, false, true));
+                leasePool = null;
+            }
+        }
     }
     
     /**
@@ -242,6 +373,14 @@ public final class ProxyPool {
      * @param threadId long
      */
     private static void stopProxyByThread(long threadId) {
+        stopHarStreaming(threadId);
+        TrafficRecorder trafficRecorder = TRAFFIC_RECORDERS.remove(threadId);
+        if (trafficRecorder != null) {
+            trafficRecorder.close();
+        }
+        if (releaseProxy(threadId)) {
+            return;
+        }
         if (PROXIES.containsKey(threadId)) {
             setProxyPortToAvailable(threadId);
             BrowserUpProxy proxy = PROXIES.get(threadId);
@@ -265,6 +404,77 @@ public final class ProxyPool {
         }
     }
 
+    /**
+     * Get recorder of the requests passed through the current thread proxy, recording is started on the first call
+     * and stopped together with the proxy
+     * 
+     * @return TrafficRecorder
+     */
+    public static TrafficRecorder getTrafficRecorder() {
+        return TRAFFIC_RECORDERS.computeIfAbsent(Thread.currentThread().getId(), threadId -> TrafficRecorder.start(getProxy()));
+    }
+
+    /**
+     * Start writing HAR entries of the current thread proxy to the test directory as they are received instead of
+     * keeping them in memory. If streaming is already started, the next entries are written to the current test directory.
+     * 
+     * @return HarStreamRecorder
+     */
+    public static HarStreamRecorder startHarStreaming() {
+        long threadId = Thread.currentThread().getId();
+        File file = new File(ReportContext.getTestDir(), HAR_STREAM_FILE);
+        try {
+            HarStreamRecorder recorder = HAR_RECORDERS.get(threadId);
+            if (recorder != null) {
+                if (!recorder.getFile().equals(file)) {
+                    convertHar(recorder.slice(file));
+                }
+                return recorder;
+            }
+            int bodyLimit = Configuration.get(Parameter.BROWSERUP_HAR_BODY_LIMIT).isEmpty() ? 0
+                    : Configuration.getInt(Parameter.BROWSERUP_HAR_BODY_LIMIT);
+            recorder = HarStreamRecorder.start(getProxy(), file, bodyLimit);
+            HAR_RECORDERS.put(threadId, recorder);
+            return recorder;
+        } catch (IOException e) {
+            throw new RuntimeException("Unable to start HAR streaming to " + file.getAbsolutePath(), e);
+        }
+    }
+
+    /**
+     * Stop HAR streaming of the current thread proxy and convert the written entries to the HAR file
+     * 
+     * @return HAR file or null if streaming is not started
+     */
+    public static File stopHarStreaming() {
+        return stopHarStreaming(Thread.currentThread().getId());
+    }
+
+    private static File stopHarStreaming(long threadId) {
+        HarStreamRecorder recorder = HAR_RECORDERS.remove(threadId);
+        if (recorder == null) {
+            return null;
+        }
+        try {
+            recorder.close();
+        } catch (IOException e) {
+            LOGGER.warn("Unable to close HAR stream: {}", e.getMessage());
+        }
+        return convertHar(recorder.getFile());
+    }
+
+    private static File convertHar(File ndjson) {
+        File har = new File(ndjson.getParentFile(), HAR_FILE);
+        try {
+            HarStreamRecorder.toHar(ndjson, har);
+            Files.delete(ndjson.toPath());
+            return har;
+        } catch (IOException e) {
+            LOGGER.warn("Unable to convert {} to HAR: {}", ndjson.getAbsolutePath(), e.getMessage());
+            return null;
+        }
+    }
+
     /**
      * get registered BrowserUpProxy Server
      * 
@@ -327,35 +537,43 @@ public final class ProxyPool {
     }
     
     /**
-     * Method to kill process by port. It is used before start of new proxy instance
+     * Wait for a while if the port is still used, e.g. by the proxy stopped just now
      * 
      * @param port int
      */
-    private static void killProcessByPort(int port) {
+    private static void waitForPortRelease(int port) {
         if (port == 0) {
             //do nothing as it is default dynamic browsermob proxy
             return;
         }
-        LOGGER.info(String.format("Process on port %d will be closed.", port));
+        boolean available = ActionPoller.<Boolean> builder()
+                .task(() -> isPortAvailable(port))
+                .until(free -> free)
+                .pollEvery(200, ChronoUnit.MILLIS)
+                .stopAfter(5, ChronoUnit.SECONDS)
+                .execute()
+                .isPresent();
+        if (!available) {
+            LOGGER.warn("Port {} is still used by another process, BrowserUp proxy may fail to start.", port);
+        }
+    }
 
-        //TODO: make OS independent or remove completely
-        try {
-            List<?> output = new AdbExecutor().execute(String.format("lsof -ti :%d", port).split(" "));
-            LOGGER.debug("proxy process before kill: " + StringUtils.join(output, ""));
-            
-            output = new AdbExecutor().execute(String.format("lsof -ti :%d | xargs kill -9", port).split(" "));
-            LOGGER.debug("proxy process kill output: " + StringUtils.join(output, ""));
-            
-            output = new AdbExecutor().execute(String.format("lsof -ti :%d", port).split(" "));
-            LOGGER.debug("proxy process after kill: " + StringUtils.join(output, ""));
-            
-            CommonUtils.pause(1);
-            
-            output = new AdbExecutor().execute(String.format("lsof -ti :%d", port).split(" "));
-            LOGGER.debug("proxy process after kill and 2 sec pause: " + StringUtils.join(output, ""));
-            
-        } catch (Exception e) {
-            LOGGER.error("Unable to kill process by lsof utility!", e);
+    /**
+     * Check whether the port can be bound
+     * 
+     * @param port int
+     * @return true if nothing listens on the port
+     */
+    static boolean isPortAvailable(int port) {
+        if (port == 0) {
+            return true;
+        }
+        try (ServerSocket socket = new ServerSocket()) {
+            socket.setReuseAddress(true);
+            socket.bind(new InetSocketAddress(port));
+            return true;
+        } catch (IOException e) {
+            return false;
         }
     }
 }
@@ -0,0 +1,119 @@
+/*******************************************************************************
+ * Copyright 2020-2022 Zebrunner Inc (https://www.zebrunner.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.browserupproxy;
+
+import java.net.URI;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Request captured by {@link TrafficRecorder} together with the response status, bodies are not kept
+ */
+public class RecordedRequest {
+    private static final Pattern ID_SEGMENT = Pattern.compile("\\d+|[0-9a-fA-F]{8}(-?[0-9a-fA-F]{4}){3}-?[0-9a-fA-F]{12}|[0-9a-fA-F]{16,}|\\{[^/]*\\}");
+
+    private final Instant time;
+    private final String method;
+    private final String url;
+    private final String host;
+    private final String path;
+    private final String query;
+    private final int status;
+    private final Map<String, String> headers;
+
+    RecordedRequest(Instant time, String method, String url, int status, Map<String, String> headers) {
+        this.time = time;
+        this.method = method;
+        this.url = url;
+        this.status = status;
+        this.headers = Collections.unmodifiableMap(headers);
+        URI uri = parse(url);
+        this.host = uri == null || uri.getHost() == null ? "" : uri.getHost().toLowerCase();
+        this.path = uri == null || uri.getRawPath() == null || uri.getRawPath().isEmpty() ? "/" : uri.getRawPath();
+        this.query = uri == null || uri.getRawQuery() == null ? "" : uri.getRawQuery();
+    }
+
+    private static URI parse(String url) {
+        try {
+            return URI.create(url);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Replace ids in the path (numbers, uuids, long hex strings and {placeholders}) with {id}, e.g.
+     * /api/users/42/orders becomes /api/users/{id}/orders
+     *
+     * @param path url path
+     * @return path template
+     */
+    public static String toPathTemplate(String path) {
+        String[] segments = path.split("/", -1);
+        for (int i = 0; i < segments.length; i++) {
+            if (ID_SEGMENT.matcher(segments[i]).matches()) {
+                segments[i] = "{id}";
+            }
+        }
+        return String.join("/", segments);
+    }
+
+    public Instant getTime() {
+        return time;
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public String getHost() {
+        return host;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public String getPathTemplate() {
+        return toPathTemplate(path);
+    }
+
+    public String getQuery() {
+        return query;
+    }
+
+    /**
+     * @return response status or 0 if response is not received
+     */
+    public int getStatus() {
+        return status;
+    }
+
+    public Map<String, String> getHeaders() {
+        return headers;
+    }
+
+    @Override
+    public String toString() {
+        return "RecordedRequest [method=" + method + ", url=" + url + ", status=" + status + "]";
+    }
+}
@@ -0,0 +1,107 @@
+/*******************************************************************************
+ * Copyright 2020-2022 Zebrunner Inc (https://www.zebrunner.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.browserupproxy;
+
+import java.util.function.Predicate;
+
+/**
+ * Criteria for {@link TrafficRecorder} lookups. Host, method, path and status are resolved by the recorder index,
+ * everything else is checked by the custom condition.
+ * 
+ * <pre>
+ * RequestMatcher.request().method("POST").host("analytics.example.com").path("/collect/{id}")
+ * </pre>
+ */
+public class RequestMatcher implements Predicate<RecordedRequest> {
+    private String host;
+    private String method;
+    private String path;
+    private String pathTemplate;
+    private Integer status;
+    private Predicate<RecordedRequest> condition = request -> true;
+
+    private RequestMatcher() {
+    }
+
+    public static RequestMatcher request() {
+        return new RequestMatcher();
+    }
+
+    public RequestMatcher host(String host) {
+        this.host = host.toLowerCase();
+        return this;
+    }
+
+    public RequestMatcher method(String method) {
+        this.method = method.toUpperCase();
+        return this;
+    }
+
+    /**
+     * @param path exact path or template with {placeholder} segments, e.g. /api/users/{id}
+     * @return RequestMatcher
+     */
+    public RequestMatcher path(String path) {
+        this.pathTemplate = RecordedRequest.toPathTemplate(path);
+        this.path = path.contains("{") ? null : path;
+        return this;
+    }
+
+    public RequestMatcher status(int status) {
+        this.status = status;
+        return this;
+    }
+
+    /**
+     * @param condition additional condition, e.g. on query or headers
+     * @return RequestMatcher
+     */
+    public RequestMatcher where(Predicate<RecordedRequest> condition) {
+        this.condition = this.condition.and(condition);
+        return this;
+    }
+
+    String getHost() {
+        return host;
+    }
+
+    String getMethod() {
+        return method;
+    }
+
+    String getPathTemplate() {
+        return pathTemplate;
+    }
+
+    Integer getStatus() {
+        return status;
+    }
+
+    @Override
+    public boolean test(RecordedRequest request) {
+        return (host == null || host.equals(request.getHost()))
+                && (method == null || method.equals(request.getMethod()))
+                && (pathTemplate == null || pathTemplate.equals(request.getPathTemplate()))
+                && (path == null || path.equals(request.getPath()))
+                && (status == null || status == request.getStatus())
+                && condition.test(request);
+    }
+
+    @Override
+    public String toString() {
+        return "RequestMatcher [host=" + host + ", method=" + method + ", path=" + (path != null ? path : pathTemplate) + ", status=" + status + "]";
+    }
+}
@@ -0,0 +1,355 @@
+/*******************************************************************************
+ * Copyright 2020-2022 Zebrunner Inc (https://www.zebrunner.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.browserupproxy;
+
+import java.io.Closeable;
+import java.lang.invoke.MethodHandles;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import org.littleshoot.proxy.HttpFilters;
+import org.littleshoot.proxy.HttpFiltersAdapter;
+import org.littleshoot.proxy.HttpFiltersSource;
+import org.littleshoot.proxy.HttpFiltersSourceAdapter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.browserup.bup.BrowserUpProxy;
+import com.browserup.bup.BrowserUpProxyServer;
+import com.browserup.bup.filters.HttpsAwareFiltersAdapter;
+
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpObject;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpResponse;
+
+/**
+ * Records requests passed through the proxy and indexes them by host, method, path template and status as they arrive,
+ * so assertions on backend calls do not walk the whole HAR, and waiting for a request does not poll. Only the last
+ * {@value #DEFAULT_CAPACITY} requests are kept by default, the oldest ones are forgotten first.
+ * 
+ * <pre>
+ * TrafficRecorder recorder = ProxyPool.getTrafficRecorder();
+ * // some actions
+ * Assert.assertTrue(recorder.awaitRequest(RequestMatcher.request().host("analytics.example.com"), Duration.ofSeconds(5)).isPresent());
+ * </pre>
+ */
+public class TrafficRecorder implements Closeable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+    public static final int DEFAULT_CAPACITY = 10_000;
+
+    private final BrowserUpProxy proxy;
+    private final int capacity;
+    private final HttpFiltersSource filtersSource;
+    private final Index requests = new Index();
+    private final Map<String, Index> byHost = new ConcurrentHashMap<>();
+    private final Map<String, Index> byMethod = new ConcurrentHashMap<>();
+    private final Map<String, Index> byPath = new ConcurrentHashMap<>();
+    private final Map<Integer, Index> byStatus = new ConcurrentHashMap<>();
+    private final List<Waiter> waiters = new CopyOnWriteArrayList<>();
+    private volatile boolean closed;
+
+    private static final class Waiter {
+        private final RequestMatcher matcher;
+        private final CompletableFuture<RecordedRequest> future = new CompletableFuture<>();
+
+        private Waiter(RequestMatcher matcher) {
+            this.matcher = matcher;
+        }
+    }
+
+    /**
+     * Requests in the order of arrival with the size counter, as the size of the concurrent queue is computed by walking it
+     */
+    private static final class Index {
+        private final Queue<RecordedRequest> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger size = new AtomicInteger();
+
+        private void add(RecordedRequest request) {
+            queue.add(request);
+            size.incrementAndGet();
+        }
+
+        private RecordedRequest removeOldest() {
+            RecordedRequest request = queue.poll();
+            if (request != null) {
+                size.decrementAndGet();
+            }
+            return request;
+        }
+
+        private int size() {
+            return size.get();
+        }
+    }
+
+    private TrafficRecorder(BrowserUpProxy proxy, int capacity) {
+        this.proxy = proxy;
+        this.capacity = capacity;
+        this.filtersSource = new HttpFiltersSourceAdapter() {
+            @Override
+            public HttpFilters filterRequest(HttpRequest originalRequest, ChannelHandlerContext ctx) {
+                if (closed || HttpMethod.CONNECT.equals(originalRequest.method())) {
+                    return new HttpFiltersAdapter(originalRequest, ctx);
+                }
+                return new RequestCapture(originalRequest, ctx);
+            }
+        };
+    }
+
+    /**
+     * Start recording of the proxy requests
+     *
+     * @param proxy started proxy
+     * @return recorder
+     */
+    public static TrafficRecorder start(BrowserUpProxy proxy) {
+        return start(proxy, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Start recording of the proxy requests
+     *
+     * @param proxy    started proxy
+     * @param capacity max number of the kept requests, the oldest requests are forgotten first
+     * @return recorder
+     */
+    public static TrafficRecorder start(BrowserUpProxy proxy, int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity should be positive: " + capacity);
+        }
+        TrafficRecorder recorder = new TrafficRecorder(proxy, capacity);
+        proxy.addLastHttpFilterFactory(recorder.filtersSource);
+        return recorder;
+    }
+
+    /**
+     * @param matcher request criteria
+     * @return already recorded requests matching the criteria, in the order of arrival
+     */
+    public List<RecordedRequest> findRequests(RequestMatcher matcher) {
+        return candidates(matcher).stream()
+                .filter(matcher)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * @param matcher request criteria
+     * @return the first recorded request matching the criteria
+     */
+    public Optional<RecordedRequest> findRequest(RequestMatcher matcher) {
+        return candidates(matcher).stream()
+                .filter(matcher)
+                .findFirst();
+    }
+
+    /**
+     * Wait for the request matching the criteria, the request recorded before the call is returned immediately
+     *
+     * @param matcher request criteria
+     * @param timeout max time to wait
+     * @return recorded request or empty optional if it is not received in time
+     */
+    public Optional<RecordedRequest> awaitRequest(RequestMatcher matcher, Duration timeout) {
+        CompletableFuture<RecordedRequest> future = awaitRequestAsync(matcher);
+        try {
+            return Optional.of(future.get(timeout.toMillis(), TimeUnit.MILLISECONDS));
+        } catch (TimeoutException e) {
+            LOGGER.debug("Request is not received in {} ms: {}", timeout.toMillis(), matcher);
+            return Optional.empty();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Optional.empty();
+        } catch (ExecutionException e) {
+            return Optional.empty();
+        } finally {
+            future.cancel(false);
+        }
+    }
+
+    /**
+     * @param matcher request criteria
+     * @return future completed with the first request matching the criteria, cancel it to stop waiting
+     */
+    public CompletableFuture<RecordedRequest> awaitRequestAsync(RequestMatcher matcher) {
+        Waiter waiter = new Waiter(matcher);
+        // register before the lookup, so the request arrived in between is not missed
+        waiters.add(waiter);
+        waiter.future.whenComplete((request, e) -> waiters.remove(waiter));
+        findRequest(matcher).ifPresent(waiter.future::complete);
+        return waiter.future;
+    }
+
+    /**
+     * @return all recorded requests in the order of arrival
+     */
+    public List<RecordedRequest> getRequests() {
+        return new ArrayList<>(requests.queue);
+    }
+
+    /**
+     * Forget recorded requests, e.g. between tests
+     */
+    public synchronized void clear() {
+        requests.queue.clear();
+        requests.size.set(0);
+        byHost.clear();
+        byMethod.clear();
+        byPath.clear();
+        byStatus.clear();
+    }
+
+    /**
+     * Stop recording, pending waiters are completed with empty result
+     */
+    @Override
+    public void close() {
+        closed = true;
+        if (proxy instanceof BrowserUpProxyServer) {
+            ((BrowserUpProxyServer) proxy).getFilterFactories().remove(filtersSource);
+        }
+        waiters.forEach(waiter -> waiter.future.cancel(false));
+    }
+
+    void record(RecordedRequest request) {
+        // writes are serialized, so the oldest request is at the head of every index it belongs to
+        synchronized (this) {
+            requests.add(request);
+            add(byHost, request.getHost(), request);
+            add(byMethod, request.getMethod(), request);
+            add(byPath, request.getPathTemplate(), request);
+            add(byStatus, request.getStatus(), request);
+            while (requests.size() > capacity) {
+                RecordedRequest oldest = requests.removeOldest();
+                removeOldest(byHost, oldest.getHost());
+                removeOldest(byMethod, oldest.getMethod());
+                removeOldest(byPath, oldest.getPathTemplate());
+                removeOldest(byStatus, oldest.getStatus());
+            }
+        }
+        for (Waiter waiter : waiters) {
+            if (waiter.matcher.test(request)) {
+                waiter.future.complete(request);
+            }
+        }
+    }
+
+    /**
+     * @return the smallest index list that can contain requests matching the criteria
+     */
+    private Collection<RecordedRequest> candidates(RequestMatcher matcher) {
+        Index candidates = requests;
+        if (matcher.getHost() != null) {
+            candidates = smallest(candidates, byHost.get(matcher.getHost()));
+        }
+        if (matcher.getPathTemplate() != null) {
+            candidates = smallest(candidates, byPath.get(matcher.getPathTemplate()));
+        }
+        if (matcher.getMethod() != null) {
+            candidates = smallest(candidates, byMethod.get(matcher.getMethod()));
+        }
+        if (matcher.getStatus() != null) {
+            candidates = smallest(candidates, byStatus.get(matcher.getStatus()));
+        }
+        return candidates == null ? List.of() : candidates.queue;
+    }
+
+    private static Index smallest(Index current, Index indexed) {
+        if (current == null || indexed == null) {
+            return null;
+        }
+        return indexed.size() < current.size() ? indexed : current;
+    }
+
+    private static <K> void add(Map<K, Index> indexes, K key, RecordedRequest request) {
+        indexes.computeIfAbsent(key, k -> new Index()).add(request);
+    }
+
+    private static <K> void removeOldest(Map<K, Index> indexes, K key) {
+        Index index = indexes.get(key);
+        if (index != null) {
+            index.removeOldest();
+            if (index.size() == 0) {
+                indexes.remove(key);
+            }
+        }
+    }
+
+    private class RequestCapture extends HttpsAwareFiltersAdapter {
+        private final Instant started = Instant.now();
+        private HttpRequest request;
+        private String url;
+
+        private RequestCapture(HttpRequest originalRequest, ChannelHandlerContext ctx) {
+            super(originalRequest, ctx);
+        }
+
+        @Override
+        public HttpResponse clientToProxyRequest(HttpObject httpObject) {
+            if (httpObject instanceof HttpRequest) {
+                request = (HttpRequest) httpObject;
+                url = getFullUrl(request);
+            }
+            return null;
+        }
+
+        @Override
+        public HttpObject serverToProxyResponse(HttpObject httpObject) {
+            if (httpObject instanceof HttpResponse) {
+                complete(((HttpResponse) httpObject).status().code());
+            }
+            return httpObject;
+        }
+
+        @Override
+        public void serverToProxyResponseTimedOut() {
+            complete(0);
+        }
+
+        @Override
+        public void proxyToServerConnectionFailed() {
+            complete(0);
+        }
+
+        private void complete(int status) {
+            if (request == null || closed) {
+                return;
+            }
+            Map<String, String> headers = new LinkedHashMap<>();
+            request.headers().forEach(header -> headers.putIfAbsent(header.getKey(), header.getValue()));
+            record(new RecordedRequest(started, request.method().name(), url, status, headers));
+            request = null;
+        }
+    }
+}
@@ -16,7 +16,6 @@
 package com.qaprosoft.carina.browserupproxy.rewrite;
 
 import java.lang.invoke.MethodHandles;
-import java.util.ArrayList;
 import java.util.List;
 
 import com.browserup.bup.filters.RequestFilter;
@@ -38,58 +37,28 @@ public class CustomRqFilter implements RequestFilter {
     
     private static final Logger LOGGER = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
     
-    private List<RewriteItem> rewrites = new ArrayList<>();
+    private final RewriteEngine engine;
 
     @Override
     public HttpResponse filterRequest(HttpRequest rq, HttpMessageContents contents, HttpMessageInfo messageInfo) {
-        if (rewrites.isEmpty()) {
+        if (engine.isEmpty()) {
             return null;
         }
         String reqUrl = rq.getUri();
-        for (RewriteItem rewriteItem : rewrites) {
-            if(reqUrl.matches(rewriteItem.getHost())) {
-                // headers rewrite
-                LOGGER.debug("Rewrite rule will be applied for host: ".concat(reqUrl));
-                rq = applyHeaders(rq, rewriteItem.getHeaders());
-
-                // body rewrite
-                String content = contents.getTextContents();
-                String replacedContent = content.replaceAll(rewriteItem.getRegex(), rewriteItem.getReplacement());
-                contents.setTextContents(replacedContent);
-            }
+        List<RewriteItem> rules = engine.getMatchingRules(reqUrl);
+        if (!rules.isEmpty()) {
+            LOGGER.debug("Rewrite rule will be applied for host: {}", reqUrl);
+            // headers rewrite
+            RewriteEngine.applyHeaders(rq.headers(), rules);
+            // body rewrite
+            engine.rewriteBody(rq.headers(), contents, rules);
         }
         
         return null;
     }
     
-    
-    /**
-     * Apply headers to request
-     * @param req HttpRequest
-     * @param headers List&lt;HeaderItem&gt;
-     * @return updated request
-     */
-    private HttpRequest applyHeaders(HttpRequest req, List<HeaderItem> headers) {
-        for (HeaderItem headerItem : headers) {
-            switch (headerItem.getMethod()) {
-            case ADD:
-                req.headers().add(headerItem.getHeader().getKey(), headerItem.getHeader().getValue());
-                break;
-            case REMOVE:
-                req.headers().remove(headerItem.getHeader().getKey());
-                break;
-            case UPDATE:
-                req.headers().set(headerItem.getHeader().getKey(), headerItem.getHeader().getValue());
-                break;
-            default:
-                break;
-            }
-        }
-        return req;
-    }
-    
     public CustomRqFilter (List<RewriteItem> rewrites) {
-        this.rewrites = rewrites;
+        this.engine = new RewriteEngine(rewrites);
     }
 
 }
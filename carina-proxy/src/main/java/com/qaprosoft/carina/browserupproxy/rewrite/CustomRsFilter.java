@@ -16,7 +16,6 @@
 package com.qaprosoft.carina.browserupproxy.rewrite;
 
 import java.lang.invoke.MethodHandles;
-import java.util.ArrayList;
 import java.util.List;
 
 import com.browserup.bup.filters.ResponseFilter;
@@ -36,54 +35,26 @@ public class CustomRsFilter implements ResponseFilter {
     
     private static final Logger LOGGER = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
 
-    private List<RewriteItem> rewrites = new ArrayList<>();
-
-    /**
-     * Update response headers
-     * @param rs HttpResponse
-     * @param headers List&lt;HeaderItem&gt;
-     */
-    private void applyHeaders(HttpResponse rs, List<HeaderItem> headers) {
-        for (HeaderItem headerItem : headers) {
-            LOGGER.debug("Rewrite header: ".concat(headerItem.toString()));
-            switch (headerItem.getMethod()) {
-            case ADD:
-                rs.headers().add(headerItem.getHeader().getKey(), headerItem.getHeader().getValue());
-                break;
-            case REMOVE:
-                rs.headers().remove(headerItem.getHeader().getKey());
-                break;
-            case UPDATE:
-                rs.headers().set(headerItem.getHeader().getKey(), headerItem.getHeader().getValue());
-                break;
-            default:
-                break;
-            }
-        }
-    }
+    private final RewriteEngine engine;
 
     public CustomRsFilter(List<RewriteItem> rewrites) {
-        this.rewrites = rewrites;
+        this.engine = new RewriteEngine(rewrites);
     }
 
     @Override
     public void filterResponse(HttpResponse response, HttpMessageContents contents, HttpMessageInfo messageInfo) {
-        if (rewrites.isEmpty()) {
+        if (engine.isEmpty()) {
             return;
         }
 
         String reqUrl = messageInfo.getOriginalUrl();
-        for (RewriteItem rewriteItem : rewrites) {
-            if (reqUrl.matches(rewriteItem.getHost())) {
-                // headers rewrite
-                LOGGER.debug("Rewrite rule will be applied for host: {}", reqUrl);
-                applyHeaders(response, rewriteItem.getHeaders());
-
-                // body rewrite
-                String content = contents.getTextContents();
-                String replacedContent = content.replaceAll(rewriteItem.getRegex(), rewriteItem.getReplacement());
-                contents.setTextContents(replacedContent);
-            }
+        List<RewriteItem> rules = engine.getMatchingRules(reqUrl);
+        if (!rules.isEmpty()) {
+            LOGGER.debug("Rewrite rule will be applied for host: {}", reqUrl);
+            // headers rewrite
+            RewriteEngine.applyHeaders(response.headers(), rules);
+            // body rewrite
+            engine.rewriteBody(response.headers(), contents, rules);
         }
 
     }
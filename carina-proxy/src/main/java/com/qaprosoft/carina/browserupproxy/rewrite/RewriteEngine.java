@@ -0,0 +1,211 @@
+/*******************************************************************************
+ * Copyright 2020-2022 Zebrunner Inc (https://www.zebrunner.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.browserupproxy.rewrite;
+
+import java.lang.invoke.MethodHandles;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.browserup.bup.util.HttpMessageContents;
+
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaderValues;
+import io.netty.handler.codec.http.HttpHeaders;
+
+/**
+ * Applies {@link RewriteItem} rules for {@link CustomRqFilter} and {@link CustomRsFilter}.
+ * Host and body regular expressions are compiled once, all hosts are checked by one combined pattern first, so urls
+ * without rules cost a single match, and the body is decoded and encoded once for all the rules.
+ */
+final class RewriteEngine {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+    private final List<RewriteItem> rewrites;
+    private final Map<String, Pattern> patterns = new ConcurrentHashMap<>();
+    private volatile HostMatcher hostMatcher;
+
+    RewriteEngine(List<RewriteItem> rewrites) {
+        this.rewrites = rewrites;
+    }
+
+    /**
+     * Host patterns compiled for the hosts of the rules at the moment, recompiled if the rules are changed
+     */
+    private final class HostMatcher {
+        private final List<String> hosts;
+        // null if hosts can't be combined, e.g. they have back references
+        private final Pattern combined;
+
+        private HostMatcher(List<String> hosts) {
+            this.hosts = hosts;
+            this.combined = combine(hosts);
+        }
+
+        private Pattern combine(List<String> hosts) {
+            if (hosts.stream().anyMatch(host -> host.matches(".*\\\\[1-9k].*"))) {
+                return null;
+            }
+            try {
+                return Pattern.compile(hosts.stream()
+                        .map(host -> "(?:" + host + ")")
+                        .collect(Collectors.joining("|")));
+            } catch (PatternSyntaxException e) {
+                return null;
+            }
+        }
+    }
+
+    boolean isEmpty() {
+        return rewrites.isEmpty();
+    }
+
+    /**
+     * @param url request url
+     * @return rules with host pattern matching the url, in the declared order
+     */
+    List<RewriteItem> getMatchingRules(String url) {
+        List<RewriteItem> items = new ArrayList<>(rewrites);
+        HostMatcher matcher = getHostMatcher(items);
+        if (matcher.combined != null && !matcher.combined.matcher(url).matches()) {
+            return Collections.emptyList();
+        }
+        List<RewriteItem> matched = new ArrayList<>();
+        for (RewriteItem item : items) {
+            if (item.getHost() != null && getPattern(item.getHost()).matcher(url).matches()) {
+                matched.add(item);
+            }
+        }
+        return matched;
+    }
+
+    private HostMatcher getHostMatcher(List<RewriteItem> items) {
+        List<String> hosts = items.stream()
+                .map(RewriteItem::getHost)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+        HostMatcher matcher = hostMatcher;
+        if (matcher == null || !matcher.hosts.equals(hosts)) {
+            matcher = new HostMatcher(hosts);
+            hostMatcher = matcher;
+        }
+        return matcher;
+    }
+
+    private Pattern getPattern(String regex) {
+        return patterns.computeIfAbsent(regex, Pattern::compile);
+    }
+
+    /**
+     * Rewrite headers by the rules
+     * 
+     * @param headers request or response headers
+     * @param rules matching rules
+     */
+    static void applyHeaders(HttpHeaders headers, List<RewriteItem> rules) {
+        for (RewriteItem rule : rules) {
+            for (HeaderItem headerItem : rule.getHeaders()) {
+                LOGGER.debug("Rewrite header: {}", headerItem);
+                switch (headerItem.getMethod()) {
+                case ADD:
+                    headers.add(headerItem.getHeader().getKey(), headerItem.getHeader().getValue());
+                    break;
+                case REMOVE:
+                    headers.remove(headerItem.getHeader().getKey());
+                    break;
+                case UPDATE:
+                    headers.set(headerItem.getHeader().getKey(), headerItem.getHeader().getValue());
+                    break;
+                default:
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Rewrite the body by the rules. Binary and encoded (e.g. gzip) bodies are not changed, the body is not touched if
+     * nothing is replaced.
+     * 
+     * @param headers headers of the message
+     * @param contents message contents
+     * @param rules matching rules
+     */
+    void rewriteBody(HttpHeaders headers, HttpMessageContents contents, List<RewriteItem> rules) {
+        if (rules.stream().allMatch(rule -> rule.getRegex() == null || rule.getRegex().isEmpty())) {
+            return;
+        }
+        String encoding = headers.get(HttpHeaderNames.CONTENT_ENCODING);
+        if (encoding != null && !HttpHeaderValues.IDENTITY.contentEqualsIgnoreCase(encoding)) {
+            LOGGER.debug("Body rewrite is skipped for content encoding: {}", encoding);
+            return;
+        }
+        if (!contents.isText()) {
+            LOGGER.debug("Body rewrite is skipped for content type: {}", contents.getContentType());
+            return;
+        }
+        byte[] body = contents.getBinaryContents();
+        if (body.length == 0) {
+            return;
+        }
+        Charset charset = contents.getCharset();
+        CharSequence text = charset.decode(ByteBuffer.wrap(body));
+        CharSequence replaced = replace(text, rules);
+        if (replaced != text) {
+            contents.setTextContents(replaced.toString());
+        }
+    }
+
+    /**
+     * @param text source text
+     * @param rules rules with body regex
+     * @return the same text object if nothing is replaced
+     */
+    CharSequence replace(CharSequence text, List<RewriteItem> rules) {
+        CharSequence current = text;
+        for (RewriteItem rule : rules) {
+            if (rule.getRegex() == null || rule.getRegex().isEmpty()) {
+                continue;
+            }
+            Matcher matcher = getPattern(rule.getRegex()).matcher(current);
+            if (!matcher.find()) {
+                continue;
+            }
+            String replacement = rule.getReplacement() == null ? "" : rule.getReplacement();
+            StringBuilder sb = new StringBuilder(current.length() + 16);
+            do {
+                matcher.appendReplacement(sb, replacement);
+            } while (matcher.find());
+            matcher.appendTail(sb);
+            current = sb;
+        }
+        return current;
+    }
+
+}
@@ -0,0 +1,108 @@
+package com.qaprosoft.carina.browserupproxy;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.browserup.bup.BrowserUpProxyServer;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+
+public class HarStreamRecorderTest {
+    private static final String BODY = "0123456789abcdefghijklmnopqrstuvwxyz";
+
+    private HttpServer server;
+    private BrowserUpProxyServer proxy;
+    private File dir;
+
+    @BeforeClass
+    public void start() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            byte[] body = BODY.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=UTF-8");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(body);
+            }
+        });
+        server.start();
+        proxy = new BrowserUpProxyServer();
+        proxy.start(0);
+        dir = Files.createTempDirectory("har-stream").toFile();
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void stop() {
+        proxy.stop();
+        server.stop(0);
+    }
+
+    @Test
+    public void testEntriesAreStreamedAndSliced() throws IOException {
+        File first = new File(dir, "first/har.ndjson");
+        File second = new File(dir, "second/har.ndjson");
+        try (HarStreamRecorder recorder = HarStreamRecorder.start(proxy, first, 16)) {
+            get("/first");
+            get("/first?again=true");
+            Assert.assertEquals(recorder.slice(second), first);
+            get("/second");
+            Assert.assertEquals(recorder.getEntryCount(), 3);
+        }
+        get("/not-recorded");
+
+        List<String> lines = Files.readAllLines(first.toPath());
+        Assert.assertEquals(lines.size(), 2);
+        JsonNode entry = new ObjectMapper().readTree(lines.get(0));
+        Assert.assertTrue(entry.at("/request/url").asText().endsWith("/first"), entry.toString());
+        Assert.assertEquals(entry.at("/response/status").asInt(), 200);
+        Assert.assertEquals(entry.at("/response/content/size").asInt(), BODY.length());
+        Assert.assertEquals(entry.at("/response/content/text").asText(), BODY.substring(0, 16));
+        Assert.assertFalse(entry.at("/response/content/comment").isMissingNode(), "Truncated body is not marked");
+
+        Assert.assertEquals(Files.readAllLines(second.toPath()).size(), 1);
+        Assert.assertFalse(proxy.getFilterFactories().stream().anyMatch(f -> f.getClass().getName().contains("HarStreamRecorder")),
+                "Recorder filter is not removed on close");
+    }
+
+    @Test
+    public void testConvertToHar() throws IOException {
+        File ndjson = new File(dir, "convert/har.ndjson");
+        try (HarStreamRecorder recorder = HarStreamRecorder.start(proxy, ndjson, 0)) {
+            get("/convert");
+            get("/convert");
+        }
+        File har = new File(dir, "convert/proxy.har");
+        HarStreamRecorder.toHar(ndjson, har);
+
+        JsonNode log = new ObjectMapper().readTree(har).get("log");
+        Assert.assertEquals(log.get("version").asText(), "1.2");
+        Assert.assertEquals(log.get("entries").size(), 2);
+        Assert.assertTrue(log.get("entries").get(1).at("/response/content/text").isMissingNode(), "Body is recorded without limit");
+    }
+
+    private void get(String path) throws IOException {
+        URL url = new URL("http://127.0.0.1:" + server.getAddress().getPort() + path);
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection(
+                new Proxy(Proxy.Type.HTTP, new InetSocketAddress("127.0.0.1", proxy.getPort())));
+        try (InputStream is = connection.getInputStream()) {
+            is.readAllBytes();
+        } finally {
+            connection.disconnect();
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.qaprosoft.carina.browserupproxy;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import org.apache.commons.lang3.reflect.FieldUtils;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.browserup.bup.BrowserUpProxy;
+import com.browserup.bup.BrowserUpProxyServer;
+import com.browserup.bup.filters.RequestFilter;
+import com.browserup.bup.proxy.auth.AuthType;
+
+public class ProxyLeasePoolTest {
+    private static final long FIRST_OWNER = 1001;
+    private static final long SECOND_OWNER = 1002;
+    private static final long THIRD_OWNER = 1003;
+
+    private ProxyLeasePool pool;
+
+    @BeforeClass
+    public void startPool() {
+        pool = ProxyLeasePool.start(List.of(0, 0), BrowserUpProxyServer::new);
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void stopPool() {
+        pool.stop();
+    }
+
+    @Test
+    public void testPoolIsStarted() {
+        Assert.assertEquals(pool.size(), 2);
+        Assert.assertEquals(pool.available(), 2);
+        pool.getPorts().forEach(port -> Assert.assertTrue(port > 0, "Proxy is not started on port: " + port));
+    }
+
+    @Test(dependsOnMethods = "testPoolIsStarted")
+    public void testLeasePerThread() {
+        BrowserUpProxy first = CompletableFuture.supplyAsync(() -> pool.lease(FIRST_OWNER)).join();
+        BrowserUpProxy second = pool.lease(SECOND_OWNER);
+        try {
+            Assert.assertNotNull(first);
+            Assert.assertNotNull(second);
+            Assert.assertNotSame(first, second, "The same proxy is leased twice");
+            Assert.assertSame(pool.getLeased(SECOND_OWNER), second);
+            Assert.assertNull(pool.lease(THIRD_OWNER), "Proxy is leased when all of them are busy");
+            Assert.assertEquals(pool.available(), 0);
+        } finally {
+            pool.release(FIRST_OWNER);
+            pool.release(SECOND_OWNER);
+        }
+        Assert.assertEquals(pool.available(), 2);
+    }
+
+    @Test(dependsOnMethods = "testLeasePerThread")
+    public void testReleaseResetsProxy() throws Exception {
+        long threadId = Thread.currentThread().getId();
+        BrowserUpProxyServer proxy = (BrowserUpProxyServer) pool.lease(threadId);
+        int filters = proxy.getFilterFactories().size();
+        proxy.newHar("test");
+        proxy.addHeader("my_header", "my_value");
+        proxy.blacklistRequests("https?://.*\\.example\\.com/.*", 404);
+        proxy.addRequestFilter((RequestFilter) (request, contents, messageInfo) -> null);
+        proxy.setReadBandwidthLimit(1024);
+        proxy.setWriteBandwidthLimit(2048);
+        proxy.getHostNameResolver().remapHost("example.com", "127.0.0.1");
+        proxy.autoAuthorization("example.com", "user", "password", AuthType.BASIC);
+
+        Assert.assertTrue(pool.release(threadId));
+        Assert.assertFalse(pool.release(threadId), "Proxy is released twice");
+
+        Assert.assertNull(proxy.getHar());
+        Assert.assertTrue(proxy.getAllHeaders().isEmpty());
+        Assert.assertTrue(proxy.getBlacklist().isEmpty());
+        Assert.assertEquals(proxy.getFilterFactories().size(), filters);
+        Assert.assertEquals(proxy.getReadBandwidthLimit(), 0);
+        Assert.assertEquals(proxy.getWriteBandwidthLimit(), 0);
+        Assert.assertTrue(proxy.getHostNameResolver().getHostRemappings().isEmpty(), "Host remapping is not reset");
+        Assert.assertTrue(((Map<?, ?>) FieldUtils.readField(proxy, "basicAuthCredentials", true)).isEmpty(),
+                "Auto authorization is not reset");
+        Assert.assertTrue(proxy.isStarted());
+
+        BrowserUpProxy leased = pool.lease(threadId, proxy.getPort());
+        Assert.assertSame(leased, proxy, "Proxy is not reused");
+        pool.release(threadId);
+    }
+
+    @Test
+    public void testReleaseRestoresChainedProxy() throws Exception {
+        InetSocketAddress upstream = new InetSocketAddress("localhost", 3128);
+        ProxyLeasePool chainedPool = ProxyLeasePool.start(List.of(0), () -> {
+            BrowserUpProxyServer proxy = new BrowserUpProxyServer();
+            proxy.setChainedProxy(upstream);
+            return proxy;
+        });
+        try {
+            long threadId = Thread.currentThread().getId();
+            BrowserUpProxy proxy = chainedPool.lease(threadId);
+            proxy.setChainedProxy(new InetSocketAddress("localhost", 8888));
+            proxy.chainedProxyAuthorization("user", "password", AuthType.BASIC);
+
+            chainedPool.release(threadId);
+
+            Assert.assertEquals(proxy.getChainedProxy(), upstream);
+            Assert.assertNull(FieldUtils.readField(proxy, "chainedProxyCredentials", true), "Chained proxy authorization is not reset");
+        } finally {
+            chainedPool.stop();
+        }
+    }
+
+    @Test
+    public void testPortAvailability() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            Assert.assertFalse(ProxyPool.isPortAvailable(socket.getLocalPort()));
+        }
+        Assert.assertTrue(ProxyPool.isPortAvailable(0));
+    }
+}
@@ -0,0 +1,138 @@
+package com.qaprosoft.carina.browserupproxy;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.browserup.bup.BrowserUpProxyServer;
+import com.sun.net.httpserver.HttpServer;
+
+public class TrafficRecorderTest {
+    private static final int TIMEOUT = 5000;
+
+    private HttpServer server;
+    private BrowserUpProxyServer proxy;
+    private TrafficRecorder recorder;
+
+    @BeforeClass
+    public void start() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            int status = exchange.getRequestURI().getPath().startsWith("/missing") ? 404 : 204;
+            exchange.sendResponseHeaders(status, -1);
+            exchange.close();
+        });
+        server.start();
+        proxy = new BrowserUpProxyServer();
+        proxy.start(0);
+        recorder = TrafficRecorder.start(proxy);
+    }
+
+    @AfterMethod(alwaysRun = true)
+    public void clear() {
+        recorder.clear();
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void stop() {
+        recorder.close();
+        proxy.stop();
+        server.stop(0);
+    }
+
+    @Test
+    public void testRequestsAreIndexed() throws IOException {
+        send("GET", "/api/users/42?fields=name");
+        send("POST", "/api/users/43");
+        send("GET", "/missing/page");
+
+        Assert.assertEquals(recorder.getRequests().size(), 3);
+        Assert.assertEquals(recorder.findRequests(RequestMatcher.request().path("/api/users/{id}")).size(), 2);
+        Assert.assertEquals(recorder.findRequests(RequestMatcher.request().path("/api/users/42")).size(), 1);
+        Assert.assertEquals(recorder.findRequests(RequestMatcher.request().method("post").host("127.0.0.1")).size(), 1);
+        Assert.assertEquals(recorder.findRequests(RequestMatcher.request().status(404)).size(), 1);
+        Assert.assertTrue(recorder.findRequest(RequestMatcher.request().host("example.com")).isEmpty());
+
+        RecordedRequest request = recorder.findRequest(RequestMatcher.request()
+                .path("/api/users/{id}")
+                .where(r -> r.getQuery().contains("fields"))).orElseThrow();
+        Assert.assertEquals(request.getMethod(), "GET");
+        Assert.assertEquals(request.getStatus(), 204);
+        Assert.assertEquals(request.getPathTemplate(), "/api/users/{id}");
+    }
+
+    @Test
+    public void testAwaitRequest() {
+        CompletableFuture<Void> sender = CompletableFuture.runAsync(() -> {
+            try {
+                Thread.sleep(300);
+                send("POST", "/collect/7");
+            } catch (IOException | InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        Optional<RecordedRequest> request = recorder.awaitRequest(RequestMatcher.request().method("POST").path("/collect/{id}"),
+                Duration.ofSeconds(10));
+        sender.join();
+        Assert.assertTrue(request.isPresent(), "Request is not received");
+        Assert.assertEquals(request.get().getPath(), "/collect/7");
+
+        // already recorded request is returned at once
+        Assert.assertTrue(recorder.awaitRequest(RequestMatcher.request().path("/collect/7"), Duration.ZERO).isPresent());
+    }
+
+    @Test
+    public void testOldestRequestsAreForgotten() throws IOException {
+        TrafficRecorder limited = TrafficRecorder.start(proxy, 2);
+        try {
+            send("GET", "/first");
+            send("POST", "/second");
+            send("GET", "/missing/third");
+
+            Assert.assertEquals(limited.getRequests().size(), 2);
+            Assert.assertEquals(limited.getRequests().get(0).getPath(), "/second");
+            Assert.assertTrue(limited.findRequest(RequestMatcher.request().path("/first")).isEmpty());
+            Assert.assertEquals(limited.findRequests(RequestMatcher.request().method("GET")).size(), 1);
+            Assert.assertEquals(limited.findRequests(RequestMatcher.request().status(204)).size(), 1);
+            Assert.assertEquals(recorder.getRequests().size(), 3);
+        } finally {
+            limited.close();
+        }
+    }
+
+    @Test
+    public void testAwaitRequestTimeout() {
+        long start = System.currentTimeMillis();
+        Assert.assertTrue(recorder.awaitRequest(RequestMatcher.request().path("/never"), Duration.ofMillis(200)).isEmpty());
+        Assert.assertTrue(System.currentTimeMillis() - start < 5000);
+    }
+
+    private void send(String method, String path) throws IOException {
+        // a new connection for every request: LittleProxy may lose the request sent over a reused client connection
+        // when the test server has just closed the server connection behind it
+        try (Socket socket = new Socket()) {
+            socket.connect(new InetSocketAddress("127.0.0.1", proxy.getPort()), TIMEOUT);
+            socket.setSoTimeout(TIMEOUT);
+            String host = "127.0.0.1:" + server.getAddress().getPort();
+            OutputStream os = socket.getOutputStream();
+            os.write(String.format("%s http://%s%s HTTP/1.1\r\nHost: %s\r\nContent-Length: 0\r\nConnection: close\r\n\r\n",
+                    method, host, path, host).getBytes(StandardCharsets.US_ASCII));
+            os.flush();
+            String statusLine = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII)).readLine();
+            Assert.assertNotNull(statusLine, "No response to " + method + " " + path);
+        }
+    }
+}
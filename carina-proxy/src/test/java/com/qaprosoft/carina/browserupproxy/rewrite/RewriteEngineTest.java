@@ -0,0 +1,114 @@
+package com.qaprosoft.carina.browserupproxy.rewrite;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.commons.lang3.tuple.Pair;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.browserup.bup.util.HttpMessageContents;
+import com.browserup.bup.util.HttpMessageInfo;
+
+import io.netty.buffer.Unpooled;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.DefaultHttpRequest;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpVersion;
+
+public class RewriteEngineTest {
+
+    @Test
+    public void testMatchingRules() {
+        RewriteItem api = new RewriteItem(".*api\\.example\\.com.*", "", "", Collections.emptyList());
+        RewriteItem cdn = new RewriteItem("https://cdn\\..*", "", "", Collections.emptyList());
+        RewriteEngine engine = new RewriteEngine(List.of(api, cdn));
+
+        Assert.assertEquals(engine.getMatchingRules("https://api.example.com/v1/users"), List.of(api));
+        Assert.assertEquals(engine.getMatchingRules("https://cdn.api.example.com/app.js"), List.of(api, cdn));
+        Assert.assertTrue(engine.getMatchingRules("https://www.example.com/").isEmpty());
+    }
+
+    @Test
+    public void testMatchingRulesWithBackReference() {
+        RewriteItem item = new RewriteItem("https://(\\w+)\\.\\1\\.com/.*", "", "", Collections.emptyList());
+        RewriteEngine engine = new RewriteEngine(List.of(item));
+
+        Assert.assertEquals(engine.getMatchingRules("https://abc.abc.com/"), List.of(item));
+        Assert.assertTrue(engine.getMatchingRules("https://abc.def.com/").isEmpty());
+    }
+
+    @Test
+    public void testChangedRulesAreApplied() {
+        List<RewriteItem> rewrites = new ArrayList<>();
+        RewriteEngine engine = new RewriteEngine(rewrites);
+        Assert.assertTrue(engine.getMatchingRules("https://example.com/").isEmpty());
+
+        RewriteItem item = new RewriteItem(".*example.*", "", "", Collections.emptyList());
+        rewrites.add(item);
+        Assert.assertEquals(engine.getMatchingRules("https://example.com/"), List.of(item));
+
+        item.setHost(".*other.*");
+        Assert.assertTrue(engine.getMatchingRules("https://example.com/").isEmpty());
+    }
+
+    @Test
+    public void testReplaceIsSameAsReplaceAll() {
+        String text = "var host = 'prod.example.com'; var cdn = 'cdn.prod.example.com';";
+        List<RewriteItem> rules = List.of(
+                new RewriteItem(null, "(\\w+)\\.example\\.com", "$1.test.local", Collections.emptyList()),
+                new RewriteItem(null, "var", "let", Collections.emptyList()));
+        String expected = text.replaceAll("(\\w+)\\.example\\.com", "$1.test.local").replaceAll("var", "let");
+
+        Assert.assertEquals(new RewriteEngine(rules).replace(text, rules).toString(), expected);
+    }
+
+    @Test
+    public void testReplaceWithoutMatchReturnsSameText() {
+        String text = "nothing to replace";
+        List<RewriteItem> rules = List.of(new RewriteItem(null, "example", "test", Collections.emptyList()));
+
+        Assert.assertSame(new RewriteEngine(rules).replace(text, rules), text);
+    }
+
+    @Test
+    public void testResponseFilter() {
+        List<HeaderItem> headers = List.of(new HeaderItem(HeaderMethod.ADD, Pair.of("X-Rewritten", "true")));
+        CustomRsFilter filter = new CustomRsFilter(List.of(new RewriteItem(".*", "example", "test", headers)));
+
+        FullHttpResponse response = response("text/html; charset=UTF-8", "<a href='example.com'>example</a>");
+        HttpRequest request = new DefaultHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/");
+        HttpMessageInfo messageInfo = new HttpMessageInfo(request, null, true, "https://example.com/", "https://example.com/");
+        filter.filterResponse(response, new HttpMessageContents(response), messageInfo);
+        Assert.assertEquals(response.content().toString(StandardCharsets.UTF_8), "<a href='test.com'>test</a>");
+        Assert.assertEquals(response.headers().get("X-Rewritten"), "true");
+    }
+
+    @Test
+    public void testBinaryAndEncodedBodiesAreNotRewritten() {
+        List<RewriteItem> rules = List.of(new RewriteItem(".*", "example", "test", Collections.emptyList()));
+        RewriteEngine engine = new RewriteEngine(rules);
+
+        FullHttpResponse image = response("image/png", "example");
+        engine.rewriteBody(image.headers(), new HttpMessageContents(image), rules);
+        Assert.assertEquals(image.content().toString(StandardCharsets.UTF_8), "example");
+
+        FullHttpResponse gzip = response("text/html", "example");
+        gzip.headers().set(HttpHeaderNames.CONTENT_ENCODING, "gzip");
+        engine.rewriteBody(gzip.headers(), new HttpMessageContents(gzip), rules);
+        Assert.assertEquals(gzip.content().toString(StandardCharsets.UTF_8), "example");
+    }
+
+    private static FullHttpResponse response(String contentType, String body) {
+        FullHttpResponse response = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK,
+                Unpooled.copiedBuffer(body, StandardCharsets.UTF_8));
+        response.headers().set(HttpHeaderNames.CONTENT_TYPE, contentType);
+        return response;
+    }
+}
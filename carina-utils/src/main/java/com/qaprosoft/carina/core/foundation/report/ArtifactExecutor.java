@@ -0,0 +1,224 @@
+/*******************************************************************************
+ * Copyright 2020-2022 Zebrunner Inc (https://www.zebrunner.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.core.foundation.report;
+
+import java.lang.invoke.MethodHandles;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Bounded executor for artifact and screenshot I/O. A fixed number of threads writes to disk and the number of queued
+ * tasks is limited, so the submitting thread waits for a free slot instead of piling up threads and images in memory.
+ * Tasks with the same key (e.g. test directory) are run one by one in the submission order, {@link #flush(String, Duration)}
+ * waits for all the submitted tasks of the key.
+ */
+public class ArtifactExecutor {
+    private static final Logger LOGGER = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+    private static final AtomicInteger THREAD_NUMBER = new AtomicInteger();
+
+    private final ExecutorService executor;
+    private final Semaphore slots;
+    private final int capacity;
+    // the last task of every key, the next task of the key is started after it
+    private final ConcurrentHashMap<String, CompletableFuture<Void>> tails = new ConcurrentHashMap<>();
+
+    private final AtomicInteger queueDepth = new AtomicInteger();
+    private final AtomicInteger maxQueueDepth = new AtomicInteger();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong totalLatency = new AtomicLong();
+    private final AtomicLong maxLatency = new AtomicLong();
+    private final AtomicLong blocked = new AtomicLong();
+
+    /**
+     * @param threads number of I/O threads
+     * @param capacity max number of submitted but not finished tasks
+     */
+    public ArtifactExecutor(int threads, int capacity) {
+        this.capacity = Math.max(1, capacity);
+        this.slots = new Semaphore(this.capacity);
+        this.executor = Executors.newFixedThreadPool(Math.max(1, threads), runnable -> {
+            Thread thread = new Thread(runnable, "carina-artifact-io-" + THREAD_NUMBER.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Submits the task after the previous tasks of the same key. Blocks the current thread while the executor is full.
+     * If the thread is interrupted while waiting, the task is run in the current thread.
+     *
+     * @param key ordering key, tasks of the same key are never run concurrently
+     * @param task I/O task, its exceptions are logged
+     * @return future completed when the task is finished
+     */
+    public CompletableFuture<Void> submit(String key, Runnable task) {
+        long submitTime = System.nanoTime();
+        if (!slots.tryAcquire()) {
+            blocked.incrementAndGet();
+            try {
+                slots.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                // keep order of the key even when the task is run by the caller
+                flush(key);
+                run(task);
+                return CompletableFuture.completedFuture(null);
+            }
+        }
+        maxQueueDepth.accumulateAndGet(queueDepth.incrementAndGet(), Math::max);
+
+        CompletableFuture<Void> future = tails.compute(key, (k, tail) -> tail == null
+                ? CompletableFuture.runAsync(() -> run(task), executor)
+                : tail.thenRunAsync(() -> run(task), executor));
+        future.whenComplete((result, e) -> {
+            queueDepth.decrementAndGet();
+            slots.release();
+            long latency = System.nanoTime() - submitTime;
+            completed.incrementAndGet();
+            totalLatency.addAndGet(latency);
+            maxLatency.accumulateAndGet(latency, Math::max);
+            // forget finished keys, a newer task replaces the tail otherwise
+            tails.remove(key, future);
+        });
+        return future;
+    }
+
+    /**
+     * Waits for all the submitted tasks of the key
+     *
+     * @param key ordering key
+     * @param timeout max time to wait
+     * @return true if all the tasks are finished
+     */
+    public boolean flush(String key, Duration timeout) {
+        CompletableFuture<Void> tail = tails.get(key);
+        if (tail == null) {
+            return true;
+        }
+        try {
+            tail.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            // task exceptions are logged by the task
+            return true;
+        } catch (TimeoutException e) {
+            LOGGER.warn("Artifact tasks of '{}' are not finished in {} ms.", key, timeout.toMillis());
+        }
+        return false;
+    }
+
+    private void flush(String key) {
+        CompletableFuture<Void> tail = tails.get(key);
+        if (tail != null) {
+            tail.join();
+        }
+    }
+
+    private static void run(Runnable task) {
+        try {
+            task.run();
+        } catch (Throwable e) {
+            LOGGER.error("Artifact task failure", e);
+        }
+    }
+
+    /**
+     * @return current number of submitted but not finished tasks
+     */
+    public int getQueueDepth() {
+        return queueDepth.get();
+    }
+
+    /**
+     * @return snapshot of the executor metrics
+     */
+    public Metrics getMetrics() {
+        long count = completed.get();
+        return new Metrics(queueDepth.get(), maxQueueDepth.get(), capacity, count, blocked.get(),
+                Duration.ofNanos(count == 0 ? 0 : totalLatency.get() / count), Duration.ofNanos(maxLatency.get()));
+    }
+
+    public static final class Metrics {
+        private final int queueDepth;
+        private final int maxQueueDepth;
+        private final int capacity;
+        private final long completed;
+        private final long blocked;
+        private final Duration averageLatency;
+        private final Duration maxLatency;
+
+        private Metrics(int queueDepth, int maxQueueDepth, int capacity, long completed, long blocked, Duration averageLatency,
+                Duration maxLatency) {
+            this.queueDepth = queueDepth;
+            this.maxQueueDepth = maxQueueDepth;
+            this.capacity = capacity;
+            this.completed = completed;
+            this.blocked = blocked;
+            this.averageLatency = averageLatency;
+            this.maxLatency = maxLatency;
+        }
+
+        public int getQueueDepth() {
+            return queueDepth;
+        }
+
+        public int getMaxQueueDepth() {
+            return maxQueueDepth;
+        }
+
+        public long getCompleted() {
+            return completed;
+        }
+
+        /**
+         * @return number of submissions that waited for a free slot
+         */
+        public long getBlocked() {
+            return blocked;
+        }
+
+        /**
+         * @return average time from the submission to the end of the task
+         */
+        public Duration getAverageLatency() {
+            return averageLatency;
+        }
+
+        public Duration getMaxLatency() {
+            return maxLatency;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("completed: %d, queue: %d, max queue: %d/%d, blocked submissions: %d, latency avg: %d ms, max: %d ms",
+                    completed, queueDepth, maxQueueDepth, capacity, blocked, averageLatency.toMillis(), maxLatency.toMillis());
+        }
+    }
+}
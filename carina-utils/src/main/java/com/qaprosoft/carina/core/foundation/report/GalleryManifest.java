@@ -0,0 +1,158 @@
+/*******************************************************************************
+ * Copyright 2020-2022 Zebrunner Inc (https://www.zebrunner.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.core.foundation.report;
+
+import java.awt.image.BufferedImage;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.UnaryOperator;
+
+import javax.imageio.ImageIO;
+
+import org.apache.commons.lang3.StringUtils;
+import org.imgscalr.Scalr;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Screenshot gallery of the test. Every screenshot is appended to the JSON lines manifest of the test directory when it
+ * is written, so the html gallery is rendered once from the manifest at the end of the test without listing the
+ * directory. Small thumbnails are shown in the gallery and loaded lazily, full size screenshot is opened on click.
+ * Writes of the same test directory should be serialized by the caller.
+ */
+final class GalleryManifest {
+    private static final Logger LOGGER = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+    static final String FILE_NAME = "gallery.ndjson";
+    static final String THUMBNAILS_FOLDER = "thumbnails";
+    static final int THUMBNAIL_WIDTH = 320;
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private GalleryManifest() {
+    }
+
+    static final class Entry {
+        private final String image;
+        private final String thumbnail;
+        private final String title;
+
+        private Entry(String image, String thumbnail, String title) {
+            this.image = image;
+            this.thumbnail = thumbnail;
+            this.title = title;
+        }
+
+        String getImage() {
+            return image;
+        }
+
+        String getThumbnail() {
+            return thumbnail;
+        }
+
+        String getTitle() {
+            return title;
+        }
+    }
+
+    /**
+     * Writes the thumbnail of the screenshot and appends the screenshot to the manifest
+     *
+     * @param testDir test directory with the screenshot
+     * @param name file name of the screenshot
+     * @param screenshot screenshot image to make the thumbnail from
+     * @param title screenshot comment, could be empty
+     * @throws IOException if thumbnail or manifest can't be written
+     */
+    static void add(File testDir, String name, BufferedImage screenshot, String title) throws IOException {
+        String thumbnail = name;
+        if (screenshot != null && screenshot.getWidth() > THUMBNAIL_WIDTH) {
+            File thumbnailFile = new File(new File(testDir, THUMBNAILS_FOLDER), name);
+            thumbnailFile.getParentFile().mkdirs();
+            ImageIO.write(Scalr.resize(screenshot, Scalr.Method.SPEED, Scalr.Mode.FIT_TO_WIDTH, THUMBNAIL_WIDTH),
+                    "PNG", thumbnailFile);
+            thumbnail = THUMBNAILS_FOLDER + "/" + name;
+        }
+        String line = MAPPER.createObjectNode()
+                .put("image", name)
+                .put("thumbnail", thumbnail)
+                .put("title", StringUtils.defaultString(title))
+                .toString();
+        try (BufferedWriter writer = Files.newBufferedWriter(new File(testDir, FILE_NAME).toPath(), StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            writer.write(line);
+            writer.newLine();
+        }
+    }
+
+    /**
+     * @param testDir test directory
+     * @return screenshots in the order they were written, empty list if there is no manifest
+     * @throws IOException if manifest can't be read
+     */
+    static List<Entry> read(File testDir) throws IOException {
+        File file = new File(testDir, FILE_NAME);
+        List<Entry> entries = new ArrayList<>();
+        if (!file.exists()) {
+            return entries;
+        }
+        for (String line : Files.readAllLines(file.toPath(), StandardCharsets.UTF_8)) {
+            if (line.isBlank()) {
+                continue;
+            }
+            try {
+                JsonNode node = MAPPER.readTree(line);
+                String image = node.path("image").asText();
+                entries.add(new Entry(image, node.path("thumbnail").asText(image), node.path("title").asText()));
+            } catch (IOException e) {
+                // line of the interrupted write
+                LOGGER.debug("Broken gallery manifest line is skipped: " + line);
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * @param entries screenshots
+     * @param container page template with ${images} and ${title} placeholders
+     * @param image screenshot template with ${image}, ${thumbnail} and ${title} placeholders
+     * @param title page title
+     * @param titleResolver returns the screenshot title when the manifest has no title
+     * @param maxTitle max length of the screenshot title
+     * @return html gallery
+     */
+    static String render(List<Entry> entries, String container, String image, String title, UnaryOperator<String> titleResolver,
+            int maxTitle) {
+        StringBuilder images = new StringBuilder();
+        for (Entry entry : entries) {
+            String imageTitle = entry.getTitle().isEmpty() ? StringUtils.defaultString(titleResolver.apply(entry.getImage()))
+                    : entry.getTitle();
+            images.append(image.replace("${image}", entry.getImage())
+                    .replace("${thumbnail}", entry.getThumbnail())
+                    .replace("${title}", StringUtils.substring(imageTitle, 0, maxTitle)));
+        }
+        return container.replace("${images}", images.toString()).replace("${title}", title);
+    }
+}
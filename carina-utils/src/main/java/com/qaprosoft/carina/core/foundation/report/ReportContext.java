@@ -32,18 +32,16 @@ import java.net.HttpURLConnection;
 import java.net.PasswordAuthentication;
 import java.net.URL;
 import java.net.URLDecoder;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Base64;
 import java.util.Collections;
-import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.UUID;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
@@ -98,7 +96,7 @@ public class ReportContext {
     private static final ThreadLocal<File> testDirectory = new InheritableThreadLocal<>();
     private static final ThreadLocal<Boolean> isCustomTestDirName = new InheritableThreadLocal<Boolean>();
 
-    private static final ExecutorService executor = Executors.newCachedThreadPool();
+    private static final Duration FLUSH_TIMEOUT = Duration.ofSeconds(60);
 
     // Collects screenshot comments. Screenshot comments are associated using screenshot file name.
     private static Map<String, String> screenSteps = Collections.synchronizedMap(new HashMap<String, String>());
@@ -111,7 +109,7 @@ public class ReportContext {
     public static File getBaseDir() {
         try {
             if (baseDirectory == null) {
-                removeOldReports();
+                removeEmailableReport();
                 File projectRoot = new File(String.format("%s/%s", URLDecoder.decode(System.getProperty("user.dir"), "utf-8"),
                         Configuration.get(Parameter.PROJECT_REPORT_DIRECTORY)));
                 if (!projectRoot.exists()) {
@@ -132,6 +130,7 @@ public class ReportContext {
                 baseDirectory = baseDirectoryTmp;
 
                 copyGalleryLib();
+                removeOldReports(projectRoot);
             }
         } catch (UnsupportedEncodingException e) {
             throw new RuntimeException("Folder not created: " + baseDirectory.getAbsolutePath());
@@ -479,6 +478,8 @@ public class ReportContext {
             File newTestDir = new File(String.format("%s/%s", getBaseDir(), test.replaceAll("[^a-zA-Z0-9.-]", "_")));
 
             if (!newTestDir.exists()) {
+                // pending screenshots are written to the old path
+                ArtifactIO.EXECUTOR.flush(testDir.getAbsolutePath(), FLUSH_TIMEOUT);
                 boolean isRenamed = false;
                 int retry = 5;
                 while (!isRenamed && retry > 0) {
@@ -511,51 +512,25 @@ public class ReportContext {
         ;
     }
 
+    private static void removeEmailableReport() {
+        File reportFile = new File(String.format("%s/%s/%s", System.getProperty("user.dir"),
+                Configuration.get(Parameter.PROJECT_REPORT_DIRECTORY), SpecialKeywords.HTML_REPORT));
+        if (reportFile.exists()) {
+            reportFile.delete();
+        }
+    }
+
     /**
-     * Removes emailable html report and oldest screenshots directories according to history size defined in config.
+     * Removes oldest report directories according to history count and size defined in config. Directories are removed
+     * in the background, so the tests are not waiting for it.
      */
-    private static void removeOldReports() {
-        File baseDir = new File(String.format("%s/%s", System.getProperty("user.dir"),
-                Configuration.get(Parameter.PROJECT_REPORT_DIRECTORY)));
-
-        if (baseDir.exists()) {
-            // remove old emailable report
-            File reportFile = new File(String.format("%s/%s/%s", System.getProperty("user.dir"),
-                    Configuration.get(Parameter.PROJECT_REPORT_DIRECTORY), SpecialKeywords.HTML_REPORT));
-            if (reportFile.exists()) {
-                reportFile.delete();
-            }
-
-            List<File> files = FileManager.getFilesInDir(baseDir);
-            List<File> screenshotFolders = new ArrayList<File>();
-            for (File file : files) {
-                if (file.isDirectory() && !file.getName().startsWith(".")) {
-                    screenshotFolders.add(file);
-                }
-            }
-
-            int maxHistory = Configuration.getInt(Parameter.MAX_SCREENSHOOT_HISTORY);
-
-            if (maxHistory > 0 && screenshotFolders.size() + 1 > maxHistory) {
-                Comparator<File> comp = new Comparator<File>() {
-                    @Override
-                    public int compare(File file1, File file2) {
-                        return file2.getName().compareTo(file1.getName());
-                    }
-                };
-                Collections.sort(screenshotFolders, comp);
-                for (int i = maxHistory - 1; i < screenshotFolders.size(); i++) {
-                    if (screenshotFolders.get(i).getName().equals("gallery-lib")) {
-                        continue;
-                    }
-                    try {
-                        FileUtils.deleteDirectory(screenshotFolders.get(i));
-                    } catch (IOException e) {
-                        System.out.println((e + "\n" + e.getMessage()));
-                    }
-                }
-            }
-        }
+    private static void removeOldReports(File projectRoot) {
+        String maxHistory = Configuration.get(Parameter.MAX_SCREENSHOOT_HISTORY);
+        String maxHistorySize = Configuration.get(Parameter.MAX_REPORT_HISTORY_SIZE);
+        new ReportRetention(projectRoot,
+                maxHistory.isEmpty() ? 0 : Integer.parseInt(maxHistory.trim()),
+                maxHistorySize.isEmpty() ? 0 : Long.parseLong(maxHistorySize.trim()) * FileUtils.ONE_MB)
+                        .start(baseDirectory.getName());
     }
 
     public static void generateHtmlReport(String content) {
@@ -695,24 +670,66 @@ public class ReportContext {
     public static String saveScreenshot(BufferedImage screenshot) {
         long now = System.currentTimeMillis();
 
-        executor.execute(new ImageSaverTask(screenshot, String.format("%s/%d.png", getTestDir().getAbsolutePath(), now),
+        File testDir = getTestDir();
+        ArtifactIO.EXECUTOR.submit(testDir.getAbsolutePath(), new ImageSaverTask(screenshot, testDir, String.format("%d.png", now),
                 Configuration.getInt(Parameter.BIG_SCREEN_WIDTH), Configuration.getInt(Parameter.BIG_SCREEN_HEIGHT)));
 
         return String.format("%d.png", now);
     }
 
+    /**
+     * Writes screenshot into the test directory and adds it to the test gallery. Screenshot, thumbnail and gallery
+     * entry are written in the background.
+     *
+     * @param screenName file name of the screenshot in the test directory
+     * @param screenshot screenshot image
+     * @param comment screenshot comment, could be empty
+     */
+    public static void saveScreenshot(String screenName, BufferedImage screenshot, String comment) {
+        File testDir = getTestDir();
+        ArtifactIO.EXECUTOR.submit(testDir.getAbsolutePath(), () -> {
+            try {
+                ImageIO.write(screenshot, "PNG", new File(testDir, screenName));
+                GalleryManifest.add(testDir, screenName, screenshot, comment);
+            } catch (IOException e) {
+                LOGGER.error("Unable to save screenshot: " + e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Adds screenshot written into the test directory to the test gallery. Thumbnail and gallery entry are written in
+     * the background.
+     *
+     * @param screenName file name of the screenshot in the test directory
+     * @param screenshot screenshot image
+     * @param comment screenshot comment, could be empty
+     */
+    public static void addScreenshot(String screenName, BufferedImage screenshot, String comment) {
+        File testDir = getTestDir();
+        ArtifactIO.EXECUTOR.submit(testDir.getAbsolutePath(), () -> {
+            try {
+                GalleryManifest.add(testDir, screenName, screenshot, comment);
+            } catch (IOException e) {
+                LOGGER.error("Unable to add screenshot to the gallery: " + e.getMessage());
+            }
+        });
+    }
+
     /**
      * Asynchronous image saver task.
      */
     private static class ImageSaverTask implements Runnable {
         private BufferedImage image;
-        private String path;
+        private File testDir;
+        private String name;
         private Integer width;
         private Integer height;
 
-        public ImageSaverTask(BufferedImage image, String path, Integer width, Integer height) {
+        public ImageSaverTask(BufferedImage image, File testDir, String name, Integer width, Integer height) {
             this.image = image;
-            this.path = path;
+            this.testDir = testDir;
+            this.name = name;
             this.width = width;
             this.height = height;
         }
@@ -720,17 +737,18 @@ public class ReportContext {
         @Override
         public void run() {
             try {
+                File file = new File(testDir, name);
                 if (width > 0 && height > 0) {
                     BufferedImage resizedImage = Scalr.resize(image, Scalr.Method.BALANCED, Scalr.Mode.FIT_TO_WIDTH, width, height,
                             Scalr.OP_ANTIALIAS);
                     if (resizedImage.getHeight() > height) {
                         resizedImage = Scalr.crop(resizedImage, resizedImage.getWidth(), height);
                     }
-                    ImageIO.write(resizedImage, "PNG", new File(path));
+                    ImageIO.write(resizedImage, "PNG", file);
                 } else {
-                    ImageIO.write(image, "PNG", new File(path));
+                    ImageIO.write(image, "PNG", file);
                 }
-
+                GalleryManifest.add(testDir, name, image, "");
             } catch (Exception e) {
                 LOGGER.error("Unable to save screenshot: " + e.getMessage());
             }
@@ -757,40 +775,46 @@ public class ReportContext {
         }
     }
 
+    /**
+     * @return queue depth and latency of the screenshot writing
+     */
+    public static ArtifactExecutor.Metrics getArtifactMetrics() {
+        return ArtifactIO.EXECUTOR.getMetrics();
+    }
+
+    /**
+     * Screenshots are written by the bounded pool, so a failure storm doesn't start a thread per screenshot. The pool
+     * is created on first use, so ReportContext initialization by the log appender doesn't read the configuration.
+     */
+    private static final class ArtifactIO {
+        private static final ArtifactExecutor EXECUTOR = new ArtifactExecutor(getPositiveInt(Parameter.ARTIFACT_IO_THREADS, 4),
+                getPositiveInt(Parameter.ARTIFACT_IO_QUEUE_SIZE, 32));
+
+        private static int getPositiveInt(Parameter param, int defaultValue) {
+            String value = Configuration.get(param).trim();
+            try {
+                return value.isEmpty() || Integer.parseInt(value) <= 0 ? defaultValue : Integer.parseInt(value);
+            } catch (NumberFormatException e) {
+                return defaultValue;
+            }
+        }
+    }
+
     public static void generateTestReport() {
         File testDir = testDirectory.get();
+        if (testDir == null) {
+            return;
+        }
+        // all the screenshots of the test should be on disk before the report
+        ArtifactIO.EXECUTOR.flush(testDir.getAbsolutePath(), FLUSH_TIMEOUT);
         try {
-            List<File> images = FileManager.getFilesInDir(testDir);
-            List<String> imgNames = new ArrayList<String>();
-            for (File image : images) {
-                imgNames.add(image.getName());
-            }
-            imgNames.remove("test.log");
-            imgNames.remove("sql.log");
-            if (imgNames.size() == 0)
+            List<GalleryManifest.Entry> screenshots = GalleryManifest.read(testDir);
+            if (screenshots.isEmpty()) {
                 return;
-
-            Collections.sort(imgNames);
-
-            StringBuilder report = new StringBuilder();
-            for (int i = 0; i < imgNames.size(); i++) {
-                // convert toString
-                String image = R.REPORT.get("image");
-
-                image = image.replace("${image}", imgNames.get(i));
-
-                String title = getScreenshotComment(imgNames.get(i));
-                if (title == null) {
-                    title = "";
-                }
-                image = image.replace("${title}", StringUtils.substring(title, 0, MAX_IMAGE_TITLE));
-                report.append(image);
             }
-            // String wholeReport = R.REPORT.get("container").replace("${images}", report.toString());
-            String wholeReport = R.REPORT.get("container").replace("${images}", report.toString());
-            wholeReport = wholeReport.replace("${title}", TITLE);
-            String folder = testDir.getAbsolutePath();
-            FileManager.createFileWithContent(folder + REPORT_NAME, wholeReport);
+            String wholeReport = GalleryManifest.render(screenshots, R.REPORT.get("container"), R.REPORT.get("image"), TITLE,
+                    ReportContext::getScreenshotComment, MAX_IMAGE_TITLE);
+            FileManager.createFileWithContent(testDir.getAbsolutePath() + REPORT_NAME, wholeReport);
         } catch (Exception e) {
             LOGGER.error("generateTestReport failure", e);
         }
@@ -0,0 +1,202 @@
+/*******************************************************************************
+ * Copyright 2020-2022 Zebrunner Inc (https://www.zebrunner.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.core.foundation.report;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.invoke.MethodHandles;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.apache.commons.io.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Removes the oldest report directories when their count or total size exceeds the limits. Sizes of the directories
+ * are kept in the index file of the reports root, so only the directories of the new runs are measured instead of
+ * walking the whole history every time. The cleanup is done by a low priority background thread under the file lock,
+ * so parallel runs on the same agent don't remove the same directories.
+ */
+public class ReportRetention {
+    private static final Logger LOGGER = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+    static final String INDEX_FILE = ".retention.idx";
+    private static final String LOCK_FILE = ".retention.lock";
+    private static final String GALLERY_LIB = "gallery-lib";
+
+    private final File root;
+    private final int maxCount;
+    private final long maxSize;
+
+    /**
+     * @param root directory with the report directories
+     * @param maxCount max number of the report directories including the current one, 0 - no limit
+     * @param maxSize max size of the previous report directories in bytes, 0 - no limit
+     */
+    public ReportRetention(File root, int maxCount, long maxSize) {
+        this.root = root;
+        this.maxCount = maxCount;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Applies the limits in the background thread
+     *
+     * @param current name of the report directory of the current run, it is never removed
+     * @return future with the removed directories
+     */
+    public CompletableFuture<List<File>> start(String current) {
+        CompletableFuture<List<File>> future = new CompletableFuture<>();
+        if (maxCount <= 0 && maxSize <= 0) {
+            future.complete(List.of());
+            return future;
+        }
+        Thread thread = new Thread(() -> {
+            try {
+                future.complete(apply(current));
+            } catch (Throwable e) {
+                LOGGER.warn("Unable to remove old reports from " + root, e);
+                future.completeExceptionally(e);
+            }
+        }, "carina-report-retention");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        thread.start();
+        return future;
+    }
+
+    /**
+     * Applies the limits in the current thread. Nothing is done if the limits are applied by another process.
+     *
+     * @param current name of the report directory of the current run, it is never removed
+     * @return removed directories
+     * @throws IOException if index or lock file can't be accessed
+     */
+    public List<File> apply(String current) throws IOException {
+        if (!root.isDirectory()) {
+            return List.of();
+        }
+        try (FileChannel channel = FileChannel.open(new File(root, LOCK_FILE).toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE);
+                FileLock lock = channel.tryLock()) {
+            if (lock == null) {
+                LOGGER.debug("Old reports are already being removed by another process.");
+                return List.of();
+            }
+            return applyLocked(current);
+        }
+    }
+
+    private List<File> applyLocked(String current) throws IOException {
+        Properties index = readIndex();
+        // newest runs first as the directory names are timestamps
+        Set<String> names = new TreeSet<>(Comparator.reverseOrder());
+        File[] dirs = root.listFiles(file -> file.isDirectory() && !file.getName().startsWith(".")
+                && !GALLERY_LIB.equals(file.getName()) && !file.getName().equals(current));
+        if (dirs != null) {
+            Stream.of(dirs).map(File::getName).forEach(names::add);
+        }
+        // forget removed directories and measure the new ones
+        index.stringPropertyNames().stream()
+                .filter(name -> !names.contains(name))
+                .collect(Collectors.toList())
+                .forEach(index::remove);
+        for (String name : names) {
+            if (!index.containsKey(name)) {
+                index.setProperty(name, String.valueOf(sizeOf(new File(root, name).toPath())));
+            }
+        }
+
+        List<File> removed = new ArrayList<>();
+        int count = 1; // current run
+        long size = 0;
+        for (String name : names) {
+            long dirSize = Long.parseLong(index.getProperty(name));
+            boolean keep = (maxCount <= 0 || count < maxCount) && (maxSize <= 0 || size + dirSize <= maxSize);
+            if (keep) {
+                count++;
+                size += dirSize;
+                continue;
+            }
+            File dir = new File(root, name);
+            try {
+                FileUtils.deleteDirectory(dir);
+                index.remove(name);
+                removed.add(dir);
+            } catch (IOException e) {
+                LOGGER.warn("Unable to remove old report directory " + dir, e);
+            }
+        }
+        writeIndex(index);
+        if (!removed.isEmpty()) {
+            LOGGER.debug("{} old report directories are removed, {} are kept ({} bytes).", removed.size(), count - 1, size);
+        }
+        return removed;
+    }
+
+    private Properties readIndex() {
+        Properties index = new Properties();
+        File file = new File(root, INDEX_FILE);
+        if (file.exists()) {
+            try (InputStream is = Files.newInputStream(file.toPath())) {
+                index.load(is);
+            } catch (IOException | IllegalArgumentException e) {
+                // broken index is rebuilt by the next scan
+                LOGGER.debug("Unable to read report retention index " + file, e);
+                index.clear();
+            }
+        }
+        index.stringPropertyNames().stream()
+                .filter(name -> !index.getProperty(name).matches("\\d+"))
+                .collect(Collectors.toList())
+                .forEach(index::remove);
+        return index;
+    }
+
+    private void writeIndex(Properties index) throws IOException {
+        Path file = new File(root, INDEX_FILE).toPath();
+        Path tmp = new File(root, INDEX_FILE + ".tmp").toPath();
+        try (OutputStream os = Files.newOutputStream(tmp)) {
+            index.store(os, "size in bytes of report directories");
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static long sizeOf(Path dir) {
+        try (Stream<Path> files = Files.walk(dir)) {
+            return files.filter(Files::isRegularFile)
+                    .mapToLong(file -> file.toFile().length())
+                    .sum();
+        } catch (IOException | RuntimeException e) {
+            return 0;
+        }
+    }
+}
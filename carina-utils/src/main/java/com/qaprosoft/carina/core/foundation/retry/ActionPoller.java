@@ -5,19 +5,27 @@ import java.time.temporal.TemporalUnit;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
-import java.util.Timer;
-import java.util.TimerTask;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
 
-import com.qaprosoft.carina.core.foundation.utils.common.CommonUtils;
-
 public class ActionPoller<T> {
 
     private Duration timeout;
     private Duration pollingInterval;
+    private double backoffMultiplier;
+    private Duration maxPollingInterval;
+    private double jitter;
     private Supplier<T> task;
     private Predicate<T> successCondition;
     private final List<Consumer<T>> peekActions;
@@ -25,6 +33,8 @@ public class ActionPoller<T> {
     private ActionPoller() {
         this.timeout = Duration.ofSeconds(60);
         this.pollingInterval = Duration.ofSeconds(5);
+        this.backoffMultiplier = 1;
+        this.jitter = 0;
         this.peekActions = new ArrayList<>();
     }
 
@@ -36,11 +46,21 @@ public class ActionPoller<T> {
      * Sets the retry time of the task
      *
      * @param period   repetition interval
-     * @param timeUnit time unit
+     * @param timeUnit time unit, sub-second units like ChronoUnit.MILLIS are supported
      * @return ActionPoller object
      */
     public ActionPoller<T> pollEvery(long period, TemporalUnit timeUnit) {
-        this.pollingInterval = Duration.of(period, timeUnit);
+        return pollEvery(Duration.of(period, timeUnit));
+    }
+
+    /**
+     * Sets the retry time of the task
+     *
+     * @param pollingInterval repetition interval
+     * @return ActionPoller object
+     */
+    public ActionPoller<T> pollEvery(Duration pollingInterval) {
+        this.pollingInterval = pollingInterval;
         return this;
     }
 
@@ -52,7 +72,42 @@ public class ActionPoller<T> {
      * @return ActionPoller object
      */
     public ActionPoller<T> stopAfter(long timeout, TemporalUnit timeUnit) {
-        this.timeout = Duration.of(timeout, timeUnit);
+        return stopAfter(Duration.of(timeout, timeUnit));
+    }
+
+    /**
+     * Sets the timeout for the given task
+     *
+     * @param timeout timeout
+     * @return ActionPoller object
+     */
+    public ActionPoller<T> stopAfter(Duration timeout) {
+        this.timeout = timeout;
+        return this;
+    }
+
+    /**
+     * Enables exponential backoff: every next repetition interval is the previous one multiplied by the multiplier
+     *
+     * @param multiplier         interval multiplier, should be at least 1
+     * @param maxPollingInterval the upper bound of the repetition interval
+     * @return ActionPoller object
+     */
+    public ActionPoller<T> withBackoff(double multiplier, Duration maxPollingInterval) {
+        this.backoffMultiplier = multiplier;
+        this.maxPollingInterval = maxPollingInterval;
+        return this;
+    }
+
+    /**
+     * Randomizes every repetition interval by the given factor, e.g. 0.2 gives interval +/- 20%.
+     * Useful when a lot of pollers hit the same resource
+     *
+     * @param jitter randomization factor from 0 to 1
+     * @return ActionPoller object
+     */
+    public ActionPoller<T> withJitter(double jitter) {
+        this.jitter = jitter;
         return this;
     }
 
@@ -91,41 +146,140 @@ public class ActionPoller<T> {
     }
 
     /**
-     * Starts a task repetition with a condition. if the condition is met, then the method returns result, otherwise, if
-     * the time was elapsed, the method returns null
+     * Starts a task repetition with a condition in the current thread. if the condition is met, then the method returns
+     * result, otherwise, if the time was elapsed or the thread was interrupted, the method returns null
      *
      * @return result of the task method if condition successful, otherwise returns null
      */
     public Optional<T> execute() {
         validateParameters();
 
-        AtomicBoolean stopExecution = setupTerminateTask();
-        T result = null;
-        while (!stopExecution.get()) {
-            T tempResult = task.get();
-            peekActions.forEach(peekAction -> peekAction.accept(tempResult));
-            if (successCondition.test(tempResult)) {
-                result = tempResult;
-                break;
+        long deadline = System.nanoTime() + timeout.toNanos();
+        int attempt = 0;
+        while (true) {
+            T result = task.get();
+            if (isSuccessful(result)) {
+                return Optional.ofNullable(result);
+            }
+
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return Optional.empty();
+            }
+            try {
+                // never sleep past the deadline
+                TimeUnit.NANOSECONDS.sleep(Math.min(nextDelay(attempt++), remaining));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return Optional.empty();
+            }
+            if (deadline - System.nanoTime() <= 0) {
+                return Optional.empty();
+            }
+        }
+    }
+
+    /**
+     * Starts a task repetition with a condition in the shared poller threads without blocking the current thread.
+     * The future is completed with the result when the condition is met, with empty optional when the time was elapsed
+     * and exceptionally when the task fails. Cancel the future to stop the repetition.
+     *
+     * @return future of the result of the task method
+     */
+    public CompletableFuture<Optional<T>> executeAsync() {
+        return executeAsync(Runnable::run);
+    }
+
+    /**
+     * Starts a task repetition with a condition without blocking the current thread. The shared poller threads only
+     * schedule the attempts and the task itself is run by the given executor, so a blocking task doesn't hold them.
+     * Cancel the future to stop the repetition.
+     *
+     * @param taskExecutor executor of the task attempts
+     * @return future of the result of the task method
+     */
+    public CompletableFuture<Optional<T>> executeAsync(Executor taskExecutor) {
+        validateParameters();
+
+        CompletableFuture<Optional<T>> future = new CompletableFuture<>();
+        AtomicReference<ScheduledFuture<?>> scheduled = new AtomicReference<>();
+        future.whenComplete((result, e) -> {
+            ScheduledFuture<?> next = scheduled.get();
+            if (next != null) {
+                next.cancel(false);
+            }
+        });
+
+        long deadline = System.nanoTime() + timeout.toNanos();
+        scheduleAttempt(future, scheduled, taskExecutor, new AtomicInteger(), deadline, 0);
+        return future;
+    }
+
+    private void scheduleAttempt(CompletableFuture<Optional<T>> future, AtomicReference<ScheduledFuture<?>> scheduled,
+            Executor taskExecutor, AtomicInteger attempt, long deadline, long delay) {
+        scheduled.set(Scheduler.INSTANCE.schedule(() -> {
+            try {
+                taskExecutor.execute(() -> runAttempt(future, scheduled, taskExecutor, attempt, deadline));
+            } catch (RejectedExecutionException e) {
+                future.completeExceptionally(e);
+            }
+        }, delay, TimeUnit.NANOSECONDS));
+        if (future.isDone()) {
+            scheduled.get().cancel(false);
+        }
+    }
+
+    private void runAttempt(CompletableFuture<Optional<T>> future, AtomicReference<ScheduledFuture<?>> scheduled,
+            Executor taskExecutor, AtomicInteger attempt, long deadline) {
+        if (future.isDone()) {
+            return;
+        }
+        try {
+            T result = task.get();
+            if (isSuccessful(result)) {
+                future.complete(Optional.ofNullable(result));
+                return;
+            }
+        } catch (Throwable e) {
+            future.completeExceptionally(e);
+            return;
+        }
+
+        long remaining = deadline - System.nanoTime();
+        if (remaining <= 0) {
+            future.complete(Optional.empty());
+        } else if (!future.isDone()) {
+            long nextDelay = nextDelay(attempt.getAndIncrement());
+            if (nextDelay >= remaining) {
+                // the next attempt would start after the deadline
+                Scheduler.INSTANCE.schedule(() -> future.complete(Optional.empty()), remaining, TimeUnit.NANOSECONDS);
+            } else {
+                scheduleAttempt(future, scheduled, taskExecutor, attempt, deadline, nextDelay);
             }
-            CommonUtils.pause(pollingInterval.getSeconds());
         }
-        return Optional.ofNullable(result);
     }
 
-    private AtomicBoolean setupTerminateTask() {
-        AtomicBoolean stopExecution = new AtomicBoolean();
+    private boolean isSuccessful(T result) {
+        peekActions.forEach(peekAction -> peekAction.accept(result));
+        return successCondition.test(result);
+    }
 
-        Timer timer = new Timer();
-        timer.schedule(new TimerTask() {
-            @Override
-            public void run() {
-                stopExecution.set(true);
-                timer.cancel();
-                timer.purge();
+    /**
+     * @param attempt zero-based number of the failed attempt
+     * @return delay before the next attempt in nanoseconds
+     */
+    long nextDelay(int attempt) {
+        double delay = pollingInterval.toNanos();
+        if (backoffMultiplier > 1) {
+            delay *= Math.pow(backoffMultiplier, attempt);
+            if (maxPollingInterval != null) {
+                delay = Math.min(delay, maxPollingInterval.toNanos());
             }
-        }, timeout.toMillis());
-        return stopExecution;
+        }
+        if (jitter > 0) {
+            delay += delay * jitter * ThreadLocalRandom.current().nextDouble(-1, 1);
+        }
+        return (long) Math.min(delay, Long.MAX_VALUE);
     }
 
     private void validateParameters() {
@@ -144,9 +298,37 @@ public class ActionPoller<T> {
         if (timeout.isNegative() || pollingInterval.isNegative()) {
             throw new IllegalArgumentException("Timeout or polling interval can't be negative");
         }
+
+        if (backoffMultiplier < 1) {
+            throw new IllegalArgumentException("Backoff multiplier can't be less than 1");
+        }
+
+        if (jitter < 0 || jitter > 1) {
+            throw new IllegalArgumentException("Jitter should be in range [0, 1]");
+        }
     }
 
     public Predicate<T> getSuccessCondition() {
         return successCondition;
     }
+
+    /**
+     * Shared scheduler of all asynchronous pollers, so polling does not cost a new thread per poll
+     */
+    private static final class Scheduler {
+
+        private static final ScheduledExecutorService INSTANCE = create();
+
+        private static ScheduledExecutorService create() {
+            AtomicInteger threadNumber = new AtomicInteger();
+            ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(Math.max(2, Runtime.getRuntime().availableProcessors()),
+                    runnable -> {
+                        Thread thread = new Thread(runnable, "action-poller-" + threadNumber.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+            executor.setRemoveOnCancelPolicy(true);
+            return executor;
+        }
+    }
 }
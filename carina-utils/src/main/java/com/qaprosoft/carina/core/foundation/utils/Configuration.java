@@ -89,6 +89,10 @@ public class Configuration {
 
         BROWSERUP_PORTS_RANGE("browserup_ports_range"),
 
+        BROWSERUP_POOL_SIZE("browserup_pool_size"),
+
+        BROWSERUP_HAR_BODY_LIMIT("browserup_har_body_limit"),
+
         BROWSERUP_MITM("browserup_disabled_mitm"),
 
         PROXY_SET_TO_SYSTEM("proxy_set_to_system"),
@@ -115,6 +119,12 @@ public class Configuration {
 
         MAX_SCREENSHOOT_HISTORY("max_screen_history"),
 
+        MAX_REPORT_HISTORY_SIZE("max_report_history_size"),
+
+        ARTIFACT_IO_THREADS("artifact_io_threads"),
+
+        ARTIFACT_IO_QUEUE_SIZE("artifact_io_queue_size"),
+
         BIG_SCREEN_WIDTH("big_screen_width"),
 
         BIG_SCREEN_HEIGHT("big_screen_height"),
@@ -131,6 +141,8 @@ public class Configuration {
 
         DATA_PROVIDER_THREAD_COUNT("data_provider_thread_count"),
 
+        STARTUP_TIMEOUT("startup_timeout"),
+
         CORE_LOG_LEVEL("core_log_level"),
 
         LOG_ALL_JSON("log_all_json"),
@@ -176,11 +188,23 @@ public class Configuration {
         // AppCenter token
         APPCENTER_TOKEN("appcenter_token"),
 
+        // Local cache of downloaded builds
+        ARTIFACT_CACHE_DIR("artifact_cache_dir"),
+
+        ARTIFACT_CACHE_MAX_SIZE("artifact_cache_max_size"),
+
         // For localization parser
         LOCALIZATION_ENCODING("localization_encoding"),
 
         LOCALIZATION_TESTING("localization_testing"),
 
+        // Parsed xlsx/csv data sources
+        DATA_SOURCE_CACHE_DIR("data_source_cache_dir"),
+
+        DATA_PROVIDER_SHARD_INDEX("data_provider_shard_index"),
+
+        DATA_PROVIDER_SHARD_COUNT("data_provider_shard_count"),
+
         // TLS
         TLS_KEYSECURE_LOCATION("tls_keysecure_location"),
 
@@ -193,6 +217,9 @@ public class Configuration {
 
         DEFAULT_DEVICE_LANGUAGE("default_device_language"),
 
+        // host:port of the adb server, adb process is started for every command if empty
+        ADB_SERVER("adb_server"),
+
         // Ignore SSL
         IGNORE_SSL("ignore_ssl"),
 
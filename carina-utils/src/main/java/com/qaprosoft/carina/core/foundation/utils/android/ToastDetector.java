@@ -17,21 +17,22 @@ package com.qaprosoft.carina.core.foundation.utils.android;
 
 import java.lang.invoke.MethodHandles;
 import java.time.Duration;
-import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import org.openqa.selenium.By;
 import org.openqa.selenium.WebDriver;
-import org.openqa.selenium.support.ui.FluentWait;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.qaprosoft.carina.core.foundation.retry.ActionPoller;
+
 public class ToastDetector implements Runnable {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
 
     private static final String TOAST_PATTERN = "//*[@text='%s']";
 
-    private boolean isPresent = false;
+    private volatile boolean isPresent = false;
 
     private int waitTimeout = 20;
 
@@ -68,27 +69,38 @@ public class ToastDetector implements Runnable {
     }
 
     private void waitForToast() {
+        try {
+            findAsync().join();
+        } catch (Exception e) {
+            LOGGER.debug("Toast waiting failed", e);
+        }
+    }
+
+    /**
+     * Starts toast finding in the shared poller threads
+     *
+     * @return future completed with true as soon as the toast is present or with false when wait timeout elapsed
+     */
+    public CompletableFuture<Boolean> findAsync() {
         LOGGER.info("Wait for toast...");
         isPresent = false;
-        FluentWait<WebDriver> fluentWait = new FluentWait<>(webDriver);
-        fluentWait.withTimeout(Duration.ofSeconds(waitTimeout)).pollingEvery(Duration.ofMillis(300)).until(input -> {
-            List<?> webElemenList = webDriver.findElements(By.xpath(String.format(TOAST_PATTERN, toastToWait)));
-            if (webElemenList.size() == 1) {
-                LOGGER.info("Toast with text present: " + toastToWait);
-                isPresent = true;
-                return true;
-            } else {
-                return false;
-            }
-        });
+        return ActionPoller.<Boolean> builder()
+                .task(() -> webDriver.findElements(By.xpath(String.format(TOAST_PATTERN, toastToWait))).size() == 1)
+                .until(found -> found)
+                .pollEvery(Duration.ofMillis(300))
+                .stopAfter(Duration.ofSeconds(waitTimeout))
+                .executeAsync()
+                .thenApply(found -> {
+                    isPresent = found.isPresent();
+                    if (isPresent) {
+                        LOGGER.info("Toast with text present: " + toastToWait);
+                    }
+                    return isPresent;
+                });
     }
 
     public void startFinding() {
-        Thread thread = new Thread(this);
-        try {
-            thread.start();
-        } catch (Exception ignored) {
-
-        }
+        // no thread is needed as the toast is polled by the shared poller threads
+        findAsync();
     }
 }
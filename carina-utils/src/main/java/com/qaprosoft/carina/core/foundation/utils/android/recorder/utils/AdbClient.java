@@ -0,0 +1,484 @@
+/*******************************************************************************
+ * Copyright 2020-2022 Zebrunner Inc (https://www.zebrunner.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.core.foundation.utils.android.recorder.utils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.invoke.MethodHandles;
+import java.net.ConnectException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.qaprosoft.carina.core.foundation.utils.Configuration;
+import com.qaprosoft.carina.core.foundation.utils.Configuration.Parameter;
+
+/**
+ * Client of the adb server socket protocol, so adb commands are sent to the running adb server directly
+ * instead of starting a new adb process for every command.
+ * Every request is sent over a new connection as the adb server closes host service connections after the reply.
+ */
+public class AdbClient {
+    private static final Logger LOGGER = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+    public static final String DEFAULT_HOST = "localhost";
+    public static final int DEFAULT_PORT = 5037;
+
+    // do not try to connect to not running adb server on every command
+    private static final long UNAVAILABLE_RETRY_INTERVAL = TimeUnit.SECONDS.toMillis(30);
+
+    private static final int SHELL_V2_STDOUT = 1;
+    private static final int SHELL_V2_STDERR = 2;
+    private static final int SHELL_V2_EXIT = 3;
+
+    // client is created once per adb_server value, so its availability state is kept between the calls
+    private static volatile DefaultClient defaultClient;
+
+    private static final class DefaultClient {
+        private final String server;
+        private final AdbClient client;
+
+        private DefaultClient(String server, AdbClient client) {
+            this.server = server;
+            this.client = client;
+        }
+    }
+
+    private final String host;
+    private final int port;
+    private final int timeout;
+    private volatile long unavailableUntil;
+
+    /**
+     * @param host    adb server host
+     * @param port    adb server port
+     * @param timeout connect and command timeout in milliseconds
+     */
+    public AdbClient(String host, int port, int timeout) {
+        this.host = host;
+        this.port = port;
+        this.timeout = timeout;
+    }
+
+    /**
+     * Get client of the adb server from the adb_server parameter
+     *
+     * @return client or null if the adb_server parameter is empty
+     */
+    public static AdbClient getDefault() {
+        String server = Configuration.get(Parameter.ADB_SERVER);
+        if (StringUtils.isBlank(server)) {
+            return null;
+        }
+        DefaultClient current = defaultClient;
+        if (current == null || !server.equals(current.server)) {
+            synchronized (AdbClient.class) {
+                current = defaultClient;
+                if (current == null || !server.equals(current.server)) {
+                    AdbClient client = null;
+                    try {
+                        client = parse(server, Configuration.getAdbExecTimeout());
+                    } catch (IllegalArgumentException e) {
+                        LOGGER.warn("adb server is not used: {}", e.getMessage());
+                    }
+                    current = new DefaultClient(server, client);
+                    defaultClient = current;
+                }
+            }
+        }
+        return current.client;
+    }
+
+    /**
+     * @param server  adb server address in host:port format, host or port may be omitted
+     * @param timeout connect and command timeout in milliseconds
+     * @return client of the adb server
+     * @throws IllegalArgumentException if the port is not a valid port number
+     */
+    static AdbClient parse(String server, int timeout) {
+        String address = server.trim();
+        String host = address.contains(":") ? StringUtils.substringBeforeLast(address, ":") : address;
+        String port = address.contains(":") ? StringUtils.substringAfterLast(address, ":") : "";
+        int portNumber = DEFAULT_PORT;
+        if (!port.isEmpty()) {
+            try {
+                portNumber = Integer.parseInt(port);
+            } catch (NumberFormatException e) {
+                portNumber = -1;
+            }
+            if (portNumber < 1 || portNumber > 65535) {
+                throw new IllegalArgumentException("Invalid port in adb_server value: " + server);
+            }
+        }
+        return new AdbClient(host.isEmpty() ? DEFAULT_HOST : host, portNumber, timeout);
+    }
+
+    public String getAddress() {
+        return host + ":" + port;
+    }
+
+    /**
+     * @return false if the last attempt to connect to the adb server failed recently
+     */
+    public boolean isAvailable() {
+        return System.currentTimeMillis() >= unavailableUntil;
+    }
+
+    /**
+     * Get version of the adb server protocol
+     *
+     * @return version, e.g. 0029
+     * @throws IOException when adb server is not available or request failed
+     */
+    public String version() throws IOException {
+        return query("host:version");
+    }
+
+    /**
+     * Get devices known by the adb server
+     *
+     * @return lines in "serial\tstate" format, the same as "adb devices" prints
+     * @throws IOException when adb server is not available or request failed
+     */
+    public List<String> devices() throws IOException {
+        return toLines(query("host:devices"));
+    }
+
+    /**
+     * Connect device over TCP/IP
+     *
+     * @param address host:port of the device
+     * @return adb server message, e.g. "connected to host:port"
+     * @throws IOException when adb server is not available or request failed
+     */
+    public String connect(String address) throws IOException {
+        return query("host:connect:" + address);
+    }
+
+    /**
+     * Disconnect device connected over TCP/IP
+     *
+     * @param address host:port of the device
+     * @return adb server message
+     * @throws IOException when adb server is not available or request failed
+     */
+    public String disconnect(String address) throws IOException {
+        return query("host:disconnect:" + address);
+    }
+
+    /**
+     * Execute shell command on the device and collect its stdout
+     *
+     * @param serial  device serial, any single device is used if null
+     * @param command shell command
+     * @return stdout lines
+     * @throws IOException when adb server is not available, request failed or timeout elapsed
+     */
+    public List<String> shell(String serial, String command) throws IOException {
+        List<String> output = new ArrayList<>();
+        shell(serial, command, output::add, line -> LOGGER.debug("stderr: {}", line));
+        return output;
+    }
+
+    /**
+     * Execute shell command on the device streaming its output line by line.
+     * Shell protocol v2 is used to separate stdout from stderr, devices without its support send everything to stdout.
+     *
+     * @param serial  device serial, any single device is used if null
+     * @param command shell command
+     * @param stdout  consumer of stdout lines
+     * @param stderr  consumer of stderr lines
+     * @return exit code of the command or -1 if device does not report it
+     * @throws IOException when adb server is not available, request failed or timeout elapsed
+     */
+    public int shell(String serial, String command, Consumer<String> stdout, Consumer<String> stderr) throws IOException {
+        long deadline = System.currentTimeMillis() + timeout;
+        try (Socket socket = openTransport(serial)) {
+            send(socket, "shell,v2,raw:" + command);
+            if (readStatus(socket) == null) {
+                return readShellV2(socket, deadline, stdout, stderr);
+            }
+        }
+        LOGGER.debug("Shell protocol v2 is not supported by the device, legacy shell is used");
+        try (Socket socket = openTransport(serial)) {
+            send(socket, "shell:" + command);
+            checkStatus(socket);
+            LineSplitter lines = new LineSplitter(stdout);
+            InputStream in = socket.getInputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = read(in, buffer, deadline)) != -1) {
+                lines.write(buffer, 0, read);
+            }
+            lines.flush();
+            return -1;
+        }
+    }
+
+    /**
+     * Start long-running shell command, e.g. logcat, and return the connection its output is streamed to.
+     * Read timeout is disabled for the connection, close it to stop the command.
+     *
+     * @param serial  device serial, any single device is used if null
+     * @param command shell command
+     * @return socket that should be closed by the caller
+     * @throws IOException when adb server is not available or request failed
+     */
+    public Socket openShell(String serial, String command) throws IOException {
+        Socket socket = openTransport(serial);
+        try {
+            send(socket, "shell:" + command);
+            checkStatus(socket);
+            socket.setSoTimeout(0);
+            return socket;
+        } catch (IOException e) {
+            socket.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Open connection to the device transport, so it is possible to send device service requests over it
+     *
+     * @param serial device serial, any single device is used if null
+     * @return socket that should be closed by the caller
+     * @throws IOException when adb server is not available or device is not found
+     */
+    public Socket openTransport(String serial) throws IOException {
+        Socket socket = open();
+        try {
+            send(socket, serial == null ? "host:transport-any" : "host:transport:" + serial);
+            checkStatus(socket);
+            return socket;
+        } catch (IOException e) {
+            socket.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Send host service request and read its length-prefixed reply
+     *
+     * @param request host service request, e.g. host:devices
+     * @return reply of the adb server
+     * @throws IOException when adb server is not available or request failed
+     */
+    public String query(String request) throws IOException {
+        try (Socket socket = open()) {
+            send(socket, request);
+            checkStatus(socket);
+            return readString(new DataInputStream(socket.getInputStream()));
+        }
+    }
+
+    /**
+     * Open connection to the adb server
+     *
+     * @return socket that should be closed by the caller
+     * @throws IOException when adb server is not available
+     */
+    public Socket open() throws IOException {
+        Socket socket = new Socket();
+        try {
+            socket.connect(new InetSocketAddress(host, port), timeout);
+            socket.setSoTimeout(timeout);
+            socket.setTcpNoDelay(true);
+            return socket;
+        } catch (ConnectException e) {
+            socket.close();
+            unavailableUntil = System.currentTimeMillis() + UNAVAILABLE_RETRY_INTERVAL;
+            throw e;
+        } catch (IOException e) {
+            socket.close();
+            throw e;
+        }
+    }
+
+    static void send(Socket socket, String request) throws IOException {
+        byte[] payload = request.getBytes(StandardCharsets.UTF_8);
+        OutputStream out = socket.getOutputStream();
+        out.write(String.format("%04x", payload.length).getBytes(StandardCharsets.US_ASCII));
+        out.write(payload);
+        out.flush();
+    }
+
+    static void checkStatus(Socket socket) throws IOException {
+        String failure = readStatus(socket);
+        if (failure != null) {
+            throw new FailException(failure);
+        }
+    }
+
+    /**
+     * @return null for OKAY, failure message for FAIL
+     */
+    static String readStatus(Socket socket) throws IOException {
+        DataInputStream in = new DataInputStream(socket.getInputStream());
+        byte[] status = new byte[4];
+        in.readFully(status);
+        String value = new String(status, StandardCharsets.US_ASCII);
+        if ("OKAY".equals(value)) {
+            return null;
+        }
+        if ("FAIL".equals(value)) {
+            try {
+                return readString(in);
+            } catch (EOFException e) {
+                return "unknown failure";
+            }
+        }
+        throw new IOException("Unexpected adb server response: " + value);
+    }
+
+    static String readString(DataInputStream in) throws IOException {
+        byte[] length = new byte[4];
+        in.readFully(length);
+        byte[] value = new byte[Integer.parseInt(new String(length, StandardCharsets.US_ASCII), 16)];
+        in.readFully(value);
+        return new String(value, StandardCharsets.UTF_8);
+    }
+
+    private int readShellV2(Socket socket, long deadline, Consumer<String> stdout, Consumer<String> stderr) throws IOException {
+        DataInputStream in = new DataInputStream(socket.getInputStream());
+        LineSplitter out = new LineSplitter(stdout);
+        LineSplitter err = new LineSplitter(stderr);
+        byte[] header = new byte[5];
+        byte[] buffer = new byte[8192];
+        try {
+            while (true) {
+                if (read(in, header, 0, 1, deadline) == -1) {
+                    // connection closed without exit packet
+                    return -1;
+                }
+                in.readFully(header, 1, 4);
+                int id = header[0];
+                int length = (header[1] & 0xff) | (header[2] & 0xff) << 8 | (header[3] & 0xff) << 16 | (header[4] & 0xff) << 24;
+                if (id == SHELL_V2_EXIT) {
+                    byte[] exit = new byte[length];
+                    in.readFully(exit);
+                    return length > 0 ? exit[0] & 0xff : -1;
+                }
+                while (length > 0) {
+                    int read = read(in, buffer, 0, Math.min(length, buffer.length), deadline);
+                    if (read == -1) {
+                        throw new EOFException("Shell output is truncated");
+                    }
+                    if (id == SHELL_V2_STDOUT) {
+                        out.write(buffer, 0, read);
+                    } else if (id == SHELL_V2_STDERR) {
+                        err.write(buffer, 0, read);
+                    }
+                    length -= read;
+                }
+            }
+        } finally {
+            out.flush();
+            err.flush();
+        }
+    }
+
+    private int read(InputStream in, byte[] buffer, long deadline) throws IOException {
+        return read(in, buffer, 0, buffer.length, deadline);
+    }
+
+    private int read(InputStream in, byte[] buffer, int offset, int length, long deadline) throws IOException {
+        if (System.currentTimeMillis() > deadline) {
+            throw new SocketTimeoutException("Waiting time elapsed before the adb command has finished");
+        }
+        return in.read(buffer, offset, length);
+    }
+
+    private static List<String> toLines(String value) {
+        List<String> lines = new ArrayList<>();
+        for (String line : value.split("\n")) {
+            line = StringUtils.removeEnd(line, "\r");
+            if (!line.isEmpty()) {
+                lines.add(line);
+            }
+        }
+        return lines;
+    }
+
+    /**
+     * Request rejected by the adb server or device, e.g. because of unknown device
+     */
+    public static class FailException extends IOException {
+
+        private static final long serialVersionUID = 2795384628271405307L;
+
+        public FailException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * Splits byte stream to UTF-8 lines
+     */
+    private static final class LineSplitter {
+        private final Consumer<String> consumer;
+        private final ByteArrayOutputStream line = new ByteArrayOutputStream();
+
+        private LineSplitter(Consumer<String> consumer) {
+            this.consumer = consumer;
+        }
+
+        private void write(byte[] buffer, int offset, int length) {
+            int start = offset;
+            for (int i = offset; i < offset + length; i++) {
+                if (buffer[i] == '\n') {
+                    line.write(buffer, start, i - start);
+                    emit();
+                    start = i + 1;
+                }
+            }
+            line.write(buffer, start, offset + length - start);
+        }
+
+        private void emit() {
+            byte[] bytes = line.toByteArray();
+            int length = bytes.length;
+            if (length > 0 && bytes[length - 1] == '\r') {
+                length--;
+            }
+            consumer.accept(new String(bytes, 0, length, StandardCharsets.UTF_8));
+            line.reset();
+        }
+
+        private void flush() {
+            if (line.size() > 0) {
+                emit();
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "AdbClient{" + getAddress() + "}";
+    }
+}
@@ -0,0 +1,283 @@
+/*******************************************************************************
+ * Copyright 2020-2022 Zebrunner Inc (https://www.zebrunner.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.core.foundation.utils.android.recorder.utils;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.net.Socket;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps states of the devices known by the adb server up to date using single long-living host:track-devices
+ * connection, so device state checks do not cost an adb command and listeners are notified about connected and
+ * disconnected devices as soon as the adb server detects it.
+ */
+public class AdbDeviceTracker {
+    private static final Logger LOGGER = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+    public static final String DEVICE_STATE = "device";
+
+    private static final long RECONNECT_INTERVAL = TimeUnit.SECONDS.toMillis(5);
+    private static final long FIRST_UPDATE_TIMEOUT = TimeUnit.SECONDS.toMillis(1);
+
+    private static volatile AdbDeviceTracker defaultTracker;
+
+    /**
+     * Listener of the device state changes
+     */
+    public interface Listener {
+
+        /**
+         * @param serial   device serial
+         * @param oldState previous state, null if device was not known
+         * @param newState current state, e.g. device, offline, unauthorized, null if device is gone
+         */
+        void onStateChanged(String serial, String oldState, String newState);
+    }
+
+    private final AdbClient client;
+    private final CopyOnWriteArrayList<Listener> listeners = new CopyOnWriteArrayList<>();
+    private final Object updateLock = new Object();
+    private volatile Map<String, String> states = Collections.emptyMap();
+    private volatile boolean tracking;
+    private volatile boolean stopped;
+    private volatile Socket socket;
+    private Thread thread;
+
+    public AdbDeviceTracker(AdbClient client) {
+        this.client = client;
+    }
+
+    /**
+     * Get started tracker of the default adb server
+     *
+     * @return tracker or null if adb server is disabled by the adb_server parameter
+     */
+    public static AdbDeviceTracker getDefault() {
+        AdbClient client = AdbClient.getDefault();
+        if (client == null) {
+            return null;
+        }
+        AdbDeviceTracker tracker = defaultTracker;
+        if (tracker == null || tracker.client != client) {
+            synchronized (AdbDeviceTracker.class) {
+                tracker = defaultTracker;
+                if (tracker == null || tracker.client != client) {
+                    if (tracker != null) {
+                        tracker.stop();
+                    }
+                    tracker = new AdbDeviceTracker(client);
+                    tracker.start();
+                    // let the first call be served from the tracker when adb server is running
+                    tracker.awaitTracking(FIRST_UPDATE_TIMEOUT);
+                    defaultTracker = tracker;
+                }
+            }
+        }
+        return tracker;
+    }
+
+    public synchronized void start() {
+        if (thread != null) {
+            return;
+        }
+        stopped = false;
+        thread = new Thread(this::trackLoop, "adb-device-tracker");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public synchronized void stop() {
+        stopped = true;
+        AdbExecutor.closeQuietly(socket);
+        if (thread != null) {
+            thread.interrupt();
+            thread = null;
+        }
+        tracking = false;
+    }
+
+    /**
+     * @return true if the tracker is connected to the adb server and has received the device list
+     */
+    public boolean isTracking() {
+        return tracking;
+    }
+
+    /**
+     * @return serial to state map of the known devices
+     */
+    public Map<String, String> getStates() {
+        return states;
+    }
+
+    public Optional<String> getState(String serial) {
+        return Optional.ofNullable(states.get(serial));
+    }
+
+    /**
+     * @param serial device serial
+     * @return true if device is in "device" state, i.e. ready for adb commands
+     */
+    public boolean isConnected(String serial) {
+        return DEVICE_STATE.equals(states.get(serial));
+    }
+
+    public void addListener(Listener listener) {
+        listeners.addIfAbsent(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Wait until the device gets the state
+     *
+     * @param serial  device serial
+     * @param state   expected state, null to wait for the device to be gone
+     * @param timeout timeout in milliseconds
+     * @return true if the device has the state
+     */
+    public boolean awaitState(String serial, String state, long timeout) {
+        return await(() -> Objects.equals(states.get(serial), state), timeout);
+    }
+
+    /**
+     * Wait until the first device list is received from the adb server
+     *
+     * @param timeout timeout in milliseconds
+     * @return true if tracking
+     */
+    public boolean awaitTracking(long timeout) {
+        return await(() -> tracking, timeout);
+    }
+
+    private boolean await(BooleanSupplier condition, long timeout) {
+        long deadline = System.currentTimeMillis() + timeout;
+        synchronized (updateLock) {
+            while (!condition.getAsBoolean()) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    return false;
+                }
+                try {
+                    updateLock.wait(remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private void trackLoop() {
+        while (!stopped) {
+            try {
+                track();
+            } catch (IOException e) {
+                if (!stopped) {
+                    LOGGER.debug("Device tracking by adb server {} is interrupted: {}", client, e.getMessage());
+                }
+            } finally {
+                tracking = false;
+            }
+            if (stopped) {
+                return;
+            }
+            try {
+                Thread.sleep(RECONNECT_INTERVAL);
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    private void track() throws IOException {
+        try (Socket trackingSocket = client.open()) {
+            socket = trackingSocket;
+            // updates come only when something changes
+            trackingSocket.setSoTimeout(0);
+            trackingSocket.setKeepAlive(true);
+            AdbClient.send(trackingSocket, "host:track-devices");
+            AdbClient.checkStatus(trackingSocket);
+            LOGGER.debug("Tracking devices of the adb server {}", client);
+            DataInputStream in = new DataInputStream(trackingSocket.getInputStream());
+            while (!stopped) {
+                update(parse(AdbClient.readString(in)));
+            }
+        } finally {
+            socket = null;
+        }
+    }
+
+    private static Map<String, String> parse(String devices) {
+        Map<String, String> parsed = new HashMap<>();
+        for (String line : devices.split("\n")) {
+            String serial = StringUtils.substringBefore(line, "\t").trim();
+            if (!serial.isEmpty()) {
+                parsed.put(serial, StringUtils.substringAfter(line, "\t").trim());
+            }
+        }
+        return parsed;
+    }
+
+    private void update(Map<String, String> current) {
+        Map<String, String> previous = states;
+        states = Collections.unmodifiableMap(current);
+        current.forEach((serial, state) -> {
+            String oldState = previous.get(serial);
+            if (!state.equals(oldState)) {
+                notifyListeners(serial, oldState, state);
+            }
+        });
+        previous.forEach((serial, state) -> {
+            if (!current.containsKey(serial)) {
+                notifyListeners(serial, state, null);
+            }
+        });
+        // waiters are released after listeners, so they observe the events of the update
+        synchronized (updateLock) {
+            tracking = true;
+            updateLock.notifyAll();
+        }
+    }
+
+    private void notifyListeners(String serial, String oldState, String newState) {
+        LOGGER.debug("Device '{}' state changed: {} -> {}", serial, oldState, newState);
+        for (Listener listener : listeners) {
+            try {
+                listener.onStateChanged(serial, oldState, newState);
+            } catch (Exception e) {
+                LOGGER.warn("Device state listener failed", e);
+            }
+        }
+    }
+}
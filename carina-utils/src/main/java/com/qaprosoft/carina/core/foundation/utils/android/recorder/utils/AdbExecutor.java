@@ -17,13 +17,19 @@ package com.qaprosoft.carina.core.foundation.utils.android.recorder.utils;
 
 import java.io.BufferedReader;
 import java.io.Closeable;
+import java.io.IOException;
 import java.io.InputStreamReader;
 import java.lang.invoke.MethodHandles;
+import java.net.SocketTimeoutException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
 
+import org.apache.commons.io.FilenameUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -54,18 +60,110 @@ public class AdbExecutor {
         return cmdInit;
     }
 
+    /**
+     * Execute adb command. Commands supported by {@link AdbClient} (devices, connect, disconnect and shell) are sent
+     * to the adb server directly, others or all when adb server is not available are executed by a new process
+     *
+     * @param cmd command line
+     * @return stdout lines
+     */
     public List<String> execute(String[] cmd) {
+        AdbClient client = AdbClient.getDefault();
+        if (client != null && client.isAvailable()) {
+            try {
+                List<String> output = execute(client, cmd);
+                if (output != null) {
+                    output.forEach(LOGGER::debug);
+                    return output;
+                }
+            } catch (AdbClient.FailException e) {
+                // the same as adb process reports error to stderr
+                LOGGER.debug("adb command failed: {}", e.getMessage());
+                return new ArrayList<>();
+            } catch (SocketTimeoutException e) {
+                throw new RuntimeException(e.getMessage(), e);
+            } catch (IOException e) {
+                LOGGER.debug("Unable to execute command by adb server {}, new process will be started: {}", client, e.getMessage());
+            }
+        }
+        return executeProcess(cmd);
+    }
+
+    /**
+     * @return output or null if command is not supported by the client
+     */
+    List<String> execute(AdbClient client, String[] cmd) throws IOException {
+        if (cmd.length < 2 || !"adb".equals(FilenameUtils.getBaseName(cmd[0]))) {
+            return null;
+        }
+        String serial = null;
+        int i = 1;
+        while (i < cmd.length && cmd[i].startsWith("-")) {
+            if (!"-s".equals(cmd[i]) || i + 1 == cmd.length) {
+                // other global options are not supported
+                return null;
+            }
+            serial = cmd[i + 1];
+            i += 2;
+        }
+        if (i == cmd.length) {
+            return null;
+        }
+        String command = cmd[i];
+        String[] args = Arrays.copyOfRange(cmd, i + 1, cmd.length);
+        List<String> output = new ArrayList<>();
+        switch (command) {
+        case "devices":
+            if (args.length > 0) {
+                return null;
+            }
+            // the same format as "adb devices" prints
+            output.add("List of devices attached");
+            output.addAll(client.devices());
+            output.add("");
+            return output;
+        case "connect":
+            if (args.length != 1) {
+                return null;
+            }
+            output.add(client.connect(args[0]));
+            return output;
+        case "disconnect":
+            if (args.length != 1) {
+                return null;
+            }
+            output.add(client.disconnect(args[0]));
+            return output;
+        case "shell":
+            if (args.length == 0) {
+                // interactive shell
+                return null;
+            }
+            return client.shell(serial, String.join(" ", args));
+        default:
+            return null;
+        }
+    }
+
+    private List<String> executeProcess(String[] cmd) {
         ProcessBuilderExecutor executor = null;
         BufferedReader in = null;
         List<String> output = new ArrayList<String>();
 
         try {
             executor = new ProcessBuilderExecutor(cmd);
+            // stderr is not read, so do not let it fill the pipe
+            executor.redirectError(ProcessBuilder.Redirect.DISCARD);
 
             Process process = executor.start();
-            if (!process.waitFor(Configuration.getAdbExecTimeout(), TimeUnit.MILLISECONDS)) {
-                throw new TimeoutException("Waiting time elapsed before the adb execution command has exited");
-            }
+            // stdout is read before waiting for the process, otherwise it hangs on big output
+            AtomicBoolean timedOut = new AtomicBoolean();
+            CompletableFuture.delayedExecutor(Configuration.getAdbExecTimeout(), TimeUnit.MILLISECONDS).execute(() -> {
+                if (process.isAlive()) {
+                    timedOut.set(true);
+                    process.destroyForcibly();
+                }
+            });
             in = new BufferedReader(new InputStreamReader(process.getInputStream()));
             String line = null;
 
@@ -73,6 +171,10 @@ public class AdbExecutor {
                 output.add(line);
                 LOGGER.debug(line);
             }
+            process.waitFor();
+            if (timedOut.get()) {
+                throw new TimeoutException("Waiting time elapsed before the adb execution command has exited");
+            }
         } catch (Exception e) {
             throw new RuntimeException(e.getMessage(), e);
         } finally {
@@ -70,6 +70,15 @@ public class ProcessBuilderExecutor {
         return getProcessBuilder().environment();
     }
 
+    /**
+     * Set destination of the process stderr, e.g. Redirect.DISCARD when it is not read
+     *
+     * @param redirect stderr destination
+     */
+    public void redirectError(ProcessBuilder.Redirect redirect) {
+        getProcessBuilder().redirectError(redirect);
+    }
+
     public int getPID() throws ExecutorException {
         if (!alreadyPerformed) {
             throw new ExecutorException("Process not started yet.");
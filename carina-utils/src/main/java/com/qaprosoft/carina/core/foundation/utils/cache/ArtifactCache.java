@@ -0,0 +1,308 @@
+/*******************************************************************************
+ * Copyright 2020-2022 Zebrunner Inc (https://www.zebrunner.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.core.foundation.utils.cache;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+import org.apache.commons.io.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.qaprosoft.carina.core.foundation.utils.Configuration;
+import com.qaprosoft.carina.core.foundation.utils.Configuration.Parameter;
+
+/**
+ * Local cache of downloaded artifacts (application builds etc.) shared by all the processes of the host.
+ * Artifacts are stored by the key that should identify the content, e.g. storage path with ETag or checksum, so a new
+ * build is never taken from the cache by mistake. Every entry is downloaded under a file lock into the &lt;file&gt;.part
+ * file and renamed into place, so parallel forks download it once and never see a partial file. The part of a failed
+ * download is kept, so a resumable downloader continues it on the next call. The least recently used entries are
+ * removed when the cache exceeds the size limit.
+ */
+public class ArtifactCache {
+    private static final Logger LOGGER = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+    private static final String LOCK_SUFFIX = ".lock";
+    private static final String PART_SUFFIX = ".part";
+    private static final String EVICTION_LOCK = "eviction" + LOCK_SUFFIX;
+    private static volatile ArtifactCache defaultCache;
+
+    // FileLock is held by the whole process, so threads of the same JVM are serialized by these locks by lock file path
+    private static final ConcurrentHashMap<String, ReentrantLock> LOCKS = new ConcurrentHashMap<>();
+    private final File dir;
+    private final long maxSize;
+
+    @FunctionalInterface
+    public interface Downloader {
+        /**
+         * @param target file to write the artifact to, may contain the part of the previous failed download that should
+         *            be resumed or overwritten
+         * @throws IOException if artifact can't be downloaded
+         */
+        void download(File target) throws IOException;
+    }
+
+    /**
+     * @param dir cache directory
+     * @param maxSize max size of all the entries in bytes
+     */
+    public ArtifactCache(File dir, long maxSize) {
+        this.dir = dir;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Cache configured by artifact_cache_dir and artifact_cache_max_size parameters
+     * 
+     * @return cache or null if it is disabled by artifact_cache_max_size=0
+     */
+    public static ArtifactCache getDefault() {
+        if (defaultCache == null) {
+            synchronized (ArtifactCache.class) {
+                if (defaultCache == null) {
+                    String maxSize = Configuration.get(Parameter.ARTIFACT_CACHE_MAX_SIZE);
+                    if (!maxSize.isEmpty() && Long.parseLong(maxSize) <= 0) {
+                        return null;
+                    }
+                    String dir = Configuration.get(Parameter.ARTIFACT_CACHE_DIR);
+                    defaultCache = new ArtifactCache(
+                            dir.isEmpty() ? new File(System.getProperty("java.io.tmpdir"), "carina-artifacts") : new File(dir),
+                            (maxSize.isEmpty() ? 2048 : Long.parseLong(maxSize)) * FileUtils.ONE_MB);
+                }
+            }
+        }
+        return defaultCache;
+    }
+
+    /**
+     * Get the artifact from the cache or download it if it is not cached yet
+     * 
+     * @param key unique identifier of the artifact content, e.g. s3://bucket/key#etag
+     * @param fileName name of the cached file
+     * @param downloader writes the artifact to the file
+     * @return cached file, should not be modified
+     * @throws IOException if artifact can't be downloaded
+     */
+    public File get(String key, String fileName, Downloader downloader) throws IOException {
+        return get(key, fileName, downloader, entry -> {
+        });
+    }
+
+    /**
+     * Get the artifact from the cache and copy it to the target file
+     * 
+     * @param key unique identifier of the artifact content, e.g. s3://bucket/key#etag
+     * @param target file to copy the artifact to
+     * @param downloader writes the artifact to the file
+     * @throws IOException if artifact can't be downloaded or copied
+     */
+    public void copy(String key, File target, Downloader downloader) throws IOException {
+        // copied under the entry lock, so the entry is not evicted in the middle of the copy
+        get(key, target.getName(), downloader, cached -> {
+            if (target.getAbsoluteFile().getParentFile() != null) {
+                Files.createDirectories(target.getAbsoluteFile().getParentFile().toPath());
+            }
+            Files.copy(cached.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        });
+    }
+
+    @FunctionalInterface
+    private interface EntryAction {
+        void accept(File entry) throws IOException;
+    }
+
+    private File get(String key, String fileName, Downloader downloader, EntryAction action) throws IOException {
+        String hash = hash(key);
+        File entry = new File(new File(dir, hash), fileName);
+        File lockFile = new File(dir, hash + LOCK_SUFFIX);
+        ReentrantLock lock = getLock(hash + LOCK_SUFFIX);
+        boolean downloaded = false;
+        lock.lock();
+        try {
+            while (true) {
+                try (FileChannel channel = openLock(hash + LOCK_SUFFIX);
+                        FileLock fileLock = channel.lock()) {
+                    if (!lockFile.exists()) {
+                        // the entry and its lock file were removed by another process while we were waiting
+                        continue;
+                    }
+                    if (entry.isFile()) {
+                        LOGGER.info("Artifact '{}' is found in the cache: {}", key, entry.getAbsolutePath());
+                        // last modified time is used as the last access time for eviction
+                        entry.setLastModified(System.currentTimeMillis());
+                    } else {
+                        download(key, entry, downloader);
+                        downloaded = true;
+                    }
+                    action.accept(entry);
+                    break;
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (downloaded) {
+            evict(hash);
+        }
+        return entry;
+    }
+
+    private static void download(String key, File entry, Downloader downloader) throws IOException {
+        Files.createDirectories(entry.getParentFile().toPath());
+        // the same part for every attempt, so the downloader is able to resume it
+        File part = new File(entry.getParentFile(), entry.getName() + PART_SUFFIX);
+        LOGGER.info("Artifact '{}' is not cached, downloading...", key);
+        downloader.download(part);
+        if (!part.isFile()) {
+            throw new IOException("Artifact '" + key + "' is not downloaded");
+        }
+        move(part.toPath(), entry.toPath());
+        // download state of the part, e.g. <file>.part.download of RangedDownloader
+        File[] leftovers = entry.getParentFile().listFiles((d, name) -> name.startsWith(part.getName()));
+        for (File leftover : leftovers == null ? new File[0] : leftovers) {
+            Files.deleteIfExists(leftover.toPath());
+        }
+        Files.writeString(new File(entry.getParentFile(), "key").toPath(), key, StandardCharsets.UTF_8);
+    }
+
+    public File getDir() {
+        return dir;
+    }
+
+    private ReentrantLock getLock(String lockFile) {
+        return LOCKS.computeIfAbsent(new File(dir, lockFile).getAbsolutePath(), path -> new ReentrantLock());
+    }
+
+    private FileChannel openLock(String lockFile) throws IOException {
+        Files.createDirectories(dir.toPath());
+        return FileChannel.open(new File(dir, lockFile).toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+    }
+
+    private static void move(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Remove the least recently used entries until the cache fits the limit. Entries used by other threads or
+     * processes at the moment are skipped.
+     * 
+     * @param keep hash of the entry that should not be removed
+     */
+    private void evict(String keep) {
+        ReentrantLock lock = getLock(EVICTION_LOCK);
+        if (!lock.tryLock()) {
+            // another thread is cleaning up right now
+            return;
+        }
+        try (FileChannel channel = openLock(EVICTION_LOCK);
+                FileLock evictionLock = channel.tryLock()) {
+            if (evictionLock == null) {
+                // another process is cleaning up right now
+                return;
+            }
+            List<File> entries = new ArrayList<>();
+            File[] dirs = dir.listFiles(File::isDirectory);
+            long size = 0;
+            for (File entryDir : dirs == null ? new File[0] : dirs) {
+                size += FileUtils.sizeOfDirectory(entryDir);
+                entries.add(entryDir);
+            }
+            if (size <= maxSize) {
+                return;
+            }
+            entries.sort(Comparator.comparingLong(ArtifactCache::lastAccess));
+            for (File entryDir : entries) {
+                if (size <= maxSize) {
+                    break;
+                }
+                String hash = entryDir.getName();
+                if (hash.equals(keep)) {
+                    continue;
+                }
+                long entrySize = FileUtils.sizeOfDirectory(entryDir);
+                if (remove(hash, entryDir)) {
+                    LOGGER.debug("Artifact cache entry is removed: {}", entryDir.getAbsolutePath());
+                    size -= entrySize;
+                }
+            }
+        } catch (IOException e) {
+            LOGGER.warn("Unable to clean up artifact cache {}: {}", dir.getAbsolutePath(), e.getMessage());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean remove(String hash, File entryDir) throws IOException {
+        ReentrantLock lock = getLock(hash + LOCK_SUFFIX);
+        if (!lock.tryLock()) {
+            return false;
+        }
+        try (FileChannel channel = openLock(hash + LOCK_SUFFIX);
+                FileLock fileLock = channel.tryLock()) {
+            if (fileLock == null) {
+                return false;
+            }
+            FileUtils.deleteDirectory(entryDir);
+            // deleted while locked, the waiters of the old lock file notice it is gone and lock the new one
+            FileUtils.deleteQuietly(new File(dir, hash + LOCK_SUFFIX));
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static long lastAccess(File entryDir) {
+        File[] files = entryDir.listFiles();
+        return files == null ? 0 : Stream.of(files)
+                .mapToLong(File::lastModified)
+                .max()
+                .orElse(0);
+    }
+
+    private static String hash(String key) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < 16; i++) {
+                sb.append(String.format("%02x", digest[i]));
+            }
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
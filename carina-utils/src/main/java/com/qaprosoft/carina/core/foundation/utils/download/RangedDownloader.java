@@ -0,0 +1,433 @@
+/*******************************************************************************
+ * Copyright 2020-2022 Zebrunner Inc (https://www.zebrunner.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.core.foundation.utils.download;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.lang.invoke.MethodHandles;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import org.apache.commons.codec.binary.Base64;
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.io.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.qaprosoft.carina.core.foundation.utils.FileManager;
+
+/**
+ * Downloads big files (application builds) by ranges in parallel. Completed parts are remembered in the
+ * &lt;file&gt;.download state file, so a failed download is resumed from the missing parts on the next call with the same
+ * target. Servers without range support are downloaded by a single stream.
+ * 
+ * <pre>
+ * RangedDownloader.builder()
+ *         .threads(8)
+ *         .checksum(FileManager.Checksum.MD5, expectedMd5)
+ *         .download(url, file);
+ * </pre>
+ */
+public class RangedDownloader {
+    private static final Logger LOGGER = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+    private static final Pattern CONTENT_RANGE = Pattern.compile("bytes\\s+\\d+-\\d+/(\\d+)");
+    private static final Pattern UNSATISFIED_RANGE = Pattern.compile("bytes\\s+\\*/0");
+    private static final int HTTP_RANGE_NOT_SATISFIABLE = 416;
+    private static final String STATE_SUFFIX = ".download";
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private int threads;
+    private long partSize;
+    private int retries;
+    private Duration timeout;
+    private FileManager.Checksum checksumType;
+    private String checksum;
+    private ProgressListener listener;
+
+    @FunctionalInterface
+    public interface ProgressListener {
+        /**
+         * Called when one more percent of the file is downloaded
+         * 
+         * @param downloaded downloaded bytes
+         * @param total file size in bytes, -1 if it is unknown
+         */
+        void onProgress(long downloaded, long total);
+    }
+
+    private RangedDownloader() {
+        this.threads = 4;
+        this.partSize = 8 * FileUtils.ONE_MB;
+        this.retries = 3;
+        this.timeout = Duration.ofSeconds(60);
+        this.listener = new ProgressListener() {
+            private long logged = -1;
+
+            @Override
+            public synchronized void onProgress(long downloaded, long total) {
+                long percent = total > 0 ? downloaded * 100 / total : -1;
+                if (percent / 10 > logged / 10 || percent == 100) {
+                    logged = percent;
+                    LOGGER.info("\t\t transferred: {}%", percent);
+                }
+            }
+        };
+    }
+
+    public static RangedDownloader builder() {
+        return new RangedDownloader();
+    }
+
+    /**
+     * @param threads number of parts downloaded at the same time
+     * @return RangedDownloader object
+     */
+    public RangedDownloader threads(int threads) {
+        this.threads = threads;
+        return this;
+    }
+
+    /**
+     * @param partSize size of the range requested at once in bytes
+     * @return RangedDownloader object
+     */
+    public RangedDownloader partSize(long partSize) {
+        this.partSize = partSize;
+        return this;
+    }
+
+    /**
+     * @param retries number of attempts to download every part
+     * @return RangedDownloader object
+     */
+    public RangedDownloader retries(int retries) {
+        this.retries = retries;
+        return this;
+    }
+
+    /**
+     * @param timeout connect and read timeout
+     * @return RangedDownloader object
+     */
+    public RangedDownloader timeout(Duration timeout) {
+        this.timeout = timeout;
+        return this;
+    }
+
+    /**
+     * Verify the downloaded file, the file is removed if the checksum is different
+     * 
+     * @param checksumType hash algorithm
+     * @param checksum expected hash as hex or base64 string
+     * @return RangedDownloader object
+     */
+    public RangedDownloader checksum(FileManager.Checksum checksumType, String checksum) {
+        this.checksumType = checksumType;
+        this.checksum = checksum;
+        return this;
+    }
+
+    /**
+     * @param listener receives progress events from the download threads instead of progress logging
+     * @return RangedDownloader object
+     */
+    public RangedDownloader onProgress(ProgressListener listener) {
+        this.listener = listener;
+        return this;
+    }
+
+    /**
+     * Download the file
+     * 
+     * @param url file url, should support GET requests with Range header to be downloaded in parallel
+     * @param target local file
+     * @throws IOException if file can't be downloaded or checksum is different
+     */
+    public void download(URL url, File target) throws IOException {
+        if (threads < 1 || partSize < 1 || retries < 1) {
+            throw new IllegalArgumentException("Threads, part size and retries should be positive");
+        }
+        if (target.getAbsoluteFile().getParentFile() != null) {
+            Files.createDirectories(target.getAbsoluteFile().getParentFile().toPath());
+        }
+
+        HttpURLConnection probe = open(url);
+        probe.setRequestProperty("Range", "bytes=0-0");
+        long total = -1;
+        String eTag;
+        try {
+            int status = probe.getResponseCode();
+            eTag = probe.getHeaderField("ETag");
+            if (status == HttpURLConnection.HTTP_PARTIAL) {
+                Matcher matcher = CONTENT_RANGE.matcher(String.valueOf(probe.getHeaderField("Content-Range")));
+                if (matcher.matches()) {
+                    total = Long.parseLong(matcher.group(1));
+                }
+                probe.getInputStream().readAllBytes();
+            } else if (status == HttpURLConnection.HTTP_OK) {
+                LOGGER.debug("Server doesn't support ranges, '{}' is downloaded by a single stream", target.getName());
+                try (InputStream is = probe.getInputStream()) {
+                    copy(is, target, probe.getContentLengthLong());
+                }
+                verify(target);
+                Files.deleteIfExists(stateFile(target).toPath());
+                return;
+            } else if (status == HTTP_RANGE_NOT_SATISFIABLE
+                    && UNSATISFIED_RANGE.matcher(String.valueOf(probe.getHeaderField("Content-Range"))).matches()) {
+                // even the first byte is out of range of the empty file
+                LOGGER.debug("'{}' is empty", target.getName());
+                Files.write(target.toPath(), new byte[0]);
+                listener.onProgress(0, 0);
+                verify(target);
+                Files.deleteIfExists(stateFile(target).toPath());
+                return;
+            } else {
+                throw new IOException("Unable to download " + target.getName() + ", HTTP status: " + status);
+            }
+        } finally {
+            probe.disconnect();
+        }
+        if (total < 0) {
+            throw new IOException("Unable to get size of " + target.getName() + " from the range response");
+        }
+
+        downloadParts(url, target, total, eTag);
+        verify(target);
+        Files.deleteIfExists(stateFile(target).toPath());
+    }
+
+    private void downloadParts(URL url, File target, long total, String eTag) throws IOException {
+        int parts = (int) Math.max(1, (total + partSize - 1) / partSize);
+        File stateFile = stateFile(target);
+        Set<Integer> done = loadState(stateFile, target, total, eTag);
+
+        AtomicLong downloaded = new AtomicLong(done.stream().mapToLong(part -> end(part, total) - start(part) + 1).sum());
+        AtomicInteger percent = new AtomicInteger(-1);
+        Progress progress = bytes -> {
+            long value = downloaded.addAndGet(bytes);
+            int current = (int) (value * 100 / Math.max(1, total));
+            int previous = percent.get();
+            if (current > previous && percent.compareAndSet(previous, current)) {
+                listener.onProgress(value, total);
+            }
+        };
+        progress.add(0);
+        LOGGER.debug("Downloading {} bytes of '{}' by {} parts, {} parts are already downloaded", total, target.getName(), parts, done.size());
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, parts), runnable -> {
+            Thread thread = new Thread(runnable, "ranged-download");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try (RandomAccessFile file = new RandomAccessFile(target, "rw")) {
+            file.setLength(total);
+            FileChannel channel = file.getChannel();
+            List<CompletableFuture<Void>> futures = new ArrayList<>();
+            for (int part = 0; part < parts; part++) {
+                if (done.contains(part)) {
+                    continue;
+                }
+                int index = part;
+                futures.add(CompletableFuture.runAsync(() -> {
+                    downloadPart(url, channel, start(index), end(index, total), progress);
+                    synchronized (done) {
+                        done.add(index);
+                        saveState(stateFile, total, eTag, done);
+                    }
+                }, executor));
+            }
+            try {
+                CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+            } catch (CompletionException e) {
+                futures.forEach(future -> future.cancel(true));
+                Throwable cause = e.getCause();
+                throw cause instanceof IOException ? (IOException) cause : new IOException(cause.getMessage(), cause);
+            }
+            channel.force(false);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @FunctionalInterface
+    private interface Progress {
+        void add(long bytes);
+    }
+
+    private void downloadPart(URL url, FileChannel channel, long start, long end, Progress progress) {
+        long position = start;
+        IOException error = null;
+        for (int attempt = 1; attempt <= retries; attempt++) {
+            HttpURLConnection connection = null;
+            try {
+                connection = open(url);
+                // continue from the last written byte of the failed attempt
+                connection.setRequestProperty("Range", "bytes=" + position + "-" + end);
+                if (connection.getResponseCode() != HttpURLConnection.HTTP_PARTIAL) {
+                    throw new IOException("Range request is not supported, HTTP status: " + connection.getResponseCode());
+                }
+                try (InputStream is = connection.getInputStream()) {
+                    byte[] buffer = new byte[BUFFER_SIZE];
+                    int read;
+                    while (position <= end && (read = is.read(buffer, 0, (int) Math.min(buffer.length, end - position + 1))) != -1) {
+                        ByteBuffer data = ByteBuffer.wrap(buffer, 0, read);
+                        while (data.hasRemaining()) {
+                            position += channel.write(data, position);
+                        }
+                        progress.add(read);
+                    }
+                }
+                if (position <= end) {
+                    throw new IOException("Connection is closed at byte " + position + " of range " + start + "-" + end);
+                }
+                return;
+            } catch (IOException e) {
+                error = e;
+                LOGGER.debug("Attempt {} to download range {}-{} failed: {}", attempt, start, end, e.getMessage());
+            } finally {
+                if (connection != null) {
+                    connection.disconnect();
+                }
+            }
+        }
+        throw new CompletionException(error);
+    }
+
+    private long start(int part) {
+        return part * partSize;
+    }
+
+    private long end(int part, long total) {
+        return Math.min(total, (part + 1) * partSize) - 1;
+    }
+
+    private HttpURLConnection open(URL url) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        connection.setConnectTimeout((int) timeout.toMillis());
+        connection.setReadTimeout((int) timeout.toMillis());
+        return connection;
+    }
+
+    private void copy(InputStream is, File target, long total) throws IOException {
+        long downloaded = 0;
+        int percent = -1;
+        try (OutputStream os = new FileOutputStream(target)) {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int read;
+            while ((read = is.read(buffer)) != -1) {
+                os.write(buffer, 0, read);
+                downloaded += read;
+                int current = total > 0 ? (int) (downloaded * 100 / total) : percent;
+                if (current > percent) {
+                    percent = current;
+                    listener.onProgress(downloaded, total);
+                }
+            }
+        }
+        if (percent < 0) {
+            // size is unknown, so only the end is reported
+            listener.onProgress(downloaded, total);
+        }
+    }
+
+    private void verify(File target) throws IOException {
+        if (checksumType == null || checksum == null || checksum.isEmpty()) {
+            return;
+        }
+        String actual;
+        try {
+            actual = FileManager.getFileChecksum(checksumType, target);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException(e);
+        }
+        String actualHex = Hex.encodeHexString(Base64.decodeBase64(actual));
+        if (!checksum.equals(actual) && !checksum.equalsIgnoreCase(actualHex)) {
+            Files.deleteIfExists(target.toPath());
+            Files.deleteIfExists(stateFile(target).toPath());
+            throw new IOException(String.format("Checksum of %s is %s instead of %s", target.getName(), actualHex, checksum));
+        }
+        LOGGER.debug("Checksum of '{}' is verified", target.getName());
+    }
+
+    private static File stateFile(File target) {
+        return new File(target.getPath() + STATE_SUFFIX);
+    }
+
+    /**
+     * @return completed parts if the state belongs to the same file version, otherwise empty set
+     */
+    private Set<Integer> loadState(File stateFile, File target, long total, String eTag) {
+        Set<Integer> done = new HashSet<>();
+        if (!stateFile.isFile() || !target.isFile() || target.length() != total) {
+            return done;
+        }
+        Properties state = new Properties();
+        try (InputStream is = new FileInputStream(stateFile)) {
+            state.load(is);
+        } catch (IOException e) {
+            return done;
+        }
+        if (!String.valueOf(total).equals(state.getProperty("length"))
+                || !String.valueOf(partSize).equals(state.getProperty("partSize"))
+                || !String.valueOf(eTag).equals(state.getProperty("etag"))) {
+            LOGGER.debug("Download state of '{}' belongs to another file version, downloading from scratch", target.getName());
+            return done;
+        }
+        String parts = state.getProperty("done", "");
+        if (!parts.isEmpty()) {
+            Arrays.stream(parts.split(",")).map(Integer::valueOf).forEach(done::add);
+        }
+        return done;
+    }
+
+    private void saveState(File stateFile, long total, String eTag, Set<Integer> done) {
+        Properties state = new Properties();
+        state.setProperty("length", String.valueOf(total));
+        state.setProperty("partSize", String.valueOf(partSize));
+        state.setProperty("etag", String.valueOf(eTag));
+        state.setProperty("done", done.stream().sorted().map(String::valueOf).collect(Collectors.joining(",")));
+        try (OutputStream os = new FileOutputStream(stateFile)) {
+            state.store(os, null);
+        } catch (IOException e) {
+            LOGGER.debug("Unable to save download state: {}", e.getMessage());
+        }
+    }
+}
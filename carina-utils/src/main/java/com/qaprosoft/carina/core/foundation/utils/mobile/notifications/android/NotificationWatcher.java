@@ -0,0 +1,323 @@
+/*******************************************************************************
+ * Copyright 2020-2022 Zebrunner Inc (https://www.zebrunner.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.core.foundation.utils.mobile.notifications.android;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.qaprosoft.carina.core.foundation.utils.android.recorder.utils.AdbClient;
+
+/**
+ * Watches notifications of the device using single long-running shell command that dumps notifications in a loop
+ * on the device side, so waiting for a notification costs neither adb command per check nor re-parsing of the
+ * collected dumps. Output is parsed line by line and waiting futures are completed as soon as the matching
+ * notification is parsed. The command runs only while somebody waits for a notification.
+ */
+public class NotificationWatcher implements Closeable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+    static final String DUMP_END = "carina-notifications-dump-end";
+    private static final long DEFAULT_DUMP_INTERVAL = TimeUnit.SECONDS.toMillis(1);
+    private static final long RECONNECT_INTERVAL = TimeUnit.SECONDS.toMillis(1);
+
+    private static final Pattern NOTIFICATION_PATTERN = Pattern.compile(".* NotificationRecord.*pkg=(.*) user");
+    private static final Pattern NOTIFICATION_TEXT_PATTERN = Pattern.compile(".*tickerText=(.*)");
+
+    private static final Map<String, NotificationWatcher> WATCHERS = new ConcurrentHashMap<>();
+
+    private final AdbClient client;
+    private final String serial;
+    private final long dumpInterval;
+    private final List<Waiter> waiters = new CopyOnWriteArrayList<>();
+    private volatile List<Notification> notifications = Collections.emptyList();
+    private volatile boolean closed;
+    private volatile Socket socket;
+    private Thread thread;
+
+    private static final class Waiter {
+        private final Predicate<Notification> matcher;
+        private final CompletableFuture<Notification> future = new CompletableFuture<>();
+
+        private Waiter(Predicate<Notification> matcher) {
+            this.matcher = matcher;
+        }
+    }
+
+    /**
+     * @param client       adb server client
+     * @param serial       device serial, any single device is used if null
+     * @param dumpInterval pause between notification dumps on the device in milliseconds, rounded up to whole seconds
+     *                     as older toybox/busybox sleep doesn't support fractions
+     */
+    public NotificationWatcher(AdbClient client, String serial, long dumpInterval) {
+        this.client = client;
+        this.serial = serial;
+        this.dumpInterval = dumpInterval;
+    }
+
+    /**
+     * Get watcher of the device notifications, it starts watching on the first wait
+     *
+     * @param serial device serial, any single device is used if empty
+     * @return watcher or empty if the adb server is disabled by the adb_server parameter or is not available
+     */
+    public static Optional<NotificationWatcher> getInstance(String serial) {
+        AdbClient client = AdbClient.getDefault();
+        if (client == null || !client.isAvailable()) {
+            return Optional.empty();
+        }
+        return Optional.of(WATCHERS.computeIfAbsent(StringUtils.defaultString(serial),
+                key -> new NotificationWatcher(client, key.isEmpty() ? null : key, DEFAULT_DUMP_INTERVAL)));
+    }
+
+    /**
+     * Stop all the watchers started by {@link #getInstance(String)}
+     */
+    public static void closeAll() {
+        WATCHERS.values().forEach(NotificationWatcher::close);
+        WATCHERS.clear();
+    }
+
+    /**
+     * @return notifications of the last complete dump, empty if nobody waits for a notification
+     */
+    public List<Notification> getNotifications() {
+        return notifications;
+    }
+
+    /**
+     * Get future completed with the first notification that matches, the current ones are checked too. The future is
+     * completed exceptionally with IOException if the notifications stream can't be opened.
+     *
+     * @param matcher notification condition
+     * @return future of the notification, cancel it when it is not needed anymore
+     */
+    public CompletableFuture<Notification> await(Predicate<Notification> matcher) {
+        Waiter waiter = new Waiter(matcher);
+        synchronized (this) {
+            if (closed) {
+                throw new IllegalStateException("Notification watcher is closed.");
+            }
+            waiters.add(waiter);
+            startStream();
+        }
+        waiter.future.whenComplete((notification, e) -> removeWaiter(waiter));
+        for (Notification notification : notifications) {
+            if (matcher.test(notification)) {
+                waiter.future.complete(notification);
+                break;
+            }
+        }
+        return waiter.future;
+    }
+
+    /**
+     * Wait for the notification that matches
+     *
+     * @param matcher notification condition
+     * @param timeout timeout in seconds
+     * @return true if notification appeared
+     * @throws UncheckedIOException if the notifications stream can't be opened, so notifications should be polled
+     */
+    public boolean waitFor(Predicate<Notification> matcher, long timeout) {
+        CompletableFuture<Notification> future = await(matcher);
+        try {
+            Notification notification = future.get(timeout, TimeUnit.SECONDS);
+            LOGGER.info("Found notification: " + notification);
+            return true;
+        } catch (TimeoutException e) {
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw new UncheckedIOException((IOException) e.getCause());
+            }
+            LOGGER.debug("Notification waiting failed", e);
+            return false;
+        } finally {
+            future.cancel(false);
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        closed = true;
+        stopStream();
+    }
+
+    /**
+     * @return true if the notifications stream is running
+     */
+    synchronized boolean isWatching() {
+        return thread != null;
+    }
+
+    private synchronized void removeWaiter(Waiter waiter) {
+        waiters.remove(waiter);
+        if (waiters.isEmpty()) {
+            stopStream();
+        }
+    }
+
+    private synchronized void startStream() {
+        if (thread != null) {
+            return;
+        }
+        thread = new Thread(this::watchLoop, "notification-watcher-" + StringUtils.defaultString(serial, "any"));
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private synchronized void stopStream() {
+        if (thread != null) {
+            thread.interrupt();
+            thread = null;
+        }
+        closeSocket();
+        // the last dump is outdated when nobody watches
+        notifications = Collections.emptyList();
+    }
+
+    private synchronized boolean isCurrent() {
+        return thread == Thread.currentThread();
+    }
+
+    private void closeSocket() {
+        Socket current = socket;
+        if (current != null) {
+            try {
+                current.close();
+            } catch (IOException e) {
+                // ignore
+            }
+        }
+    }
+
+    private void watchLoop() {
+        while (isCurrent()) {
+            try {
+                watch();
+            } catch (IOException e) {
+                if (isCurrent()) {
+                    LOGGER.debug("Notifications stream of the device '{}' is interrupted: {}", serial, e.getMessage());
+                }
+            }
+            try {
+                Thread.sleep(RECONNECT_INTERVAL);
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    private void watch() throws IOException {
+        String command = String.format("while true; do dumpsys notification; echo %s; sleep %d; done", DUMP_END,
+                Math.max(1, TimeUnit.MILLISECONDS.toSeconds(dumpInterval + 999)));
+        Socket opened;
+        try {
+            opened = client.openShell(serial, command);
+        } catch (IOException e) {
+            // waiters fall back to polling instead of waiting for the reconnection
+            LOGGER.debug("Unable to open notifications stream of the device '{}': {}", serial, e.getMessage());
+            waiters.forEach(waiter -> waiter.future.completeExceptionally(e));
+            return;
+        }
+        try (Socket shell = opened) {
+            synchronized (this) {
+                if (thread != Thread.currentThread()) {
+                    return;
+                }
+                socket = shell;
+            }
+            BufferedReader reader = new BufferedReader(new InputStreamReader(shell.getInputStream(), StandardCharsets.UTF_8));
+            DumpParser parser = new DumpParser();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                parser.accept(line);
+            }
+        } finally {
+            synchronized (this) {
+                if (socket == opened) {
+                    socket = null;
+                }
+            }
+        }
+    }
+
+    private void onNotification(Notification notification) {
+        for (Waiter waiter : waiters) {
+            if (waiter.matcher.test(notification)) {
+                waiter.future.complete(notification);
+            }
+        }
+    }
+
+    /**
+     * Incremental parser of the notification dumps
+     */
+    private final class DumpParser {
+        private List<Notification> current = new ArrayList<>();
+        private String pkg;
+
+        private void accept(String line) {
+            if (DUMP_END.equals(line.trim())) {
+                if (isCurrent()) {
+                    notifications = Collections.unmodifiableList(current);
+                }
+                current = new ArrayList<>();
+                pkg = null;
+                return;
+            }
+            Matcher matcher = NOTIFICATION_PATTERN.matcher(line);
+            if (matcher.find()) {
+                pkg = matcher.group(1);
+            }
+            matcher = NOTIFICATION_TEXT_PATTERN.matcher(line);
+            if (matcher.find()) {
+                Notification notification = new Notification(pkg, matcher.group(1));
+                pkg = null;
+                current.add(notification);
+                onNotification(notification);
+            }
+        }
+    }
+}
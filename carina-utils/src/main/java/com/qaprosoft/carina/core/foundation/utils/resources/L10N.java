@@ -20,12 +20,17 @@ import java.io.OutputStreamWriter;
 import java.lang.invoke.MethodHandles;
 import java.net.URL;
 import java.util.ArrayList;
-import java.util.Iterator;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.MissingResourceException;
 import java.util.Properties;
 import java.util.ResourceBundle;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.commons.io.FilenameUtils;
 import org.slf4j.Logger;
@@ -54,6 +59,9 @@ public class L10N {
     private static Locale locale = getLocale(Configuration.get(Configuration.Parameter.LOCALE));
     private static ArrayList<ResourceBundle> resBoundles = new ArrayList<ResourceBundle>();
     private static Properties missedResources = new Properties();
+    // flattened values of the bundles for the current locale, rebuilt on every load or locale change
+    private static volatile Map<String, String> index = Collections.emptyMap();
+    private static final Set<String> missingKeys = ConcurrentHashMap.newKeySet();
     
     private static SoftAssert mistakes;
 
@@ -138,6 +146,7 @@ public class L10N {
         } catch (IllegalArgumentException e) {
             LOGGER.debug("L10N folder with resources is missing!");
         }
+        buildIndex();
     }
 
     /**
@@ -150,6 +159,26 @@ public class L10N {
         // #1679: L10N: made assertion threads dependent
         mistakes = new SoftAssert();
         resBoundles = resources;
+        buildIndex();
+    }
+
+    /**
+     * Flattens the bundles of the current locale into the single map, so lookups don't walk the bundles and don't
+     * rely on MissingResourceException. The first bundle containing the key wins as before.
+     */
+    private static synchronized void buildIndex() {
+        Map<String, String> values = new HashMap<>();
+        for (ResourceBundle bundle : new ArrayList<>(resBoundles)) {
+            if (!bundle.getLocale().toString().equals(locale.toString())) {
+                continue;
+            }
+            for (String key : bundle.keySet()) {
+                values.putIfAbsent(key, bundle.getString(key));
+            }
+        }
+        index = Collections.unmodifiableMap(values);
+        missingKeys.clear();
+        LOGGER.debug("L10N index for '{}' locale contains {} keys", locale, values.size());
     }
     
     /**
@@ -160,20 +189,33 @@ public class L10N {
      * @return String
      */
     static public String getText(String key) {
-        LOGGER.debug("getText: L10N bundle size: " + resBoundles.size());
-        Iterator<ResourceBundle> iter = resBoundles.iterator();
-        while (iter.hasNext()) {
-            ResourceBundle bundle = iter.next();
-            try {
-                String value = bundle.getString(key);
-                if (bundle.getLocale().toString().equals(locale.toString())) {
-                    return value;
-                }
-            } catch (MissingResourceException e) {
-                // do nothing
+        String value = index.get(key);
+        if (value == null) {
+            if (missingKeys.add(key)) {
+                LOGGER.debug("L10N key '{}' is missing for '{}' locale", key, locale);
             }
+            return key;
+        }
+        return value;
+    }
+
+    /**
+     * Return keys requested by {@link #getText(String)} that were not found in the resource bundles.
+     *
+     * @return set of the missing keys
+     */
+    public static Set<String> getMissingKeys() {
+        return new TreeSet<>(missingKeys);
+    }
+
+    /**
+     * Log keys requested during the run that were not found in the resource bundles.
+     */
+    public static void reportMissingKeys() {
+        if (missingKeys.isEmpty()) {
+            return;
         }
-        return key;
+        LOGGER.warn("There are {} missing L10N keys for '{}' locale: {}", missingKeys.size(), locale, getMissingKeys());
     }
     
     /**
@@ -228,6 +270,7 @@ public class L10N {
     public static void setLocale(String loc) {
         LOGGER.warn("Default locale: " + locale + " was overriden by " + loc);
         locale = getLocale(loc);
+        buildIndex();
     }    
     
     /**
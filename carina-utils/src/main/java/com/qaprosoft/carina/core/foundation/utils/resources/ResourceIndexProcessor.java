@@ -0,0 +1,120 @@
+/*******************************************************************************
+ * Copyright 2020-2022 Zebrunner Inc (https://www.zebrunner.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.core.foundation.utils.resources;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.annotation.processing.SupportedOptions;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.TypeElement;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+
+/**
+ * Generates {@value Resources#INDEX_FILE} at compile time with the list of resources under the indexed roots of the
+ * class output directory, so {@link Resources} does not have to scan the classpath at runtime.
+ * Maven copies resources before compilation, so the index is complete when the processor runs.
+ * Indexed roots can be changed with the {@value #ROOTS_OPTION} option (comma separated), by default only L10N is indexed.
+ */
+@SupportedAnnotationTypes("*")
+@SupportedOptions(ResourceIndexProcessor.ROOTS_OPTION)
+public class ResourceIndexProcessor extends AbstractProcessor {
+
+    static final String ROOTS_OPTION = "carina.resource.index.roots";
+    private static final String DEFAULT_ROOTS = "L10N";
+
+    private boolean generated;
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        if (generated) {
+            return false;
+        }
+        generated = true;
+        try {
+            FileObject index = processingEnv.getFiler().getResource(StandardLocation.CLASS_OUTPUT, "", Resources.INDEX_FILE);
+            Path outputDir = outputDir(index.toUri(), Resources.INDEX_FILE);
+            if (outputDir == null) {
+                return false;
+            }
+            List<String> resources = collect(outputDir);
+            if (resources.isEmpty()) {
+                return false;
+            }
+            index = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", Resources.INDEX_FILE);
+            try (Writer writer = new OutputStreamWriter(index.openOutputStream(), StandardCharsets.UTF_8)) {
+                for (String resource : resources) {
+                    writer.write(resource);
+                    writer.write('\n');
+                }
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            // index is an optimization only, runtime scan is used without it
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING, "Unable to generate resource index: " + e.getMessage());
+        }
+        return false;
+    }
+
+    private List<String> collect(Path outputDir) throws IOException {
+        String roots = processingEnv.getOptions().getOrDefault(ROOTS_OPTION, DEFAULT_ROOTS);
+        List<String> resources = new ArrayList<>();
+        for (String root : roots.split(",")) {
+            Path rootDir = outputDir.resolve(root.trim());
+            if (root.isBlank() || !Files.isDirectory(rootDir)) {
+                continue;
+            }
+            try (Stream<Path> files = Files.walk(rootDir)) {
+                resources.addAll(files.filter(Files::isRegularFile)
+                        .map(file -> outputDir.relativize(file).toString().replace('\\', '/'))
+                        .sorted()
+                        .collect(Collectors.toList()));
+            }
+        }
+        return resources;
+    }
+
+    private static Path outputDir(URI indexUri, String indexFile) {
+        if (!"file".equals(indexUri.getScheme())) {
+            return null;
+        }
+        Path path = Paths.get(indexUri);
+        for (int i = 0; i < indexFile.split("/").length; i++) {
+            path = path.getParent();
+        }
+        return path;
+    }
+}
@@ -15,15 +15,22 @@
  *******************************************************************************/
 package com.qaprosoft.carina.core.foundation.utils.resources;
 
+import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStreamReader;
 import java.lang.invoke.MethodHandles;
 import java.net.MalformedURLException;
 import java.net.URISyntaxException;
 import java.net.URL;
 import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
 import java.security.CodeSource;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 import org.slf4j.Logger;
@@ -33,6 +40,15 @@ public class Resources {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
 
+    /**
+     * Resource index generated by {@link ResourceIndexProcessor} during compilation
+     */
+    public static final String INDEX_FILE = "META-INF/carina/resources.idx";
+
+    // resources from all the indexes on the classpath
+    private static volatile List<String> index;
+    private static volatile boolean indexLoaded;
+
     private static void collectURL(ResourceURLFilter f, Set<URL> s, URL u) {
         if (f == null || f.accept(u)) {
             LOGGER.debug("adding resource url by filter: " + u);
@@ -75,8 +91,13 @@ public class Resources {
     }
 
     public static Set<URL> getResourceURLs(ResourceURLFilter filter) {
-        Set<URL> collectedURLs = new HashSet<>();
-        try(URLClassLoader ucl = new URLClassLoader(new URL[] {(ClassLoader.getSystemClassLoader()).getResource("L10N")}, Resources.class.getClassLoader())) {
+        URL root = ClassLoader.getSystemClassLoader().getResource("L10N");
+        Set<URL> collectedURLs = getIndexedResourceURLs(filter);
+        if (isIndexed(root)) {
+            return collectedURLs;
+        }
+        // no index is generated for the resources root or it is outdated, so fall back to scanning
+        try(URLClassLoader ucl = new URLClassLoader(new URL[] {root}, Resources.class.getClassLoader())) {
             for (URL url : ucl.getURLs()) {
                 try {
                     iterateEntry(new File(url.toURI()), filter, collectedURLs);
@@ -104,4 +125,114 @@ public class Resources {
         }
         return collectedURLs;
     }
-}
\ No newline at end of file
+
+    /**
+     * Resolves the resources listed in the compile-time indexes
+     *
+     * @param filter resource filter, can be null
+     * @return filtered resource urls, empty if there is no index on the classpath
+     */
+    static Set<URL> getIndexedResourceURLs(ResourceURLFilter filter) {
+        ClassLoader classLoader = Resources.class.getClassLoader();
+        Set<URL> collectedURLs = new HashSet<>();
+        for (String resource : getIndex()) {
+            URL url = classLoader.getResource(resource);
+            if (url == null) {
+                // removed after the index was generated
+                LOGGER.debug("Indexed resource is not found: " + resource);
+                continue;
+            }
+            collectURL(filter, collectedURLs, url);
+        }
+        return collectedURLs;
+    }
+
+    /**
+     * @param root resources directory
+     * @return true if the index is generated for the classpath entry the directory belongs to and no directory under
+     *         the root is changed after that
+     */
+    static boolean isIndexed(URL root) {
+        if (root == null || !"file".equals(root.getProtocol())) {
+            return false;
+        }
+        try {
+            File rootDir = new File(root.toURI());
+            File classpathEntry = rootDir.getParentFile();
+            if (classpathEntry == null) {
+                return false;
+            }
+            File indexFile = new File(classpathEntry, INDEX_FILE);
+            if (!indexFile.isFile()) {
+                return false;
+            }
+            // the index is regenerated only by javac, so resources copied without compilation are not in it
+            if (isModifiedAfter(rootDir, indexFile.lastModified())) {
+                LOGGER.debug("Resource index " + indexFile + " is outdated, resources will be scanned.");
+                return false;
+            }
+            return true;
+        } catch (URISyntaxException | IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Adding or removing a file changes the modification time of its directory, so only directories are checked
+     */
+    private static boolean isModifiedAfter(File dir, long time) {
+        if (dir.lastModified() > time) {
+            return true;
+        }
+        File[] subDirs = dir.listFiles(File::isDirectory);
+        if (subDirs != null) {
+            for (File subDir : subDirs) {
+                if (isModifiedAfter(subDir, time)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static List<String> getIndex() {
+        if (!indexLoaded) {
+            synchronized (Resources.class) {
+                if (!indexLoaded) {
+                    index = loadIndex();
+                    indexLoaded = true;
+                }
+            }
+        }
+        return index;
+    }
+
+    private static List<String> loadIndex() {
+        try {
+            Enumeration<URL> indexes = Resources.class.getClassLoader().getResources(INDEX_FILE);
+            if (!indexes.hasMoreElements()) {
+                // usually the processor is not run by javac, logged once as the index is loaded once
+                LOGGER.info("There is no resource index on the classpath, resources will be scanned. "
+                        + "Enable ResourceIndexProcessor in the compiler configuration to index them at build time.");
+                return Collections.emptyList();
+            }
+            List<String> resources = new ArrayList<>();
+            while (indexes.hasMoreElements()) {
+                URL url = indexes.nextElement();
+                LOGGER.debug("Loading resource index: " + url);
+                try (BufferedReader reader = new BufferedReader(new InputStreamReader(url.openStream(), StandardCharsets.UTF_8))) {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        if (!line.isBlank()) {
+                            resources.add(line.trim());
+                        }
+                    }
+                }
+            }
+            return Collections.unmodifiableList(resources);
+        } catch (IOException e) {
+            LOGGER.debug("Unable to load resource index, resources will be scanned.", e);
+            return Collections.emptyList();
+        }
+    }
+}
@@ -0,0 +1,314 @@
+/*******************************************************************************
+ * Copyright 2020-2022 Zebrunner Inc (https://www.zebrunner.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.core.foundation.utils.startup;
+
+import java.lang.invoke.MethodHandles;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs independent startup steps concurrently instead of one after another. Every step waits only for the steps it
+ * depends on, the steps that depend on a failed or timed out step are skipped. Optional steps are limited by the
+ * default timeout, required steps are waited for without limit unless they are added with their own timeout.
+ * {@link #await()} blocks until all the steps are finished, logs how long every step took and rethrows the failure of
+ * a required step.
+ *
+ * <pre>
+ * StartupOrchestrator startup = new StartupOrchestrator(Duration.ofMinutes(10))
+ *         .addStep("app", this::resolveApp)
+ *         .addOptionalStep("l10n", L10N::load)
+ *         .addStep("app-reference", this::registerApp, "app")
+ *         .start();
+ * ...
+ * startup.await();
+ * </pre>
+ */
+public class StartupOrchestrator {
+    private static final Logger LOGGER = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+    private static final AtomicInteger THREAD_NUMBER = new AtomicInteger();
+
+    public enum Status {
+        PENDING,
+        RUNNING,
+        PASSED,
+        FAILED,
+        TIMED_OUT,
+        SKIPPED
+    }
+
+    private final Duration optionalTimeout;
+    private final Map<String, Step> steps = new LinkedHashMap<>();
+    private CompletableFuture<Void> completion;
+    private long startTime;
+    private boolean reported;
+
+    /**
+     * @param optionalTimeout timeout of the optional steps added without explicit timeout
+     */
+    public StartupOrchestrator(Duration optionalTimeout) {
+        this.optionalTimeout = optionalTimeout;
+    }
+
+    /**
+     * Adds the step which failure is thrown by {@link #await()}. The step is not limited by the timeout, so a slow
+     * required step, e.g. app download, doesn't fail the startup.
+     *
+     * @param name unique step name
+     * @param action step action
+     * @param dependencies names of the steps that should be passed before this one, they should be added first
+     * @return StartupOrchestrator object
+     */
+    public StartupOrchestrator addStep(String name, Runnable action, String... dependencies) {
+        return addStep(name, null, true, action, dependencies);
+    }
+
+    /**
+     * Adds the step which failure is only logged
+     *
+     * @param name unique step name
+     * @param action step action
+     * @param dependencies names of the steps that should be passed before this one, they should be added first
+     * @return StartupOrchestrator object
+     */
+    public StartupOrchestrator addOptionalStep(String name, Runnable action, String... dependencies) {
+        return addStep(name, optionalTimeout, false, action, dependencies);
+    }
+
+    /**
+     * @param name unique step name
+     * @param timeout max duration of the step, null for no limit
+     * @param required true if the failure of the step should be thrown by {@link #await()}, otherwise it is only logged
+     * @param action step action
+     * @param dependencies names of the steps that should be passed before this one, they should be added first
+     * @return StartupOrchestrator object
+     */
+    public synchronized StartupOrchestrator addStep(String name, Duration timeout, boolean required, Runnable action,
+            String... dependencies) {
+        if (completion != null) {
+            throw new IllegalStateException("Unable to add step '" + name + "' after the start.");
+        }
+        if (steps.containsKey(name)) {
+            throw new IllegalArgumentException("Step '" + name + "' is already added.");
+        }
+        for (String dependency : dependencies) {
+            // dependencies are added before the step, so the steps can't have a cycle
+            if (!steps.containsKey(dependency)) {
+                throw new IllegalArgumentException(String.format("Step '%s' depends on unknown step '%s'.", name, dependency));
+            }
+        }
+        steps.put(name, new Step(name, timeout, required, action, Arrays.asList(dependencies)));
+        return this;
+    }
+
+    /**
+     * Starts all the steps without blocking the current thread. Repeated calls are ignored.
+     *
+     * @return StartupOrchestrator object
+     */
+    public synchronized StartupOrchestrator start() {
+        if (completion != null) {
+            return this;
+        }
+        startTime = System.nanoTime();
+        // thread per step, so a step never waits for a free thread
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, steps.size()), runnable -> {
+            Thread thread = new Thread(runnable, "carina-startup-" + THREAD_NUMBER.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        for (Step step : steps.values()) {
+            CompletableFuture<?>[] dependencies = step.dependencies.stream()
+                    .map(dependency -> steps.get(dependency).future)
+                    .toArray(CompletableFuture[]::new);
+            step.future = CompletableFuture.allOf(dependencies)
+                    .handle((result, e) -> e)
+                    .thenCompose(e -> e == null ? run(step, executor) : skip(step));
+        }
+        completion = CompletableFuture.allOf(steps.values().stream()
+                .map(step -> step.future)
+                .toArray(CompletableFuture[]::new));
+        // timed out actions keep their daemon threads till the end
+        completion.whenComplete((result, e) -> executor.shutdown());
+        return this;
+    }
+
+    /**
+     * Starts the steps if they are not started yet and waits for all of them. Breakdown of the startup time is logged once.
+     *
+     * @throws RuntimeException failure of the first failed, timed out or skipped required step
+     */
+    public void await() {
+        CompletableFuture<Void> all;
+        synchronized (this) {
+            all = start().completion;
+        }
+        try {
+            all.join();
+        } catch (CompletionException e) {
+            // every failure is reported by its step
+        }
+
+        synchronized (this) {
+            if (!reported) {
+                reported = true;
+                LOGGER.info(getReport());
+            }
+        }
+
+        for (Step step : steps.values()) {
+            if (!step.required) {
+                continue;
+            }
+            switch (step.status) {
+            case FAILED:
+                if (step.error instanceof RuntimeException) {
+                    throw (RuntimeException) step.error;
+                }
+                if (step.error instanceof Error) {
+                    throw (Error) step.error;
+                }
+                throw new RuntimeException("Startup step '" + step.name + "' is failed.", step.error);
+            case TIMED_OUT:
+                throw new RuntimeException(String.format("Startup step '%s' is not finished in %d ms.", step.name,
+                        step.timeout.toMillis()));
+            case SKIPPED:
+                throw new RuntimeException(String.format("Startup step '%s' is skipped as its dependencies %s are not passed.",
+                        step.name, step.dependencies));
+            default:
+                break;
+            }
+        }
+    }
+
+    /**
+     * @param name step name
+     * @return current status of the step
+     */
+    public Status getStatus(String name) {
+        return getStep(name).status;
+    }
+
+    /**
+     * @param name step name
+     * @return duration of the finished step, zero for skipped or not finished step
+     */
+    public Duration getDuration(String name) {
+        Step step = getStep(name);
+        return step.finishTime == 0 ? Duration.ZERO : Duration.ofNanos(Math.max(0, step.finishTime - step.startTime));
+    }
+
+    /**
+     * @return breakdown of the startup time: status, start offset and duration of every step
+     */
+    public synchronized String getReport() {
+        long end = startTime;
+        long total = 0;
+        StringBuilder breakdown = new StringBuilder();
+        for (Step step : steps.values()) {
+            long duration = getDuration(step.name).toMillis();
+            long offset = step.startTime == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(step.startTime - startTime);
+            end = Math.max(end, step.finishTime);
+            total += duration;
+            breakdown.append(String.format("%n    %-20s %-9s %8d ms  started at +%d ms%s", step.name, step.status, duration, offset,
+                    step.dependencies.isEmpty() ? "" : "  after " + String.join(", ", step.dependencies)));
+        }
+        return String.format("Startup took %d ms, steps took %d ms in total:", TimeUnit.NANOSECONDS.toMillis(end - startTime), total)
+                + breakdown;
+    }
+
+    private Step getStep(String name) {
+        Step step = steps.get(name);
+        if (step == null) {
+            throw new IllegalArgumentException("Unknown step '" + name + "'.");
+        }
+        return step;
+    }
+
+    private CompletableFuture<Void> run(Step step, ExecutorService executor) {
+        CompletableFuture<Void> future = CompletableFuture.runAsync(() -> {
+            step.startTime = System.nanoTime();
+            step.status = Status.RUNNING;
+            LOGGER.debug("Startup step '{}' is started.", step.name);
+            step.action.run();
+        }, executor);
+        if (step.timeout != null) {
+            future = future.orTimeout(step.timeout.toMillis(), TimeUnit.MILLISECONDS);
+        }
+        return future.whenComplete((result, e) -> step.finish(e));
+    }
+
+    private CompletableFuture<Void> skip(Step step) {
+        step.status = Status.SKIPPED;
+        LOGGER.warn("Startup step '{}' is skipped as its dependencies {} are not passed.", step.name, step.dependencies);
+        return CompletableFuture.failedFuture(new IllegalStateException("Startup step '" + step.name + "' is skipped."));
+    }
+
+    private static final class Step {
+        private final String name;
+        private final Duration timeout;
+        private final boolean required;
+        private final Runnable action;
+        private final List<String> dependencies;
+        private CompletableFuture<Void> future;
+        private volatile Status status = Status.PENDING;
+        private volatile Throwable error;
+        private volatile long startTime;
+        private volatile long finishTime;
+
+        private Step(String name, Duration timeout, boolean required, Runnable action, List<String> dependencies) {
+            this.name = name;
+            this.timeout = timeout;
+            this.required = required;
+            this.action = action;
+            this.dependencies = dependencies;
+        }
+
+        private void finish(Throwable e) {
+            if (startTime == 0) {
+                // timed out before the action was started
+                startTime = System.nanoTime();
+            }
+            finishTime = System.nanoTime();
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            if (cause == null) {
+                status = Status.PASSED;
+            } else if (cause instanceof TimeoutException) {
+                status = Status.TIMED_OUT;
+                LOGGER.error("Startup step '{}' is not finished in {} ms.", name, timeout.toMillis());
+            } else {
+                status = Status.FAILED;
+                error = cause;
+                if (!required) {
+                    LOGGER.error("Startup step '" + name + "' is failed!", cause);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.qaprosoft.carina.core.foundation.report;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class ArtifactExecutorTest {
+
+    @Test
+    public void testTasksOfKeyAreOrdered() {
+        ArtifactExecutor executor = new ArtifactExecutor(4, 100);
+        List<Integer> first = Collections.synchronizedList(new ArrayList<>());
+        List<Integer> second = Collections.synchronizedList(new ArrayList<>());
+        List<Integer> expected = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            int number = i;
+            expected.add(number);
+            executor.submit("first", () -> {
+                // random delays would reorder unordered tasks
+                pause(number % 3);
+                first.add(number);
+            });
+            executor.submit("second", () -> second.add(number));
+        }
+
+        Assert.assertTrue(executor.flush("first", Duration.ofSeconds(10)));
+        Assert.assertTrue(executor.flush("second", Duration.ofSeconds(10)));
+        Assert.assertEquals(first, expected);
+        Assert.assertEquals(second, expected);
+    }
+
+    @Test
+    public void testSubmitIsBlockedWhenFull() throws Exception {
+        ArtifactExecutor executor = new ArtifactExecutor(2, 2);
+        CountDownLatch release = new CountDownLatch(1);
+        Runnable blockedTask = () -> {
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+        executor.submit("first", blockedTask);
+        executor.submit("second", blockedTask);
+
+        CompletableFuture<?> third = CompletableFuture.runAsync(() -> executor.submit("third", () -> {
+        }));
+        pause(300);
+        Assert.assertFalse(third.isDone(), "Task is submitted when the executor is full");
+        Assert.assertEquals(executor.getQueueDepth(), 2);
+
+        release.countDown();
+        third.get(10, TimeUnit.SECONDS);
+        Assert.assertTrue(executor.flush("third", Duration.ofSeconds(10)));
+
+        ArtifactExecutor.Metrics metrics = executor.getMetrics();
+        Assert.assertEquals(metrics.getBlocked(), 1);
+        Assert.assertEquals(metrics.getMaxQueueDepth(), 2);
+        Assert.assertTrue(metrics.getMaxLatency().toMillis() >= 300, metrics.toString());
+    }
+
+    @Test
+    public void testFlushWaitsForKey() {
+        ArtifactExecutor executor = new ArtifactExecutor(2, 10);
+        AtomicInteger written = new AtomicInteger();
+        for (int i = 0; i < 3; i++) {
+            executor.submit("test", () -> {
+                pause(100);
+                written.incrementAndGet();
+            });
+        }
+        Assert.assertTrue(executor.flush("test", Duration.ofSeconds(10)));
+        Assert.assertEquals(written.get(), 3);
+        Assert.assertTrue(executor.flush("unknown", Duration.ofMillis(1)));
+    }
+
+    @Test
+    public void testFailedTaskDoesNotBreakOrder() {
+        ArtifactExecutor executor = new ArtifactExecutor(1, 10);
+        AtomicInteger written = new AtomicInteger();
+        executor.submit("test", () -> {
+            throw new IllegalStateException("disk is full");
+        });
+        executor.submit("test", written::incrementAndGet);
+
+        Assert.assertTrue(executor.flush("test", Duration.ofSeconds(10)));
+        Assert.assertEquals(written.get(), 1);
+    }
+
+    @Test
+    public void testFlushTimeout() {
+        ArtifactExecutor executor = new ArtifactExecutor(1, 10);
+        executor.submit("test", () -> pause(2000));
+        Assert.assertFalse(executor.flush("test", Duration.ofMillis(100)));
+    }
+
+    private static void pause(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
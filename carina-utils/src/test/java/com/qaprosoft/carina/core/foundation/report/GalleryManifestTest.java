@@ -0,0 +1,82 @@
+package com.qaprosoft.carina.core.foundation.report;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import javax.imageio.ImageIO;
+
+import org.apache.commons.io.FileUtils;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class GalleryManifestTest {
+    private static final String CONTAINER = "<h1>${title}</h1><ul>${images}</ul>";
+    private static final String IMAGE = "<li><a href=\"${image}\"><img src=\"${thumbnail}\" title=\"${title}\" loading=\"lazy\"></a></li>";
+
+    private File testDir;
+
+    @BeforeMethod
+    public void createTestDir() throws IOException {
+        testDir = Files.createTempDirectory("gallery").toFile();
+    }
+
+    @AfterMethod(alwaysRun = true)
+    public void deleteTestDir() throws IOException {
+        FileUtils.deleteDirectory(testDir);
+    }
+
+    @Test
+    public void testThumbnailIsWrittenForBigScreenshot() throws IOException {
+        GalleryManifest.add(testDir, "1.png", new BufferedImage(1280, 800, BufferedImage.TYPE_INT_RGB), "Login page");
+
+        File thumbnail = new File(testDir, GalleryManifest.THUMBNAILS_FOLDER + "/1.png");
+        Assert.assertTrue(thumbnail.exists(), "Thumbnail is not written");
+        BufferedImage image = ImageIO.read(thumbnail);
+        Assert.assertEquals(image.getWidth(), GalleryManifest.THUMBNAIL_WIDTH);
+        Assert.assertEquals(image.getHeight(), 200);
+
+        List<GalleryManifest.Entry> entries = GalleryManifest.read(testDir);
+        Assert.assertEquals(entries.size(), 1);
+        Assert.assertEquals(entries.get(0).getImage(), "1.png");
+        Assert.assertEquals(entries.get(0).getThumbnail(), "thumbnails/1.png");
+        Assert.assertEquals(entries.get(0).getTitle(), "Login page");
+    }
+
+    @Test
+    public void testSmallScreenshotIsItsOwnThumbnail() throws IOException {
+        GalleryManifest.add(testDir, "1.png", new BufferedImage(100, 100, BufferedImage.TYPE_INT_RGB), "");
+
+        Assert.assertFalse(new File(testDir, GalleryManifest.THUMBNAILS_FOLDER).exists());
+        Assert.assertEquals(GalleryManifest.read(testDir).get(0).getThumbnail(), "1.png");
+    }
+
+    @Test
+    public void testGalleryIsRenderedFromManifest() throws IOException {
+        GalleryManifest.add(testDir, "2.png", null, "first \"step\"");
+        GalleryManifest.add(testDir, "1.png", null, "");
+        // interrupted write
+        Files.write(new File(testDir, GalleryManifest.FILE_NAME).toPath(), "{\"image\":".getBytes(StandardCharsets.UTF_8),
+                StandardOpenOption.APPEND);
+        // files which are not in the manifest are not in the gallery
+        Files.createFile(new File(testDir, "page.uix").toPath());
+
+        String html = GalleryManifest.render(GalleryManifest.read(testDir), CONTAINER, IMAGE, "Test steps",
+                image -> "comment of " + image, 9);
+
+        Assert.assertEquals(html, "<h1>Test steps</h1><ul>"
+                + "<li><a href=\"2.png\"><img src=\"2.png\" title=\"first \"st\" loading=\"lazy\"></a></li>"
+                + "<li><a href=\"1.png\"><img src=\"1.png\" title=\"comment o\" loading=\"lazy\"></a></li></ul>");
+    }
+
+    @Test
+    public void testNoManifest() throws IOException {
+        Assert.assertTrue(GalleryManifest.read(testDir).isEmpty());
+    }
+}
@@ -0,0 +1,102 @@
+package com.qaprosoft.carina.core.foundation.report;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.FileUtils;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class ReportRetentionTest {
+
+    private File root;
+
+    @BeforeMethod
+    public void createRoot() throws IOException {
+        root = Files.createTempDirectory("reports").toFile();
+    }
+
+    @AfterMethod(alwaysRun = true)
+    public void deleteRoot() throws IOException {
+        FileUtils.deleteDirectory(root);
+    }
+
+    @Test
+    public void testCountLimit() throws Exception {
+        for (int i = 1; i <= 5; i++) {
+            createReport("100" + i, 10);
+        }
+        createReport("1006", 10);
+        new File(root, "gallery-lib").mkdir();
+
+        List<File> removed = new ReportRetention(root, 3, 0).start("1006").get(10, TimeUnit.SECONDS);
+
+        Assert.assertEquals(removed.size(), 3);
+        assertReports("1004", "1005", "1006", "gallery-lib");
+    }
+
+    @Test
+    public void testSizeLimit() throws IOException {
+        createReport("1001", 400);
+        createReport("1002", 300);
+        createReport("1003", 500);
+        createReport("1004", 100);
+
+        new ReportRetention(root, 0, 900).apply("1004");
+
+        assertReports("1002", "1003", "1004");
+    }
+
+    @Test
+    public void testIndexIsUsedForKnownReports() throws IOException {
+        createReport("1001", 100);
+        createReport("1002", 100);
+        new ReportRetention(root, 0, 10_000).apply("1003");
+        Properties index = readIndex();
+        Assert.assertEquals(index.getProperty("1001"), "100");
+        Assert.assertEquals(index.getProperty("1002"), "100");
+
+        // known reports are not measured again, so the stale size from the index is used
+        FileUtils.writeByteArrayToFile(new File(root, "1001/screenshot.png"), new byte[5000]);
+        createReport("1003", 100);
+        new ReportRetention(root, 0, 300).apply("1004");
+        assertReports("1001", "1002", "1003");
+
+        FileUtils.deleteDirectory(new File(root, "1002"));
+        new ReportRetention(root, 0, 300).apply("1004");
+        Assert.assertFalse(readIndex().containsKey("1002"), "Removed report is kept in the index");
+    }
+
+    @Test
+    public void testNoLimits() throws Exception {
+        createReport("1001", 10);
+        Assert.assertTrue(new ReportRetention(root, 0, 0).start("1002").get(10, TimeUnit.SECONDS).isEmpty());
+        Assert.assertFalse(new File(root, ReportRetention.INDEX_FILE).exists(), "Directory is scanned without limits");
+    }
+
+    private void createReport(String name, int size) throws IOException {
+        FileUtils.writeByteArrayToFile(new File(root, name + "/test.log"), new byte[size]);
+    }
+
+    private void assertReports(String... names) {
+        String[] actual = root.list((dir, name) -> !name.startsWith("."));
+        Arrays.sort(actual);
+        Assert.assertEquals(actual, names);
+    }
+
+    private Properties readIndex() throws IOException {
+        Properties index = new Properties();
+        try (InputStream is = Files.newInputStream(new File(root, ReportRetention.INDEX_FILE).toPath())) {
+            index.load(is);
+        }
+        return index;
+    }
+}
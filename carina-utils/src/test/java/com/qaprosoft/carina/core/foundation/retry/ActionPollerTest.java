@@ -0,0 +1,158 @@
+/*******************************************************************************
+ * Copyright 2020-2022 Zebrunner Inc (https://www.zebrunner.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.core.foundation.retry;
+
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class ActionPollerTest {
+
+    @Test
+    public void testSubSecondPollingInterval() {
+        AtomicInteger counter = new AtomicInteger();
+        long start = System.nanoTime();
+        Optional<Integer> result = ActionPoller.<Integer>builder()
+                .task(counter::incrementAndGet)
+                .until(value -> value == 5)
+                .pollEvery(50, ChronoUnit.MILLIS)
+                .stopAfter(5, ChronoUnit.SECONDS)
+                .execute();
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        Assert.assertEquals(result.orElseThrow(), Integer.valueOf(5));
+        Assert.assertTrue(elapsed >= 200, "Polling interval was not respected: " + elapsed + " ms");
+        Assert.assertTrue(elapsed < 2000, "Sub-second polling interval was not used: " + elapsed + " ms");
+    }
+
+    @Test
+    public void testTimeoutIsNotOvershot() {
+        long start = System.nanoTime();
+        Optional<Boolean> result = ActionPoller.<Boolean>builder()
+                .task(() -> false)
+                .until(Boolean::booleanValue)
+                .pollEvery(400, ChronoUnit.MILLIS)
+                .stopAfter(500, ChronoUnit.MILLIS)
+                .execute();
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        Assert.assertTrue(result.isEmpty());
+        Assert.assertTrue(elapsed >= 500 && elapsed < 750, "Polling should stop at the timeout: " + elapsed + " ms");
+    }
+
+    @Test
+    public void testExponentialBackoff() {
+        ActionPoller<Object> poller = ActionPoller.builder()
+                .pollEvery(100, ChronoUnit.MILLIS)
+                .withBackoff(2, Duration.ofMillis(500));
+
+        Assert.assertEquals(poller.nextDelay(0), Duration.ofMillis(100).toNanos());
+        Assert.assertEquals(poller.nextDelay(2), Duration.ofMillis(400).toNanos());
+        Assert.assertEquals(poller.nextDelay(5), Duration.ofMillis(500).toNanos(), "Backoff should be limited by max interval");
+    }
+
+    @Test
+    public void testJitter() {
+        ActionPoller<Object> poller = ActionPoller.builder()
+                .pollEvery(100, ChronoUnit.MILLIS)
+                .withJitter(0.5);
+
+        for (int i = 0; i < 100; i++) {
+            long delay = poller.nextDelay(i);
+            Assert.assertTrue(delay >= Duration.ofMillis(50).toNanos() && delay <= Duration.ofMillis(150).toNanos(),
+                    "Delay is out of jitter range: " + delay);
+        }
+    }
+
+    @Test
+    public void testExecuteAsync() {
+        AtomicInteger counter = new AtomicInteger();
+        CompletableFuture<Optional<Integer>> future = ActionPoller.<Integer>builder()
+                .task(counter::incrementAndGet)
+                .until(value -> value == 3)
+                .pollEvery(10, ChronoUnit.MILLIS)
+                .stopAfter(5, ChronoUnit.SECONDS)
+                .executeAsync();
+
+        Assert.assertEquals(future.join().orElseThrow(), Integer.valueOf(3));
+    }
+
+    @Test
+    public void testExecuteAsyncTimeout() {
+        CompletableFuture<Optional<Boolean>> future = ActionPoller.<Boolean>builder()
+                .task(() -> false)
+                .until(Boolean::booleanValue)
+                .pollEvery(20, ChronoUnit.MILLIS)
+                .stopAfter(100, ChronoUnit.MILLIS)
+                .executeAsync();
+
+        Assert.assertTrue(future.join().isEmpty());
+    }
+
+    @Test
+    public void testExecuteAsyncCancellation() throws InterruptedException {
+        AtomicInteger counter = new AtomicInteger();
+        CompletableFuture<Optional<Integer>> future = ActionPoller.<Integer>builder()
+                .task(counter::incrementAndGet)
+                .until(value -> false)
+                .pollEvery(10, ChronoUnit.MILLIS)
+                .stopAfter(10, ChronoUnit.SECONDS)
+                .executeAsync();
+
+        TimeUnit.MILLISECONDS.sleep(100);
+        future.cancel(false);
+        int attempts = counter.get();
+        TimeUnit.MILLISECONDS.sleep(100);
+
+        Assert.assertTrue(future.isCancelled());
+        Assert.assertTrue(counter.get() <= attempts + 1, "Task should not be repeated after cancellation");
+    }
+
+    @Test
+    public void testExecuteAsyncInTaskExecutor() {
+        ExecutorService taskExecutor = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "blocking-task"));
+        try {
+            CompletableFuture<Optional<String>> future = ActionPoller.<String>builder()
+                    .task(() -> Thread.currentThread().getName())
+                    .until(Objects::nonNull)
+                    .pollEvery(10, ChronoUnit.MILLIS)
+                    .stopAfter(5, ChronoUnit.SECONDS)
+                    .executeAsync(taskExecutor);
+
+            Assert.assertEquals(future.join().orElseThrow(), "blocking-task");
+        } finally {
+            taskExecutor.shutdownNow();
+        }
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testInvalidBackoff() {
+        ActionPoller.builder()
+                .task(() -> null)
+                .until(value -> true)
+                .withBackoff(0.5, null)
+                .execute();
+    }
+}
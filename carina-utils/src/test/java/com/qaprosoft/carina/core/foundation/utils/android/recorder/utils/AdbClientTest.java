@@ -0,0 +1,144 @@
+package com.qaprosoft.carina.core.foundation.utils.android.recorder.utils;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.qaprosoft.carina.core.foundation.utils.Configuration.Parameter;
+import com.qaprosoft.carina.core.foundation.utils.R;
+
+public class AdbClientTest {
+
+    private FakeAdbServer server;
+    private AdbClient client;
+
+    @BeforeMethod
+    public void startServer() throws IOException {
+        server = new FakeAdbServer().device("emulator-5554", "device").device("10.0.0.2:5555", "offline");
+        client = new AdbClient("localhost", server.getPort(), 5000);
+    }
+
+    @AfterMethod(alwaysRun = true)
+    public void stopServer() throws IOException {
+        server.close();
+    }
+
+    @Test
+    public void testVersion() throws IOException {
+        Assert.assertEquals(client.version(), "0029");
+    }
+
+    @Test
+    public void testDevices() throws IOException {
+        List<String> devices = client.devices();
+        Assert.assertEquals(devices.size(), 2);
+        Assert.assertTrue(devices.contains("emulator-5554\tdevice"), "Device not found: " + devices);
+        Assert.assertTrue(devices.contains("10.0.0.2:5555\toffline"), "Device not found: " + devices);
+    }
+
+    @Test
+    public void testConnectDisconnect() throws IOException {
+        Assert.assertEquals(client.connect("10.0.0.3:5555"), "connected to 10.0.0.3:5555");
+        Assert.assertTrue(client.devices().contains("10.0.0.3:5555\tdevice"));
+        Assert.assertEquals(client.disconnect("10.0.0.3:5555"), "disconnected 10.0.0.3:5555");
+        Assert.assertFalse(client.devices().contains("10.0.0.3:5555\tdevice"));
+    }
+
+    @Test
+    public void testShellSeparatesStdoutAndStderr() throws IOException {
+        server.shell(command -> new FakeAdbServer.ShellResult("out: " + command + "\r\nsecond line", "some error\n", 3));
+        List<String> stdout = new ArrayList<>();
+        List<String> stderr = new ArrayList<>();
+        int exitCode = client.shell("emulator-5554", "echo test", stdout::add, stderr::add);
+        Assert.assertEquals(exitCode, 3);
+        Assert.assertEquals(stdout, List.of("out: echo test", "second line"));
+        Assert.assertEquals(stderr, List.of("some error"));
+    }
+
+    @Test
+    public void testLegacyShell() throws IOException {
+        server.shellV2(false).shell(command -> new FakeAdbServer.ShellResult("line1\nline2\n", "", 0));
+        Assert.assertEquals(client.shell(null, "ls"), List.of("line1", "line2"));
+    }
+
+    @Test
+    public void testBigOutput() throws IOException {
+        String output = IntStream.range(0, 100_000).mapToObj(i -> "line " + i).collect(Collectors.joining("\n"));
+        server.shell(command -> new FakeAdbServer.ShellResult(output, "", 0));
+        List<String> lines = client.shell("emulator-5554", "dumpsys");
+        Assert.assertEquals(lines.size(), 100_000);
+        Assert.assertEquals(lines.get(99_999), "line 99999");
+    }
+
+    @Test(expectedExceptions = AdbClient.FailException.class)
+    public void testUnknownDevice() throws IOException {
+        client.shell("unknown", "ls");
+    }
+
+    @Test(expectedExceptions = SocketTimeoutException.class)
+    public void testTimeout() throws IOException {
+        server.shellDelay(2000);
+        new AdbClient("localhost", server.getPort(), 300).shell("emulator-5554", "sleep 2");
+    }
+
+    @Test
+    public void testNotRunningServerIsNotRetried() throws IOException {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        AdbClient notRunning = new AdbClient("localhost", port, 1000);
+        Assert.assertTrue(notRunning.isAvailable());
+        Assert.expectThrows(IOException.class, notRunning::version);
+        Assert.assertFalse(notRunning.isAvailable(), "Not running server should be skipped for a while");
+    }
+
+    @Test
+    public void testExecutorTranslatesCommands() throws IOException {
+        server.shell(command -> new FakeAdbServer.ShellResult(command, "", 0));
+        AdbExecutor executor = new AdbExecutor();
+        Assert.assertEquals(executor.execute(client, new String[] { "adb", "-s", "emulator-5554", "shell", "pm", "list", "packages" }),
+                List.of("pm list packages"));
+        List<String> devices = executor.execute(client, new String[] { "adb", "devices" });
+        Assert.assertEquals(devices.get(0), "List of devices attached");
+        Assert.assertTrue(devices.contains("emulator-5554\tdevice"));
+        Assert.assertEquals(executor.execute(client, new String[] { "adb", "connect", "10.0.0.3:5555" }), List.of("connected to 10.0.0.3:5555"));
+        Assert.assertNull(executor.execute(client, new String[] { "adb", "-s", "emulator-5554", "install", "-r", "app.apk" }),
+                "Not supported command should be executed by process");
+        Assert.assertNull(executor.execute(client, new String[] { "aapt", "dump", "badging", "app.apk" }));
+    }
+
+    @Test
+    public void testServerAddressIsParsed() {
+        Assert.assertEquals(AdbClient.parse("localhost", 1000).getAddress(), "localhost:5037");
+        Assert.assertEquals(AdbClient.parse("10.0.0.1:5038", 1000).getAddress(), "10.0.0.1:5038");
+        Assert.assertEquals(AdbClient.parse(":5038", 1000).getAddress(), "localhost:5038");
+        Assert.expectThrows(IllegalArgumentException.class, () -> AdbClient.parse("localhost:adb", 1000));
+        Assert.expectThrows(IllegalArgumentException.class, () -> AdbClient.parse("localhost:70000", 1000));
+    }
+
+    @Test
+    public void testDefaultClientIsKept() {
+        String server = R.CONFIG.get(Parameter.ADB_SERVER.getKey());
+        try {
+            R.CONFIG.put(Parameter.ADB_SERVER.getKey(), "localhost", true);
+            AdbClient client = AdbClient.getDefault();
+            Assert.assertEquals(client.getAddress(), "localhost:5037");
+            Assert.assertSame(AdbClient.getDefault(), client, "Client is created again for the same adb_server");
+
+            R.CONFIG.put(Parameter.ADB_SERVER.getKey(), "localhost:adb", true);
+            Assert.assertNull(AdbClient.getDefault(), "Invalid adb_server is used");
+        } finally {
+            R.CONFIG.put(Parameter.ADB_SERVER.getKey(), server, true);
+        }
+    }
+}
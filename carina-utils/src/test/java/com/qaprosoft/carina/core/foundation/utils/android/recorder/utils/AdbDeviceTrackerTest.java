@@ -0,0 +1,70 @@
+package com.qaprosoft.carina.core.foundation.utils.android.recorder.utils;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class AdbDeviceTrackerTest {
+
+    private FakeAdbServer server;
+    private AdbDeviceTracker tracker;
+    private final List<String> events = new CopyOnWriteArrayList<>();
+
+    @BeforeMethod
+    public void startTracker() throws IOException {
+        server = new FakeAdbServer().device("emulator-5554", "device");
+        tracker = new AdbDeviceTracker(new AdbClient("localhost", server.getPort(), 5000));
+        events.clear();
+        tracker.addListener((serial, oldState, newState) -> events.add(serial + ":" + oldState + "->" + newState));
+        tracker.start();
+        Assert.assertTrue(tracker.awaitTracking(5000), "Tracker is not connected");
+    }
+
+    @AfterMethod(alwaysRun = true)
+    public void stopTracker() throws IOException {
+        tracker.stop();
+        server.close();
+    }
+
+    @Test
+    public void testInitialState() {
+        Assert.assertTrue(tracker.isConnected("emulator-5554"));
+        Assert.assertFalse(tracker.isConnected("unknown"));
+        Assert.assertEquals(events, List.of("emulator-5554:null->device"));
+    }
+
+    @Test
+    public void testStateChanges() {
+        int connections = server.getConnections();
+        server.device("10.0.0.2:5555", "offline");
+        Assert.assertTrue(tracker.awaitState("10.0.0.2:5555", "offline", 5000));
+        Assert.assertFalse(tracker.isConnected("10.0.0.2:5555"));
+
+        server.device("10.0.0.2:5555", "device");
+        Assert.assertTrue(tracker.awaitState("10.0.0.2:5555", "device", 5000));
+
+        server.removeDevice("emulator-5554");
+        Assert.assertTrue(tracker.awaitState("emulator-5554", null, 5000));
+        Assert.assertFalse(tracker.isConnected("emulator-5554"));
+
+        Assert.assertEquals(events, List.of("emulator-5554:null->device", "10.0.0.2:5555:null->offline",
+                "10.0.0.2:5555:offline->device", "emulator-5554:device->null"));
+        Assert.assertEquals(server.getConnections(), connections, "State checks should not open new connections");
+    }
+
+    @Test
+    public void testTrackingIsLostWithConnection() {
+        server.dropTrackers();
+        Assert.assertTrue(tracker.awaitState("emulator-5554", "device", 100));
+        long deadline = System.currentTimeMillis() + 5000;
+        while (tracker.isTracking() && System.currentTimeMillis() < deadline) {
+            Thread.onSpinWait();
+        }
+        Assert.assertFalse(tracker.isTracking(), "Tracker should report lost connection");
+    }
+}
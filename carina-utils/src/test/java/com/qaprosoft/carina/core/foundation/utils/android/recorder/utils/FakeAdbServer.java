@@ -0,0 +1,265 @@
+package com.qaprosoft.carina.core.foundation.utils.android.recorder.utils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Minimal adb server speaking the socket protocol, enough to test {@link AdbClient} without adb and devices
+ */
+public class FakeAdbServer implements AutoCloseable {
+
+    public static class ShellResult {
+        final String stdout;
+        final String stderr;
+        final int exitCode;
+
+        public ShellResult(String stdout, String stderr, int exitCode) {
+            this.stdout = stdout;
+            this.stderr = stderr;
+            this.exitCode = exitCode;
+        }
+    }
+
+    private final ServerSocket serverSocket;
+    private final Map<String, String> devices = new ConcurrentHashMap<>();
+    private final AtomicInteger connections = new AtomicInteger();
+    private final List<OutputStream> trackers = new CopyOnWriteArrayList<>();
+    private volatile Function<String, ShellResult> shell = command -> new ShellResult("", "", 0);
+    private volatile boolean shellV2 = true;
+    private volatile long shellDelay;
+    private volatile BiConsumer<String, OutputStream> shellStream;
+
+    public FakeAdbServer() throws IOException {
+        serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        Thread thread = new Thread(this::acceptLoop, "fake-adb-server");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    public FakeAdbServer device(String serial, String state) {
+        devices.put(serial, state);
+        notifyTrackers();
+        return this;
+    }
+
+    public FakeAdbServer removeDevice(String serial) {
+        devices.remove(serial);
+        notifyTrackers();
+        return this;
+    }
+
+    /**
+     * Drops all track-devices connections like a restarted adb server
+     */
+    public void dropTrackers() {
+        for (OutputStream tracker : trackers) {
+            try {
+                tracker.close();
+            } catch (IOException e) {
+                // ignore
+            }
+        }
+        trackers.clear();
+    }
+
+    public FakeAdbServer shell(Function<String, ShellResult> shell) {
+        this.shell = shell;
+        return this;
+    }
+
+    public FakeAdbServer shellV2(boolean shellV2) {
+        this.shellV2 = shellV2;
+        return this;
+    }
+
+    /**
+     * Handler of the legacy shell requests that writes the output itself, e.g. to emulate long-running commands
+     */
+    public FakeAdbServer shellStream(BiConsumer<String, OutputStream> shellStream) {
+        this.shellStream = shellStream;
+        return this;
+    }
+
+    public FakeAdbServer shellDelay(long shellDelay) {
+        this.shellDelay = shellDelay;
+        return this;
+    }
+
+    public int getConnections() {
+        return connections.get();
+    }
+
+    private void acceptLoop() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                connections.incrementAndGet();
+                Thread thread = new Thread(() -> handle(socket), "fake-adb-connection");
+                thread.setDaemon(true);
+                thread.start();
+            } catch (IOException e) {
+                // closed
+            }
+        }
+    }
+
+    private void handle(Socket socket) {
+        try (socket) {
+            DataInputStream in = new DataInputStream(socket.getInputStream());
+            OutputStream out = socket.getOutputStream();
+            String serial = null;
+            while (true) {
+                String request = readRequest(in);
+                if ("host:version".equals(request)) {
+                    okay(out, "0029");
+                    return;
+                } else if ("host:devices".equals(request)) {
+                    okay(out, deviceList());
+                    return;
+                } else if ("host:track-devices".equals(request)) {
+                    synchronized (out) {
+                        // registered before the reply, so the tracker that got the list is always dropped by dropTrackers
+                        trackers.add(out);
+                        okay(out, deviceList());
+                    }
+                    // keep connection open until the client or server closes it
+                    while (in.read() != -1) {
+                        // ignore
+                    }
+                    trackers.remove(out);
+                    return;
+                } else if (request.startsWith("host:connect:")) {
+                    String address = request.substring("host:connect:".length());
+                    device(address, "device");
+                    okay(out, "connected to " + address);
+                    return;
+                } else if (request.startsWith("host:disconnect:")) {
+                    String address = request.substring("host:disconnect:".length());
+                    removeDevice(address);
+                    okay(out, "disconnected " + address);
+                    return;
+                } else if ("host:transport-any".equals(request) || request.startsWith("host:transport:")) {
+                    serial = request.startsWith("host:transport:")
+                            ? request.substring("host:transport:".length())
+                            : devices.keySet().stream().findFirst().orElse(null);
+                    if (serial == null || !devices.containsKey(serial)) {
+                        fail(out, "device '" + serial + "' not found");
+                        return;
+                    }
+                    out.write("OKAY".getBytes(StandardCharsets.US_ASCII));
+                } else if (serial != null && request.startsWith("shell,v2,raw:")) {
+                    if (!shellV2) {
+                        fail(out, "closed");
+                        return;
+                    }
+                    out.write("OKAY".getBytes(StandardCharsets.US_ASCII));
+                    ShellResult result = runShell(request.substring("shell,v2,raw:".length()));
+                    packet(out, 1, result.stdout.getBytes(StandardCharsets.UTF_8));
+                    packet(out, 2, result.stderr.getBytes(StandardCharsets.UTF_8));
+                    packet(out, 3, new byte[] { (byte) result.exitCode });
+                    out.flush();
+                    return;
+                } else if (serial != null && request.startsWith("shell:")) {
+                    out.write("OKAY".getBytes(StandardCharsets.US_ASCII));
+                    if (shellStream != null) {
+                        shellStream.accept(request.substring("shell:".length()), out);
+                        return;
+                    }
+                    ShellResult result = runShell(request.substring("shell:".length()));
+                    out.write((result.stdout + result.stderr).getBytes(StandardCharsets.UTF_8));
+                    out.flush();
+                    return;
+                } else {
+                    fail(out, "unknown host service");
+                    return;
+                }
+            }
+        } catch (IOException | InterruptedException e) {
+            // client disconnected
+        }
+    }
+
+    private String deviceList() {
+        StringBuilder list = new StringBuilder();
+        devices.forEach((device, state) -> list.append(device).append('\t').append(state).append('\n'));
+        return list.toString();
+    }
+
+    private void notifyTrackers() {
+        String list = deviceList();
+        for (OutputStream tracker : trackers) {
+            synchronized (tracker) {
+                try {
+                    writeString(tracker, list);
+                } catch (IOException e) {
+                    trackers.remove(tracker);
+                }
+            }
+        }
+    }
+
+    private ShellResult runShell(String command) throws InterruptedException {
+        if (shellDelay > 0) {
+            Thread.sleep(shellDelay);
+        }
+        return shell.apply(command);
+    }
+
+    private static String readRequest(DataInputStream in) throws IOException {
+        byte[] length = new byte[4];
+        in.readFully(length);
+        byte[] request = new byte[Integer.parseInt(new String(length, StandardCharsets.US_ASCII), 16)];
+        in.readFully(request);
+        return new String(request, StandardCharsets.UTF_8);
+    }
+
+    private static void okay(OutputStream out, String reply) throws IOException {
+        out.write("OKAY".getBytes(StandardCharsets.US_ASCII));
+        writeString(out, reply);
+    }
+
+    private static void fail(OutputStream out, String message) throws IOException {
+        out.write("FAIL".getBytes(StandardCharsets.US_ASCII));
+        writeString(out, message);
+    }
+
+    private static void writeString(OutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.write(String.format("%04x", bytes.length).getBytes(StandardCharsets.US_ASCII));
+        out.write(bytes);
+        out.flush();
+    }
+
+    private static void packet(OutputStream out, int id, byte[] data) throws IOException {
+        ByteArrayOutputStream packet = new ByteArrayOutputStream();
+        packet.write(id);
+        packet.write(data.length & 0xff);
+        packet.write(data.length >> 8 & 0xff);
+        packet.write(data.length >> 16 & 0xff);
+        packet.write(data.length >> 24 & 0xff);
+        packet.write(data);
+        out.write(packet.toByteArray());
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+    }
+}
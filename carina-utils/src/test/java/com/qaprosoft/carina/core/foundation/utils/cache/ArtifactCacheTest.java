@@ -0,0 +1,159 @@
+package com.qaprosoft.carina.core.foundation.utils.cache;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.io.FileUtils;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class ArtifactCacheTest {
+
+    private File dir;
+
+    @BeforeMethod
+    public void createDir() throws IOException {
+        dir = Files.createTempDirectory("artifact-cache").toFile();
+    }
+
+    @AfterMethod(alwaysRun = true)
+    public void deleteDir() throws IOException {
+        FileUtils.deleteDirectory(dir);
+    }
+
+    @Test
+    public void testArtifactIsDownloadedOnce() throws IOException {
+        ArtifactCache cache = new ArtifactCache(dir, 1024);
+        AtomicInteger downloads = new AtomicInteger();
+        ArtifactCache.Downloader downloader = target -> {
+            downloads.incrementAndGet();
+            write(target, "build");
+        };
+
+        File first = cache.get("s3://bucket/app.apk#1", "app.apk", downloader);
+        File second = cache.get("s3://bucket/app.apk#1", "app.apk", downloader);
+        Assert.assertEquals(downloads.get(), 1);
+        Assert.assertEquals(first, second);
+        Assert.assertEquals(first.getName(), "app.apk");
+        Assert.assertEquals(read(first), "build");
+
+        // new content has another key
+        cache.get("s3://bucket/app.apk#2", "app.apk", downloader);
+        Assert.assertEquals(downloads.get(), 2);
+
+        File target = new File(dir.getParentFile(), dir.getName() + "-copy/app.apk");
+        cache.copy("s3://bucket/app.apk#1", target, downloader);
+        Assert.assertEquals(downloads.get(), 2);
+        Assert.assertEquals(read(target), "build");
+        FileUtils.deleteDirectory(target.getParentFile());
+    }
+
+    @Test
+    public void testParallelRequestsDownloadOnce() throws Exception {
+        ArtifactCache cache = new ArtifactCache(dir, 1024);
+        AtomicInteger downloads = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        List<CompletableFuture<File>> futures = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            // every thread uses its own cache instance like separate processes
+            ArtifactCache threadCache = i % 2 == 0 ? cache : new ArtifactCache(dir, 1024);
+            futures.add(CompletableFuture.supplyAsync(() -> {
+                try {
+                    start.await();
+                    return threadCache.get("azure://container/app.ipa#etag", "app.ipa", target -> {
+                        downloads.incrementAndGet();
+                        write(target, "ipa");
+                    });
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            }));
+        }
+        start.countDown();
+        for (CompletableFuture<File> future : futures) {
+            Assert.assertEquals(read(future.get(10, TimeUnit.SECONDS)), "ipa");
+        }
+        Assert.assertEquals(downloads.get(), 1);
+    }
+
+    @Test
+    public void testFailedDownloadIsNotCached() throws IOException {
+        ArtifactCache cache = new ArtifactCache(dir, 1024);
+        try {
+            cache.get("key", "app.apk", target -> {
+                write(target, "partial");
+                throw new IOException("connection reset");
+            });
+            Assert.fail("Download failure is not propagated");
+        } catch (IOException e) {
+            Assert.assertEquals(e.getMessage(), "connection reset");
+        }
+        File file = cache.get("key", "app.apk", target -> write(target, "complete"));
+        Assert.assertEquals(read(file), "complete");
+        Assert.assertEquals(file.getParentFile().listFiles((d, name) -> name.endsWith(".part")).length, 0);
+    }
+
+    @Test
+    public void testFailedDownloadIsResumed() throws IOException {
+        ArtifactCache cache = new ArtifactCache(dir, 1024);
+        List<File> parts = new ArrayList<>();
+        try {
+            cache.get("key", "app.apk", target -> {
+                parts.add(target);
+                write(target, "part");
+                write(new File(target.getPath() + ".download"), "done=0");
+                throw new IOException("connection reset");
+            });
+            Assert.fail("Download failure is not propagated");
+        } catch (IOException e) {
+            Assert.assertEquals(read(parts.get(0)), "part", "Part of the failed download is removed");
+        }
+
+        File file = cache.get("key", "app.apk", target -> {
+            parts.add(target);
+            write(target, read(target) + " and the rest");
+        });
+        Assert.assertEquals(parts.get(1), parts.get(0));
+        Assert.assertEquals(read(file), "part and the rest");
+        Assert.assertEquals(file.getParentFile().list((d, name) -> name.startsWith("app.apk.")).length, 0,
+                "Download state is not removed");
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEntriesAreEvicted() throws IOException {
+        // every entry takes 100 bytes of content and a small key file
+        ArtifactCache cache = new ArtifactCache(dir, 250);
+        String content = "x".repeat(100);
+        File first = cache.get("first", "first.apk", target -> write(target, content));
+        File second = cache.get("second", "second.apk", target -> write(target, content));
+        first.setLastModified(System.currentTimeMillis() - 60_000);
+        second.setLastModified(System.currentTimeMillis() - 30_000);
+        new File(first.getParentFile(), "key").setLastModified(System.currentTimeMillis() - 60_000);
+        new File(second.getParentFile(), "key").setLastModified(System.currentTimeMillis() - 30_000);
+
+        File third = cache.get("third", "third.apk", target -> write(target, content));
+        Assert.assertFalse(first.exists(), "The least recently used entry is not evicted");
+        Assert.assertTrue(second.exists());
+        Assert.assertTrue(third.exists());
+        // lock files of the second and third entries and of the eviction
+        Assert.assertEquals(dir.list((d, name) -> name.endsWith(".lock")).length, 3, "Lock file of the evicted entry is kept");
+    }
+
+    private static void write(File file, String content) throws IOException {
+        Files.writeString(file.toPath(), content, StandardCharsets.UTF_8);
+    }
+
+    private static String read(File file) throws IOException {
+        return Files.readString(file.toPath(), StandardCharsets.UTF_8);
+    }
+}
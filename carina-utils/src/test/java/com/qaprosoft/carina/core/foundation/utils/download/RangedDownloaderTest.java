@@ -0,0 +1,210 @@
+package com.qaprosoft.carina.core.foundation.utils.download;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.io.FileUtils;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.qaprosoft.carina.core.foundation.utils.FileManager;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+public class RangedDownloaderTest {
+    private static final Pattern RANGE = Pattern.compile("bytes=(\\d+)-(\\d+)");
+    private static final int SIZE = 1024 * 1024 + 123;
+
+    private final byte[] content = new byte[SIZE];
+    private final List<String> ranges = new CopyOnWriteArrayList<>();
+    private final AtomicInteger failures = new AtomicInteger();
+    private HttpServer server;
+    private File dir;
+
+    @BeforeClass
+    public void startServer() throws IOException {
+        new Random(42).nextBytes(content);
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/ranged", this::serveRange);
+        server.createContext("/plain", exchange -> {
+            exchange.sendResponseHeaders(200, content.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(content);
+            }
+        });
+        server.createContext("/empty", exchange -> {
+            exchange.getResponseHeaders().set("Content-Range", "bytes */0");
+            exchange.sendResponseHeaders(416, -1);
+            exchange.close();
+        });
+        server.start();
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void stopServer() {
+        server.stop(0);
+    }
+
+    @BeforeMethod
+    public void createDir() throws IOException {
+        dir = Files.createTempDirectory("ranged-download").toFile();
+        ranges.clear();
+        failures.set(0);
+    }
+
+    @AfterMethod(alwaysRun = true)
+    public void deleteDir() throws IOException {
+        FileUtils.deleteDirectory(dir);
+    }
+
+    private void serveRange(HttpExchange exchange) throws IOException {
+        Matcher matcher = RANGE.matcher(String.valueOf(exchange.getRequestHeaders().getFirst("Range")));
+        if (!matcher.matches()) {
+            exchange.sendResponseHeaders(400, -1);
+            exchange.close();
+            return;
+        }
+        int start = Integer.parseInt(matcher.group(1));
+        int end = Math.min(Integer.parseInt(matcher.group(2)), content.length - 1);
+        ranges.add(start + "-" + end);
+        exchange.getResponseHeaders().set("Content-Range", "bytes " + start + "-" + end + "/" + content.length);
+        exchange.getResponseHeaders().set("ETag", "\"v1\"");
+        int length = end - start + 1;
+        exchange.sendResponseHeaders(206, length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            if (start > 0 && failures.getAndDecrement() > 0) {
+                // broken connection in the middle of the part
+                os.write(content, start, length / 2);
+                os.flush();
+                exchange.close();
+                return;
+            }
+            os.write(content, start, length);
+        } catch (IOException e) {
+            // client closed connection
+        }
+    }
+
+    @Test
+    public void testParallelDownload() throws Exception {
+        File target = new File(dir, "app.apk");
+        List<Long> progress = new ArrayList<>();
+        RangedDownloader.builder()
+                .threads(4)
+                .partSize(100 * 1024)
+                .checksum(FileManager.Checksum.MD5, md5Hex())
+                .onProgress((downloaded, total) -> {
+                    synchronized (progress) {
+                        progress.add(downloaded);
+                    }
+                    Assert.assertEquals(total, SIZE);
+                })
+                .download(url("/ranged"), target);
+
+        Assert.assertEquals(Files.readAllBytes(target.toPath()), content);
+        // probe request and 11 parts
+        Assert.assertEquals(ranges.size(), 12);
+        Assert.assertEquals((long) progress.get(progress.size() - 1), SIZE);
+        Assert.assertFalse(new File(dir, "app.apk.download").exists(), "Download state is not removed");
+    }
+
+    @Test
+    public void testBrokenPartIsRetried() throws Exception {
+        failures.set(2);
+        File target = new File(dir, "app.apk");
+        RangedDownloader.builder()
+                .threads(2)
+                .partSize(256 * 1024)
+                .download(url("/ranged"), target);
+        Assert.assertEquals(Files.readAllBytes(target.toPath()), content);
+    }
+
+    @Test
+    public void testDownloadIsResumed() throws Exception {
+        File target = new File(dir, "app.apk");
+        long partSize = 512 * 1024;
+        // the first part was downloaded by the previous attempt
+        byte[] partial = new byte[SIZE];
+        System.arraycopy(content, 0, partial, 0, (int) partSize);
+        Files.write(target.toPath(), partial);
+        Files.writeString(new File(dir, "app.apk.download").toPath(),
+                "length=" + SIZE + "\npartSize=" + partSize + "\netag=\"v1\"\ndone=0\n");
+
+        RangedDownloader.builder()
+                .partSize(partSize)
+                .checksum(FileManager.Checksum.MD5, md5Hex())
+                .download(url("/ranged"), target);
+
+        Assert.assertEquals(Files.readAllBytes(target.toPath()), content);
+        Assert.assertFalse(ranges.contains("0-" + (partSize - 1)), "Downloaded part is requested again: " + ranges);
+    }
+
+    @Test
+    public void testChecksumMismatch() throws Exception {
+        File target = new File(dir, "app.apk");
+        try {
+            RangedDownloader.builder()
+                    .checksum(FileManager.Checksum.MD5, "00000000000000000000000000000000")
+                    .download(url("/ranged"), target);
+            Assert.fail("Checksum mismatch is not detected");
+        } catch (IOException e) {
+            Assert.assertTrue(e.getMessage().contains("Checksum"), e.getMessage());
+        }
+        Assert.assertFalse(target.exists(), "File with wrong checksum is not removed");
+    }
+
+    @Test
+    public void testServerWithoutRanges() throws Exception {
+        File target = new File(dir, "app.ipa");
+        RangedDownloader.builder()
+                .checksum(FileManager.Checksum.MD5, md5Hex())
+                .download(url("/plain"), target);
+        Assert.assertEquals(Files.readAllBytes(target.toPath()), content);
+    }
+
+    @Test
+    public void testEmptyFile() throws Exception {
+        File target = new File(dir, "empty.txt");
+        Files.writeString(target.toPath(), "stale");
+        List<Long> progress = new ArrayList<>();
+        RangedDownloader.builder()
+                .onProgress((downloaded, total) -> progress.add(total))
+                .download(url("/empty"), target);
+        Assert.assertEquals(target.length(), 0);
+        Assert.assertEquals(progress, List.of(0L));
+    }
+
+    @Test
+    public void testProgressIsReportedOnceBySingleStream() throws Exception {
+        List<Long> progress = new ArrayList<>();
+        RangedDownloader.builder()
+                .onProgress((downloaded, total) -> progress.add(downloaded))
+                .download(url("/plain"), new File(dir, "app.ipa"));
+        Assert.assertEquals(progress.stream().filter(downloaded -> downloaded == SIZE).count(), 1);
+    }
+
+    private String md5Hex() throws Exception {
+        return Hex.encodeHexString(MessageDigest.getInstance("MD5").digest(content));
+    }
+
+    private URL url(String path) throws IOException {
+        return new URL("http://127.0.0.1:" + server.getAddress().getPort() + path);
+    }
+}
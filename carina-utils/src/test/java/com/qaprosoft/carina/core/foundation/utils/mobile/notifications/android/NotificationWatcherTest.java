@@ -0,0 +1,131 @@
+package com.qaprosoft.carina.core.foundation.utils.mobile.notifications.android;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.qaprosoft.carina.core.foundation.utils.android.recorder.utils.AdbClient;
+import com.qaprosoft.carina.core.foundation.utils.android.recorder.utils.FakeAdbServer;
+
+public class NotificationWatcherTest {
+
+    private static final String EOF = "EOF";
+
+    private FakeAdbServer server;
+    private NotificationWatcher watcher;
+    private BlockingQueue<String> output;
+    private volatile String command;
+    private final AtomicInteger streams = new AtomicInteger();
+
+    @BeforeMethod
+    public void startWatcher() throws IOException {
+        output = new LinkedBlockingQueue<>();
+        streams.set(0);
+        server = new FakeAdbServer().device("emulator-5554", "device").shellStream(this::stream);
+        watcher = new NotificationWatcher(new AdbClient("localhost", server.getPort(), 5000), "emulator-5554", 500);
+    }
+
+    @AfterMethod(alwaysRun = true)
+    public void stopWatcher() throws IOException {
+        output.add(EOF);
+        watcher.close();
+        server.close();
+    }
+
+    private void stream(String command, OutputStream out) {
+        this.command = command;
+        streams.incrementAndGet();
+        try {
+            String chunk;
+            while (!EOF.equals(chunk = output.take())) {
+                out.write(chunk.getBytes(StandardCharsets.UTF_8));
+                out.flush();
+            }
+        } catch (IOException | InterruptedException e) {
+            // client disconnected
+        }
+    }
+
+    private static String notification(String pkg, String text) {
+        return "  NotificationRecord(0x0123: pkg=" + pkg + " user=UserHandle{0} id=1 tag=null)\n"
+                + "    tickerText=" + text + "\n";
+    }
+
+    @Test
+    public void testFutureIsCompletedBeforeDumpEnd() throws Exception {
+        CompletableFuture<Notification> future = watcher.await(n -> "Message from Bob".equals(n.getNotificationText()));
+        output.add("NOTIFICATION MANAGER (dumpsys notification)\n" + notification("com.android.mms", "Message from Alice"));
+        Assert.assertThrows(() -> future.get(300, TimeUnit.MILLISECONDS));
+
+        // the rest of the dump is still not received
+        output.add(notification("com.android.mms", "Message from Bob"));
+        Notification notification = future.get(5, TimeUnit.SECONDS);
+        Assert.assertEquals(notification.getNotificationPkg(), "com.android.mms");
+        Assert.assertTrue(command.contains("dumpsys notification"), "Unexpected shell command: " + command);
+        Assert.assertTrue(command.contains("sleep 1;"), "Fractional sleep is not supported by old devices: " + command);
+    }
+
+    @Test
+    public void testCurrentNotificationsAreMatched() throws Exception {
+        CompletableFuture<Notification> pending = watcher.await(n -> false);
+        output.add(notification("com.example", "Hello") + NotificationWatcher.DUMP_END + "\n");
+        Assert.assertTrue(watcher.waitFor(n -> "Hello".equals(n.getNotificationText()), 5));
+        long deadline = System.currentTimeMillis() + 5000;
+        while (watcher.getNotifications().isEmpty() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Assert.assertEquals(watcher.getNotifications().size(), 1);
+
+        // already shown notification is returned without waiting for the next dump
+        Assert.assertTrue(watcher.await(n -> "com.example".equals(n.getNotificationPkg())).isDone());
+        pending.cancel(false);
+    }
+
+    @Test
+    public void testStreamIsRunningWhileWaiting() throws Exception {
+        Assert.assertFalse(watcher.isWatching(), "Stream should not be started without waiters");
+
+        CompletableFuture<Notification> first = watcher.await(n -> "First".equals(n.getNotificationText()));
+        CompletableFuture<Notification> second = watcher.await(n -> "Second".equals(n.getNotificationText()));
+        Assert.assertTrue(watcher.isWatching());
+        output.add(notification("com.example", "First"));
+        first.get(5, TimeUnit.SECONDS);
+        Assert.assertTrue(watcher.isWatching(), "Stream should be kept for the second waiter");
+
+        second.cancel(false);
+        Assert.assertFalse(watcher.isWatching(), "Stream should be stopped when the last waiter leaves");
+        Assert.assertEquals(streams.get(), 1);
+    }
+
+    @Test
+    public void testStreamFailureIsThrown() throws IOException {
+        int port = server.getPort();
+        server.close();
+        NotificationWatcher unavailable = new NotificationWatcher(new AdbClient("localhost", port, 1000), "emulator-5554", 500);
+        try {
+            long start = System.currentTimeMillis();
+            Assert.assertThrows(UncheckedIOException.class, () -> unavailable.waitFor(n -> true, 10));
+            Assert.assertTrue(System.currentTimeMillis() - start < 5000, "Failure should not wait for the timeout");
+            Assert.assertFalse(unavailable.isWatching());
+        } finally {
+            unavailable.close();
+        }
+    }
+
+    @Test
+    public void testTimeout() {
+        output.add(notification("com.example", "Hello") + NotificationWatcher.DUMP_END + "\n");
+        Assert.assertFalse(watcher.waitFor(n -> "Bye".equals(n.getNotificationText()), 1));
+    }
+}
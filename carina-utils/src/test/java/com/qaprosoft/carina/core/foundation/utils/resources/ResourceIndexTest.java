@@ -0,0 +1,70 @@
+package com.qaprosoft.carina.core.foundation.utils.resources;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.file.Files;
+
+import org.apache.commons.io.FileUtils;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class ResourceIndexTest {
+
+    private File classpathEntry;
+    private File root;
+    private File index;
+
+    @BeforeMethod
+    public void createClasspathEntry() throws IOException {
+        classpathEntry = Files.createTempDirectory("classes").toFile();
+        root = new File(classpathEntry, "L10N");
+        FileUtils.writeStringToFile(new File(root, "locale.properties"), "key=value", "UTF-8");
+        index = new File(classpathEntry, Resources.INDEX_FILE);
+        FileUtils.writeStringToFile(index, "L10N/locale.properties\n", "UTF-8");
+        setLastModified(root, 1_000_000);
+        setLastModified(index, 2_000_000);
+    }
+
+    @AfterMethod(alwaysRun = true)
+    public void deleteClasspathEntry() throws IOException {
+        FileUtils.deleteDirectory(classpathEntry);
+    }
+
+    @Test
+    public void testActualIndexIsUsed() throws IOException {
+        Assert.assertTrue(Resources.isIndexed(rootUrl()));
+    }
+
+    @Test
+    public void testIndexIsOutdatedByNewResource() throws IOException {
+        FileUtils.writeStringToFile(new File(root, "locale_de_DE.properties"), "key=wert", "UTF-8");
+        setLastModified(root, 3_000_000);
+        Assert.assertFalse(Resources.isIndexed(rootUrl()), "Resource added after the index generation is not found");
+    }
+
+    @Test
+    public void testIndexIsOutdatedByNestedResource() throws IOException {
+        File nested = new File(root, "nested");
+        FileUtils.writeStringToFile(new File(nested, "locale.properties"), "key=value", "UTF-8");
+        setLastModified(root, 1_000_000);
+        setLastModified(nested, 3_000_000);
+        Assert.assertFalse(Resources.isIndexed(rootUrl()));
+    }
+
+    @Test
+    public void testNoIndex() throws IOException {
+        Assert.assertTrue(index.delete());
+        Assert.assertFalse(Resources.isIndexed(rootUrl()));
+    }
+
+    private URL rootUrl() throws IOException {
+        return root.toURI().toURL();
+    }
+
+    private static void setLastModified(File file, long time) {
+        Assert.assertTrue(file.setLastModified(time));
+    }
+}
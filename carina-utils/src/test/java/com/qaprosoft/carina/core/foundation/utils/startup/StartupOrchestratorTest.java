@@ -0,0 +1,124 @@
+package com.qaprosoft.carina.core.foundation.utils.startup;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class StartupOrchestratorTest {
+
+    @Test
+    public void testIndependentStepsAreConcurrent() {
+        CountDownLatch latch = new CountDownLatch(2);
+        Runnable meetOther = () -> {
+            latch.countDown();
+            try {
+                // passes only when the other step is running at the same time
+                Assert.assertTrue(latch.await(5, TimeUnit.SECONDS), "Steps are not run concurrently");
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+        };
+        StartupOrchestrator startup = new StartupOrchestrator(Duration.ofSeconds(10))
+                .addStep("first", meetOther)
+                .addStep("second", meetOther);
+        startup.await();
+
+        Assert.assertEquals(startup.getStatus("first"), StartupOrchestrator.Status.PASSED);
+        Assert.assertEquals(startup.getStatus("second"), StartupOrchestrator.Status.PASSED);
+    }
+
+    @Test
+    public void testDependenciesAreRespected() {
+        List<String> order = new CopyOnWriteArrayList<>();
+        StartupOrchestrator startup = new StartupOrchestrator(Duration.ofSeconds(10))
+                .addStep("config", () -> {
+                    pause(200);
+                    order.add("config");
+                })
+                .addStep("app", () -> order.add("app"), "config")
+                .addStep("reference", () -> order.add("reference"), "app", "config");
+        startup.await();
+
+        Assert.assertEquals(order, List.of("config", "app", "reference"));
+        Assert.assertTrue(startup.getDuration("config").toMillis() >= 200, "Step duration is not measured");
+        Assert.assertTrue(startup.getReport().contains("after app, config"), "Dependencies are not reported: " + startup.getReport());
+    }
+
+    @Test
+    public void testFailedRequiredStepIsThrown() {
+        IllegalStateException failure = new IllegalStateException("app is not found");
+        StartupOrchestrator startup = new StartupOrchestrator(Duration.ofSeconds(10))
+                .addStep("app", () -> {
+                    throw failure;
+                })
+                .addStep("reference", () -> Assert.fail("Step is run after the failed dependency"), "app")
+                .addOptionalStep("l10n", () -> {
+                });
+
+        IllegalStateException thrown = Assert.expectThrows(IllegalStateException.class, startup::await);
+        Assert.assertSame(thrown, failure);
+        Assert.assertEquals(startup.getStatus("app"), StartupOrchestrator.Status.FAILED);
+        Assert.assertEquals(startup.getStatus("reference"), StartupOrchestrator.Status.SKIPPED);
+        Assert.assertEquals(startup.getStatus("l10n"), StartupOrchestrator.Status.PASSED);
+    }
+
+    @Test
+    public void testFailedOptionalStepIsIgnored() {
+        StartupOrchestrator startup = new StartupOrchestrator(Duration.ofSeconds(10))
+                .addOptionalStep("l10n", () -> {
+                    throw new IllegalStateException("broken bundle");
+                })
+                .addStep("app", () -> {
+                });
+        startup.await();
+
+        Assert.assertEquals(startup.getStatus("l10n"), StartupOrchestrator.Status.FAILED);
+        Assert.assertEquals(startup.getStatus("app"), StartupOrchestrator.Status.PASSED);
+    }
+
+    @Test
+    public void testStepTimeout() {
+        StartupOrchestrator startup = new StartupOrchestrator(Duration.ofSeconds(10))
+                .addStep("app", Duration.ofMillis(200), true, () -> pause(5000))
+                .addOptionalStep("reference", () -> {
+                }, "app");
+
+        long start = System.currentTimeMillis();
+        RuntimeException thrown = Assert.expectThrows(RuntimeException.class, startup::await);
+        Assert.assertTrue(System.currentTimeMillis() - start < 4000, "Startup waits for the timed out step");
+        Assert.assertTrue(thrown.getMessage().contains("'app'"), thrown.getMessage());
+        Assert.assertEquals(startup.getStatus("app"), StartupOrchestrator.Status.TIMED_OUT);
+        Assert.assertEquals(startup.getStatus("reference"), StartupOrchestrator.Status.SKIPPED);
+    }
+
+    @Test
+    public void testRequiredStepIsNotLimitedByDefaultTimeout() {
+        StartupOrchestrator startup = new StartupOrchestrator(Duration.ofMillis(100))
+                .addStep("app", () -> pause(500))
+                .addOptionalStep("l10n", () -> pause(5000));
+        startup.await();
+
+        Assert.assertEquals(startup.getStatus("app"), StartupOrchestrator.Status.PASSED);
+        Assert.assertEquals(startup.getStatus("l10n"), StartupOrchestrator.Status.TIMED_OUT);
+    }
+
+    @Test
+    public void testUnknownDependency() {
+        StartupOrchestrator startup = new StartupOrchestrator(Duration.ofSeconds(10));
+        Assert.expectThrows(IllegalArgumentException.class, () -> startup.addStep("app", () -> {
+        }, "config"));
+    }
+
+    private static void pause(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -15,6 +15,11 @@
  *******************************************************************************/
 package com.qaprosoft.carina.core.utils;
 
+import java.util.ArrayList;
+import java.util.Locale;
+import java.util.ResourceBundle;
+import java.util.Set;
+
 import com.qaprosoft.carina.core.foundation.utils.resources.L10N;
 import org.testng.Assert;
 import org.testng.annotations.Test;
@@ -63,4 +68,26 @@ public class L10NTest {
 
         Assert.assertEquals(value, FRANCE_VALUE, "France value doesn't equal to " + GERMAN_VALUE);
     }
+
+    @Test
+    public void testMissingKeyIsReported() {
+        L10N.setLocale("de_DE");
+        L10N.load();
+
+        Assert.assertEquals(L10N.getText("missing_key"), "missing_key", "Missing key should be returned as is");
+        Assert.assertEquals(L10N.getText("missing_key"), "missing_key");
+        Assert.assertEquals(L10N.getMissingKeys(), Set.of("missing_key"));
+        Assert.assertFalse(L10N.getMissingKeys().contains(KEY));
+    }
+
+    @Test
+    public void testCustomBundles() {
+        L10N.setLocale("en_US");
+        ArrayList<ResourceBundle> bundles = new ArrayList<>();
+        bundles.add(ResourceBundle.getBundle("L10N.locale", new Locale("de", "DE")));
+        bundles.add(ResourceBundle.getBundle("L10N.locale", new Locale("en", "US")));
+        L10N.load(bundles);
+
+        Assert.assertEquals(L10N.getText(KEY), US_VALUE, "Only bundles of the current locale should be used");
+    }
 }
@@ -0,0 +1,35 @@
+package com.qaprosoft.carina.core.utils;
+
+import java.net.URL;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.qaprosoft.carina.core.foundation.utils.resources.Resources;
+
+public class ResourcesTest {
+
+    @Test
+    public void testIndexIsGeneratedOnCompilation() {
+        Assert.assertNotNull(getClass().getClassLoader().getResource(Resources.INDEX_FILE),
+                "Resource index should be generated by the annotation processor");
+    }
+
+    @Test
+    public void testL10NResourcesAreFound() {
+        Set<String> names = new TreeSet<>();
+        for (URL url : Resources.getResourceURLs(url -> url.getPath().contains("L10N"))) {
+            names.add(url.getPath().substring(url.getPath().lastIndexOf('/') + 1));
+        }
+        Assert.assertEquals(names, new TreeSet<>(Set.of("locale.properties", "locale_de_DE.properties",
+                "locale_en_US.properties", "locale_fr_FR.properties")));
+    }
+
+    @Test
+    public void testFilterIsApplied() {
+        Set<URL> urls = Resources.getResourceURLs(url -> url.getPath().endsWith("locale_de_DE.properties"));
+        Assert.assertEquals(urls.size(), 1);
+    }
+}
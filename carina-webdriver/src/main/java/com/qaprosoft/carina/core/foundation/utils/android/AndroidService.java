@@ -15,14 +15,17 @@
  *******************************************************************************/
 package com.qaprosoft.carina.core.foundation.utils.android;
 
+import java.io.UncheckedIOException;
 import java.lang.invoke.MethodHandles;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
+import java.util.Optional;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import org.apache.commons.lang3.StringUtils;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.support.decorators.Decorated;
 import org.slf4j.Logger;
@@ -33,6 +36,7 @@ import com.qaprosoft.carina.core.foundation.utils.android.recorder.utils.CmdLine
 import com.qaprosoft.carina.core.foundation.utils.common.CommonUtils;
 import com.qaprosoft.carina.core.foundation.utils.factory.DeviceType;
 import com.qaprosoft.carina.core.foundation.utils.mobile.notifications.android.Notification;
+import com.qaprosoft.carina.core.foundation.utils.mobile.notifications.android.NotificationWatcher;
 import com.qaprosoft.carina.core.foundation.webdriver.IDriverPool;
 import com.qaprosoft.carina.core.foundation.webdriver.Screenshot;
 import com.qaprosoft.carina.core.gui.mobile.devices.android.phone.pages.fakegps.FakeGpsPage;
@@ -355,6 +359,14 @@ public class AndroidService implements IDriverPool, IAndroidUtils {
      * @return boolean
      */
     public boolean waitUntilNewNotificationAppear(String text, long timeout) {
+        Optional<NotificationWatcher> watcher = NotificationWatcher.getInstance(IDriverPool.getDefaultDevice().getAdbName());
+        if (watcher.isPresent()) {
+            try {
+                return watcher.get().waitFor(notification -> StringUtils.contains(notification.getNotificationText(), text), timeout);
+            } catch (UncheckedIOException e) {
+                LOGGER.warn("Notifications stream is not available, notifications will be polled: " + e.getMessage());
+            }
+        }
         // boolean found = false;
         int base = notificationsCount();
         int time = 0;
@@ -399,6 +411,14 @@ public class AndroidService implements IDriverPool, IAndroidUtils {
      * @return boolean
      */
     public boolean waitUntilNewNotificationPackageAppear(String pkg, long timeout) {
+        Optional<NotificationWatcher> watcher = NotificationWatcher.getInstance(IDriverPool.getDefaultDevice().getAdbName());
+        if (watcher.isPresent()) {
+            try {
+                return watcher.get().waitFor(notification -> StringUtils.contains(notification.getNotificationPkg(), pkg), timeout);
+            } catch (UncheckedIOException e) {
+                LOGGER.warn("Notifications stream is not available, notifications will be polled: " + e.getMessage());
+            }
+        }
         // boolean found = false;
         int base = notificationsCount();
         int time = 0;
@@ -43,6 +43,7 @@ import com.qaprosoft.carina.core.foundation.exception.DriverPoolException;
 import com.qaprosoft.carina.core.foundation.utils.Configuration;
 import com.qaprosoft.carina.core.foundation.utils.Configuration.Parameter;
 import com.qaprosoft.carina.core.foundation.utils.R;
+import com.qaprosoft.carina.core.foundation.utils.android.recorder.utils.AdbDeviceTracker;
 import com.qaprosoft.carina.core.foundation.utils.common.CommonUtils;
 import com.qaprosoft.carina.core.foundation.webdriver.TestPhase.Phase;
 import com.qaprosoft.carina.core.foundation.webdriver.core.factory.DriverFactory;
@@ -62,6 +63,20 @@ public interface IDriverPool {
     static final Device nullDevice = new Device();
     
     static final ThreadLocal<MutableCapabilities> customCapabilities = new ThreadLocal<>();
+
+    // reports devices of the running drivers lost by adb server as soon as it happens
+    static final AdbDeviceTracker.Listener ADB_DEVICE_LISTENER = (serial, oldState, newState) -> {
+        if (!AdbDeviceTracker.DEVICE_STATE.equals(oldState)) {
+            return;
+        }
+        for (CarinaDriver carinaDriver : driversPool) {
+            Device device = carinaDriver.getDevice();
+            if (serial.equals(device.getAdbName())) {
+                POOL_LOGGER.warn("Device '{}' of the driver '{}' is disconnected from adb, state: {}", device.getName(),
+                        carinaDriver.getName(), newState);
+            }
+        }
+    };
     
     /**
      * Get default driver. If no default driver discovered it will be created.
@@ -536,6 +551,10 @@ public interface IDriverPool {
         boolean enableAdb = R.CONFIG.getBoolean(SpecialKeywords.ENABLE_ADB);
         if (enableAdb) {
             device.connectRemote();
+            AdbDeviceTracker tracker = AdbDeviceTracker.getDefault();
+            if (tracker != null) {
+                tracker.addListener(ADB_DEVICE_LISTENER);
+            }
         }
 
         // register current device to be able to transfer it into Zafira at the end of the test
@@ -16,13 +16,13 @@
 package com.qaprosoft.carina.core.foundation.webdriver;
 
 import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.lang.invoke.MethodHandles;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Proxy;
-import java.nio.file.Files;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
@@ -31,7 +31,6 @@ import java.util.List;
 
 import javax.imageio.ImageIO;
 
-import org.apache.commons.io.FileUtils;
 import org.imgscalr.Scalr;
 import org.openqa.selenium.HasCapabilities;
 import org.openqa.selenium.NoSuchWindowException;
@@ -53,6 +52,7 @@ import com.qaprosoft.carina.core.foundation.utils.Configuration;
 import com.qaprosoft.carina.core.foundation.utils.Configuration.Parameter;
 import com.qaprosoft.carina.core.foundation.webdriver.augmenter.DriverAugmenter;
 import com.qaprosoft.carina.core.foundation.webdriver.screenshot.IScreenshotRule;
+import com.zebrunner.agent.core.config.ConfigurationHolder;
 
 import io.appium.java_client.AppiumDriver;
 import io.appium.java_client.remote.MobileCapabilityType;
@@ -272,9 +272,8 @@ public class Screenshot {
                             Configuration.getInt(Parameter.BIG_SCREEN_HEIGHT), screenPath);
                 }
 
-                File screenshot = new File(screenPath);
-
-                ImageIO.write(screen, "PNG", screenshot);
+                // screenshot file is written in the background
+                ReportContext.saveScreenshot(screenName, screen, comment);
 
                 if (!comment.isEmpty()) {
                     LOGGER.info(comment);
@@ -282,7 +281,9 @@ public class Screenshot {
                     ReportContext.addScreenshotComment(screenName, comment);
                 }
                 //upload screenshot to Zebrunner Reporting
-                com.zebrunner.agent.core.registrar.Screenshot.upload(Files.readAllBytes(screenshot.toPath()), Instant.now().toEpochMilli());
+                if (ConfigurationHolder.isReportingEnabled()) {
+                    com.zebrunner.agent.core.registrar.Screenshot.upload(toPng(screen), Instant.now().toEpochMilli());
+                }
             } catch (NoSuchWindowException e) {
                 LOGGER.warn("Unable to capture screenshot due to NoSuchWindowException!");
                 LOGGER.debug(ERROR_STACKTRACE, e);
@@ -315,6 +316,19 @@ public class Screenshot {
      * @param path
      *            - path to screenshot file.
      */
+    /**
+     * Encodes the screenshot for Zebrunner Reporting, as the screenshot file may not be written yet.
+     *
+     * @param screen screenshot image
+     * @return PNG bytes
+     * @throws IOException if image can't be encoded
+     */
+    private static byte[] toPng(BufferedImage screen) throws IOException {
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        ImageIO.write(screen, "PNG", os);
+        return os.toByteArray();
+    }
+
     private static void resizeImg(BufferedImage bufferedImage, int width, int height, String path) {
         try {
             BufferedImage bufImage = Scalr.resize(bufferedImage, Scalr.Method.BALANCED, Scalr.Mode.FIT_TO_WIDTH, width, height,
@@ -542,15 +556,16 @@ public class Screenshot {
                             Configuration.getInt(Parameter.BIG_SCREEN_HEIGHT), screenPath);
                 }
 
-                File screenshot = new File(screenPath);
-                FileUtils.touch(screenshot);
-                ImageIO.write(screen, "PNG", screenshot);
+                // screenshot file is written in the background
+                ReportContext.saveScreenshot(screenName, screen, comment);
 
                 // Uploading comparative screenshot to Amazon S3
-                if (artifact){
-                    com.zebrunner.agent.core.registrar.Artifact.attachToTest(comment + ".png", screenshot);
-                } else {
-                    com.zebrunner.agent.core.registrar.Screenshot.upload(Files.readAllBytes(screenshot.toPath()), Instant.now().toEpochMilli());
+                if (ConfigurationHolder.isReportingEnabled()) {
+                    if (artifact) {
+                        com.zebrunner.agent.core.registrar.Artifact.attachToTest(comment + ".png", toPng(screen));
+                    } else {
+                        com.zebrunner.agent.core.registrar.Screenshot.upload(toPng(screen), Instant.now().toEpochMilli());
+                    }
                 }
             }
             else {
@@ -39,6 +39,7 @@ import com.qaprosoft.carina.core.foundation.report.ReportContext;
 import com.qaprosoft.carina.core.foundation.utils.Configuration;
 import com.qaprosoft.carina.core.foundation.utils.Configuration.Parameter;
 import com.qaprosoft.carina.core.foundation.utils.R;
+import com.qaprosoft.carina.core.foundation.utils.android.recorder.utils.AdbDeviceTracker;
 import com.qaprosoft.carina.core.foundation.utils.android.recorder.utils.AdbExecutor;
 import com.qaprosoft.carina.core.foundation.utils.android.recorder.utils.CmdLine;
 import com.qaprosoft.carina.core.foundation.utils.common.CommonUtils;
@@ -306,11 +307,19 @@ public class Device implements IDriverPool {
         LOGGER.debug("adb connect " + connectUrl);
         String[] cmd = CmdLine.insertCommandsAfter(executor.getDefaultCmd(), "connect", connectUrl);
         executor.execute(cmd);
-        CommonUtils.pause(1);
 
-        // TODO: verify that device connected and raise an error if not and disabled adb integration
-        String[] cmd2 = CmdLine.insertCommandsAfter(executor.getDefaultCmd(), "devices");
-        executor.execute(cmd2);
+        AdbDeviceTracker tracker = AdbDeviceTracker.getDefault();
+        if (tracker != null && tracker.isTracking()) {
+            if (!tracker.awaitState(connectUrl, AdbDeviceTracker.DEVICE_STATE, 1000)) {
+                LOGGER.debug("Device '{}' is not connected yet, state: {}", connectUrl, tracker.getState(connectUrl).orElse(null));
+            }
+        } else {
+            CommonUtils.pause(1);
+
+            // TODO: verify that device connected and raise an error if not and disabled adb integration
+            String[] cmd2 = CmdLine.insertCommandsAfter(executor.getDefaultCmd(), "devices");
+            executor.execute(cmd2);
+        }
 
         isAdbEnabled = true;
     }
@@ -702,6 +711,11 @@ public class Device implements IDriverPool {
     private boolean isConnected() {
     	try {
 	        if (getOs().equalsIgnoreCase(DeviceType.Type.ANDROID_PHONE.getFamily())) {
+	            // served from memory while adb server is tracked, no adb command is needed
+	            AdbDeviceTracker tracker = AdbDeviceTracker.getDefault();
+	            if (tracker != null && tracker.isTracking()) {
+	                return tracker.isConnected(getAdbName());
+	            }
 	            return getConnectedDevices().stream().parallel().anyMatch((m) -> m.contains(getAdbName()));
 	        } else {
 	            return false;